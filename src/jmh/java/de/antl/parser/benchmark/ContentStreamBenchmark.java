@@ -0,0 +1,57 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.content.ContentStreamParser;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.service.PDFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentStreamBenchmark {
+    private final List<PDFStream> contents = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        byte[] pdf = PDFCorpus.smallText(200);
+        PDFDocument document = PDFDocument.open(ByteBuffer.allocateDirect(pdf.length).put(pdf).flip());
+        for (int objectNumber = 0; objectNumber < document.getXRefIndex().size(); objectNumber++) {
+            PDFIndirectObject object = document.getObject(objectNumber);
+            if (object != null && object.value() instanceof PDFStream stream) {
+                contents.add(stream);
+            }
+        }
+    }
+
+    // Inflates and interprets every page content stream; reports operators/s as tokens.
+    @Benchmark
+    public long interpretOperators(Counters counters) throws IOException, ParseException {
+        ContentStreamParser parser = new ContentStreamParser();
+        long[] operators = new long[1];
+        for (PDFStream stream : contents) {
+            parser.parse(stream, (operator, operands) -> operators[0]++);
+        }
+        counters.tokens += operators[0];
+        return operators[0];
+    }
+}
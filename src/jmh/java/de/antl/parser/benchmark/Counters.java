@@ -0,0 +1,25 @@
+package de.antl.parser.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Secondary throughput metrics reported next to ops/s: tokens/s, objects/s, bytes/s and pages/s.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Counters {
+    public long tokens;
+    public long objects;
+    public long bytes;
+    public long pages;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        tokens = 0;
+        objects = 0;
+        bytes = 0;
+        pages = 0;
+    }
+}
@@ -0,0 +1,99 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.export.BinaryExporter;
+import de.antl.parser.export.JsonExporter;
+import de.antl.parser.export.ObjectExporter;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.service.PDFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Writing already parsed objects: the toString dump Main used to print against the two exporters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+    @Param({PDFCorpus.SMALL_TEXT, PDFCorpus.NESTED_DICTIONARIES, PDFCorpus.LARGE_STREAMS})
+    public String corpus;
+
+    private List<PDFIndirectObject> objects;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        byte[] pdf = PDFCorpus.generate(corpus);
+        objects = PDFDocument.open(ByteBuffer.allocateDirect(pdf.length).put(pdf).flip())
+                .loadAllObjects(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public long toStringDump(Counters counters) {
+        CountingStream out = new CountingStream();
+        for (PDFIndirectObject object : objects) {
+            byte[] line = (object + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(line, 0, line.length);
+        }
+        return count(counters, out);
+    }
+
+    @Benchmark
+    public long exportJson(Counters counters) throws IOException, ParseException {
+        CountingStream out = new CountingStream();
+        export(new JsonExporter(out));
+        return count(counters, out);
+    }
+
+    @Benchmark
+    public long exportBinary(Counters counters) throws IOException, ParseException {
+        CountingStream out = new CountingStream();
+        export(new BinaryExporter(out));
+        return count(counters, out);
+    }
+
+    private void export(ObjectExporter exporter) throws IOException, ParseException {
+        for (PDFIndirectObject object : objects) {
+            exporter.object(object);
+        }
+        exporter.flush();
+    }
+
+    private long count(Counters counters, CountingStream out) {
+        counters.objects += objects.size();
+        counters.bytes += out.count;
+        return out.count;
+    }
+
+    private static final class CountingStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.service.PDFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.InflaterInputStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InflateBenchmark {
+    @Param({PDFCorpus.SMALL_TEXT, PDFCorpus.LARGE_STREAMS, PDFCorpus.PREDICTED_IMAGES})
+    public String corpus;
+
+    private static final List<String> FLATE = List.of("FlateDecode");
+
+    private final List<PDFStream> streams = new ArrayList<>();
+    private final BufferPool pool = new BufferPool();
+    private final byte[] sink = new byte[64 * 1024];
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        byte[] pdf = PDFCorpus.generate(corpus);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(pdf.length).put(pdf).flip();
+        PDFDocument document = PDFDocument.open(buffer);
+        for (int objectNumber = 0; objectNumber < document.getXRefIndex().size(); objectNumber++) {
+            PDFIndirectObject object = document.getObject(objectNumber);
+            if (object != null && object.value() instanceof PDFStream stream) {
+                streams.add(stream);
+            }
+        }
+    }
+
+    // Baseline: the decoder this parser started with. Each Flate stream is copied to a byte[] and read through
+    // an InflaterInputStream 1 KB at a time into a ByteArrayOutputStream. Predictors are not undone, as that
+    // decoder did not know them either. Other streams are only copied.
+    @Benchmark
+    public void decodeLegacy(Counters counters, Blackhole blackhole) throws IOException {
+        for (PDFStream stream : streams) {
+            ByteBuffer raw = stream.rawData();
+            byte[] data = new byte[raw.remaining()];
+            raw.get(data);
+            if (!stream.filters().equals(FLATE)) {
+                counters.bytes += data.length;
+                blackhole.consume(data);
+                continue;
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (InflaterInputStream input = new InflaterInputStream(new ByteArrayInputStream(data))) {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+            }
+            byte[] decoded = output.toByteArray();
+            counters.bytes += decoded.length;
+            blackhole.consume(decoded);
+        }
+    }
+
+    // Streams the decoded data through a fixed buffer; reports decoded bytes/s.
+    @Benchmark
+    public long decodeStreaming(Counters counters) throws IOException {
+        long total = 0;
+        for (PDFStream stream : streams) {
+            try (InputStream input = stream.openStream()) {
+                int read;
+                while ((read = input.read(sink)) > 0) {
+                    total += read;
+                }
+            }
+        }
+        counters.bytes += total;
+        return total;
+    }
+
+    // Materializes every stream as a byte[], the way a naive caller would.
+    @Benchmark
+    public void decodeFully(Counters counters, Blackhole blackhole) throws IOException {
+        for (PDFStream stream : streams) {
+            byte[] decoded = stream.decode();
+            counters.bytes += decoded.length;
+            blackhole.consume(decoded);
+        }
+    }
+
+    // Decodes into pooled direct buffers that are handed back after each stream; predictors are undone in place.
+    @Benchmark
+    public void decodePooled(Counters counters, Blackhole blackhole) throws IOException {
+        for (PDFStream stream : streams) {
+            try (PooledBuffer decoded = stream.decode(pool)) {
+                counters.bytes += decoded.size();
+                blackhole.consume(decoded.buffer());
+            }
+        }
+    }
+}
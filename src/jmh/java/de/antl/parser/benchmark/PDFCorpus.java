@@ -0,0 +1,209 @@
+package de.antl.parser.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+// Generates the synthetic documents the benchmarks run against.
+public final class PDFCorpus {
+    public static final String SMALL_TEXT = "smallText";
+    public static final String LARGE_XREF = "largeXRef";
+    public static final String NESTED_DICTIONARIES = "nestedDictionaries";
+    public static final String LARGE_STREAMS = "largeStreams";
+    public static final String PREDICTED_IMAGES = "predictedImages";
+
+    private PDFCorpus() {
+    }
+
+    public static byte[] generate(String name) {
+        return switch (name) {
+            case SMALL_TEXT -> smallText(20);
+            case LARGE_XREF -> largeXRef(100_000);
+            case NESTED_DICTIONARIES -> nestedDictionaries(2_000, 32);
+            case LARGE_STREAMS -> largeStreams(8, 4 << 20);
+            case PREDICTED_IMAGES -> predictedImages(8, 1024, 1024);
+            default -> throw new IllegalArgumentException("Unknown corpus: " + name);
+        };
+    }
+
+    public static byte[] smallText(int pages) {
+        Builder builder = new Builder();
+        int pagesObject = 2;
+        int fontObject = 3;
+        builder.add("<< /Type /Catalog /Pages 2 0 R >>");
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pages; i++) {
+            kids.append(4 + 2 * i).append(" 0 R ");
+        }
+        builder.add("<< /Type /Pages /Kids [" + kids + "] /Count " + pages + " /MediaBox [0 0 612 792] >>");
+        builder.add("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        for (int i = 0; i < pages; i++) {
+            builder.add("<< /Type /Page /Parent " + pagesObject + " 0 R /Contents " + (5 + 2 * i)
+                    + " 0 R /Resources << /Font << /F1 " + fontObject + " 0 R >> >> >>");
+            builder.addStream("", textContent(i, 60), true);
+        }
+        return builder.build();
+    }
+
+    public static byte[] largeXRef(int objects) {
+        Builder builder = new Builder();
+        builder.add("<< /Type /Catalog >>");
+        for (int i = 1; i < objects; i++) {
+            builder.add("<< /Type /Annot /Subtype /Link /Rect [" + i + " 0 " + (i + 10) + " 10] /Border [0 0 0] /P 1 0 R >>");
+        }
+        return builder.build();
+    }
+
+    public static byte[] nestedDictionaries(int objects, int depth) {
+        Builder builder = new Builder();
+        builder.add("<< /Type /Catalog >>");
+        StringBuilder open = new StringBuilder();
+        StringBuilder close = new StringBuilder();
+        for (int d = 0; d < depth; d++) {
+            open.append("<< /Level ").append(d).append(" /Name /N").append(d).append(" /Array [").append(d).append(" (s) 1.5] /Next ");
+            close.append(" >>");
+        }
+        String body = open + "null" + close;
+        for (int i = 1; i < objects; i++) {
+            builder.add(body);
+        }
+        return builder.build();
+    }
+
+    public static byte[] largeStreams(int streams, int size) {
+        Builder builder = new Builder();
+        builder.add("<< /Type /Catalog >>");
+        Random random = new Random(42);
+        for (int i = 0; i < streams; i++) {
+            // Image-like data: noisy gradients that compress to roughly a third of their size.
+            byte[] data = new byte[size];
+            for (int j = 0; j < size; j++) {
+                data[j] = (byte) ((j % 256) + random.nextInt(16));
+            }
+            builder.addStream("/Type /XObject /Subtype /Image /Width 1024 /Height " + size / 1024
+                    + " /BitsPerComponent 8 /ColorSpace /DeviceGray", data, true);
+        }
+        return builder.build();
+    }
+
+    // RGB images as PNG encoders write them: every row is Sub, Up, Average or Paeth filtered in turn.
+    public static byte[] predictedImages(int images, int width, int height) {
+        Builder builder = new Builder();
+        builder.add("<< /Type /Catalog >>");
+        Random random = new Random(42);
+        int bpp = 3;
+        int rowLength = width * bpp;
+        for (int i = 0; i < images; i++) {
+            byte[] prior = new byte[rowLength];
+            byte[] row = new byte[rowLength];
+            byte[] data = new byte[height * (rowLength + 1)];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < rowLength; x++) {
+                    row[x] = (byte) (x / bpp + y + random.nextInt(8) + x % bpp * 64);
+                }
+                int filterType = 1 + y % 4;
+                int offset = y * (rowLength + 1);
+                data[offset] = (byte) filterType;
+                for (int x = 0; x < rowLength; x++) {
+                    int a = x >= bpp ? row[x - bpp] & 0xFF : 0;
+                    int b = prior[x] & 0xFF;
+                    int c = x >= bpp ? prior[x - bpp] & 0xFF : 0;
+                    int predicted = switch (filterType) {
+                        case 1 -> a;
+                        case 2 -> b;
+                        case 3 -> (a + b) >>> 1;
+                        default -> paeth(a, b, c);
+                    };
+                    data[offset + 1 + x] = (byte) (row[x] - predicted);
+                }
+                byte[] encodedRow = prior;
+                prior = row;
+                row = encodedRow;
+            }
+            builder.addStream("/Type /XObject /Subtype /Image /Width " + width + " /Height " + height
+                    + " /BitsPerComponent 8 /ColorSpace /DeviceRGB /DecodeParms << /Predictor 15 /Colors 3"
+                    + " /BitsPerComponent 8 /Columns " + width + " >>", data, true);
+        }
+        return builder.build();
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static byte[] textContent(int page, int lines) {
+        StringBuilder content = new StringBuilder("BT /F1 12 Tf 72 720 Td 14 TL\n");
+        for (int line = 0; line < lines; line++) {
+            content.append("(Page ").append(page).append(" line ").append(line)
+                    .append(" of some ordinary running text) Tj T*\n");
+        }
+        content.append("ET");
+        return content.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class Builder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final List<Integer> offsets = new ArrayList<>();
+
+        Builder() {
+            write("%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n");
+        }
+
+        void add(String body) {
+            beginObject();
+            write(body);
+            write("\nendobj\n");
+        }
+
+        void addStream(String dictionary, byte[] data, boolean flate) {
+            byte[] payload = flate ? deflate(data) : data;
+            beginObject();
+            write("<< " + dictionary + (flate ? " /Filter /FlateDecode" : "") + " /Length " + payload.length + " >>\nstream\n");
+            out.writeBytes(payload);
+            write("\nendstream\nendobj\n");
+        }
+
+        private void beginObject() {
+            offsets.add(out.size());
+            write(offsets.size() + " 0 obj\n");
+        }
+
+        byte[] build() {
+            int xref = out.size();
+            write("xref\n0 " + (offsets.size() + 1) + "\n0000000000 65535 f \n");
+            for (int offset : offsets) {
+                write(String.format("%010d 00000 n \n", offset));
+            }
+            write("trailer\n<< /Size " + (offsets.size() + 1) + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+            return out.toByteArray();
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        private static byte[] deflate(byte[] data) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2);
+            byte[] buffer = new byte[65536];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                compressed.write(buffer, 0, count);
+            }
+            deflater.end();
+            return compressed.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFBufferTokenizer;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFParser;
+import de.antl.parser.service.Projection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({PDFCorpus.SMALL_TEXT, PDFCorpus.LARGE_XREF, PDFCorpus.NESTED_DICTIONARIES, PDFCorpus.LARGE_STREAMS})
+    public String corpus;
+
+    private static final Projection TYPE_ONLY = Projection.of("Type");
+
+    private ByteBuffer buffer;
+    private int[] offsets;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        byte[] pdf = PDFCorpus.generate(corpus);
+        buffer = ByteBuffer.allocateDirect(pdf.length).put(pdf).flip();
+
+        XRefIndex index = PDFDocument.open(buffer).getXRefIndex();
+        offsets = new int[index.size()];
+        int count = 0;
+        for (int objectNumber = 0; objectNumber < index.size(); objectNumber++) {
+            if (index.isInUse(objectNumber)) {
+                offsets[count++] = (int) index.offset(objectNumber);
+            }
+        }
+        offsets = Arrays.copyOf(offsets, count);
+    }
+
+    // Cost of reading startxref, the xref section and the trailer.
+    @Benchmark
+    public PDFDocument openDocument() throws IOException, ParseException {
+        return PDFDocument.open(buffer);
+    }
+
+    @Benchmark
+    public void parseIndirectObjects(Counters counters, Blackhole blackhole) throws IOException, ParseException {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0);
+        PDFParser parser = new PDFParser(tokenizer);
+        for (int offset : offsets) {
+            tokenizer.seek(offset);
+            parser.reset();
+            blackhole.consume(parser.parseIndirectObject());
+        }
+        counters.objects += offsets.length;
+    }
+
+    // The same objects when only /Type is wanted, as in classification jobs; the rest is skipped unbuilt.
+    @Benchmark
+    public void parseProjected(Counters counters, Blackhole blackhole) throws IOException, ParseException {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0);
+        PDFParser parser = new PDFParser(tokenizer);
+        for (int offset : offsets) {
+            tokenizer.seek(offset);
+            parser.reset();
+            blackhole.consume(parser.parseIndirectObject(TYPE_ONLY));
+        }
+        counters.objects += offsets.length;
+    }
+
+    @Benchmark
+    public void loadAllObjectsParallel(Counters counters, Blackhole blackhole) throws IOException, ParseException {
+        List<PDFIndirectObject> objects = PDFDocument.open(buffer).loadAllObjects(ForkJoinPool.commonPool());
+        blackhole.consume(objects);
+        counters.objects += objects.size();
+    }
+}
@@ -0,0 +1,71 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.text.TextExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextExtractionBenchmark {
+    private PDFDocument document;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        byte[] pdf = PDFCorpus.smallText(200);
+        document = PDFDocument.open(ByteBuffer.allocateDirect(pdf.length).put(pdf).flip());
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        document.close();
+    }
+
+    // One thread, page after page; pages/s here is the per-core rate.
+    @Benchmark
+    public long extractSequential(Counters counters) throws IOException, ParseException {
+        TextExtractor extractor = new TextExtractor(document);
+        long chars = 0;
+        int pages = document.getPageCount();
+        for (int i = 0; i < pages; i++) {
+            chars += extractor.extractPage(i).length();
+        }
+        counters.pages += pages;
+        counters.bytes += chars;
+        return chars;
+    }
+
+    // All pages on the pool, delivered in order to the calling thread.
+    @Benchmark
+    public long extractParallel(Counters counters) throws IOException, ParseException {
+        long[] chars = new long[1];
+        new TextExtractor(document).extract(pool, page -> {
+            chars[0] += page.text().length();
+            counters.pages++;
+        });
+        counters.bytes += chars[0];
+        return chars[0];
+    }
+}
@@ -0,0 +1,78 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.service.PDFBufferTokenizer;
+import de.antl.parser.service.PDFTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+    @Param({PDFCorpus.SMALL_TEXT, PDFCorpus.LARGE_XREF, PDFCorpus.NESTED_DICTIONARIES, PDFCorpus.LARGE_STREAMS})
+    public String corpus;
+
+    private byte[] pdf;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        pdf = PDFCorpus.generate(corpus);
+        buffer = ByteBuffer.allocateDirect(pdf.length).put(pdf).flip();
+    }
+
+    @Benchmark
+    public long bufferTokenizer(Counters counters) {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0);
+        long tokens = 0;
+        while (tokenizer.nextToken() != null) {
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += pdf.length;
+        return tokens;
+    }
+
+    @Benchmark
+    public long bufferTokenizerCursor(Counters counters) {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0);
+        long tokens = 0;
+        while (tokenizer.next() != null) {
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += pdf.length;
+        return tokens;
+    }
+
+    @Benchmark
+    public long readerTokenizer(Counters counters) throws IOException {
+        PDFTokenizer tokenizer = new PDFTokenizer(new InputStreamReader(new ByteArrayInputStream(pdf), StandardCharsets.ISO_8859_1));
+        long tokens = 0;
+        while (tokenizer.nextToken() != null) {
+            tokens++;
+        }
+        counters.tokens += tokens;
+        counters.bytes += pdf.length;
+        return tokens;
+    }
+}
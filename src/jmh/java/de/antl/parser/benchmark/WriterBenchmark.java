@@ -0,0 +1,90 @@
+package de.antl.parser.benchmark;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.CompactionResult;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.Token;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.writer.DocumentCompactor;
+import de.antl.parser.writer.IncrementalUpdate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Saving a document: appending one changed object against rewriting and compacting the whole file.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+    @Param({PDFCorpus.SMALL_TEXT, PDFCorpus.LARGE_STREAMS})
+    public String corpus;
+
+    private byte[] pdf;
+    private PDFDocument document;
+    private Path file;
+    private FileChannel channel;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        pdf = PDFCorpus.generate(corpus);
+        document = PDFDocument.open(ByteBuffer.allocateDirect(pdf.length).put(pdf).flip());
+        file = Files.createTempFile("writer-benchmark", ".pdf");
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Every incremental save starts again from the original file.
+    @Setup(Level.Invocation)
+    public void restore() throws IOException {
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(pdf), 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+        document.close();
+    }
+
+    @Benchmark
+    public long appendIncremental(Counters counters) throws IOException, ParseException {
+        IncrementalUpdate update = new IncrementalUpdate(document);
+        PDFDictionary stamp = new PDFDictionary();
+        stamp.put("Type", new Token(TokenType.NAME, "Stamp"));
+        update.add(stamp);
+        long length = update.appendTo(channel);
+        counters.bytes += length - pdf.length;
+        return length;
+    }
+
+    @Benchmark
+    public CompactionResult compact(Counters counters) throws IOException, ParseException {
+        CompactionResult result = new DocumentCompactor(document, ForkJoinPool.commonPool()).write(channel);
+        counters.objects += result.objectsRead();
+        counters.bytes += result.outputLength();
+        return result;
+    }
+}
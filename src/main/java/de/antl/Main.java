@@ -1,38 +1,208 @@
 package de.antl;
 
+import de.antl.parser.batch.BatchOptions;
+import de.antl.parser.batch.BatchPipeline;
 import de.antl.parser.enums.TokenType;
 import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.export.BinaryExporter;
+import de.antl.parser.export.JsonExporter;
+import de.antl.parser.export.ObjectExporter;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.metrics.ParseStatistics;
 import de.antl.parser.model.PDFIndirectObject;
 import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
 import de.antl.parser.model.XRefTable;
+import de.antl.parser.service.IndexCache;
+import de.antl.parser.service.ObjectCache;
+import de.antl.parser.service.PDFBufferTokenizer;
+import de.antl.parser.service.PDFDocument;
 import de.antl.parser.service.PDFParser;
-import de.antl.parser.service.PDFTokenizer;
+import de.antl.parser.text.TextExtractor;
+import de.antl.parser.writer.DocumentCompactor;
 
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Main {
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
         if (args.length < 1) {
-            System.out.println("Usage: PDFParserApp <pdf-file-path>");
+            System.out.println("Usage: PDFParserApp <pdf-file-path> [--stats] [--index-cache <directory>] [--text] [--first-page]"
+                    + " [--export json|binary] [--compact <output>]");
+            System.out.println("       PDFParserApp --batch <directory> [--io <threads>] [--cpu <threads>] [--queue <capacity>]");
+            return;
+        }
+
+        if ("--batch".equals(args[0])) {
+            runBatch(args);
             return;
         }
 
         String pdfFilePath = args[0];
+        ParseStatistics statistics = null;
+        IndexCache indexCache = null;
+        boolean text = false;
+        boolean firstPage = false;
+        String export = null;
+        Path compactTarget = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--stats" -> statistics = new ParseStatistics();
+                case "--index-cache" -> indexCache = new IndexCache(Path.of(args[++i]));
+                case "--text" -> text = true;
+                case "--first-page" -> firstPage = true;
+                case "--export" -> export = args[++i];
+                case "--compact" -> compactTarget = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        try {
+            // Prefer random access through the cross-reference table
+            ObjectCache cache = new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES);
+            ParseListener listener = statistics != null ? statistics : ParseListener.NONE;
+            if (firstPage) {
+                // Linearized files are read through their first page section, without the rest of the file.
+                try (PDFDocument document = PDFDocument.openLinearized(PDFBufferTokenizer.map(Path.of(pdfFilePath)),
+                        cache, listener)) {
+                    System.out.println(new TextExtractor(document).extractPage(0));
+                }
+                return;
+            }
+            try (PDFDocument document = indexCache != null
+                    ? indexCache.open(Path.of(pdfFilePath), cache, listener)
+                    : PDFDocument.open(Path.of(pdfFilePath), cache, listener)) {
+                inspect(document, text, export, compactTarget, statistics);
+            }
+        } catch (ParseException e) {
+            System.err.println("Could not use the cross-reference table, reconstructing it: " + e);
+            recover(Path.of(pdfFilePath), export);
+        }
+    }
+
+    private static void inspect(PDFDocument document, boolean text, String export, Path compactTarget,
+                                ParseStatistics statistics) throws IOException, ParseException {
+        if (text) {
+            // Page texts separated by form feeds, streamed in page order.
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            new TextExtractor(document).write(writer, ForkJoinPool.commonPool());
+            return;
+        }
+        if (export != null) {
+            export(document, export);
+            return;
+        }
+        if (compactTarget != null) {
+            System.out.println(new DocumentCompactor(document, ForkJoinPool.commonPool()).write(compactTarget));
+            return;
+        }
+        XRefIndex index = document.getXRefIndex();
+        List<PDFIndirectObject> objects = document.loadAllObjects(Runtime.getRuntime().availableProcessors());
+        printObjects(objects);
+        System.out.println("Cross-Reference Index: " + index);
+        System.out.println("Parsed Trailer:");
+        System.out.println(document.getTrailer());
+        if (document.getLinearization() != null) {
+            System.out.println(document.getLinearization());
+        }
+        if (statistics != null) {
+            System.out.println(statistics);
+        }
+    }
+
+    // Records go to standard output as each object is parsed.
+    private static void export(PDFDocument document, String format) throws IOException, ParseException {
+        ObjectExporter exporter = switch (format) {
+            case "json" -> new JsonExporter(System.out);
+            case "binary" -> new BinaryExporter(System.out);
+            default -> throw new IllegalArgumentException("Unknown export format: " + format);
+        };
+        exporter.export(document);
+    }
+
+    private static void recover(Path pdfFilePath, String export) throws IOException {
+        try (PDFDocument document = PDFDocument.recover(pdfFilePath)) {
+            if (export != null) {
+                export(document, export);
+                return;
+            }
+            printObjects(document.loadAllObjects(Runtime.getRuntime().availableProcessors()));
+            System.out.println("Reconstructed Cross-Reference Index: " + document.getXRefIndex());
+            System.out.println("Reconstructed Trailer:");
+            System.out.println(document.getTrailer());
+        } catch (ParseException e) {
+            System.err.println("Could not reconstruct the cross-reference table, scanning the whole file: " + e);
+            scanFile(pdfFilePath);
+        }
+    }
+
+    private static void runBatch(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: PDFParserApp --batch <directory> [--io <threads>] [--cpu <threads>] [--queue <capacity>]");
+            return;
+        }
+        BatchOptions defaults = BatchOptions.defaults();
+        int ioThreads = defaults.ioThreads();
+        int cpuThreads = defaults.cpuThreads();
+        int queueCapacity = defaults.queueCapacity();
+        for (int i = 2; i < args.length; i += 2) {
+            String option = args[i];
+            if (!option.equals("--io") && !option.equals("--cpu") && !option.equals("--queue")) {
+                throw new IllegalArgumentException("Unknown option: " + option);
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + option);
+            }
+            int value = Integer.parseInt(args[i + 1]);
+            switch (option) {
+                case "--io" -> ioThreads = value;
+                case "--cpu" -> cpuThreads = value;
+                default -> queueCapacity = value;
+            }
+        }
+        BatchOptions options = new BatchOptions(ioThreads, cpuThreads, queueCapacity, defaults.prefetch());
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        // One line per document as soon as it is done; nothing is kept after it has been printed.
+        try (BatchPipeline<Integer> pipeline = new BatchPipeline<>(options, Main::pageCount, result -> {
+            if (result.succeeded()) {
+                succeeded.incrementAndGet();
+                System.out.printf("OK   %s objects=%d pages=%d %.1fms%n", result.path(), result.objectCount(),
+                        result.value(), result.totalNanos() / 1e6);
+            } else {
+                failed.incrementAndGet();
+                System.out.printf("FAIL %s %s%n", result.path(), result.failure());
+            }
+        })) {
+            pipeline.submitDirectory(Path.of(args[1]));
+            pipeline.finish();
+        }
+        System.out.printf("Processed %d documents (%d failed) in %.1fs%n", succeeded.get() + failed.get(), failed.get(),
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private static Integer pageCount(PDFDocument document, List<PDFIndirectObject> objects) throws IOException, ParseException {
+        return document.getPageCount();
+    }
+
+    private static void scanFile(Path pdfFilePath) throws IOException {
         List<PDFIndirectObject> objects = new ArrayList<>();
-        XRefTable xrefTable = null;
+        List<XRefTable> xrefTable = null;
         Map<String, Object> trailer = null;
-        System.out.println(new String(Files.readAllBytes(Path.of(pdfFilePath))));
 
-        try (FileReader fileReader = new FileReader(pdfFilePath, StandardCharsets.ISO_8859_1)) {
-            // Initialize the tokenizer with the file reader
-            PDFTokenizer tokenizer = new PDFTokenizer(fileReader);
+        try {
+            // Initialize the tokenizer over the memory-mapped file
+            PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(PDFBufferTokenizer.map(pdfFilePath));
             // Create the parser using the tokenizer
             PDFParser parser = new PDFParser(tokenizer);
 
@@ -45,7 +215,7 @@ public class Main {
                 }
 
                 // Check for PDF header, e.g. "%PDF-1.7"
-                if (token.getStringValue().startsWith("%PDF-")) {
+                if (token.type() == TokenType.VERSION) {
                     System.out.println("PDF Header: " + token.value());
                     tokenizer.nextToken(); // Consume the header token
                     continue;
@@ -80,10 +250,7 @@ public class Main {
             throw new RuntimeException(e);
         }
 
-        System.out.println("Parsed " + objects.size() + " objects");
-        for (PDFIndirectObject object : objects) {
-            System.out.println(object);
-        }
+        printObjects(objects);
 
         if (xrefTable != null) {
             System.out.println("Parsed Cross-Reference Table:");
@@ -95,4 +262,11 @@ public class Main {
             System.out.println(trailer);
         }
     }
-}
\ No newline at end of file
+
+    private static void printObjects(List<PDFIndirectObject> objects) {
+        System.out.println("Parsed " + objects.size() + " objects");
+        for (PDFIndirectObject object : objects) {
+            System.out.println(object);
+        }
+    }
+}
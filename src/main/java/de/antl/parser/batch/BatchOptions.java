@@ -0,0 +1,20 @@
+package de.antl.parser.batch;
+
+public record BatchOptions(
+        int ioThreads,
+        int cpuThreads,
+        int queueCapacity,
+        boolean prefetch
+) {
+    public BatchOptions {
+        if (ioThreads <= 0 || cpuThreads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Thread counts and queue capacity must be positive: " + this);
+        }
+    }
+
+    // I/O threads mostly wait on the disk, so there are more of them than cores.
+    public static BatchOptions defaults() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new BatchOptions(2 * cores, cores, 2 * cores, true);
+    }
+}
@@ -0,0 +1,243 @@
+package de.antl.parser.batch;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.DocumentResult;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.service.PDFBufferTokenizer;
+import de.antl.parser.service.PDFDocument;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Runs open -> index -> parse -> extract as pipelined stages connected by bounded queues.
+// A full queue blocks the stage in front of it, so submit() slows down to the pace of the slowest stage
+// and at most a few queue lengths of documents are in memory at any time.
+public final class BatchPipeline<T> implements AutoCloseable {
+    private static final Job END = new Job(null);
+
+    private final BatchOptions options;
+    private final DocumentHandler<T> handler;
+    private final Consumer<DocumentResult<T>> results;
+    private final ForkJoinPool parsePool;
+    private final Stage open;
+    private final Stage index;
+    private final Stage parse;
+    private final Stage extract;
+    private final CountDownLatch done = new CountDownLatch(1);
+    // Read by submit() on any thread once finish() has set it.
+    private volatile boolean finished;
+
+    // Results are delivered from pipeline threads, in completion order.
+    public BatchPipeline(BatchOptions options, DocumentHandler<T> handler, Consumer<DocumentResult<T>> results) {
+        this.options = options;
+        this.handler = handler;
+        this.results = results;
+        this.parsePool = new ForkJoinPool(options.cpuThreads());
+        this.extract = new Stage(options.cpuThreads(), platform("extract"), null, this::extract);
+        this.parse = new Stage(options.cpuThreads(), platform("parse"), extract, this::parse);
+        this.index = new Stage(options.cpuThreads(), platform("index"), parse, this::index);
+        // Opening mostly waits on the file system, so those workers are cheap virtual threads; ioThreads
+        // bounds how many files are opened at once.
+        this.open = new Stage(options.ioThreads(), Thread.ofVirtual().name("pdf-open-", 1), index,
+                this::open);
+        for (Stage stage : List.of(extract, parse, index, open)) {
+            stage.start();
+        }
+    }
+
+    private static Thread.Builder platform(String name) {
+        return Thread.ofPlatform().name("pdf-" + name + "-", 1).daemon(true);
+    }
+
+    // Blocks while the pipeline is saturated.
+    public void submit(Path path) throws InterruptedException {
+        if (finished) {
+            throw new IllegalStateException("Pipeline already finished");
+        }
+        open.queue.put(new Job(path));
+    }
+
+    public void submitDirectory(Path directory) throws IOException, InterruptedException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            Iterator<Path> iterator = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(".pdf"))
+                    .iterator();
+            while (iterator.hasNext()) {
+                submit(iterator.next());
+            }
+        }
+    }
+
+    // Ends the input and waits until every submitted document has been reported.
+    public void finish() throws InterruptedException {
+        if (!finished) {
+            finished = true;
+            open.queue.put(END);
+        }
+        done.await();
+    }
+
+    @Override
+    public void close() {
+        for (Stage stage : List.of(open, index, parse, extract)) {
+            stage.interrupt();
+        }
+        parsePool.shutdownNow();
+    }
+
+    private void open(Job job) throws IOException {
+        MappedByteBuffer buffer = PDFBufferTokenizer.map(job.path);
+        if (options.prefetch()) {
+            // Fault the file in on an I/O thread so that later stages do not stall on the disk.
+            buffer.load();
+        }
+        job.buffer = buffer;
+    }
+
+    private void index(Job job) throws IOException, ParseException {
+        job.document = PDFDocument.open(job.buffer);
+        job.buffer = null;
+    }
+
+    private void parse(Job job) throws IOException, ParseException {
+        job.objects = job.document.loadAllObjects(parsePool);
+    }
+
+    private void extract(Job job) throws IOException, ParseException {
+        job.value = handler.extract(job.document, job.objects);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(Job job) {
+        if (job.document != null) {
+            // Hands the document's decoding buffers back before the next one is opened.
+            try {
+                job.document.close();
+            } catch (Throwable e) {
+                if (job.failure == null) {
+                    job.failure = e;
+                }
+            }
+            job.document = null;
+        }
+        DocumentResult<T> result = new DocumentResult<>(job.path, (T) job.value, job.failure,
+                job.objects == null ? 0 : job.objects.size(),
+                job.nanos[0], job.nanos[1], job.nanos[2], job.nanos[3]);
+        results.accept(result);
+    }
+
+    private interface Step {
+        void run(Job job) throws IOException, ParseException;
+    }
+
+    private final class Stage {
+        private final BlockingQueue<Job> queue;
+        private final Stage next;
+        private final Step step;
+        private final Thread.Builder threads;
+        private final int ordinal;
+        private final Thread[] workers;
+        private final AtomicInteger running;
+
+        Stage(int workerCount, Thread.Builder threads, Stage next, Step step) {
+            this.queue = new ArrayBlockingQueue<>(options.queueCapacity());
+            this.next = next;
+            this.step = step;
+            this.threads = threads;
+            this.ordinal = next == null ? 3 : next.ordinal - 1;
+            this.workers = new Thread[workerCount];
+            this.running = new AtomicInteger(workerCount);
+        }
+
+        void start() {
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = threads.start(this::work);
+            }
+        }
+
+        void interrupt() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    Job job = queue.take();
+                    if (job == END) {
+                        // Let the sibling workers see the end marker; the last one passes it downstream.
+                        queue.put(END);
+                        return;
+                    }
+                    if (job.failure == null) {
+                        long start = System.nanoTime();
+                        try {
+                            step.run(job);
+                        } catch (Throwable e) {
+                            job.failure = e;
+                        }
+                        job.nanos[ordinal] = System.nanoTime() - start;
+                    }
+                    if (next != null) {
+                        next.queue.put(job);
+                    } else {
+                        try {
+                            complete(job);
+                        } catch (Throwable e) {
+                            // The result callback itself failed; there is nobody left to report to,
+                            // but the worker has to survive so that the pipeline can still drain.
+                            job.failure = e;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (running.decrementAndGet() == 0) {
+                    endOfInput();
+                }
+            }
+        }
+
+        private void endOfInput() {
+            if (next == null) {
+                done.countDown();
+                return;
+            }
+            try {
+                next.queue.put(END);
+            } catch (InterruptedException e) {
+                // Interrupted by close(); nothing downstream will run, so release finish() directly.
+                done.countDown();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Job {
+        private final Path path;
+        private final long[] nanos = new long[4];
+        private MappedByteBuffer buffer;
+        private PDFDocument document;
+        private List<PDFIndirectObject> objects;
+        private Object value;
+        private Throwable failure;
+
+        Job(Path path) {
+            this.path = path;
+        }
+    }
+}
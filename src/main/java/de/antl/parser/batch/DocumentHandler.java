@@ -0,0 +1,14 @@
+package de.antl.parser.batch;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.service.PDFDocument;
+
+import java.io.IOException;
+import java.util.List;
+
+@FunctionalInterface
+public interface DocumentHandler<T> {
+    // Runs on a pipeline thread once all objects of the document are parsed; must be thread-safe.
+    T extract(PDFDocument document, List<PDFIndirectObject> objects) throws IOException, ParseException;
+}
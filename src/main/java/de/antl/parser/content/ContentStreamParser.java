@@ -0,0 +1,409 @@
+package de.antl.parser.content;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.service.NameTable;
+import de.antl.parser.service.NumberScanner;
+import de.antl.parser.service.ObjectResolver;
+import de.antl.parser.service.PDFSyntax;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Interprets content streams as they are decoded and reports each operator to a visitor.
+// Only the current operands and a small window of decoded bytes are held in memory. Tokens are scanned
+// with the same PDFSyntax rules as the object tokenizer, once the window holds all of them.
+public class ContentStreamParser {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_DEPTH = 64;
+
+    private static final Token TRUE = new Token(TokenType.BOOLEAN, "true");
+    private static final Token FALSE = new Token(TokenType.BOOLEAN, "false");
+
+    // Markers returned by readValue() in place of operand values.
+    private static final Object END_OF_INPUT = new Object();
+    private static final Object OPERATOR = new Object();
+    private static final Object ARRAY_END = new Object();
+    private static final Object DICT_END = new Object();
+    private static final Object IGNORED = new Object();
+
+    private final NameTable names;
+    private final List<Object> operands = new ArrayList<>();
+    private final NumberScanner number = new NumberScanner();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private ByteBuffer view = ByteBuffer.wrap(buffer);
+    private InputStream input;
+    private int position;
+    private int end;
+    private boolean endOfInput;
+    private String operator;
+
+    public ContentStreamParser() {
+        this(new NameTable());
+    }
+
+    public ContentStreamParser(NameTable names) {
+        this.names = names;
+    }
+
+    public void parse(PDFStream stream, ContentStreamVisitor visitor) throws IOException, ParseException {
+        operands.clear();
+        parsePart(stream, visitor);
+    }
+
+    // Page /Contents is a stream or an array of streams that together form one content stream.
+    public void parseContents(Object contents, ObjectResolver resolver, ContentStreamVisitor visitor)
+            throws IOException, ParseException {
+        operands.clear();
+        contents = resolver.resolve(contents);
+        if (contents instanceof PDFStream stream) {
+            parsePart(stream, visitor);
+            return;
+        }
+        List<Object> parts = PDFValues.asArray(contents);
+        if (parts == null) {
+            return;
+        }
+        // Parts are decoded one after another; operands may continue across a part boundary.
+        for (Object part : parts) {
+            if (resolver.resolve(part) instanceof PDFStream stream) {
+                parsePart(stream, visitor);
+            }
+        }
+    }
+
+    public void parse(InputStream input, ContentStreamVisitor visitor) throws IOException, ParseException {
+        operands.clear();
+        run(input, visitor);
+    }
+
+    private void parsePart(PDFStream stream, ContentStreamVisitor visitor) throws IOException, ParseException {
+        try (InputStream part = stream.openStream()) {
+            run(part, visitor);
+        }
+    }
+
+    private void run(InputStream input, ContentStreamVisitor visitor) throws IOException, ParseException {
+        this.input = input;
+        position = 0;
+        end = 0;
+        endOfInput = false;
+        try {
+            while (true) {
+                Object value = readValue(0);
+                if (value == END_OF_INPUT) {
+                    return;
+                }
+                if (value == OPERATOR) {
+                    if ("BI".equals(operator)) {
+                        readInlineImage(visitor);
+                    } else {
+                        visitor.operator(operator, operands);
+                    }
+                    operands.clear();
+                } else if (value != ARRAY_END && value != DICT_END && value != IGNORED) {
+                    operands.add(value);
+                }
+            }
+        } finally {
+            this.input = null;
+        }
+    }
+
+    private Object readValue(int depth) throws IOException, ParseException {
+        int c = skipWhitespace();
+        if (c < 0) {
+            return END_OF_INPUT;
+        }
+        switch (c) {
+            case '/':
+                return readName();
+            case '(':
+                return readLiteralString();
+            case '<':
+                if (peek(1) == '<') {
+                    position += 2;
+                    return readDictionary(depth + 1);
+                }
+                return readHexString();
+            case '>':
+                if (peek(1) == '>') {
+                    position += 2;
+                    return DICT_END;
+                }
+                position++;
+                return IGNORED;
+            case '[':
+                position++;
+                return readArray(depth + 1);
+            case ']':
+                position++;
+                return ARRAY_END;
+            case ')':
+            case '{':
+            case '}':
+                position++;
+                return IGNORED;
+            default:
+                break;
+        }
+        if (PDFSyntax.isNumberStart(c)) {
+            return readNumber();
+        }
+        return readKeyword();
+    }
+
+    private List<Object> readArray(int depth) throws IOException, ParseException {
+        checkDepth(depth);
+        List<Object> array = new ArrayList<>();
+        while (true) {
+            Object value = readValue(depth);
+            if (value == ARRAY_END || value == END_OF_INPUT) {
+                return array;
+            }
+            if (value != OPERATOR && value != DICT_END && value != IGNORED) {
+                array.add(value);
+            }
+        }
+    }
+
+    private Map<String, Object> readDictionary(int depth) throws IOException, ParseException {
+        checkDepth(depth);
+        Map<String, Object> dictionary = new HashMap<>();
+        while (true) {
+            Object key = readValue(depth);
+            if (key == DICT_END || key == END_OF_INPUT) {
+                return dictionary;
+            }
+            if (!(key instanceof Token token) || token.type() != TokenType.NAME) {
+                continue;
+            }
+            Object value = readValue(depth);
+            if (value == DICT_END || value == END_OF_INPUT) {
+                return dictionary;
+            }
+            if (value != OPERATOR && value != ARRAY_END && value != IGNORED) {
+                dictionary.put(token.getStringValue(), value);
+            }
+        }
+    }
+
+    private static void checkDepth(int depth) throws ParseException {
+        if (depth > MAX_DEPTH) {
+            throw new ParseException("Content stream objects nested deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private void readInlineImage(ContentStreamVisitor visitor) throws IOException, ParseException {
+        Map<String, Object> parameters = new HashMap<>();
+        while (true) {
+            Object key = readValue(0);
+            if (key == END_OF_INPUT) {
+                return;
+            }
+            if (key == OPERATOR && "ID".equals(operator)) {
+                break;
+            }
+            if (key instanceof Token token && token.type() == TokenType.NAME) {
+                Object value = readValue(0);
+                if (value == OPERATOR && "ID".equals(operator)) {
+                    break;
+                }
+                parameters.put(token.getStringValue(), value);
+            }
+        }
+
+        // A single whitespace byte separates ID from the image data.
+        int c = peek(0);
+        if (c >= 0 && PDFSyntax.isWhitespace(c)) {
+            position++;
+        }
+
+        // PDF 2.0 allows an explicit /L (or /Length); otherwise the data ends at the first "EI" keyword.
+        Object explicitLength = parameters.containsKey("L") ? parameters.get("L") : parameters.get("Length");
+        int length = PDFValues.isNumber(explicitLength) ? PDFValues.asInt(explicitLength, -1) : -1;
+        if (length < 0 || !fill(length)) {
+            length = findInlineImageEnd();
+        }
+        visitor.inlineImage(parameters, ByteBuffer.wrap(buffer, position, length).slice().asReadOnlyBuffer());
+        position += length;
+
+        c = skipWhitespace();
+        if (c == 'E' && peek(1) == 'I' && isTerminator(peek(2))) {
+            position += 2;
+        }
+    }
+
+    private int findInlineImageEnd() throws IOException {
+        int c;
+        for (int k = 0; (c = peek(k)) >= 0; k++) {
+            if (PDFSyntax.isWhitespace(c) && peek(k + 1) == 'E' && peek(k + 2) == 'I' && isTerminator(peek(k + 3))) {
+                return k;
+            }
+        }
+        return end - position;
+    }
+
+    private static boolean isTerminator(int c) {
+        return c < 0 || !PDFSyntax.isRegular(c);
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek(0);
+            if (c < 0) {
+                return c;
+            }
+            if (PDFSyntax.isWhitespace(c)) {
+                position++;
+            } else if (c == '%') {
+                while ((c = peek(0)) >= 0 && c != '\n' && c != '\r') {
+                    position++;
+                }
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private Token readName() throws IOException {
+        int k = 1;
+        int hash = 0;
+        boolean escaped = false;
+        int c;
+        while ((c = peek(k)) >= 0 && PDFSyntax.isRegular(c)) {
+            escaped |= c == '#';
+            hash = hash * 31 + c;
+            k++;
+        }
+        Token name = escaped
+                ? new Token(TokenType.NAME, PDFSyntax.decodeName(view, position + 1, position + k))
+                : names.intern(TokenType.NAME, view, position + 1, position + k, hash);
+        position += k;
+        return name;
+    }
+
+    private Token readLiteralString() throws IOException {
+        int close = delimitedEnd(true);
+        Token string = new Token(TokenType.STRING, string(position + 1, close));
+        position = Math.min(close + 1, end);
+        return string;
+    }
+
+    private Token readHexString() throws IOException {
+        int close = delimitedEnd(false);
+        Token string = new Token(TokenType.HEX_STRING, string(position + 1, close));
+        position = Math.min(close + 1, end);
+        return string;
+    }
+
+    // Reads on until the window holds the closing delimiter of the string at the current position; an
+    // unterminated string ends with the input.
+    private int delimitedEnd(boolean literal) throws IOException {
+        while (true) {
+            int close = literal
+                    ? PDFSyntax.literalStringEnd(view, position, end)
+                    : PDFSyntax.hexStringEnd(view, position, end);
+            if (close >= 0) {
+                return close;
+            }
+            if (!fill(end - position + 1)) {
+                return end;
+            }
+        }
+    }
+
+    private Number readNumber() throws IOException {
+        int k = 1;
+        int c;
+        while ((c = peek(k)) >= 0 && PDFSyntax.isRegular(c)) {
+            k++;
+        }
+        position = number.scan(view, position, position + k);
+        return number.value();
+    }
+
+    private Object readKeyword() throws IOException {
+        int k = 0;
+        int hash = 0;
+        int c;
+        while ((c = peek(k)) >= 0 && PDFSyntax.isRegular(c)) {
+            hash = hash * 31 + c;
+            k++;
+        }
+        int start = position;
+        position += k;
+        if (k == 4 && matches(start, "true")) {
+            return TRUE;
+        }
+        if (k == 5 && matches(start, "false")) {
+            return FALSE;
+        }
+        if (k == 4 && matches(start, "null")) {
+            return null;
+        }
+        operator = names.intern(TokenType.OPERATOR, view, start, start + k, hash).getStringValue();
+        return OPERATOR;
+    }
+
+    private boolean matches(int start, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if ((buffer[start + i] & 0xFF) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    // Returns the byte at position + offset, reading more input when needed, or -1 at the end of input.
+    private int peek(int offset) throws IOException {
+        if (position + offset >= end && !fill(offset + 1)) {
+            return -1;
+        }
+        return buffer[position + offset] & 0xFF;
+    }
+
+    // Makes at least `required` bytes available from the current position; offsets relative to it stay valid.
+    private boolean fill(int required) throws IOException {
+        if (end - position >= required) {
+            return true;
+        }
+        if (position + required > buffer.length) {
+            System.arraycopy(buffer, position, buffer, 0, end - position);
+            end -= position;
+            position = 0;
+            if (required > buffer.length) {
+                // Only a single token larger than the window, e.g. inline image data, grows the buffer.
+                byte[] larger = new byte[Math.max(required, buffer.length * 2)];
+                System.arraycopy(buffer, 0, larger, 0, end);
+                buffer = larger;
+                view = ByteBuffer.wrap(buffer);
+            }
+        }
+        while (end - position < required) {
+            if (endOfInput) {
+                return false;
+            }
+            int read = input.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                endOfInput = true;
+                return false;
+            }
+            end += read;
+        }
+        return true;
+    }
+}
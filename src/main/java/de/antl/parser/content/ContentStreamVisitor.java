@@ -0,0 +1,18 @@
+package de.antl.parser.content;
+
+import de.antl.parser.exceptions.ParseException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+public interface ContentStreamVisitor {
+    // Called for every operator with the operands that preceded it. The list is reused for the next
+    // operator, so copy it to keep operands beyond the call.
+    void operator(String operator, List<Object> operands) throws IOException, ParseException;
+
+    // Called for BI ... ID ... EI. The data is a view of the parser's buffer and is only valid during the call.
+    default void inlineImage(Map<String, Object> parameters, ByteBuffer data) throws IOException, ParseException {
+    }
+}
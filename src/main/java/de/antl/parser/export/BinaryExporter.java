@@ -0,0 +1,207 @@
+package de.antl.parser.export;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+// A compact tagged format. The output starts with "PDFX" and a version byte, followed by records:
+//   'O' objectNumber generation value
+//   'X' size (type offset generation)*      indexed by object number, in XRefIndex terms
+//   'T' value                                the trailer dictionary
+// Counts, lengths and object numbers are unsigned varints (LEB128); integers are zigzag varints, reals
+// 8-byte big-endian IEEE doubles. A value is one tag byte followed by its content:
+//   0 null, 1 false, 2 true, 3 integer, 4 real, 5 name (length, bytes), 6 string (length, bytes),
+//   7 reference (objectNumber, generation), 8 array (count, values), 9 dictionary (count, (name, value)*),
+//   10 stream (dictionary, raw length, and the raw bytes unless stream data is left out).
+// Names and strings are their bytes, escapes resolved; everything is length-prefixed, so a reader can skip
+// any value, stream payloads included, without looking inside it.
+public final class BinaryExporter extends ObjectExporter {
+    public static final byte[] MAGIC = {'P', 'D', 'F', 'X'};
+    public static final int VERSION = 1;
+
+    public static final int RECORD_OBJECT = 'O';
+    public static final int RECORD_XREF = 'X';
+    public static final int RECORD_TRAILER = 'T';
+
+    public static final int NULL = 0;
+    public static final int FALSE = 1;
+    public static final int TRUE = 2;
+    public static final int INTEGER = 3;
+    public static final int REAL = 4;
+    public static final int NAME = 5;
+    public static final int STRING = 6;
+    public static final int REFERENCE = 7;
+    public static final int ARRAY = 8;
+    public static final int DICTIONARY = 9;
+    public static final int STREAM = 10;
+
+    public BinaryExporter(OutputStream out) throws IOException {
+        this(out, true);
+    }
+
+    public BinaryExporter(OutputStream out, boolean streamData) throws IOException {
+        super(out, streamData);
+        this.out.putBytes(MAGIC, 0, MAGIC.length);
+        this.out.put(VERSION);
+    }
+
+    @Override
+    public void object(PDFIndirectObject object) throws IOException, ParseException {
+        out.put(RECORD_OBJECT);
+        out.putVarLong(object.objectNumber());
+        out.putVarLong(object.genNumber());
+        value(object.value());
+    }
+
+    @Override
+    public void xref(XRefIndex index) throws IOException {
+        out.put(RECORD_XREF);
+        out.putVarLong(index.size());
+        for (int objectNumber = 0; objectNumber < index.size(); objectNumber++) {
+            out.put(index.type(objectNumber));
+            out.putVarLong(index.offset(objectNumber));
+            out.putVarLong(index.generation(objectNumber));
+        }
+    }
+
+    @Override
+    public void trailer(Map<String, Object> trailer) throws IOException {
+        out.put(RECORD_TRAILER);
+        value(trailer);
+    }
+
+    private void value(Object value) throws IOException {
+        if (value == null) {
+            out.put(NULL);
+        } else if (value instanceof Token token) {
+            token(token);
+        } else if (value instanceof Integer || value instanceof Long) {
+            integer(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            real(number.doubleValue());
+        } else if (value instanceof PDFIndirectReference reference) {
+            out.put(REFERENCE);
+            out.putVarLong(reference.objectNumber());
+            out.putVarLong(reference.genNumber());
+        } else if (value instanceof PDFStream stream) {
+            out.put(STREAM);
+            dictionary(stream.dictionary());
+            out.putVarLong(stream.rawLength());
+            if (streamData) {
+                out.putBytes(stream.data());
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            dictionary(map);
+        } else if (value instanceof List<?> list) {
+            array(list);
+        } else if (value instanceof Boolean bool) {
+            out.put(bool ? TRUE : FALSE);
+        } else if (value instanceof String text) {
+            // The reader tokenizer keeps numbers as their text.
+            number(text);
+        } else {
+            throw new IllegalArgumentException("Cannot export " + value.getClass().getName());
+        }
+    }
+
+    private void token(Token token) throws IOException {
+        switch (token.type()) {
+            case NAME -> name(token.getStringValue());
+            case STRING, HEX_STRING -> {
+                byte[] bytes = PDFValues.asBytes(token);
+                out.put(STRING);
+                out.putVarLong(bytes.length);
+                out.putBytes(bytes, 0, bytes.length);
+            }
+            case BOOLEAN -> out.put("true".equals(token.value()) ? TRUE : FALSE);
+            case NUMBER -> {
+                if (token.value() instanceof String text) {
+                    number(text);
+                } else {
+                    value(token.value());
+                }
+            }
+            default -> {
+                out.put(STRING);
+                latin1(String.valueOf(token.value()));
+            }
+        }
+    }
+
+    private void number(String text) throws IOException {
+        try {
+            integer(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            real(Double.parseDouble(text));
+        }
+    }
+
+    private void integer(long value) throws IOException {
+        out.put(INTEGER);
+        out.putSignedVarLong(value);
+    }
+
+    private void real(double value) throws IOException {
+        out.put(REAL);
+        out.putLong(Double.doubleToRawLongBits(value));
+    }
+
+    private void name(String name) throws IOException {
+        out.put(NAME);
+        latin1(name);
+    }
+
+    // Names and raw token text hold one byte per char.
+    private void latin1(String text) throws IOException {
+        out.putVarLong(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            out.put(text.charAt(i));
+        }
+    }
+
+    private void dictionary(Map<?, ?> map) throws IOException {
+        out.put(DICTIONARY);
+        out.putVarLong(map.size());
+        if (map instanceof PDFDictionary dictionary) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                name(dictionary.keyAt(i));
+                value(dictionary.valueAt(i));
+            }
+        } else {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+        }
+    }
+
+    private void array(List<?> list) throws IOException {
+        out.put(ARRAY);
+        out.putVarLong(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            if (list instanceof PDFIntArray ints) {
+                integer(ints.getInt(i));
+            } else if (list instanceof PDFRealArray reals) {
+                if (reals.isInteger(i)) {
+                    integer((long) reals.getDouble(i));
+                } else {
+                    real(reals.getDouble(i));
+                }
+            } else {
+                value(list.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package de.antl.parser.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+// A reusable byte buffer in front of the output. Values are encoded straight into it, digits, escapes and
+// base64 included, so exporting an object creates no text for it; the buffer is written out when full.
+final class ExportBuffer {
+    private static final int DEFAULT_SIZE = 64 * 1024;
+    private static final byte[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final byte[] bytes;
+    // A multiple of three, so only the last chunk of a buffer can need padding.
+    private final byte[] scratch = new byte[3 * 1024];
+    private int position;
+
+    ExportBuffer(OutputStream out) {
+        this(out, DEFAULT_SIZE);
+    }
+
+    ExportBuffer(OutputStream out, int size) {
+        this.out = out;
+        this.bytes = new byte[Math.max(64, size)];
+    }
+
+    void put(int b) throws IOException {
+        if (position == bytes.length) {
+            drain();
+        }
+        bytes[position++] = (byte) b;
+    }
+
+    // Text known to be ASCII, such as keywords and field names.
+    void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    void putBytes(byte[] source, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == bytes.length) {
+                drain();
+            }
+            int n = Math.min(length, bytes.length - position);
+            System.arraycopy(source, offset, bytes, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // The remaining bytes of the source; its position is left unchanged.
+    void putBytes(ByteBuffer source) throws IOException {
+        int from = source.position();
+        int end = source.limit();
+        while (from < end) {
+            if (position == bytes.length) {
+                drain();
+            }
+            int n = Math.min(end - from, bytes.length - position);
+            source.get(from, bytes, position, n);
+            position += n;
+            from += n;
+        }
+    }
+
+    void putDecimal(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+            if (value == Long.MIN_VALUE) {
+                putAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        if (bytes.length - position < 20) {
+            drain();
+        }
+        int length = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            length++;
+        }
+        for (int i = position + length - 1; i >= position; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += length;
+    }
+
+    void putHex4(int value) throws IOException {
+        put(HEX[value >>> 12 & 0xF]);
+        put(HEX[value >>> 8 & 0xF]);
+        put(HEX[value >>> 4 & 0xF]);
+        put(HEX[value & 0xF]);
+    }
+
+    // Unsigned LEB128, as in protobuf.
+    void putVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            put((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        put((int) value);
+    }
+
+    // Signed values are zigzag encoded first, so small negative numbers stay short.
+    void putSignedVarLong(long value) throws IOException {
+        putVarLong(value << 1 ^ value >> 63);
+    }
+
+    void putLong(long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            put((int) (value >>> shift));
+        }
+    }
+
+    void putBase64(byte[] source, int offset, int length) throws IOException {
+        int end = offset + length;
+        int i = offset;
+        for (; i + 3 <= end; i += 3) {
+            if (bytes.length - position < 4) {
+                drain();
+            }
+            int group = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8 | source[i + 2] & 0xFF;
+            bytes[position] = BASE64[group >>> 18];
+            bytes[position + 1] = BASE64[group >>> 12 & 0x3F];
+            bytes[position + 2] = BASE64[group >>> 6 & 0x3F];
+            bytes[position + 3] = BASE64[group & 0x3F];
+            position += 4;
+        }
+        if (i < end) {
+            int group = (source[i] & 0xFF) << 16 | (i + 1 < end ? (source[i + 1] & 0xFF) << 8 : 0);
+            putBase64Tail(group, end - i);
+        }
+    }
+
+    // The remaining bytes of the source; its position is left unchanged. Whole groups of three are copied
+    // out in chunks, as byte-wise reads of a direct buffer cost more than the encoding.
+    void putBase64(ByteBuffer source) throws IOException {
+        int from = source.position();
+        int end = source.limit();
+        while (end - from > scratch.length) {
+            source.get(from, scratch, 0, scratch.length);
+            putBase64(scratch, 0, scratch.length);
+            from += scratch.length;
+        }
+        int length = end - from;
+        source.get(from, scratch, 0, length);
+        putBase64(scratch, 0, length);
+    }
+
+    // One or two bytes left: two or three digits and the padding.
+    private void putBase64Tail(int group, int remaining) throws IOException {
+        putBase64Group(group, remaining + 1);
+        for (int i = remaining + 1; i < 4; i++) {
+            put('=');
+        }
+    }
+
+    private void putBase64Group(int group, int digits) throws IOException {
+        if (bytes.length - position < 4) {
+            drain();
+        }
+        for (int i = 0; i < digits; i++) {
+            bytes[position++] = BASE64[group >>> 18 - 6 * i & 0x3F];
+        }
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    void close() throws IOException {
+        drain();
+        out.close();
+    }
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            out.write(bytes, 0, position);
+            position = 0;
+        }
+    }
+}
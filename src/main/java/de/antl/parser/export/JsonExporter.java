@@ -0,0 +1,247 @@
+package de.antl.parser.export;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+// Newline-delimited JSON, one record per line:
+//   {"object":12,"generation":0,"value":...}
+//   {"xref":[[type,offset,generation],...]}   indexed by object number, in XRefIndex terms
+//   {"trailer":{...}}
+// PDF values map onto JSON without ambiguity: names are "/Name", strings "u:text" when they are printable
+// ASCII and "b:<base64>" otherwise, references "12 0 R", numbers and booleans stay themselves and
+// streams become {"stream":{"dictionary":{...},"length":n,"data":"<base64>"}}. Dictionary keys are names.
+// Names and strings are written byte for byte, with every byte outside printable ASCII escaped.
+public final class JsonExporter extends ObjectExporter {
+    public JsonExporter(OutputStream out) {
+        this(out, true);
+    }
+
+    public JsonExporter(OutputStream out, boolean streamData) {
+        super(out, streamData);
+    }
+
+    @Override
+    public void object(PDFIndirectObject object) throws IOException, ParseException {
+        out.putAscii("{\"object\":");
+        out.putDecimal(object.objectNumber());
+        out.putAscii(",\"generation\":");
+        out.putDecimal(object.genNumber());
+        out.putAscii(",\"value\":");
+        value(object.value());
+        out.putAscii("}\n");
+    }
+
+    @Override
+    public void xref(XRefIndex index) throws IOException {
+        out.putAscii("{\"xref\":[");
+        for (int objectNumber = 0; objectNumber < index.size(); objectNumber++) {
+            if (objectNumber > 0) {
+                out.put(',');
+            }
+            out.put('[');
+            out.putDecimal(index.type(objectNumber));
+            out.put(',');
+            out.putDecimal(index.offset(objectNumber));
+            out.put(',');
+            out.putDecimal(index.generation(objectNumber));
+            out.put(']');
+        }
+        out.putAscii("]}\n");
+    }
+
+    @Override
+    public void trailer(Map<String, Object> trailer) throws IOException {
+        out.putAscii("{\"trailer\":");
+        value(trailer);
+        out.putAscii("}\n");
+    }
+
+    private void value(Object value) throws IOException {
+        if (value == null) {
+            out.putAscii("null");
+        } else if (value instanceof Token token) {
+            token(token);
+        } else if (value instanceof Integer || value instanceof Long) {
+            out.putDecimal(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            real(number.doubleValue());
+        } else if (value instanceof PDFIndirectReference reference) {
+            out.put('"');
+            out.putDecimal(reference.objectNumber());
+            out.put(' ');
+            out.putDecimal(reference.genNumber());
+            out.putAscii(" R\"");
+        } else if (value instanceof PDFStream stream) {
+            stream(stream);
+        } else if (value instanceof Map<?, ?> map) {
+            dictionary(map);
+        } else if (value instanceof List<?> list) {
+            array(list);
+        } else if (value instanceof Boolean bool) {
+            out.putAscii(bool ? "true" : "false");
+        } else if (value instanceof String text) {
+            // The reader tokenizer keeps numbers as their text.
+            number(text);
+        } else {
+            throw new IllegalArgumentException("Cannot export " + value.getClass().getName());
+        }
+    }
+
+    private void token(Token token) throws IOException {
+        switch (token.type()) {
+            case NAME -> name(token.getStringValue());
+            case STRING, HEX_STRING -> string(PDFValues.asBytes(token));
+            case BOOLEAN -> out.putAscii("true".equals(token.value()) ? "true" : "false");
+            case NUMBER -> {
+                if (token.value() instanceof String text) {
+                    number(text);
+                } else {
+                    value(token.value());
+                }
+            }
+            default -> {
+                out.put('"');
+                text(String.valueOf(token.value()));
+                out.put('"');
+            }
+        }
+    }
+
+    private void number(String text) throws IOException {
+        try {
+            out.putDecimal(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            real(Double.parseDouble(text));
+        }
+    }
+
+    private void real(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.putAscii("null");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.putDecimal((long) value);
+            out.putAscii(".0");
+        } else {
+            out.putAscii(Double.toString(value));
+        }
+    }
+
+    private void name(String name) throws IOException {
+        out.putAscii("\"/");
+        text(name);
+        out.put('"');
+    }
+
+    private void string(byte[] bytes) throws IOException {
+        out.put('"');
+        if (isPrintable(bytes)) {
+            out.putAscii("u:");
+            for (byte b : bytes) {
+                character(b & 0xFF);
+            }
+        } else {
+            out.putAscii("b:");
+            out.putBase64(bytes, 0, bytes.length);
+        }
+        out.put('"');
+    }
+
+    private static boolean isPrintable(byte[] bytes) {
+        for (byte b : bytes) {
+            if ((b < 0x20 || b > 0x7E) && b != '\t' && b != '\n' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void text(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            character(text.charAt(i));
+        }
+    }
+
+    private void character(int c) throws IOException {
+        if (c == '"' || c == '\\') {
+            out.put('\\');
+            out.put(c);
+        } else if (c >= 0x20 && c < 0x7F) {
+            out.put(c);
+        } else {
+            out.put('\\');
+            out.put('u');
+            out.putHex4(c);
+        }
+    }
+
+    private void dictionary(Map<?, ?> map) throws IOException {
+        out.put('{');
+        if (map instanceof PDFDictionary dictionary) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                entry(i, dictionary.keyAt(i), dictionary.valueAt(i));
+            }
+        } else {
+            int i = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                entry(i++, String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        out.put('}');
+    }
+
+    private void entry(int index, String key, Object value) throws IOException {
+        if (index > 0) {
+            out.put(',');
+        }
+        name(key);
+        out.put(':');
+        value(value);
+    }
+
+    private void array(List<?> list) throws IOException {
+        out.put('[');
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                out.put(',');
+            }
+            if (list instanceof PDFIntArray ints) {
+                out.putDecimal(ints.getInt(i));
+            } else if (list instanceof PDFRealArray reals) {
+                if (reals.isInteger(i)) {
+                    out.putDecimal((long) reals.getDouble(i));
+                } else {
+                    real(reals.getDouble(i));
+                }
+            } else {
+                value(list.get(i));
+            }
+        }
+        out.put(']');
+    }
+
+    private void stream(PDFStream stream) throws IOException {
+        out.putAscii("{\"stream\":{\"dictionary\":");
+        dictionary(stream.dictionary());
+        out.putAscii(",\"length\":");
+        out.putDecimal(stream.rawLength());
+        if (streamData) {
+            out.putAscii(",\"data\":\"");
+            out.putBase64(stream.data());
+            out.put('"');
+        }
+        out.putAscii("}}");
+    }
+}
@@ -0,0 +1,60 @@
+package de.antl.parser.export;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.ObjectListener;
+import de.antl.parser.service.PDFDocument;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+// Writes parsed objects, the cross-reference index and the trailer as records, one at a time and as they
+// come, so output starts before parsing ends and nothing is kept. As an ObjectListener it can be fed by
+// the incremental parser directly. Stream payloads are the raw, still encoded bytes.
+public abstract class ObjectExporter implements ObjectListener, Flushable, Closeable {
+    final ExportBuffer out;
+    final boolean streamData;
+
+    ObjectExporter(OutputStream out, boolean streamData) {
+        this.out = new ExportBuffer(out);
+        this.streamData = streamData;
+    }
+
+    @Override
+    public abstract void object(PDFIndirectObject object) throws IOException, ParseException;
+
+    public abstract void xref(XRefIndex index) throws IOException;
+
+    public abstract void trailer(Map<String, Object> trailer) throws IOException;
+
+    // The index, then every in-use object in object number order, then the trailer. Objects are loaded
+    // one by one through the document, so only its object cache holds on to them.
+    public void export(PDFDocument document) throws IOException, ParseException {
+        XRefIndex index = document.getXRefIndex();
+        xref(index);
+        for (int objectNumber = 0; objectNumber < index.size(); objectNumber++) {
+            if (index.type(objectNumber) != XRefIndex.TYPE_FREE) {
+                PDFIndirectObject object = document.getObject(objectNumber);
+                if (object != null) {
+                    object(object);
+                }
+            }
+        }
+        trailer(document.getTrailer());
+        flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,65 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class ASCII85Filter implements StreamFilter {
+    @Override
+    public InputStream decode(InputStream input, Map<String, Object> parameters) {
+        return new DecodingInputStream(input, 4096) {
+            private final int[] group = new int[5];
+            private boolean endOfData;
+
+            @Override
+            protected int fill(byte[] buffer) throws IOException {
+                if (endOfData) {
+                    return -1;
+                }
+                int count = 0;
+                int groupSize = 0;
+                while (count + 4 <= buffer.length) {
+                    int c = input.read();
+                    if (c < 0 || c == '~') {
+                        endOfData = true;
+                        break;
+                    }
+                    if (c == 'z' && groupSize == 0) {
+                        buffer[count++] = 0;
+                        buffer[count++] = 0;
+                        buffer[count++] = 0;
+                        buffer[count++] = 0;
+                        continue;
+                    }
+                    if (c < '!' || c > 'u') {
+                        continue;
+                    }
+                    group[groupSize++] = c - '!';
+                    if (groupSize == 5) {
+                        count = writeGroup(buffer, count, 5);
+                        groupSize = 0;
+                    }
+                }
+                if (groupSize > 1) {
+                    // A final partial group of n characters yields n - 1 bytes.
+                    for (int i = groupSize; i < 5; i++) {
+                        group[i] = 'u' - '!';
+                    }
+                    count = writeGroup(buffer, count, groupSize);
+                }
+                return count == 0 && endOfData ? -1 : count;
+            }
+
+            private int writeGroup(byte[] buffer, int count, int groupSize) {
+                long value = 0;
+                for (int i = 0; i < 5; i++) {
+                    value = value * 85 + group[i];
+                }
+                for (int i = 0; i < groupSize - 1; i++) {
+                    buffer[count++] = (byte) (value >>> (24 - 8 * i));
+                }
+                return count;
+            }
+        };
+    }
+}
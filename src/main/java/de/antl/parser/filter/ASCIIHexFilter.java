@@ -0,0 +1,57 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class ASCIIHexFilter implements StreamFilter {
+    @Override
+    public InputStream decode(InputStream input, Map<String, Object> parameters) {
+        return new DecodingInputStream(input, 4096) {
+            private final byte[] encoded = new byte[8192];
+            private boolean endOfData;
+
+            @Override
+            protected int fill(byte[] buffer) throws IOException {
+                if (endOfData) {
+                    return -1;
+                }
+                int count = 0;
+                int high = -1;
+                while (count < buffer.length) {
+                    int read = input.read(encoded, 0, Math.min(encoded.length, (buffer.length - count) * 2));
+                    if (read < 0) {
+                        endOfData = true;
+                        break;
+                    }
+                    for (int i = 0; i < read; i++) {
+                        int c = encoded[i] & 0xFF;
+                        if (c == '>') {
+                            endOfData = true;
+                            break;
+                        }
+                        int digit = Character.digit(c, 16);
+                        if (digit < 0) {
+                            // Whitespace and stray characters are ignored.
+                            continue;
+                        }
+                        if (high < 0) {
+                            high = digit;
+                        } else {
+                            buffer[count++] = (byte) ((high << 4) | digit);
+                            high = -1;
+                        }
+                    }
+                    if (endOfData) {
+                        break;
+                    }
+                }
+                if (high >= 0) {
+                    // An odd number of digits behaves as if a final 0 followed.
+                    buffer[count++] = (byte) (high << 4);
+                }
+                return count == 0 && endOfData ? -1 : count;
+            }
+        };
+    }
+}
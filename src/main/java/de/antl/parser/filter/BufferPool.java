@@ -0,0 +1,127 @@
+package de.antl.parser.filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+
+// Direct buffers and Inflaters for decoding streams. Buffers come in power-of-two size classes and go back
+// to the pool when their PooledBuffer is closed, so repeated decoding does not churn the heap. Documents
+// share one pool, so a batch decodes into the buffers the documents before it handed back on close; idle
+// buffers are bounded by count per class and by total size. Closing a private pool ends the Inflaters and
+// drops every pooled buffer; the shared pool lives as long as the process and ignores close().
+public final class BufferPool implements Closeable {
+    private static final int MIN_CLASS = 12;
+    // Buffers above 16 MB are allocated for one use and never kept.
+    private static final int MAX_CLASS = 24;
+    private static final int BUFFERS_PER_CLASS = 4;
+    private static final long MAX_POOLED_BYTES = 64L << 20;
+    private static final int MAX_INFLATERS = 8;
+    // The largest direct buffer a decoded stream may grow to.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private static final BufferPool SHARED = new BufferPool(true);
+
+    private final List<ArrayDeque<ByteBuffer>> free = new ArrayList<>(MAX_CLASS + 1);
+    private final ArrayDeque<Inflater> inflaters = new ArrayDeque<>();
+    private final boolean shared;
+    private long pooledBytes;
+    private boolean closed;
+
+    public BufferPool() {
+        this(false);
+    }
+
+    private BufferPool(boolean shared) {
+        this.shared = shared;
+        for (int i = 0; i <= MAX_CLASS; i++) {
+            free.add(new ArrayDeque<>());
+        }
+    }
+
+    // The pool documents decode into unless they are given another one.
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    public synchronized ByteBuffer acquire(int capacity) {
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass > MAX_CLASS) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        ByteBuffer buffer = free.get(sizeClass).pollFirst();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(1 << sizeClass);
+        }
+        pooledBytes -= buffer.capacity();
+        return buffer.clear();
+    }
+
+    public synchronized void release(ByteBuffer buffer) {
+        int sizeClass = Integer.numberOfTrailingZeros(buffer.capacity());
+        if (closed || !buffer.isDirect() || Integer.bitCount(buffer.capacity()) != 1
+                || sizeClass < MIN_CLASS || sizeClass > MAX_CLASS) {
+            return;
+        }
+        ArrayDeque<ByteBuffer> buffers = free.get(sizeClass);
+        if (buffers.size() < BUFFERS_PER_CLASS && pooledBytes + buffer.capacity() <= MAX_POOLED_BYTES) {
+            buffers.addFirst(buffer);
+            pooledBytes += buffer.capacity();
+        }
+    }
+
+    // Copies the written part of a full buffer into one of twice the size and releases the old one.
+    // The old buffer is left to the caller when it cannot grow any further.
+    public ByteBuffer grow(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() >= MAX_CAPACITY) {
+            throw new IOException("Decoded stream exceeds " + MAX_CAPACITY + " bytes");
+        }
+        long doubled = 2L * Math.max(buffer.capacity(), 1 << MIN_CLASS);
+        ByteBuffer larger = acquire((int) Math.min(doubled, MAX_CAPACITY));
+        larger.put(buffer.flip());
+        release(buffer);
+        return larger;
+    }
+
+    public synchronized Inflater acquireInflater() {
+        Inflater inflater = inflaters.pollFirst();
+        return inflater != null ? inflater : new Inflater();
+    }
+
+    public synchronized void releaseInflater(Inflater inflater) {
+        if (closed || inflaters.size() >= MAX_INFLATERS) {
+            inflater.end();
+            return;
+        }
+        inflater.reset();
+        inflaters.addFirst(inflater);
+    }
+
+    // Bytes held by idle buffers.
+    public synchronized long pooledBytes() {
+        return pooledBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (shared) {
+            return;
+        }
+        closed = true;
+        for (Inflater inflater : inflaters) {
+            inflater.end();
+        }
+        inflaters.clear();
+        for (ArrayDeque<ByteBuffer> buffers : free) {
+            buffers.clear();
+        }
+        pooledBytes = 0;
+    }
+
+    private static int sizeClass(int capacity) {
+        return Math.max(MIN_CLASS, 32 - Integer.numberOfLeadingZeros(Math.max(capacity, 1) - 1));
+    }
+}
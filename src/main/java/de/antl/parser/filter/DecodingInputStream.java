@@ -0,0 +1,65 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+abstract class DecodingInputStream extends InputStream {
+    protected final InputStream input;
+    private final byte[] decoded;
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    protected DecodingInputStream(InputStream input, int bufferSize) {
+        this.input = input;
+        this.decoded = new byte[bufferSize];
+    }
+
+    // Decodes the next chunk into the buffer and returns the number of bytes written, or -1 at the end of data.
+    protected abstract int fill(byte[] buffer) throws IOException;
+
+    private boolean ensureData() throws IOException {
+        while (position == limit) {
+            if (finished) {
+                return false;
+            }
+            int count = fill(decoded);
+            if (count < 0) {
+                finished = true;
+                return false;
+            }
+            position = 0;
+            limit = count;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensureData() ? decoded[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(length, limit - position);
+        System.arraycopy(decoded, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
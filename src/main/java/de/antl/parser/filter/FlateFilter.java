@@ -0,0 +1,145 @@
+package de.antl.parser.filter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+public class FlateFilter implements StreamFilter {
+    @Override
+    public InputStream decode(InputStream input, Map<String, Object> parameters) {
+        if (input instanceof ByteBufferInputStream buffered) {
+            return PredictorInputStream.wrap(new BufferInflaterInputStream(buffered.takeRemaining()), parameters);
+        }
+        InputStream inflated = new InflaterInputStream(input, new Inflater(), 8192) {
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                try {
+                    return super.read(bytes, offset, length);
+                } catch (EOFException e) {
+                    // Many writers truncate the zlib trailer; treat that as the end of the data.
+                    return -1;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                inf.end();
+            }
+        };
+        return PredictorInputStream.wrap(inflated, parameters);
+    }
+
+    // Inflates straight from the encoded buffer into a pooled direct buffer, without stream copies, then
+    // undoes the predictor, if any, in the same buffer.
+    static PooledBuffer inflate(ByteBuffer input, int sizeHint, Predictors predictors, BufferPool pool)
+            throws IOException {
+        Inflater inflater = pool.acquireInflater();
+        ByteBuffer output = pool.acquire(sizeHint);
+        try {
+            inflater.setInput(input.duplicate());
+            while (!inflater.finished()) {
+                if (!output.hasRemaining()) {
+                    output = pool.grow(output);
+                }
+                if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Many writers truncate the zlib trailer; treat that as the end of the data.
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            pool.release(output);
+            throw new ZipException(e.getMessage());
+        } finally {
+            pool.releaseInflater(inflater);
+        }
+        output.flip();
+        if (predictors != null) {
+            predictors.decode(output);
+        }
+        return new PooledBuffer(pool, output);
+    }
+
+    // Compresses the remaining bytes of the input; the input position is left unchanged. The result wraps
+    // the array the deflater wrote into, so it is not copied once more to trim it.
+    public static ByteBuffer deflate(ByteBuffer input, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(input.duplicate());
+            deflater.finish();
+            byte[] output = new byte[Math.max(64, input.remaining() / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                length += deflater.deflate(output, length, output.length - length);
+            }
+            return ByteBuffer.wrap(output, 0, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Inflates from an encoded buffer held in memory: the inflater reads the buffer itself, so the encoded
+    // bytes are not copied through an intermediate input array first.
+    private static final class BufferInflaterInputStream extends InputStream {
+        private final Inflater inflater = new Inflater();
+        private final byte[] single = new byte[1];
+        private boolean finished;
+        private boolean closed;
+
+        private BufferInflaterInputStream(ByteBuffer input) {
+            inflater.setInput(input);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            if (finished) {
+                return -1;
+            }
+            try {
+                int count;
+                while ((count = inflater.inflate(bytes, offset, length)) == 0) {
+                    if (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()) {
+                        // Many writers truncate the zlib trailer; treat that as the end of the data.
+                        finished = true;
+                        return -1;
+                    }
+                }
+                return count;
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                inflater.end();
+            }
+        }
+    }
+}
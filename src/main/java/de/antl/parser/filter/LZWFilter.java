@@ -0,0 +1,123 @@
+package de.antl.parser.filter;
+
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public class LZWFilter implements StreamFilter {
+    private static final int CLEAR_TABLE = 256;
+    private static final int END_OF_DATA = 257;
+    private static final int MAX_CODES = 4096;
+
+    @Override
+    public InputStream decode(InputStream input, Map<String, Object> parameters) {
+        int earlyChange = parameters == null ? 1 : PDFValues.asInt(parameters.get("EarlyChange"), 1);
+        return PredictorInputStream.wrap(new LZWInputStream(input, earlyChange), parameters);
+    }
+
+    private static final class LZWInputStream extends DecodingInputStream {
+        private final int earlyChange;
+        // Every code is stored as its prefix code plus one suffix byte.
+        private final int[] prefix = new int[MAX_CODES];
+        private final byte[] suffix = new byte[MAX_CODES];
+        private final int[] length = new int[MAX_CODES];
+        private final byte[] sequence = new byte[MAX_CODES];
+        private int nextCode;
+        private int codeLength;
+        private int previousCode = -1;
+        private long bitBuffer;
+        private int bitCount;
+        private boolean endOfData;
+
+        LZWInputStream(InputStream input, int earlyChange) {
+            super(input, 8192);
+            this.earlyChange = earlyChange;
+            for (int i = 0; i < 256; i++) {
+                prefix[i] = -1;
+                suffix[i] = (byte) i;
+                length[i] = 1;
+            }
+            resetTable();
+        }
+
+        private void resetTable() {
+            nextCode = 258;
+            codeLength = 9;
+            previousCode = -1;
+        }
+
+        private int readCode() throws IOException {
+            while (bitCount < codeLength) {
+                int b = input.read();
+                if (b < 0) {
+                    return -1;
+                }
+                bitBuffer = (bitBuffer << 8) | b;
+                bitCount += 8;
+            }
+            bitCount -= codeLength;
+            return (int) ((bitBuffer >>> bitCount) & ((1L << codeLength) - 1));
+        }
+
+        @Override
+        protected int fill(byte[] buffer) throws IOException {
+            if (endOfData) {
+                return -1;
+            }
+            int count = 0;
+            while (count + MAX_CODES <= buffer.length) {
+                int code = readCode();
+                if (code < 0 || code == END_OF_DATA) {
+                    endOfData = true;
+                    break;
+                }
+                if (code == CLEAR_TABLE) {
+                    resetTable();
+                    continue;
+                }
+
+                if (code < nextCode) {
+                    count = writeSequence(code, buffer, count);
+                    if (previousCode >= 0) {
+                        addCode(previousCode, sequence[0]);
+                    }
+                } else if (previousCode >= 0 && code == nextCode) {
+                    // The KwKwK case: the new code is the previous sequence plus its own first byte.
+                    int start = count;
+                    count = writeSequence(previousCode, buffer, count);
+                    buffer[count++] = buffer[start];
+                    addCode(previousCode, buffer[start]);
+                } else {
+                    endOfData = true;
+                    break;
+                }
+                previousCode = code;
+            }
+            return count == 0 && endOfData ? -1 : count;
+        }
+
+        private int writeSequence(int code, byte[] buffer, int count) {
+            int sequenceLength = length[code];
+            for (int i = sequenceLength - 1, c = code; i >= 0; i--, c = prefix[c]) {
+                sequence[i] = suffix[c];
+            }
+            System.arraycopy(sequence, 0, buffer, count, sequenceLength);
+            return count + sequenceLength;
+        }
+
+        private void addCode(int prefixCode, byte suffixByte) {
+            if (nextCode >= MAX_CODES) {
+                return;
+            }
+            prefix[nextCode] = prefixCode;
+            suffix[nextCode] = suffixByte;
+            length[nextCode] = length[prefixCode] + 1;
+            nextCode++;
+            if (nextCode + earlyChange >= (1 << codeLength) && codeLength < 12) {
+                codeLength++;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.antl.parser.filter;
+
+import java.nio.ByteBuffer;
+
+// Decoded stream data on loan from a BufferPool; close() hands the buffer back, after which it must not be used.
+// Without a pool the buffer is a plain view, e.g. of unfiltered stream data, and close() does nothing.
+public final class PooledBuffer implements AutoCloseable {
+    private final BufferPool pool;
+    private ByteBuffer buffer;
+
+    public PooledBuffer(BufferPool pool, ByteBuffer buffer) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    public ByteBuffer buffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("Buffer already released");
+        }
+        return buffer.duplicate();
+    }
+
+    public int size() {
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null && pool != null) {
+            pool.release(buffer);
+        }
+        buffer = null;
+    }
+}
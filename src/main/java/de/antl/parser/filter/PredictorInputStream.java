@@ -0,0 +1,60 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+final class PredictorInputStream extends DecodingInputStream {
+    private final Predictors predictors;
+    private final int rowLength;
+    private byte[] row;
+    private byte[] prior;
+
+    private PredictorInputStream(InputStream input, Predictors predictors) {
+        super(input, Math.max(8192, predictors.rowLength));
+        this.predictors = predictors;
+        this.rowLength = predictors.rowLength;
+        this.row = new byte[rowLength];
+        this.prior = new byte[rowLength];
+    }
+
+    static boolean isPredicted(Map<String, Object> parameters) {
+        return Predictors.isPredicted(parameters);
+    }
+
+    static InputStream wrap(InputStream input, Map<String, Object> parameters) {
+        Predictors predictors = Predictors.of(parameters);
+        return predictors == null ? input : new PredictorInputStream(input, predictors);
+    }
+
+    @Override
+    protected int fill(byte[] buffer) throws IOException {
+        int count = 0;
+        while (count + rowLength <= buffer.length) {
+            int filterType = 0;
+            if (predictors.isPng()) {
+                // PNG predictors prefix every row with its own filter type.
+                filterType = input.read();
+                if (filterType < 0) {
+                    break;
+                }
+            }
+            int read = input.readNBytes(row, 0, rowLength);
+            if (read <= 0) {
+                break;
+            }
+            predictors.decodeRow(row, prior, filterType, read);
+            System.arraycopy(row, 0, buffer, count, read);
+            count += read;
+
+            // Reuse the two row buffers instead of allocating per row.
+            byte[] decodedRow = row;
+            row = prior;
+            prior = decodedRow;
+            if (read < rowLength) {
+                break;
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+}
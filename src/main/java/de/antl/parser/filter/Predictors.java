@@ -0,0 +1,143 @@
+package de.antl.parser.filter;
+
+import de.antl.parser.service.PDFValues;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+// The TIFF and PNG predictors of /DecodeParms. Rows are decoded in plain byte[] loops; the first pixel
+// of each row is handled before the main loop so that the loops themselves carry no bounds branches.
+final class Predictors {
+    static final int TIFF_PREDICTOR = 2;
+
+    final int predictor;
+    final int bitsPerComponent;
+    final int bytesPerPixel;
+    final int rowLength;
+
+    private Predictors(int predictor, int colors, int bitsPerComponent, int columns) {
+        this.predictor = predictor;
+        this.bitsPerComponent = bitsPerComponent;
+        this.bytesPerPixel = Math.max(1, (colors * bitsPerComponent + 7) / 8);
+        this.rowLength = Math.max(1, (colors * bitsPerComponent * columns + 7) / 8);
+    }
+
+    static boolean isPredicted(Map<String, Object> parameters) {
+        return parameters != null && PDFValues.asInt(parameters.get("Predictor"), 1) >= TIFF_PREDICTOR;
+    }
+
+    static Predictors of(Map<String, Object> parameters) {
+        if (!isPredicted(parameters)) {
+            return null;
+        }
+        return new Predictors(
+                PDFValues.asInt(parameters.get("Predictor"), 1),
+                PDFValues.asInt(parameters.get("Colors"), 1),
+                PDFValues.asInt(parameters.get("BitsPerComponent"), 8),
+                PDFValues.asInt(parameters.get("Columns"), 1));
+    }
+
+    boolean isPng() {
+        return predictor != TIFF_PREDICTOR;
+    }
+
+    // Undoes the predictor in place from position to limit and sets the limit to the end of the result.
+    // PNG rows lose their filter type byte, so every row is written back at or before where it was read.
+    ByteBuffer decode(ByteBuffer data) {
+        byte[] row = new byte[rowLength];
+        byte[] prior = new byte[rowLength];
+        int in = data.position();
+        int out = in;
+        int end = data.limit();
+        while (in < end) {
+            int filterType = 0;
+            if (isPng()) {
+                filterType = data.get(in++) & 0xFF;
+            }
+            int length = Math.min(rowLength, end - in);
+            if (length <= 0) {
+                break;
+            }
+            data.get(in, row, 0, length);
+            in += length;
+            decodeRow(row, prior, filterType, length);
+            data.put(out, row, 0, length);
+            out += length;
+
+            byte[] decodedRow = row;
+            row = prior;
+            prior = decodedRow;
+        }
+        return data.limit(out);
+    }
+
+    void decodeRow(byte[] row, byte[] prior, int filterType, int length) {
+        if (isPng()) {
+            decodePngRow(row, prior, filterType, length, bytesPerPixel);
+        } else {
+            decodeTiffRow(row, length, bytesPerPixel, bitsPerComponent);
+        }
+    }
+
+    static void decodePngRow(byte[] row, byte[] up, int filterType, int length, int bpp) {
+        int first = Math.min(bpp, length);
+        switch (filterType) {
+            case 1 -> {
+                for (int i = bpp; i < length; i++) {
+                    row[i] += row[i - bpp];
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) {
+                    row[i] += up[i];
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < first; i++) {
+                    row[i] += (byte) ((up[i] & 0xFF) >>> 1);
+                }
+                for (int i = bpp; i < length; i++) {
+                    row[i] += (byte) (((row[i - bpp] & 0xFF) + (up[i] & 0xFF)) >>> 1);
+                }
+            }
+            case 4 -> {
+                // Without a left neighbour Paeth always picks the byte above.
+                for (int i = 0; i < first; i++) {
+                    row[i] += up[i];
+                }
+                for (int i = bpp; i < length; i++) {
+                    row[i] += (byte) paeth(row[i - bpp] & 0xFF, up[i] & 0xFF, up[i - bpp] & 0xFF);
+                }
+            }
+            default -> {
+                // 0 (None) and unknown types leave the row unchanged.
+            }
+        }
+    }
+
+    static void decodeTiffRow(byte[] row, int length, int bpp, int bitsPerComponent) {
+        if (bitsPerComponent == 8) {
+            for (int i = bpp; i < length; i++) {
+                row[i] += row[i - bpp];
+            }
+        } else if (bitsPerComponent == 16) {
+            for (int i = bpp; i + 1 < length; i += 2) {
+                int value = ((row[i] & 0xFF) << 8 | (row[i + 1] & 0xFF))
+                        + ((row[i - bpp] & 0xFF) << 8 | (row[i - bpp + 1] & 0xFF));
+                row[i] = (byte) (value >>> 8);
+                row[i + 1] = (byte) value;
+            }
+        }
+    }
+
+    static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+}
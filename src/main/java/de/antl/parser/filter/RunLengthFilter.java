@@ -0,0 +1,49 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+public class RunLengthFilter implements StreamFilter {
+    @Override
+    public InputStream decode(InputStream input, Map<String, Object> parameters) {
+        return new DecodingInputStream(input, 8192) {
+            private boolean endOfData;
+
+            @Override
+            protected int fill(byte[] buffer) throws IOException {
+                if (endOfData) {
+                    return -1;
+                }
+                int count = 0;
+                // A single run is at most 128 bytes, so stop while there is room for one more.
+                while (count + 128 <= buffer.length) {
+                    int length = input.read();
+                    if (length < 0 || length == 128) {
+                        endOfData = true;
+                        break;
+                    }
+                    if (length < 128) {
+                        int read = input.readNBytes(buffer, count, length + 1);
+                        count += read;
+                        if (read < length + 1) {
+                            endOfData = true;
+                            break;
+                        }
+                    } else {
+                        int value = input.read();
+                        if (value < 0) {
+                            endOfData = true;
+                            break;
+                        }
+                        int repeat = 257 - length;
+                        Arrays.fill(buffer, count, count + repeat, (byte) value);
+                        count += repeat;
+                    }
+                }
+                return count == 0 && endOfData ? -1 : count;
+            }
+        };
+    }
+}
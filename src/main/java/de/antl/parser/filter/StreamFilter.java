@@ -0,0 +1,10 @@
+package de.antl.parser.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+public interface StreamFilter {
+    // Wraps the encoded input; decoding happens as the returned stream is read.
+    InputStream decode(InputStream input, Map<String, Object> parameters) throws IOException;
+}
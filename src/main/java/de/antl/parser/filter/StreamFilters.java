@@ -0,0 +1,125 @@
+package de.antl.parser.filter;
+
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class StreamFilters {
+    private static final Map<String, StreamFilter> FILTERS = new ConcurrentHashMap<>();
+    // Flate typically compresses page content and images 3-5x; used when /DL does not give the size.
+    private static final int EXPANSION_ESTIMATE = 4;
+
+    static {
+        register(new FlateFilter(), "FlateDecode", "Fl");
+        register(new LZWFilter(), "LZWDecode", "LZW");
+        register(new ASCIIHexFilter(), "ASCIIHexDecode", "AHx");
+        register(new ASCII85Filter(), "ASCII85Decode", "A85");
+        register(new RunLengthFilter(), "RunLengthDecode", "RL");
+    }
+
+    private StreamFilters() {
+    }
+
+    public static void register(StreamFilter filter, String... names) {
+        for (String name : names) {
+            FILTERS.put(name, filter);
+        }
+    }
+
+    public static StreamFilter get(String name) {
+        return FILTERS.get(name);
+    }
+
+    public static boolean isSupported(String name) {
+        return FILTERS.containsKey(name);
+    }
+
+    // /Filter and /DecodeParms are either single values or parallel arrays.
+    public static List<String> filterNames(Object filter) {
+        List<String> names = new ArrayList<>();
+        List<Object> array = PDFValues.asArray(filter);
+        if (array != null) {
+            for (Object element : array) {
+                String name = PDFValues.asName(element);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+        } else {
+            String name = PDFValues.asName(filter);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    public static Map<String, Object> decodeParameters(Object decodeParms, int index) {
+        List<Object> array = PDFValues.asArray(decodeParms);
+        if (array != null) {
+            return index < array.size() ? PDFValues.asDictionary(array.get(index)) : null;
+        }
+        return index == 0 ? PDFValues.asDictionary(decodeParms) : null;
+    }
+
+    // Chains the decoders for all filters, stopping at the first image codec (DCT, JPX, JBIG2, CCITT)
+    // or other unsupported filter so that its encoded data is returned as is.
+    public static InputStream decode(InputStream raw, Object filter, Object decodeParms) throws IOException {
+        InputStream input = raw;
+        List<String> names = filterNames(filter);
+        for (int i = 0; i < names.size(); i++) {
+            StreamFilter streamFilter = FILTERS.get(names.get(i));
+            if (streamFilter == null) {
+                break;
+            }
+            input = streamFilter.decode(input, decodeParameters(decodeParms, i));
+        }
+        return input;
+    }
+
+    // Decodes into a buffer from the pool, pre-sized from decodedLength (/DL) when known.
+    // A lone FlateDecode is inflated directly and its predictor, if any, undone in place in the same buffer;
+    // other chains are read through decode().
+    public static PooledBuffer decode(ByteBuffer raw, Object filter, Object decodeParms, long decodedLength,
+                                      BufferPool pool) throws IOException {
+        List<String> names = filterNames(filter);
+        if (names.isEmpty() || !FILTERS.containsKey(names.get(0))) {
+            return new PooledBuffer(null, raw.slice());
+        }
+        int sizeHint = (int) Math.min(Integer.MAX_VALUE - 8,
+                decodedLength >= 0 ? decodedLength : (long) raw.remaining() * EXPANSION_ESTIMATE);
+        if (names.size() == 1 && FILTERS.get(names.get(0)) instanceof FlateFilter) {
+            Predictors predictors = Predictors.of(decodeParameters(decodeParms, 0));
+            if (predictors != null && predictors.isPng() && decodedLength >= 0) {
+                // /DL counts the decoded rows; the inflated data still has a filter type byte per row.
+                long inflatedLength = decodedLength + decodedLength / predictors.rowLength + 1;
+                sizeHint = (int) Math.min(Integer.MAX_VALUE - 8, inflatedLength);
+            }
+            return FlateFilter.inflate(raw, sizeHint, predictors, pool);
+        }
+
+        ByteBuffer output = pool.acquire(sizeHint);
+        try (ReadableByteChannel channel = Channels.newChannel(decode(new ByteBufferInputStream(raw), filter, decodeParms))) {
+            while (true) {
+                if (!output.hasRemaining()) {
+                    output = pool.grow(output);
+                }
+                if (channel.read(output) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pool.release(output);
+            throw e;
+        }
+        return new PooledBuffer(pool, output.flip());
+    }
+}
@@ -0,0 +1,128 @@
+package de.antl.parser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.List;
+
+// Publishes parser measurements as JFR events, so a recording shows which documents and objects are slow.
+// Cache lookups are too frequent for individual events and are not exported.
+public final class JfrParseListener implements ParseListener {
+    @Override
+    public void objectParsed(int objectNumber, int tokens, long tokenizeNanos, long nanos, long allocatedBytes) {
+        ObjectParsedEvent event = new ObjectParsedEvent();
+        if (event.isEnabled()) {
+            event.objectNumber = objectNumber;
+            event.tokens = tokens;
+            event.tokenizeTime = tokenizeNanos;
+            event.parseTime = nanos;
+            event.allocated = allocatedBytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void streamDecoded(List<String> filters, long encodedBytes, long decodedBytes, long nanos) {
+        StreamDecodedEvent event = new StreamDecodedEvent();
+        if (event.isEnabled()) {
+            event.filters = String.join(" ", filters);
+            event.encodedBytes = encodedBytes;
+            event.decodedBytes = decodedBytes;
+            event.decodeTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void xrefRead(int sections, int entries, long nanos) {
+        XRefReadEvent event = new XRefReadEvent();
+        if (event.isEnabled()) {
+            event.sections = sections;
+            event.entries = entries;
+            event.readTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void objectStreamLoaded(int streamNumber, int objects, long nanos) {
+        ObjectStreamLoadedEvent event = new ObjectStreamLoadedEvent();
+        if (event.isEnabled()) {
+            event.streamNumber = streamNumber;
+            event.objects = objects;
+            event.loadTime = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("de.antl.pdf.ObjectParsed")
+    @Label("PDF Object Parsed")
+    @Category({"PDF Parser"})
+    @StackTrace(false)
+    static final class ObjectParsedEvent extends Event {
+        @Label("Object Number")
+        int objectNumber;
+        @Label("Tokens")
+        int tokens;
+        @Label("Tokenize Time")
+        @Timespan
+        long tokenizeTime;
+        @Label("Parse Time")
+        @Timespan
+        long parseTime;
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("de.antl.pdf.StreamDecoded")
+    @Label("PDF Stream Decoded")
+    @Category({"PDF Parser"})
+    @StackTrace(false)
+    static final class StreamDecodedEvent extends Event {
+        @Label("Filters")
+        String filters;
+        @Label("Encoded Size")
+        @DataAmount
+        long encodedBytes;
+        @Label("Decoded Size")
+        @DataAmount
+        long decodedBytes;
+        @Label("Decode Time")
+        @Timespan
+        long decodeTime;
+    }
+
+    @Name("de.antl.pdf.XRefRead")
+    @Label("PDF Cross-Reference Read")
+    @Category({"PDF Parser"})
+    @StackTrace(false)
+    static final class XRefReadEvent extends Event {
+        @Label("Sections")
+        int sections;
+        @Label("Entries")
+        int entries;
+        @Label("Read Time")
+        @Timespan
+        long readTime;
+    }
+
+    @Name("de.antl.pdf.ObjectStreamLoaded")
+    @Label("PDF Object Stream Loaded")
+    @Category({"PDF Parser"})
+    @StackTrace(false)
+    static final class ObjectStreamLoadedEvent extends Event {
+        @Label("Stream Number")
+        int streamNumber;
+        @Label("Objects")
+        int objects;
+        @Label("Load Time")
+        @Timespan
+        long loadTime;
+    }
+}
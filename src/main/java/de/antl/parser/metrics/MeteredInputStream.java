@@ -0,0 +1,63 @@
+package de.antl.parser.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+// Counts the decoded bytes and the time spent in the filter chain; reported once on close().
+public final class MeteredInputStream extends FilterInputStream {
+    private final ParseListener listener;
+    private final List<String> filters;
+    private final long encodedBytes;
+    private long decodedBytes;
+    private long nanos;
+    private boolean closed;
+
+    public MeteredInputStream(InputStream in, ParseListener listener, List<String> filters, long encodedBytes) {
+        super(in);
+        this.listener = listener;
+        this.filters = filters;
+        this.encodedBytes = encodedBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int b = super.read();
+        nanos += System.nanoTime() - start;
+        if (b >= 0) {
+            decodedBytes++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int read = super.read(b, off, len);
+        nanos += System.nanoTime() - start;
+        if (read > 0) {
+            decodedBytes += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long start = System.nanoTime();
+        long skipped = super.skip(n);
+        nanos += System.nanoTime() - start;
+        decodedBytes += skipped;
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            listener.streamDecoded(filters, encodedBytes, decodedBytes, nanos);
+        }
+        super.close();
+    }
+}
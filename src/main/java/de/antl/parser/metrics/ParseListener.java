@@ -0,0 +1,30 @@
+package de.antl.parser.metrics;
+
+import java.util.List;
+
+// Receives measurements from the tokenizer, parser, filters, cross-reference reader and object cache.
+// Instrumented code checks for NONE before taking timings, so the default costs nothing.
+public interface ParseListener {
+    ParseListener NONE = new ParseListener() {
+    };
+
+    // nanos covers the whole object, tokenizeNanos the part of it spent in the tokenizer. Allocated bytes
+    // are -1 when the JVM cannot measure per-thread allocation.
+    default void objectParsed(int objectNumber, int tokens, long tokenizeNanos, long nanos, long allocatedBytes) {
+    }
+
+    default void streamParsed(int objectNumber, int encodedBytes) {
+    }
+
+    default void streamDecoded(List<String> filters, long encodedBytes, long decodedBytes, long nanos) {
+    }
+
+    default void xrefRead(int sections, int entries, long nanos) {
+    }
+
+    default void objectStreamLoaded(int streamNumber, int objects, long nanos) {
+    }
+
+    default void cacheLookup(int objectNumber, boolean hit) {
+    }
+}
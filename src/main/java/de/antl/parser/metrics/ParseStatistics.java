@@ -0,0 +1,169 @@
+package de.antl.parser.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe ParseListener that aggregates everything into counters, e.g. one instance per document.
+public final class ParseStatistics implements ParseListener {
+    private static final int DEFAULT_LARGEST_STREAMS = 10;
+
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder objects = new LongAdder();
+    private final LongAdder tokenizeNanos = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder streamsDecoded = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+    private final LongAdder xrefSections = new LongAdder();
+    private final LongAdder xrefEntries = new LongAdder();
+    private final LongAdder xrefNanos = new LongAdder();
+    private final LongAdder objectStreams = new LongAdder();
+    private final LongAdder objectStreamNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final int largestStreamCount;
+    // Min-heap of the largest streams seen so far, smallest on top.
+    private final PriorityQueue<StreamSize> largestStreams;
+
+    public ParseStatistics() {
+        this(DEFAULT_LARGEST_STREAMS);
+    }
+
+    public ParseStatistics(int largestStreamCount) {
+        this.largestStreamCount = largestStreamCount;
+        this.largestStreams = new PriorityQueue<>(Comparator.comparingInt(StreamSize::encodedBytes));
+    }
+
+    public record StreamSize(int objectNumber, int encodedBytes) {
+    }
+
+    @Override
+    public void objectParsed(int objectNumber, int tokens, long tokenizeNanos, long nanos, long allocatedBytes) {
+        this.tokens.add(tokens);
+        this.objects.increment();
+        this.tokenizeNanos.add(tokenizeNanos);
+        this.parseNanos.add(nanos);
+        if (allocatedBytes > 0) {
+            this.allocatedBytes.add(allocatedBytes);
+        }
+    }
+
+    @Override
+    public void streamParsed(int objectNumber, int encodedBytes) {
+        synchronized (largestStreams) {
+            if (largestStreams.size() < largestStreamCount) {
+                largestStreams.add(new StreamSize(objectNumber, encodedBytes));
+            } else if (largestStreamCount > 0 && largestStreams.peek().encodedBytes() < encodedBytes) {
+                largestStreams.poll();
+                largestStreams.add(new StreamSize(objectNumber, encodedBytes));
+            }
+        }
+    }
+
+    @Override
+    public void streamDecoded(List<String> filters, long encodedBytes, long decodedBytes, long nanos) {
+        this.streamsDecoded.increment();
+        this.encodedBytes.add(encodedBytes);
+        this.decodedBytes.add(decodedBytes);
+        this.decodeNanos.add(nanos);
+    }
+
+    @Override
+    public void xrefRead(int sections, int entries, long nanos) {
+        this.xrefSections.add(sections);
+        this.xrefEntries.add(entries);
+        this.xrefNanos.add(nanos);
+    }
+
+    @Override
+    public void objectStreamLoaded(int streamNumber, int objects, long nanos) {
+        this.objectStreams.increment();
+        this.objectStreamNanos.add(nanos);
+    }
+
+    @Override
+    public void cacheLookup(int objectNumber, boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    public long tokens() {
+        return tokens.sum();
+    }
+
+    public long objects() {
+        return objects.sum();
+    }
+
+    // Part of parseNanos() spent in the tokenizer.
+    public long tokenizeNanos() {
+        return tokenizeNanos.sum();
+    }
+
+    public long parseNanos() {
+        return parseNanos.sum();
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    public long streamsDecoded() {
+        return streamsDecoded.sum();
+    }
+
+    public long encodedBytes() {
+        return encodedBytes.sum();
+    }
+
+    public long decodedBytes() {
+        return decodedBytes.sum();
+    }
+
+    public long decodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    public long xrefEntries() {
+        return xrefEntries.sum();
+    }
+
+    public long xrefNanos() {
+        return xrefNanos.sum();
+    }
+
+    public long objectStreamNanos() {
+        return objectStreamNanos.sum();
+    }
+
+    public double cacheHitRate() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    // Largest first.
+    public List<StreamSize> largestStreams() {
+        List<StreamSize> result;
+        synchronized (largestStreams) {
+            result = new ArrayList<>(largestStreams);
+        }
+        result.sort(Comparator.comparingInt(StreamSize::encodedBytes).reversed());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ParseStatistics{objects=%d, tokens=%d, parse=%.1fms (tokenize=%.1fms), allocated=%dKB, "
+                        + "xref=%d entries in %d sections %.1fms, objectStreams=%d %.1fms, "
+                        + "decoded=%d streams %d -> %d bytes %.1fms, cacheHitRate=%.2f, largestStreams=%s}",
+                objects(), tokens(), parseNanos() / 1e6, tokenizeNanos() / 1e6, allocatedBytes() / 1024,
+                xrefEntries(), xrefSections.sum(), xrefNanos() / 1e6, objectStreams.sum(), objectStreamNanos() / 1e6,
+                streamsDecoded(), encodedBytes(), decodedBytes(), decodeNanos() / 1e6, cacheHitRate(), largestStreams());
+    }
+}
@@ -0,0 +1,29 @@
+package de.antl.parser.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public final class ThreadAllocation {
+    private static final com.sun.management.ThreadMXBean THREADS = supportedBean();
+
+    private ThreadAllocation() {
+    }
+
+    private static com.sun.management.ThreadMXBean supportedBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    // Bytes allocated by the current thread so far, or -1 if the JVM does not track them.
+    public static long currentThread() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public static long since(long start) {
+        return start < 0 ? -1 : currentThread() - start;
+    }
+}
@@ -0,0 +1,11 @@
+package de.antl.parser.model;
+
+// A span of a file, e.g. the part of a linearized file that holds the objects of one page.
+public record ByteRange(
+        long offset,
+        long length
+) {
+    public long end() {
+        return offset + length;
+    }
+}
@@ -0,0 +1,15 @@
+package de.antl.parser.model;
+
+public record CacheStatistics(
+        long hits,
+        long softHits,
+        long misses,
+        long evictions,
+        int size,
+        long weight
+) {
+    public double hitRate() {
+        long requests = hits + softHits + misses;
+        return requests == 0 ? 0 : (double) (hits + softHits) / requests;
+    }
+}
@@ -0,0 +1,18 @@
+package de.antl.parser.model;
+
+public record CompactionResult(
+        int objectsRead,
+        int objectsWritten,
+        int duplicatesRemoved,
+        int objectStreams,
+        int streamsRecompressed,
+        long inputLength,
+        long outputLength
+) {
+    @Override
+    public String toString() {
+        return String.format("Compacted %d objects to %d (%d duplicates, %d object streams, %d streams recompressed),"
+                + " %d to %d bytes", objectsRead, objectsWritten, duplicatesRemoved, objectStreams,
+                streamsRecompressed, inputLength, outputLength);
+    }
+}
@@ -0,0 +1,22 @@
+package de.antl.parser.model;
+
+import java.nio.file.Path;
+
+public record DocumentResult<T>(
+        Path path,
+        T value,
+        Throwable failure,
+        int objectCount,
+        long openNanos,
+        long indexNanos,
+        long parseNanos,
+        long extractNanos
+) {
+    public boolean succeeded() {
+        return failure == null;
+    }
+
+    public long totalNanos() {
+        return openNanos + indexNanos + parseNanos + extractNanos;
+    }
+}
@@ -0,0 +1,195 @@
+package de.antl.parser.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+// A dictionary stored as one flat array of alternating keys and values. PDF dictionaries rarely have
+// more than a dozen entries and their keys are interned names, so a linear scan beats hashing and the
+// footprint is a fraction of a HashMap with its table and entry nodes.
+public final class PDFDictionary extends AbstractMap<String, Object> {
+    private Object[] entries;
+    private int size;
+
+    public PDFDictionary() {
+        this(4);
+    }
+
+    public PDFDictionary(int capacity) {
+        this.entries = new Object[Math.max(capacity, 1) * 2];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Positional access in insertion order, for hot loops that should not create entries.
+    public String keyAt(int index) {
+        return (String) entries[Objects.checkIndex(index, size) * 2];
+    }
+
+    public Object valueAt(int index) {
+        return entries[Objects.checkIndex(index, size) * 2 + 1];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : entries[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            Object previous = entries[i + 1];
+            entries[i + 1] = value;
+            return previous;
+        }
+        if (size * 2 == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[size * 2] = key;
+        entries[size * 2 + 1] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object previous = entries[i + 1];
+        removeAt(i);
+        return previous;
+    }
+
+    // Drops unused capacity once the dictionary is complete.
+    public PDFDictionary trim() {
+        if (size * 2 < entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(size, 1) * 2);
+        }
+        return this;
+    }
+
+    private int indexOf(Object key) {
+        // Parsed keys are interned, so an identity match usually ends the search early.
+        for (int i = 0; i < size * 2; i += 2) {
+            if (entries[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < size * 2; i += 2) {
+                if (key.equals(entries[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy(entries, i + 2, entries, i, size * 2 - i - 2);
+        size--;
+        entries[size * 2] = null;
+        entries[size * 2 + 1] = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private int last = -1;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size * 2;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        last = next;
+                        next += 2;
+                        return new Slot(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+                        removeAt(last);
+                        next = last;
+                        last = -1;
+                    }
+                };
+            }
+        };
+    }
+
+    private final class Slot implements Map.Entry<String, Object> {
+        private final int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return (String) entries[index];
+        }
+
+        @Override
+        public Object getValue() {
+            return entries[index + 1];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object previous = entries[index + 1];
+            entries[index + 1] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> entry
+                    && getKey().equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package de.antl.parser.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// An array of integers, e.g. /W, /Index or a /MediaBox without fractions, backed by an int[].
+// get() boxes for code written against List; getInt() does not.
+public final class PDFIntArray extends AbstractList<Object> implements RandomAccess {
+    private final int[] values;
+
+    public PDFIntArray(int[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public Object get(int index) {
+        return values[index];
+    }
+
+    public int getInt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    public int[] toIntArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
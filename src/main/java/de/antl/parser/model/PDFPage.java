@@ -0,0 +1,51 @@
+package de.antl.parser.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// A page leaf together with its /Pages ancestors, nearest first. Inherited attributes are looked up
+// in the ancestors' own dictionaries instead of being copied into the page.
+public record PDFPage(
+        int index,
+        int objectNumber,
+        Map<String, Object> dictionary,
+        List<Map<String, Object>> ancestors
+) {
+    private static final Set<String> INHERITABLE = Set.of("Resources", "MediaBox", "CropBox", "Rotate");
+
+    public Object get(String key) {
+        Object value = dictionary.get(key);
+        if (value != null || !INHERITABLE.contains(key)) {
+            return value;
+        }
+        for (Map<String, Object> ancestor : ancestors) {
+            value = ancestor.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public Object resources() {
+        return get("Resources");
+    }
+
+    public Object mediaBox() {
+        return get("MediaBox");
+    }
+
+    public Object contents() {
+        return dictionary.get("Contents");
+    }
+
+    @Override
+    public String toString() {
+        return "PDFPage{" +
+                "index=" + index +
+                ", objectNumber=" + objectNumber +
+                ", dictionary=" + dictionary +
+                '}';
+    }
+}
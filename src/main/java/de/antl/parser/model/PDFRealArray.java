@@ -0,0 +1,40 @@
+package de.antl.parser.model;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+// An array of numbers with at least one real, e.g. /Widths or /Matrix, backed by a double[].
+// A bit mask remembers which elements were written as integers, so get() returns the same
+// Integer or Double the parser produced.
+public final class PDFRealArray extends AbstractList<Object> implements RandomAccess {
+    private final double[] values;
+    private final long[] integers;
+
+    public PDFRealArray(double[] values, long[] integers) {
+        this.values = values;
+        this.integers = integers;
+    }
+
+    @Override
+    public Object get(int index) {
+        double value = values[index];
+        return isInteger(index) ? (Object) (int) value : (Object) value;
+    }
+
+    public double getDouble(int index) {
+        return values[index];
+    }
+
+    public boolean isInteger(int index) {
+        return (integers[index >>> 6] & 1L << index) != 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    public double[] toDoubleArray() {
+        return values.clone();
+    }
+}
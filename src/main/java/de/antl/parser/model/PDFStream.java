@@ -0,0 +1,77 @@
+package de.antl.parser.model;
+
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.ByteBufferInputStream;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.filter.StreamFilters;
+import de.antl.parser.metrics.MeteredInputStream;
+import de.antl.parser.metrics.ParseListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Map;
+
+public record PDFStream(
+        Map<String, Object> dictionary,
+        ByteBuffer data,
+        ParseListener listener
+) {
+    public PDFStream(Map<String, Object> dictionary, ByteBuffer data) {
+        this(dictionary, data, ParseListener.NONE);
+    }
+
+    // The encoded bytes as a view of the underlying buffer; nothing is decoded until a stream is opened.
+    public ByteBuffer rawData() {
+        return data.duplicate();
+    }
+
+    public int rawLength() {
+        return data.remaining();
+    }
+
+    public List<String> filters() {
+        return StreamFilters.filterNames(dictionary.get("Filter"));
+    }
+
+    public InputStream openStream() throws IOException {
+        InputStream decoded = StreamFilters.decode(new ByteBufferInputStream(data), dictionary.get("Filter"), dictionary.get("DecodeParms"));
+        if (listener == ParseListener.NONE) {
+            return decoded;
+        }
+        return new MeteredInputStream(decoded, listener, filters(), data.remaining());
+    }
+
+    public ReadableByteChannel openChannel() throws IOException {
+        return Channels.newChannel(openStream());
+    }
+
+    public byte[] decode() throws IOException {
+        try (InputStream input = openStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    // Decodes into a direct buffer from the pool, pre-sized from /DL; close the result to hand the buffer back.
+    public PooledBuffer decode(BufferPool pool) throws IOException {
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        long decodedLength = dictionary.get("DL") instanceof Number number ? number.longValue() : -1;
+        PooledBuffer decoded = StreamFilters.decode(data, dictionary.get("Filter"), dictionary.get("DecodeParms"),
+                decodedLength, pool);
+        if (listener != ParseListener.NONE) {
+            listener.streamDecoded(filters(), data.remaining(), decoded.size(), System.nanoTime() - start);
+        }
+        return decoded;
+    }
+
+    @Override
+    public String toString() {
+        return "PDFStream{" +
+                "dictionary=" + dictionary +
+                ", length=" + data.remaining() +
+                '}';
+    }
+}
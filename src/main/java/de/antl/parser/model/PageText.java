@@ -0,0 +1,12 @@
+package de.antl.parser.model;
+
+public record PageText(
+        int pageIndex,
+        String text,
+        Throwable failure,
+        long extractNanos
+) {
+    public boolean succeeded() {
+        return failure == null;
+    }
+}
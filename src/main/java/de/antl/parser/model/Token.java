@@ -2,6 +2,8 @@ package de.antl.parser.model;
 
 import de.antl.parser.enums.TokenType;
 
+import java.nio.ByteBuffer;
+
 public record Token(
         TokenType type,
         Object value
@@ -14,11 +16,38 @@ public record Token(
         return (byte[]) value;
     }
 
+    public ByteBuffer getByteBufferValue() {
+        return (ByteBuffer) value;
+    }
+
+    // The buffer tokenizer stores numbers as Integer, Long or Double; the reader tokenizer keeps the text.
+    public int intValue() {
+        return value instanceof Number number ? number.intValue() : (int) longValue();
+    }
+
+    public long longValue() {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        String text = (String) value;
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return (long) Double.parseDouble(text);
+        }
+    }
+
+    public double doubleValue() {
+        return value instanceof Number number ? number.doubleValue() : Double.parseDouble((String) value);
+    }
+
     @Override
     public String toString() {
         String displayValue;
         if (value instanceof byte[] bytes) {
             displayValue = "byte[" + bytes.length + "]";
+        } else if (value instanceof ByteBuffer buffer) {
+            displayValue = "byte[" + buffer.remaining() + "]";
         } else {
             displayValue = String.valueOf(value);
         }
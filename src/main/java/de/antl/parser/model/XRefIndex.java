@@ -0,0 +1,119 @@
+package de.antl.parser.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class XRefIndex {
+    public static final int TYPE_FREE = 0;
+    public static final int TYPE_IN_USE = 1;
+    public static final int TYPE_COMPRESSED = 2;
+
+    // types[] holds the entry type + 1 so that 0 can mean "no entry recorded yet".
+    private byte[] types;
+    private long[] offsets;
+    private int[] generations;
+    private int size;
+
+    public XRefIndex() {
+        this(16);
+    }
+
+    public XRefIndex(int initialCapacity) {
+        this.types = new byte[Math.max(initialCapacity, 1)];
+        this.offsets = new long[types.length];
+        this.generations = new int[types.length];
+    }
+
+    // Restores an index from its arrays, with types encoded as type + 1 and 0 for missing entries.
+    public XRefIndex(byte[] encodedTypes, long[] offsets, int[] generations) {
+        this.types = encodedTypes;
+        this.offsets = offsets;
+        this.generations = generations;
+        this.size = encodedTypes.length;
+    }
+
+    public XRefIndex copy() {
+        return new XRefIndex(Arrays.copyOf(types, size), Arrays.copyOf(offsets, size), Arrays.copyOf(generations, size));
+    }
+
+    public void addTables(List<XRefTable> tables) {
+        for (XRefTable table : tables) {
+            List<XRefSubsection> entries = table.subsections();
+            for (int i = 0; i < entries.size(); i++) {
+                XRefSubsection entry = entries.get(i);
+                putIfAbsent(table.startIndex() + i, entry.isInUse() ? TYPE_IN_USE : TYPE_FREE,
+                        entry.byteOffset(), entry.genNumber());
+            }
+        }
+    }
+
+    // Sections are read newest first, so an entry that is already present wins.
+    public boolean putIfAbsent(int objectNumber, int type, long offset, int generation) {
+        if (objectNumber < 0) {
+            return false;
+        }
+        ensureCapacity(objectNumber + 1);
+        if (types[objectNumber] != 0) {
+            return false;
+        }
+        types[objectNumber] = (byte) (type + 1);
+        offsets[objectNumber] = offset;
+        generations[objectNumber] = generation;
+        size = Math.max(size, objectNumber + 1);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int objectNumber) {
+        return objectNumber >= 0 && objectNumber < size && types[objectNumber] != 0;
+    }
+
+    public int type(int objectNumber) {
+        return contains(objectNumber) ? types[objectNumber] - 1 : TYPE_FREE;
+    }
+
+    public boolean isInUse(int objectNumber) {
+        return type(objectNumber) == TYPE_IN_USE;
+    }
+
+    // Byte offset for in-use entries, the object stream number for compressed entries.
+    public long offset(int objectNumber) {
+        return contains(objectNumber) ? offsets[objectNumber] : -1;
+    }
+
+    // Generation number for in-use entries, the index inside the object stream for compressed entries.
+    public int generation(int objectNumber) {
+        return contains(objectNumber) ? generations[objectNumber] : 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, types.length * 2);
+        types = Arrays.copyOf(types, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        generations = Arrays.copyOf(generations, newCapacity);
+    }
+
+    @Override
+    public String toString() {
+        int inUse = 0;
+        int compressed = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == TYPE_IN_USE + 1) {
+                inUse++;
+            } else if (types[i] == TYPE_COMPRESSED + 1) {
+                compressed++;
+            }
+        }
+        return "XRefIndex{" +
+                "size=" + size +
+                ", inUse=" + inUse +
+                ", compressed=" + compressed +
+                '}';
+    }
+}
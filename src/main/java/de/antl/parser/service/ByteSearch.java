@@ -0,0 +1,68 @@
+package de.antl.parser.service;
+
+import java.nio.ByteBuffer;
+
+final class ByteSearch {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private ByteSearch() {
+    }
+
+    static int indexOf(ByteBuffer buffer, byte[] pattern, int from, int to) {
+        int last = to - pattern.length;
+        byte first = pattern[0];
+        long broadcast = broadcast(first);
+        int i = Math.max(from, 0);
+
+        // Word-at-a-time: only look at individual bytes of 8-byte words that contain the first pattern byte.
+        while (i + Long.BYTES <= last + 1) {
+            if (matches(buffer.getLong(i), broadcast) != 0) {
+                for (int j = i; j < i + Long.BYTES; j++) {
+                    if (buffer.get(j) == first && matchesAt(buffer, pattern, j)) {
+                        return j;
+                    }
+                }
+            }
+            i += Long.BYTES;
+        }
+        for (; i <= last; i++) {
+            if (buffer.get(i) == first && matchesAt(buffer, pattern, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static long broadcast(byte b) {
+        return (b & 0xFFL) * ONES;
+    }
+
+    // Sets the high bit of every byte of word that equals the broadcast byte. Bytes next to a match may
+    // be reported too, so callers confirm candidates, but a real match is never missed.
+    static long matches(long word, long broadcast) {
+        long x = word ^ broadcast;
+        return (x - ONES) & ~x & HIGH_BITS;
+    }
+
+    static int lastIndexOf(ByteBuffer buffer, byte[] pattern, int from, int to) {
+        for (int i = to - pattern.length; i >= from; i--) {
+            if (matchesAt(buffer, pattern, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean matchesAt(ByteBuffer buffer, byte[] pattern, int index) {
+        if (index < 0 || index + pattern.length > buffer.limit()) {
+            return false;
+        }
+        for (int j = 0; j < pattern.length; j++) {
+            if (buffer.get(index + j) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,175 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.ByteRange;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// The page offset and shared object hint tables of a linearized file, reduced to where each page's own
+// objects are and which shared object groups it uses. The tables are bit-packed, item by item for all
+// entries, every item starting on a byte boundary. Their offsets leave out the hint stream itself, so
+// offsets behind it are shifted by its length here.
+final class HintTables {
+    // Guards against tables that claim more entries than any file could have.
+    private static final int MAX_ENTRIES = 1 << 24;
+
+    private final ByteRange[] pageSections;
+    private final int[][] pageGroups;
+    // Shared object groups, with null ranges for the groups that are part of the first page section.
+    private final ByteRange[] groupSections;
+
+    private HintTables(ByteRange[] pageSections, int[][] pageGroups, ByteRange[] groupSections) {
+        this.pageSections = pageSections;
+        this.pageGroups = pageGroups;
+        this.groupSections = groupSections;
+    }
+
+    static HintTables read(ByteBuffer data, int sharedTableOffset, int pageCount, long hintOffset, long hintLength)
+            throws ParseException {
+        if (pageCount <= 0 || pageCount > MAX_ENTRIES || sharedTableOffset < 0 || sharedTableOffset > data.limit()) {
+            throw new ParseException("Invalid hint table layout: " + pageCount + " pages, shared table at "
+                    + sharedTableOffset);
+        }
+        BitReader pages = new BitReader(data, 0);
+        pages.read(32); // least number of objects in a page
+        long firstPageOffset = pages.read(32);
+        int objectCountBits = pages.readWidth();
+        long leastPageLength = pages.read(32);
+        int pageLengthBits = pages.readWidth();
+        pages.read(32); // least content stream offset
+        pages.readWidth();
+        pages.read(32); // least content stream length
+        pages.readWidth();
+        int sharedCountBits = pages.readWidth();
+        int sharedIdBits = pages.readWidth();
+        pages.readWidth(); // fractional position numerator
+        pages.read(16); // and its denominator
+
+        pages.skipItem(pageCount, objectCountBits);
+        long[] pageLengths = pages.readItem(pageCount, pageLengthBits, leastPageLength);
+        long[] sharedCounts = pages.readItem(pageCount, sharedCountBits, 0);
+        int[][] pageGroups = new int[pageCount][];
+        for (int page = 0; page < pageCount; page++) {
+            if (sharedCounts[page] > MAX_ENTRIES) {
+                throw new ParseException("Page " + page + " claims " + sharedCounts[page] + " shared objects");
+            }
+            pageGroups[page] = new int[(int) sharedCounts[page]];
+            for (int i = 0; i < pageGroups[page].length; i++) {
+                pageGroups[page][i] = (int) pages.read(sharedIdBits);
+            }
+        }
+
+        ByteRange[] pageSections = new ByteRange[pageCount];
+        long offset = firstPageOffset;
+        for (int page = 0; page < pageCount; page++) {
+            pageSections[page] = new ByteRange(shift(offset, hintOffset, hintLength), pageLengths[page]);
+            offset += pageLengths[page];
+        }
+        return new HintTables(pageSections, pageGroups, readGroups(data, sharedTableOffset, hintOffset, hintLength));
+    }
+
+    private static ByteRange[] readGroups(ByteBuffer data, int sharedTableOffset, long hintOffset, long hintLength)
+            throws ParseException {
+        BitReader shared = new BitReader(data, sharedTableOffset);
+        shared.read(32); // number of the first object in the shared objects section
+        long firstGroupOffset = shared.read(32);
+        long firstPageGroups = shared.read(32);
+        long groupCount = shared.read(32);
+        shared.readWidth(); // objects per group
+        long leastGroupLength = shared.read(32);
+        int groupLengthBits = shared.readWidth();
+        if (groupCount > MAX_ENTRIES || firstPageGroups > groupCount) {
+            throw new ParseException("Invalid shared object hint table: " + groupCount + " groups");
+        }
+        long[] groupLengths = shared.readItem((int) groupCount, groupLengthBits, leastGroupLength);
+
+        ByteRange[] groupSections = new ByteRange[(int) groupCount];
+        long offset = firstGroupOffset;
+        for (int group = (int) firstPageGroups; group < groupCount; group++) {
+            groupSections[group] = new ByteRange(shift(offset, hintOffset, hintLength), groupLengths[group]);
+            offset += groupLengths[group];
+        }
+        return groupSections;
+    }
+
+    private static long shift(long offset, long hintOffset, long hintLength) {
+        return offset >= hintOffset ? offset + hintLength : offset;
+    }
+
+    int pageCount() {
+        return pageSections.length;
+    }
+
+    ByteRange pageSection(int page) {
+        return pageSections[page];
+    }
+
+    // Sections of the shared object groups a page uses, leaving out those in the first page section.
+    ByteRange[] groupSections(int page) {
+        int[] groups = pageGroups[page];
+        ByteRange[] sections = new ByteRange[groups.length];
+        int count = 0;
+        for (int group : groups) {
+            if (group >= 0 && group < groupSections.length && groupSections[group] != null) {
+                sections[count++] = groupSections[group];
+            }
+        }
+        return Arrays.copyOf(sections, count);
+    }
+
+    // Big-endian bit fields of up to 32 bits.
+    private static final class BitReader {
+        private final ByteBuffer data;
+        private long bitPosition;
+
+        private BitReader(ByteBuffer data, int offset) {
+            this.data = data;
+            this.bitPosition = (long) offset * 8;
+        }
+
+        long read(int bits) throws ParseException {
+            if (bits < 0 || bits > 32) {
+                throw new ParseException("Invalid hint table field width: " + bits);
+            }
+            long value = 0;
+            for (int i = 0; i < bits; i++) {
+                int index = (int) (bitPosition >>> 3);
+                if (index >= data.limit()) {
+                    throw new ParseException("Hint table ends early at byte " + index);
+                }
+                int bit = data.get(index) >>> (7 - (int) (bitPosition & 7)) & 1;
+                value = value << 1 | bit;
+                bitPosition++;
+            }
+            return value;
+        }
+
+        // The width fields of the headers, which tell how many bits an item takes per entry.
+        int readWidth() throws ParseException {
+            int bits = (int) read(16);
+            if (bits > 32) {
+                throw new ParseException("Invalid hint table field width: " + bits);
+            }
+            return bits;
+        }
+
+        long[] readItem(int count, int bits, long least) throws ParseException {
+            long[] values = new long[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = least + read(bits);
+            }
+            alignToByte();
+            return values;
+        }
+
+        void skipItem(int count, int bits) throws ParseException {
+            bitPosition += (long) count * bits;
+            alignToByte();
+        }
+
+        private void alignToByte() {
+            bitPosition = (bitPosition + 7) & ~7L;
+        }
+    }
+}
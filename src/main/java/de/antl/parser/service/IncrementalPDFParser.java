@@ -0,0 +1,340 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Push-style parser for input that arrives in chunks, e.g. an upload that is still in progress.
+// Objects are reported as soon as their "endobj" has arrived, and only the bytes of the object
+// that is still incomplete are buffered.
+public class IncrementalPDFParser implements ObjectResolver, Closeable {
+    public static final int DEFAULT_MEMORY_LIMIT = 8 * 1024 * 1024;
+
+    private static final byte[] END_OBJ = "endobj".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] TRAILER = "trailer".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] START_XREF = "startxref".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ObjectListener listener;
+    private final NameTable names = new NameTable();
+    // Direct numeric objects seen so far, which is what indirect stream /Length entries point to.
+    private final Map<Integer, Object> numbers = new HashMap<>();
+    private final RetainedInput retained;
+
+    private byte[] window = new byte[64 * 1024];
+    private int end;
+    private int scan;
+    private int searchFrom;
+    private long windowOffset;
+    private Map<String, Object> trailer;
+    private boolean finished;
+
+    public IncrementalPDFParser(ObjectListener listener) {
+        this(listener, false, DEFAULT_MEMORY_LIMIT);
+    }
+
+    // With retainInput, the whole input is kept so that document() can open it for random access.
+    // It stays in memory up to memoryLimit bytes and is spilled to a temporary file beyond that.
+    public IncrementalPDFParser(ObjectListener listener, boolean retainInput, int memoryLimit) {
+        this.listener = listener;
+        this.retained = retainInput ? new RetainedInput(memoryLimit) : null;
+    }
+
+    public void feed(ByteBuffer chunk) throws IOException, ParseException {
+        if (finished) {
+            throw new IllegalStateException("Input already finished");
+        }
+        if (retained != null) {
+            retained.write(chunk.duplicate());
+        }
+        append(chunk);
+        process(false);
+    }
+
+    public void finish() throws IOException, ParseException {
+        if (!finished) {
+            finished = true;
+            process(true);
+        }
+    }
+
+    public Map<String, Object> getTrailer() {
+        return trailer;
+    }
+
+    // Opens the retained input through its cross-reference table; only available after finish().
+    public PDFDocument document() throws IOException, ParseException {
+        if (retained == null) {
+            throw new IllegalStateException("Input was not retained");
+        }
+        if (!finished) {
+            throw new IllegalStateException("Input not finished");
+        }
+        return PDFDocument.open(retained.buffer());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (retained != null) {
+            retained.close();
+        }
+    }
+
+    @Override
+    public Object resolve(Object value) {
+        if (value instanceof PDFIndirectReference reference) {
+            Object number = numbers.get(reference.objectNumber());
+            return number != null ? number : reference;
+        }
+        return value;
+    }
+
+    private void append(ByteBuffer chunk) {
+        int length = chunk.remaining();
+        if (end + length > window.length) {
+            // Drop everything before the first incomplete token, then grow if that is not enough.
+            int live = end - scan;
+            byte[] target = live + length > window.length ? new byte[Math.max(live + length, window.length * 2)] : window;
+            System.arraycopy(window, scan, target, 0, live);
+            window = target;
+            windowOffset += scan;
+            searchFrom = Math.max(0, searchFrom - scan);
+            end = live;
+            scan = 0;
+        }
+        chunk.get(window, end, length);
+        end += length;
+    }
+
+    private void process(boolean last) throws IOException, ParseException {
+        ByteBuffer buffer = ByteBuffer.wrap(window, 0, end);
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, scan, names);
+        PDFParser parser = new PDFParser(tokenizer, this);
+        while (true) {
+            tokenizer.seek(scan);
+            parser.reset();
+            Token token = tokenizer.peekToken();
+            if (token == null) {
+                return;
+            }
+            boolean complete = switch (token.type()) {
+                case NUMBER -> parseObject(buffer, tokenizer, parser, last);
+                case OPERATOR -> switch (token.getStringValue()) {
+                    case "xref" -> skipXRefTable(buffer, last);
+                    case "trailer" -> parseTrailer(buffer, tokenizer, parser, last);
+                    default -> skipToken(tokenizer, last);
+                };
+                default -> skipToken(tokenizer, last);
+            };
+            if (!complete) {
+                return;
+            }
+        }
+    }
+
+    // A token that ends exactly at the end of the available input may continue in the next chunk.
+    private boolean skipToken(PDFBufferTokenizer tokenizer, boolean last) {
+        tokenizer.nextToken();
+        if (tokenizer.position() >= end && !last) {
+            return false;
+        }
+        scan = tokenizer.position();
+        return true;
+    }
+
+    private boolean skipXRefTable(ByteBuffer buffer, boolean last) {
+        // The classic table is not needed while streaming; the trailer that follows it is.
+        int trailerStart = ByteSearch.indexOf(buffer, TRAILER, Math.max(scan, searchFrom), end);
+        if (trailerStart < 0) {
+            if (!last) {
+                searchFrom = Math.max(scan, end - TRAILER.length);
+                return false;
+            }
+            scan = end;
+            return true;
+        }
+        scan = trailerStart;
+        searchFrom = scan;
+        return true;
+    }
+
+    private boolean parseTrailer(ByteBuffer buffer, PDFBufferTokenizer tokenizer, PDFParser parser, boolean last)
+            throws IOException {
+        // The dictionary is only known to be complete once the "startxref" after it has arrived.
+        if (!last && ByteSearch.indexOf(buffer, START_XREF, Math.max(scan, searchFrom), end) < 0) {
+            searchFrom = Math.max(scan, end - START_XREF.length);
+            return false;
+        }
+        try {
+            Map<String, Object> dictionary = parser.parseTrailer();
+            if (tokenizer.position() >= end && !last) {
+                return false;
+            }
+            // The last trailer belongs to the newest incremental update.
+            trailer = dictionary;
+        } catch (ParseException e) {
+            listener.error(windowOffset + scan, e);
+        }
+        scan = Math.max(tokenizer.position(), scan + 1);
+        searchFrom = scan;
+        return true;
+    }
+
+    private boolean parseObject(ByteBuffer buffer, PDFBufferTokenizer tokenizer, PDFParser parser, boolean last)
+            throws IOException, ParseException {
+        int objectEnd = ByteSearch.indexOf(buffer, END_OBJ, Math.max(scan, searchFrom), end);
+        if (objectEnd < 0) {
+            if (last) {
+                return skipToken(tokenizer, true);
+            }
+            searchFrom = Math.max(scan, end - END_OBJ.length);
+            return false;
+        }
+
+        PDFIndirectObject object;
+        try {
+            object = parser.parseIndirectObject();
+        } catch (ParseException e) {
+            if (!last && tokenizer.position() >= end) {
+                // "endobj" was part of stream data; the real one has not arrived yet.
+                searchFrom = objectEnd + END_OBJ.length;
+                return false;
+            }
+            if (!isObjectStart(tokenizer)) {
+                // Stray numbers between objects, e.g. the offset after "startxref".
+                return skipToken(tokenizer, last);
+            }
+            listener.error(windowOffset + scan, e);
+            scan = objectEnd + END_OBJ.length;
+            searchFrom = scan;
+            return true;
+        }
+        if (!last && truncatedStream(object, tokenizer.position())) {
+            searchFrom = tokenizer.position();
+            return false;
+        }
+        scan = tokenizer.position();
+        searchFrom = scan;
+        emit(object);
+        return true;
+    }
+
+    private boolean isObjectStart(PDFBufferTokenizer tokenizer) {
+        tokenizer.seek(scan);
+        return tokenizer.next() == TokenType.NUMBER && tokenizer.next() == TokenType.NUMBER
+                && tokenizer.next() == TokenType.OPERATOR && "obj".equals(tokenizer.nameValue());
+    }
+
+    // Without the whole stream the tokenizer falls back to the first "endstream", which may be stream data.
+    private boolean truncatedStream(PDFIndirectObject object, int objectEnd) {
+        if (!(object.value() instanceof PDFStream stream)) {
+            return false;
+        }
+        long length = PDFValues.asLong(resolve(stream.dictionary().get("Length")), -1);
+        return length > stream.rawLength() && objectEnd + (length - stream.rawLength()) > end;
+    }
+
+    private void emit(PDFIndirectObject object) throws IOException, ParseException {
+        Object value = object.value();
+        if (PDFValues.isNumber(value)) {
+            numbers.put(object.objectNumber(), value);
+        }
+        if (value instanceof PDFStream stream) {
+            // The window is reused for later chunks, so emitted streams get their own copy of the data.
+            ByteBuffer data = ByteBuffer.allocate(stream.rawLength()).put(stream.rawData()).flip();
+            object = new PDFIndirectObject(object.objectNumber(), object.genNumber(), new PDFStream(stream.dictionary(), data, stream.listener()));
+            listener.object(object);
+            String type = PDFValues.asName(stream.dictionary().get("Type"));
+            if ("ObjStm".equals(type)) {
+                emitCompressedObjects(object.objectNumber(), object.value());
+            } else if ("XRef".equals(type)) {
+                // Cross-reference streams carry the trailer entries of their section.
+                trailer = stream.dictionary();
+            }
+            return;
+        }
+        listener.object(object);
+    }
+
+    private void emitCompressedObjects(int streamNumber, Object value) throws IOException, ParseException {
+        ObjectStream objectStream;
+        try {
+            objectStream = ObjectStream.parse((PDFStream) value);
+        } catch (ParseException | IOException e) {
+            listener.error(windowOffset + scan, new ParseException("Unreadable object stream " + streamNumber + ": " + e.getMessage()));
+            return;
+        }
+        for (int i = 0; i < objectStream.size(); i++) {
+            Object compressed;
+            try {
+                compressed = objectStream.parseObject(i, this);
+            } catch (ParseException e) {
+                listener.error(windowOffset + scan, e);
+                continue;
+            }
+            listener.object(new PDFIndirectObject(objectStream.objectNumber(i), 0, compressed));
+        }
+    }
+
+    // The raw input, kept for document(); moves from memory to a temporary file once it exceeds the limit.
+    private static final class RetainedInput implements Closeable {
+        private final int memoryLimit;
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+        private FileChannel file;
+
+        RetainedInput(int memoryLimit) {
+            this.memoryLimit = memoryLimit;
+        }
+
+        void write(ByteBuffer chunk) throws IOException {
+            if (file == null && size + chunk.remaining() > memoryLimit) {
+                Path path = Files.createTempFile("pdf-upload", ".pdf");
+                file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+                file.write(ByteBuffer.wrap(bytes, 0, size));
+                bytes = null;
+            }
+            if (file != null) {
+                while (chunk.hasRemaining()) {
+                    file.write(chunk);
+                }
+                return;
+            }
+            if (size + chunk.remaining() > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + chunk.remaining(), bytes.length * 2));
+            }
+            int length = chunk.remaining();
+            chunk.get(bytes, size, length);
+            size += length;
+        }
+
+        ByteBuffer buffer() throws IOException {
+            if (file == null) {
+                return ByteBuffer.wrap(bytes, 0, size);
+            }
+            return file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) {
+                file.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.XRefIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+// Sidecar files with the resolved cross-reference index of a document, its object stream headers
+// and its page leaves. A warm open maps the sidecar and reads only the trailer from the PDF itself.
+//
+// Layout, big-endian:
+//   magic "PDFIDX01", file size, mtime, sample hash, trailer offset,
+//   xref size, types[size] (type + 1, 0 = absent), offsets[size], generations[size],
+//   object stream count, then per stream: number, count, objectNumbers[count], offsets[count],
+//   page count, pageObjects[count]
+public class IndexCache {
+    private static final byte[] MAGIC = "PDFIDX01".getBytes(StandardCharsets.ISO_8859_1);
+    private static final String SUFFIX = ".pdfidx";
+    // The sample hash covers the head and the tail, where incremental updates and the xref live.
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    public IndexCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public PDFDocument open(Path path) throws IOException, ParseException {
+        return open(path, ObjectCache.concurrent(ObjectCache.DEFAULT_MAX_ENTRIES), ParseListener.NONE);
+    }
+
+    public PDFDocument open(Path path, ObjectCache cache, ParseListener listener) throws IOException, ParseException {
+        ByteBuffer buffer = PDFBufferTokenizer.map(path);
+        long size = buffer.limit();
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long sampleHash = sampleHash(buffer);
+        Path sidecar = sidecar(path);
+
+        PDFDocument document = load(sidecar, buffer, size, modified, sampleHash, cache, listener);
+        if (document != null) {
+            return document.withSource(path);
+        }
+        try {
+            document = PDFDocument.open(buffer, cache, listener);
+        } catch (ParseException e) {
+            // The trailer of a recovered document is pieced together and cannot be re-read from one offset,
+            // so such documents are not cached.
+            return PDFDocument.recover(buffer, cache, listener).withSource(path);
+        }
+        save(sidecar, document, size, modified, sampleHash);
+        return document.withSource(path);
+    }
+
+    // One sidecar per path; a changed file simply overwrites it.
+    private Path sidecar(Path path) {
+        CRC32C crc = new CRC32C();
+        crc.update(path.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(String.format("%08x", crc.getValue()) + SUFFIX);
+    }
+
+    private static long sampleHash(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        CRC32C head = new CRC32C();
+        head.update(buffer.duplicate().position(0).limit(Math.min(limit, SAMPLE_SIZE)));
+        CRC32C tail = new CRC32C();
+        tail.update(buffer.duplicate().position(Math.max(0, limit - SAMPLE_SIZE)));
+        return head.getValue() << 32 | tail.getValue();
+    }
+
+    private PDFDocument load(Path sidecar, ByteBuffer buffer, long size, long modified, long sampleHash,
+                             ObjectCache cache, ParseListener listener) throws IOException, ParseException {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        ByteBuffer index;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            index.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || index.getLong() != size || index.getLong() != modified
+                    || index.getLong() != sampleHash) {
+                return null;
+            }
+            int trailerOffset = index.getInt();
+            int xRefSize = index.getInt();
+            byte[] types = new byte[xRefSize];
+            long[] offsets = new long[xRefSize];
+            int[] generations = new int[xRefSize];
+            index.get(types);
+            index.asLongBuffer().get(offsets);
+            index.position(index.position() + xRefSize * Long.BYTES);
+            index.asIntBuffer().get(generations);
+            index.position(index.position() + xRefSize * Integer.BYTES);
+
+            int streamCount = index.getInt();
+            Map<Integer, ObjectStreamLayout> layouts = new HashMap<>(streamCount * 2);
+            for (int i = 0; i < streamCount; i++) {
+                int streamNumber = index.getInt();
+                int count = index.getInt();
+                int[] objectNumbers = new int[count];
+                int[] objectOffsets = new int[count];
+                index.asIntBuffer().get(objectNumbers).get(objectOffsets);
+                index.position(index.position() + 2 * count * Integer.BYTES);
+                layouts.put(streamNumber, new ObjectStreamLayout(objectNumbers, objectOffsets));
+            }
+            int pageCount = index.getInt();
+            int[] pages = null;
+            if (pageCount >= 0) {
+                pages = new int[pageCount];
+                index.asIntBuffer().get(pages);
+            }
+
+            Map<String, Object> trailer = XRefReader.readTrailerAt(buffer, trailerOffset);
+            XRefIndex xRefIndex = new XRefIndex(types, offsets, generations);
+            if (listener != ParseListener.NONE) {
+                listener.xrefRead(0, xRefIndex.size(), System.nanoTime() - start);
+            }
+            return new PDFDocument(buffer, xRefIndex, trailer, trailerOffset, cache, listener, layouts, pages,
+                    BufferPool.shared(), PDFDocument.currentLinearization(buffer));
+        } catch (RuntimeException | ParseException e) {
+            // A truncated or foreign sidecar is rebuilt rather than trusted.
+            return null;
+        }
+    }
+
+    private void save(Path sidecar, PDFDocument document, long size, long modified, long sampleHash)
+            throws IOException, ParseException {
+        XRefIndex xRefIndex = document.getXRefIndex();
+        int xRefSize = xRefIndex.size();
+        TreeSet<Integer> streamNumbers = new TreeSet<>();
+        for (int objectNumber = 0; objectNumber < xRefSize; objectNumber++) {
+            if (xRefIndex.type(objectNumber) == XRefIndex.TYPE_COMPRESSED) {
+                streamNumbers.add((int) xRefIndex.offset(objectNumber));
+            }
+        }
+        Map<Integer, ObjectStreamLayout> layouts = new TreeMap<>();
+        int layoutBytes = 0;
+        for (int streamNumber : streamNumbers) {
+            ObjectStreamLayout layout;
+            try {
+                // Only the headers are read; the streams are inflated when their objects are wanted.
+                layout = document.getObjectStreamLayout(streamNumber);
+            } catch (IOException | ParseException e) {
+                // Unreadable streams are left to fail on access, exactly as without the cache.
+                continue;
+            }
+            layouts.put(streamNumber, layout);
+            layoutBytes += 2 * Integer.BYTES + 2 * layout.objectNumbers().length * Integer.BYTES;
+        }
+        int[] pages;
+        try {
+            pages = document.pageObjectNumbers();
+        } catch (ParseException e) {
+            // The index is still worth keeping for documents with a broken page tree.
+            pages = null;
+        }
+
+        int length = MAGIC.length + 3 * Long.BYTES + 2 * Integer.BYTES
+                + xRefSize * (1 + Long.BYTES + Integer.BYTES)
+                + Integer.BYTES + layoutBytes
+                + Integer.BYTES + (pages == null ? 0 : pages.length * Integer.BYTES);
+        ByteBuffer out = ByteBuffer.allocate(length);
+        out.put(MAGIC).putLong(size).putLong(modified).putLong(sampleHash);
+        out.putInt(document.trailerOffset()).putInt(xRefSize);
+        for (int objectNumber = 0; objectNumber < xRefSize; objectNumber++) {
+            out.put((byte) (xRefIndex.contains(objectNumber) ? xRefIndex.type(objectNumber) + 1 : 0));
+        }
+        for (int objectNumber = 0; objectNumber < xRefSize; objectNumber++) {
+            out.putLong(xRefIndex.offset(objectNumber));
+        }
+        for (int objectNumber = 0; objectNumber < xRefSize; objectNumber++) {
+            out.putInt(xRefIndex.generation(objectNumber));
+        }
+        out.putInt(layouts.size());
+        for (Map.Entry<Integer, ObjectStreamLayout> entry : layouts.entrySet()) {
+            ObjectStreamLayout layout = entry.getValue();
+            out.putInt(entry.getKey()).putInt(layout.objectNumbers().length);
+            for (int objectNumber : layout.objectNumbers()) {
+                out.putInt(objectNumber);
+            }
+            for (int offset : layout.offsets()) {
+                out.putInt(offset);
+            }
+        }
+        out.putInt(pages == null ? -1 : pages.length);
+        if (pages != null) {
+            for (int page : pages) {
+                out.putInt(page);
+            }
+        }
+        out.flip();
+
+        // Write next to the target and move it into place, so readers never see a partial sidecar.
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "index", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            try {
+                Files.move(temporary, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.model.ByteRange;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// The parameters of a linearized ("fast web view") file: the dictionary that is its first object, and the
+// hint tables of the primary hint stream. The first firstPageEnd() bytes hold everything needed for the
+// first page, including a cross-reference section of their own; the hint tables tell which byte ranges
+// every other page needs, so a reader can fetch just those.
+public final class Linearization {
+    // The linearization dictionary has to start within the first 1024 bytes of the file.
+    private static final int HEADER_WINDOW = 1024;
+
+    private final long fileLength;
+    private final int pageCount;
+    private final int firstPageObject;
+    private final long firstPageEnd;
+    private final long mainXRefOffset;
+    private final int firstPageXRefOffset;
+    private final int hintOffset;
+    private final int hintLength;
+    private final HintTables hints;
+
+    private Linearization(long fileLength, int pageCount, int firstPageObject, long firstPageEnd,
+                          long mainXRefOffset, int firstPageXRefOffset, int hintOffset, int hintLength,
+                          HintTables hints) {
+        this.fileLength = fileLength;
+        this.pageCount = pageCount;
+        this.firstPageObject = firstPageObject;
+        this.firstPageEnd = firstPageEnd;
+        this.mainXRefOffset = mainXRefOffset;
+        this.firstPageXRefOffset = firstPageXRefOffset;
+        this.hintOffset = hintOffset;
+        this.hintLength = hintLength;
+        this.hints = hints;
+    }
+
+    // Returns null when the first object is not a linearization dictionary. Hint tables that cannot be
+    // read leave the file usable for its first page only.
+    public static Linearization read(ByteBuffer buffer, BufferPool pool) throws IOException {
+        Linearization linearization = read(buffer);
+        return linearization == null ? null : linearization.withHints(buffer, pool);
+    }
+
+    // Reads the linearization dictionary only, without inflating the hint stream.
+    public static Linearization read(ByteBuffer buffer) {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0);
+        Token token = tokenizer.peekToken();
+        if (token != null && token.type() == TokenType.VERSION) {
+            tokenizer.nextToken();
+            token = tokenizer.peekToken();
+        }
+        if (token == null || token.type() != TokenType.NUMBER || tokenizer.position() > HEADER_WINDOW) {
+            return null;
+        }
+        Map<String, Object> dictionary;
+        try {
+            dictionary = PDFValues.asDictionary(new PDFParser(tokenizer).parseIndirectObject().value());
+        } catch (IOException | ParseException | RuntimeException e) {
+            return null;
+        }
+        if (dictionary == null || !dictionary.containsKey("Linearized")) {
+            return null;
+        }
+        long fileLength = PDFValues.asLong(dictionary.get("L"), -1);
+        int pageCount = PDFValues.asInt(dictionary.get("N"), -1);
+        int firstPageObject = PDFValues.asInt(dictionary.get("O"), -1);
+        long firstPageEnd = PDFValues.asLong(dictionary.get("E"), -1);
+        long mainXRefOffset = PDFValues.asLong(dictionary.get("T"), -1);
+        int[] hintStream = PDFValues.asIntArray(dictionary.get("H"));
+        if (fileLength <= 0 || pageCount <= 0 || firstPageObject <= 0 || firstPageEnd <= 0
+                || hintStream == null || hintStream.length < 2) {
+            return null;
+        }
+        // The first page cross-reference section follows the dictionary directly.
+        int firstPageXRefOffset = tokenizer.position();
+        return new Linearization(fileLength, pageCount, firstPageObject, firstPageEnd, mainXRefOffset,
+                firstPageXRefOffset, hintStream[0], hintStream[1], null);
+    }
+
+    // This linearization with its hint tables, read from the primary hint stream of the buffer.
+    public Linearization withHints(ByteBuffer buffer, BufferPool pool) throws IOException {
+        if (hints != null) {
+            return this;
+        }
+        return new Linearization(fileLength, pageCount, firstPageObject, firstPageEnd, mainXRefOffset,
+                firstPageXRefOffset, hintOffset, hintLength, readHints(buffer, hintOffset, hintLength, pageCount, pool));
+    }
+
+    private static HintTables readHints(ByteBuffer buffer, int offset, int length, int pageCount, BufferPool pool)
+            throws IOException {
+        if (offset <= 0 || offset >= buffer.limit()) {
+            return null;
+        }
+        try {
+            PDFIndirectObject object = new PDFParser(new PDFBufferTokenizer(buffer, offset)).parseIndirectObject();
+            if (!(object.value() instanceof PDFStream stream)) {
+                return null;
+            }
+            try (PooledBuffer data = stream.decode(pool)) {
+                int sharedTableOffset = PDFValues.asInt(stream.dictionary().get("S"), -1);
+                return HintTables.read(data.buffer(), sharedTableOffset, pageCount, offset, length);
+            }
+        } catch (ParseException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // The length of the file when it was linearized; an incremental update after that makes it longer.
+    public long fileLength() {
+        return fileLength;
+    }
+
+    public int pageCount() {
+        return pageCount;
+    }
+
+    public int firstPageObject() {
+        return firstPageObject;
+    }
+
+    // The number of leading bytes that are enough to open the file and read its first page.
+    public long firstPageEnd() {
+        return firstPageEnd;
+    }
+
+    public long mainXRefOffset() {
+        return mainXRefOffset;
+    }
+
+    int firstPageXRefOffset() {
+        return firstPageXRefOffset;
+    }
+
+    // False for whole files opened with open(), which do not read the hint stream.
+    public boolean hasHints() {
+        return hints != null && hints.pageCount() == pageCount;
+    }
+
+    // The byte ranges, besides the first firstPageEnd() bytes, that hold a page: its own section first,
+    // then the shared objects it uses. Empty for the first page.
+    public List<ByteRange> pageRanges(int index) {
+        if (index < 0 || index >= pageCount) {
+            throw new IndexOutOfBoundsException("Page " + index + " of " + pageCount);
+        }
+        if (index == 0) {
+            return List.of();
+        }
+        if (!hasHints()) {
+            throw new IllegalStateException("The hint tables of this file could not be read");
+        }
+        List<ByteRange> ranges = new ArrayList<>();
+        ranges.add(hints.pageSection(index));
+        ranges.addAll(Arrays.asList(hints.groupSections(index)));
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return "Linearization{" +
+                "fileLength=" + fileLength +
+                ", pageCount=" + pageCount +
+                ", firstPageObject=" + firstPageObject +
+                ", firstPageEnd=" + firstPageEnd +
+                ", hints=" + hasHints() +
+                '}';
+    }
+}
@@ -0,0 +1,108 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.ByteRange;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.XRefIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Pages of a linearized file that was opened from its first page section alone. The first page object is
+// named by the linearization dictionary; any other page is found the first time it is asked for, by parsing
+// the objects of its section and of the shared object groups it uses one after another, at the offsets
+// from the hint tables. Those byte ranges have to be in the buffer by then; nothing else is read.
+final class LinearizedPages {
+    private final PDFDocument document;
+    private final Linearization linearization;
+    // Page object numbers, 0 where the page has not been indexed yet.
+    private final int[] pageObjects;
+    private final Set<ByteRange> indexedSections = new HashSet<>();
+
+    LinearizedPages(PDFDocument document, Linearization linearization) {
+        this.document = document;
+        this.linearization = linearization;
+        this.pageObjects = new int[linearization.pageCount()];
+        this.pageObjects[0] = linearization.firstPageObject();
+    }
+
+    int count() {
+        return pageObjects.length;
+    }
+
+    synchronized int pageObject(int index) throws IOException, ParseException {
+        if (index < 0 || index >= pageObjects.length) {
+            throw new IndexOutOfBoundsException("Page " + index + " of " + pageObjects.length);
+        }
+        if (pageObjects[index] != 0) {
+            return pageObjects[index];
+        }
+        List<ByteRange> sections = linearization.pageRanges(index);
+        XRefIndex additions = new XRefIndex();
+        int pageObject = indexSection(sections.get(0), additions);
+        if (pageObject == 0) {
+            throw new ParseException("No page object in bytes " + sections.get(0).offset() + " to "
+                    + sections.get(0).end() + " for page " + index);
+        }
+        Set<ByteRange> indexed = new HashSet<>();
+        for (ByteRange section : sections.subList(1, sections.size())) {
+            // Shared groups are used by several pages but indexed once.
+            if (!indexedSections.contains(section) && indexed.add(section)) {
+                indexSection(section, additions);
+            }
+        }
+        document.extendIndex(additions);
+        indexedSections.addAll(indexed);
+        pageObjects[index] = pageObject;
+        return pageObject;
+    }
+
+    // Adds the objects of a section to additions and returns the number of its first page object, or 0.
+    private int indexSection(ByteRange section, XRefIndex additions) throws IOException, ParseException {
+        ByteBuffer buffer = document.buffer();
+        if (section.end() > buffer.limit()) {
+            throw new ParseException("Bytes " + section.offset() + " to " + section.end()
+                    + " are not in the buffer of " + buffer.limit() + " bytes");
+        }
+        int position = (int) section.offset();
+        int end = (int) section.end();
+        int pageObject = 0;
+        boolean empty = true;
+        while (true) {
+            // Gaps in the buffer are zeros, which are white space to PDF.
+            while (position < end && PDFBufferTokenizer.isWhitespace(buffer.get(position) & 0xFF)) {
+                position++;
+            }
+            if (position >= end) {
+                if (empty) {
+                    throw new ParseException("No objects in bytes " + section.offset() + " to " + section.end()
+                            + "; they may not have been loaded yet");
+                }
+                return pageObject;
+            }
+            empty = false;
+            PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, position, document.names());
+            PDFIndirectObject object = new PDFParser(tokenizer, document, document.getListener()).parseIndirectObject();
+            additions.putIfAbsent(object.objectNumber(), XRefIndex.TYPE_IN_USE, position, object.genNumber());
+            document.getObjectCache().put(object);
+            if (object.value() instanceof PDFStream stream
+                    && "ObjStm".equals(PDFValues.asName(stream.dictionary().get("Type")))) {
+                ObjectStream objectStream = ObjectStream.parse(stream);
+                for (int i = 0; i < objectStream.size(); i++) {
+                    additions.putIfAbsent(objectStream.objectNumber(i), XRefIndex.TYPE_COMPRESSED,
+                            object.objectNumber(), i);
+                }
+            }
+            Map<String, Object> dictionary = PDFValues.asDictionary(object.value());
+            if (pageObject == 0 && dictionary != null && "Page".equals(PDFValues.asName(dictionary.get("Type")))) {
+                pageObject = object.objectNumber();
+            }
+            position = tokenizer.position();
+        }
+    }
+}
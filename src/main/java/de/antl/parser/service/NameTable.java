@@ -0,0 +1,160 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.model.Token;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Interns NAME and OPERATOR tokens so that repeated names map to one shared Token instance. A table is
+// not thread-safe and belongs to one lexer; only the immutable table of common names is shared by all, so
+// tokens from different tables are equal but not necessarily identical.
+public final class NameTable {
+    private static final String[] COMMON_NAMES = {
+            "Type", "Subtype", "Length", "Filter", "DecodeParms", "FlateDecode", "Predictor", "Columns", "Colors",
+            "BitsPerComponent", "Size", "Root", "Info", "ID", "Prev", "XRefStm", "XRef", "ObjStm", "N", "First",
+            "W", "Index", "Extends", "Catalog", "Pages", "Page", "Kids", "Count", "Parent", "MediaBox", "CropBox",
+            "Rotate", "Resources", "Contents", "Font", "XObject", "ExtGState", "ColorSpace", "Pattern", "Shading",
+            "ProcSet", "PDF", "Text", "ImageB", "ImageC", "ImageI", "Properties", "BaseFont", "Encoding",
+            "ToUnicode", "FirstChar", "LastChar", "Widths", "FontDescriptor", "DescendantFonts", "Differences",
+            "WinAnsiEncoding", "MacRomanEncoding", "StandardEncoding", "Identity-H", "Identity-V", "Type0",
+            "Type1", "Type3", "TrueType", "CIDFontType0", "CIDFontType2", "Image", "Form", "Width", "Height",
+            "DeviceRGB", "DeviceGray", "DeviceCMYK", "ICCBased", "Indexed", "BBox", "Matrix", "Annots", "Annot",
+            "Link", "Rect", "Border", "A", "S", "URI", "Dest", "Names", "Outlines", "Metadata", "Title", "Author",
+            "Producer", "Creator", "CreationDate", "ModDate", "Linearized", "Group", "Transparency", "CS", "Mask",
+            "SMask", "Decode", "Interpolate", "Ascent", "Descent", "CapHeight", "Flags", "FontBBox", "FontName",
+            "FontFile", "FontFile2", "FontFile3", "ItalicAngle", "StemV", "MissingWidth", "CIDSystemInfo",
+            "Registry", "Ordering", "Supplement", "DW", "CIDToGIDMap", "DCTDecode", "JPXDecode", "LZWDecode",
+            "ASCIIHexDecode", "ASCII85Decode", "RunLengthDecode", "CCITTFaxDecode", "JBIG2Decode", "StructParents",
+            "Tabs", "Lang", "MarkInfo", "Marked", "StructTreeRoot", "AcroForm", "Fields", "P", "F"
+    };
+
+    private static final String[] COMMON_OPERATORS = {
+            "obj", "endobj", "R", "xref", "trailer", "startxref", "n", "f", "null",
+            "BT", "ET", "Tf", "Tj", "TJ", "Td", "TD", "Tm", "T*", "Tc", "Tw", "Tz", "TL", "Tr", "Ts", "'", "\"",
+            "q", "Q", "cm", "re", "m", "l", "c", "v", "y", "h", "S", "s", "f*", "F", "B", "B*", "b", "b*", "W",
+            "W*", "Do", "gs", "cs", "CS", "sc", "SC", "scn", "SCN", "g", "G", "rg", "RG", "k", "K", "w", "J",
+            "j", "M", "d", "ri", "i", "sh", "BI", "ID", "EI", "BDC", "BMC", "EMC", "MP", "DP", "BX", "EX", "d0", "d1"
+    };
+
+    private static final int MAX_ENTRIES = 4096;
+    private static final NameTable COMMON = new NameTable(512);
+
+    static {
+        for (String name : COMMON_NAMES) {
+            COMMON.add(new Token(TokenType.NAME, name));
+        }
+        for (String operator : COMMON_OPERATORS) {
+            COMMON.add(new Token(TokenType.OPERATOR, operator));
+        }
+    }
+
+    private Token[] tokens;
+    private byte[][] keys;
+    private int[] hashes;
+    private int size;
+
+    public NameTable() {
+        this(0);
+    }
+
+    private NameTable(int capacity) {
+        if (capacity > 0) {
+            allocate(capacity);
+        }
+    }
+
+    private void allocate(int capacity) {
+        tokens = new Token[capacity];
+        keys = new byte[capacity][];
+        hashes = new int[capacity];
+    }
+
+    static int hash(TokenType type, int byteHash) {
+        int h = byteHash * 31 + type.ordinal();
+        return h ^ (h >>> 16);
+    }
+
+    // Returns the shared token for the given bytes, consulting the immutable table of common names first.
+    public Token intern(TokenType type, ByteBuffer buffer, int start, int end, int byteHash) {
+        int hash = hash(type, byteHash);
+        Token token = COMMON.find(type, buffer, start, end, hash);
+        if (token != null) {
+            return token;
+        }
+        if (tokens != null) {
+            token = find(type, buffer, start, end, hash);
+            if (token != null) {
+                return token;
+            }
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        token = new Token(type, new String(bytes, StandardCharsets.ISO_8859_1));
+        if (size < MAX_ENTRIES) {
+            put(token, bytes, hash);
+        }
+        return token;
+    }
+
+    private Token find(TokenType type, ByteBuffer buffer, int start, int end, int hash) {
+        int mask = tokens.length - 1;
+        int length = end - start;
+        for (int i = hash & mask; tokens[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && tokens[i].type() == type && keys[i].length == length && matches(keys[i], buffer, start)) {
+                return tokens[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(Token token) {
+        byte[] bytes = token.getStringValue().getBytes(StandardCharsets.ISO_8859_1);
+        int byteHash = 0;
+        for (byte b : bytes) {
+            byteHash = byteHash * 31 + (b & 0xFF);
+        }
+        int hash = hash(token.type(), byteHash);
+        if (find(token.type(), ByteBuffer.wrap(bytes), 0, bytes.length, hash) == null) {
+            put(token, bytes, hash);
+        }
+    }
+
+    private void put(Token token, byte[] bytes, int hash) {
+        if (tokens == null) {
+            allocate(64);
+        } else if ((size + 1) * 2 > tokens.length) {
+            Token[] oldTokens = tokens;
+            byte[][] oldKeys = keys;
+            int[] oldHashes = hashes;
+            allocate(tokens.length * 2);
+            for (int i = 0; i < oldTokens.length; i++) {
+                if (oldTokens[i] != null) {
+                    insert(oldTokens[i], oldKeys[i], oldHashes[i]);
+                }
+            }
+        }
+        insert(token, bytes, hash);
+        size++;
+    }
+
+    private void insert(Token token, byte[] bytes, int hash) {
+        int mask = tokens.length - 1;
+        int i = hash & mask;
+        while (tokens[i] != null) {
+            i = (i + 1) & mask;
+        }
+        tokens[i] = token;
+        keys[i] = bytes;
+        hashes[i] = hash;
+    }
+}
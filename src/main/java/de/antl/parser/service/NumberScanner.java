@@ -0,0 +1,108 @@
+package de.antl.parser.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Reads a PDF number from a buffer without allocating; the value is kept until the next scan. Each lexer
+// owns one, so the hot path stays free of boxing.
+public final class NumberScanner {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private boolean integer;
+    private long longValue;
+    private double doubleValue;
+
+    // Reads the number starting at start and returns where it ends.
+    public int scan(ByteBuffer buffer, int start, int limit) {
+        int pos = start;
+        int c = buffer.get(pos) & 0xFF;
+        boolean negative = c == '-';
+        if (c == '-' || c == '+') {
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        boolean unusual = false;
+        while (pos < limit) {
+            c = buffer.get(pos) & 0xFF;
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+') {
+                // Exponents and embedded signs are not PDF syntax, but some writers emit them.
+                unusual = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+
+        // Up to 15 digits the mantissa and the power of ten are exact doubles, so one division rounds correctly.
+        if (unusual || digits > 18 || (fraction && digits > 15)) {
+            parse(buffer, start, pos);
+        } else if (fraction) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            integer = false;
+            doubleValue = negative ? -value : value;
+        } else {
+            integer = true;
+            longValue = negative ? -mantissa : mantissa;
+        }
+        return pos;
+    }
+
+    private void parse(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        try {
+            longValue = Long.parseLong(text);
+            integer = true;
+        } catch (NumberFormatException e) {
+            integer = false;
+            try {
+                doubleValue = Double.parseDouble(text);
+            } catch (NumberFormatException ignored) {
+                // Malformed numbers such as "--5" are read as zero, as most readers do.
+                doubleValue = 0;
+            }
+        }
+    }
+
+    public boolean isInteger() {
+        return integer;
+    }
+
+    public int intValue() {
+        return integer ? (int) longValue : (int) doubleValue;
+    }
+
+    public long longValue() {
+        return integer ? longValue : (long) doubleValue;
+    }
+
+    public double doubleValue() {
+        return integer ? longValue : doubleValue;
+    }
+
+    // Boxed as Integer when it fits, as Long or Double otherwise.
+    public Number value() {
+        if (!integer) {
+            return doubleValue;
+        }
+        if (longValue == (int) longValue) {
+            return (int) longValue;
+        }
+        return longValue;
+    }
+}
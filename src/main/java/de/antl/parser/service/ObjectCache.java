@@ -0,0 +1,427 @@
+package de.antl.parser.service;
+
+import de.antl.parser.model.CacheStatistics;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// LRU cache of parsed objects keyed by (object number, generation) packed into a long.
+// A concurrent cache is split into lock stripes by key, each an LRU over its share of the limits,
+// so threads reading the same document rarely contend; eviction order is then per stripe.
+public final class ObjectCache {
+    public static final int DEFAULT_MAX_ENTRIES = 16_384;
+
+    private static final int NONE = -1;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public ObjectCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, object -> 1, false);
+    }
+
+    public ObjectCache(int maxEntries, long maxWeight, ToLongFunction<PDFIndirectObject> weigher, boolean softReferences) {
+        this(maxEntries, maxWeight, weigher, softReferences, 1);
+    }
+
+    public ObjectCache(int maxEntries, long maxWeight, ToLongFunction<PDFIndirectObject> weigher, boolean softReferences,
+                       int stripes) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        // A power of two no larger than the entry limit, so every stripe can hold at least one entry.
+        int count = Integer.highestOneBit(Math.min(stripes, maxEntries));
+        segments = new Segment[count];
+        segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / count),
+                    maxWeight == Long.MAX_VALUE ? maxWeight : Math.max(1, maxWeight / count), weigher, softReferences);
+        }
+    }
+
+    public static ObjectCache weighted(int maxEntries, long maxBytes, boolean softReferences) {
+        return new ObjectCache(maxEntries, maxBytes, ObjectCache::estimateWeight, softReferences);
+    }
+
+    // Striped by the number of processors, for documents that are read by many threads at once.
+    public static ObjectCache concurrent(int maxEntries) {
+        return new ObjectCache(maxEntries, Long.MAX_VALUE, object -> 1, false, defaultStripes());
+    }
+
+    public static ObjectCache concurrent(int maxEntries, long maxBytes, boolean softReferences) {
+        return new ObjectCache(maxEntries, maxBytes, ObjectCache::estimateWeight, softReferences, defaultStripes());
+    }
+
+    private static int defaultStripes() {
+        return Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2;
+    }
+
+    static long key(int objectNumber, int genNumber) {
+        return (long) objectNumber << 32 | (genNumber & 0xFFFFFFFFL);
+    }
+
+    public PDFIndirectObject get(int objectNumber, int genNumber) {
+        long key = key(objectNumber, genNumber);
+        return segment(key).get(key);
+    }
+
+    // A lookup that neither counts towards the statistics nor touches the LRU order.
+    PDFIndirectObject peek(int objectNumber, int genNumber) {
+        long key = key(objectNumber, genNumber);
+        return segment(key).peek(key);
+    }
+
+    public void put(PDFIndirectObject object) {
+        long key = key(object.objectNumber(), object.genNumber());
+        segment(key).put(key, object);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int stripes() {
+        return segments.length;
+    }
+
+    public CacheStatistics statistics() {
+        long hits = 0;
+        long softHits = 0;
+        long misses = 0;
+        long evictions = 0;
+        int size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            CacheStatistics statistics = segment.statistics();
+            hits += statistics.hits();
+            softHits += statistics.softHits();
+            misses += statistics.misses();
+            evictions += statistics.evictions();
+            size += statistics.size();
+            weight += statistics.weight();
+        }
+        return new CacheStatistics(hits, softHits, misses, evictions, size, weight);
+    }
+
+    private Segment segment(long key) {
+        // The low bits of the hash pick the table slot inside a segment, so take the stripe from the high bits.
+        return segments[(hash(key) >>> 16) & segmentMask];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Rough retained-size estimate for weight-bounded caches; stream bodies are views and not counted.
+    public static long estimateWeight(PDFIndirectObject object) {
+        return 32 + estimateValueWeight(object.value(), 0);
+    }
+
+    private static long estimateValueWeight(Object value, int depth) {
+        if (depth > 8) {
+            return 16;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long total = 48 + 32L * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                total += estimateValueWeight(entry.getKey(), depth + 1) + estimateValueWeight(entry.getValue(), depth + 1);
+            }
+            return total;
+        }
+        if (value instanceof List<?> list) {
+            long total = 40 + 8L * list.size();
+            for (Object element : list) {
+                total += estimateValueWeight(element, depth + 1);
+            }
+            return total;
+        }
+        if (value instanceof PDFStream stream) {
+            return 64 + estimateValueWeight(stream.dictionary(), depth + 1);
+        }
+        if (value instanceof String string) {
+            return 40 + string.length();
+        }
+        return 24;
+    }
+
+    // One lock stripe: an open-addressing table over entry slots linked into an LRU list.
+    private static final class Segment {
+        private final int maxEntries;
+        private final long maxWeight;
+        private final ToLongFunction<PDFIndirectObject> weigher;
+
+        // Open-addressing table from key to entry slot (slot + 1, 0 = empty).
+        private int[] table;
+        private int tableMask;
+
+        // Entry slots, linked into an LRU list from head (most recent) to tail (eviction candidate).
+        private long[] keys;
+        private PDFIndirectObject[] values;
+        private long[] weights;
+        private int[] prev;
+        private int[] next;
+        private int head = NONE;
+        private int tail = NONE;
+        private int freeSlot = NONE;
+        private int usedSlots;
+        private int size;
+        private long weight;
+
+        // Optional second tier: evicted objects stay reachable until the GC needs the memory.
+        private final Map<Long, SoftEntry> softTier;
+        private final ReferenceQueue<PDFIndirectObject> softQueue;
+
+        private long hits;
+        private long softHits;
+        private long misses;
+        private long evictions;
+
+        Segment(int maxEntries, long maxWeight, ToLongFunction<PDFIndirectObject> weigher, boolean softReferences) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            this.weigher = weigher;
+            this.softTier = softReferences ? new HashMap<>() : null;
+            this.softQueue = softReferences ? new ReferenceQueue<>() : null;
+            allocate(Math.min(maxEntries, 64));
+        }
+
+        synchronized PDFIndirectObject get(long key) {
+            int slot = find(key);
+            if (slot != NONE) {
+                hits++;
+                moveToHead(slot);
+                return values[slot];
+            }
+            if (softTier != null) {
+                expungeSoftReferences();
+                SoftEntry entry = softTier.remove(key);
+                PDFIndirectObject object = entry == null ? null : entry.get();
+                if (object != null) {
+                    softHits++;
+                    insert(key, object);
+                    return object;
+                }
+            }
+            misses++;
+            return null;
+        }
+
+        synchronized PDFIndirectObject peek(long key) {
+            int slot = find(key);
+            if (slot != NONE) {
+                return values[slot];
+            }
+            SoftEntry entry = softTier == null ? null : softTier.get(key);
+            return entry == null ? null : entry.get();
+        }
+
+        synchronized void put(long key, PDFIndirectObject object) {
+            int slot = find(key);
+            if (slot != NONE) {
+                weight -= weights[slot];
+                values[slot] = object;
+                weights[slot] = weigher.applyAsLong(object);
+                weight += weights[slot];
+                moveToHead(slot);
+                evictIfNeeded();
+                return;
+            }
+            if (softTier != null) {
+                expungeSoftReferences();
+                softTier.remove(key);
+            }
+            insert(key, object);
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(values, null);
+            head = NONE;
+            tail = NONE;
+            freeSlot = NONE;
+            usedSlots = 0;
+            size = 0;
+            weight = 0;
+            if (softTier != null) {
+                softTier.clear();
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized CacheStatistics statistics() {
+            return new CacheStatistics(hits, softHits, misses, evictions, size, weight);
+        }
+
+        private void insert(long key, PDFIndirectObject object) {
+            int slot = allocateSlot();
+            keys[slot] = key;
+            values[slot] = object;
+            weights[slot] = weigher.applyAsLong(object);
+            weight += weights[slot];
+            size++;
+            linkHead(slot);
+            tableInsert(key, slot);
+            evictIfNeeded();
+        }
+
+        private void evictIfNeeded() {
+            // Never evict the entry that was just added, even if it alone exceeds the weight limit.
+            while ((size > maxEntries || weight > maxWeight) && tail != NONE && tail != head) {
+                int slot = tail;
+                long key = keys[slot];
+                PDFIndirectObject object = values[slot];
+                unlink(slot);
+                tableRemove(key);
+                weight -= weights[slot];
+                values[slot] = null;
+                next[slot] = freeSlot;
+                freeSlot = slot;
+                size--;
+                evictions++;
+                if (softTier != null) {
+                    softTier.put(key, new SoftEntry(key, object, softQueue));
+                }
+            }
+        }
+
+        private void expungeSoftReferences() {
+            SoftEntry entry;
+            while ((entry = (SoftEntry) softQueue.poll()) != null) {
+                softTier.remove(entry.key, entry);
+            }
+        }
+
+        private int allocateSlot() {
+            if (freeSlot != NONE) {
+                int slot = freeSlot;
+                freeSlot = next[slot];
+                return slot;
+            }
+            if (usedSlots == keys.length) {
+                allocate(keys.length * 2);
+            }
+            return usedSlots++;
+        }
+
+        private void allocate(int capacity) {
+            keys = keys == null ? new long[capacity] : Arrays.copyOf(keys, capacity);
+            values = values == null ? new PDFIndirectObject[capacity] : Arrays.copyOf(values, capacity);
+            weights = weights == null ? new long[capacity] : Arrays.copyOf(weights, capacity);
+            prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+            next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+
+            // Keep the table at most half full and rehash the live entries.
+            int tableSize = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+            table = new int[tableSize];
+            tableMask = tableSize - 1;
+            for (int slot = head; slot != NONE; slot = next[slot]) {
+                tableInsert(keys[slot], slot);
+            }
+        }
+
+        private int find(long key) {
+            for (int i = hash(key) & tableMask; ; i = (i + 1) & tableMask) {
+                int entry = table[i];
+                if (entry == 0) {
+                    return NONE;
+                }
+                if (keys[entry - 1] == key) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private void tableInsert(long key, int slot) {
+            int i = hash(key) & tableMask;
+            while (table[i] != 0) {
+                i = (i + 1) & tableMask;
+            }
+            table[i] = slot + 1;
+        }
+
+        private void tableRemove(long key) {
+            int i = hash(key) & tableMask;
+            while (table[i] != 0 && keys[table[i] - 1] != key) {
+                i = (i + 1) & tableMask;
+            }
+            if (table[i] == 0) {
+                return;
+            }
+            // Backward-shift deletion keeps linear probing chains intact without tombstones.
+            int gap = i;
+            for (int j = (gap + 1) & tableMask; table[j] != 0; j = (j + 1) & tableMask) {
+                int home = hash(keys[table[j] - 1]) & tableMask;
+                if (((j - home) & tableMask) >= ((j - gap) & tableMask)) {
+                    table[gap] = table[j];
+                    gap = j;
+                }
+            }
+            table[gap] = 0;
+        }
+
+        private void linkHead(int slot) {
+            prev[slot] = NONE;
+            next[slot] = head;
+            if (head != NONE) {
+                prev[head] = slot;
+            }
+            head = slot;
+            if (tail == NONE) {
+                tail = slot;
+            }
+        }
+
+        private void unlink(int slot) {
+            if (prev[slot] != NONE) {
+                next[prev[slot]] = next[slot];
+            } else {
+                head = next[slot];
+            }
+            if (next[slot] != NONE) {
+                prev[next[slot]] = prev[slot];
+            } else {
+                tail = prev[slot];
+            }
+        }
+
+        private void moveToHead(int slot) {
+            if (slot != head) {
+                unlink(slot);
+                linkHead(slot);
+            }
+        }
+    }
+
+    private static final class SoftEntry extends SoftReference<PDFIndirectObject> {
+        private final long key;
+
+        SoftEntry(long key, PDFIndirectObject object, ReferenceQueue<PDFIndirectObject> queue) {
+            super(object, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+
+import java.io.IOException;
+
+public interface ObjectListener {
+    void object(PDFIndirectObject object) throws IOException, ParseException;
+
+    // Called for input that could not be parsed; parsing resumes after the next "endobj".
+    default void error(long offset, ParseException exception) {
+    }
+}
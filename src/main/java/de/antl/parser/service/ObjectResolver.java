@@ -0,0 +1,12 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+
+import java.io.IOException;
+
+public interface ObjectResolver {
+    ObjectResolver NONE = value -> value;
+
+    // Returns the direct object for indirect references and the value itself otherwise.
+    Object resolve(Object value) throws IOException, ParseException;
+}
@@ -0,0 +1,205 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.metrics.ThreadAllocation;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// An inflated /Type /ObjStm together with its table of object numbers and offsets. Data inflated into
+// a pooled buffer goes back to the pool once every reference is released; close() releases the one the
+// stream starts with. Objects parsed from it before stay usable.
+final class ObjectStream implements AutoCloseable {
+    private final PooledBuffer decoded;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final ByteBuffer data;
+    private final int[] objectNumbers;
+    private final int[] offsets;
+
+    ObjectStream(ByteBuffer data, int[] objectNumbers, int[] offsets) {
+        this(new PooledBuffer(null, data), objectNumbers, offsets);
+    }
+
+    private ObjectStream(PooledBuffer decoded, int[] objectNumbers, int[] offsets) {
+        this.decoded = decoded;
+        this.data = decoded.buffer();
+        this.objectNumbers = objectNumbers;
+        this.offsets = offsets;
+    }
+
+    static ObjectStream parse(PDFStream stream) throws IOException, ParseException {
+        return parse(stream, (BufferPool) null);
+    }
+
+    // With a pool, the data is inflated into one of its direct buffers and stays there while the stream is cached.
+    static ObjectStream parse(PDFStream stream, BufferPool pool) throws IOException, ParseException {
+        Map<String, Object> dictionary = checkType(stream);
+        int count = PDFValues.asInt(dictionary.get("N"), -1);
+        int first = PDFValues.asInt(dictionary.get("First"), -1);
+        checkHeader(dictionary, count, first);
+
+        PooledBuffer decoded = decode(stream, pool);
+        try {
+            ObjectStreamLayout layout = readHeader(decoded.buffer(), count, first);
+            return new ObjectStream(decoded, layout.objectNumbers(), layout.offsets());
+        } catch (ParseException | RuntimeException e) {
+            decoded.close();
+            throw e;
+        }
+    }
+
+    // Decodes only the header, the first /First bytes, and keeps none of the data.
+    static ObjectStreamLayout readLayout(PDFStream stream) throws IOException, ParseException {
+        Map<String, Object> dictionary = checkType(stream);
+        int count = PDFValues.asInt(dictionary.get("N"), -1);
+        int first = PDFValues.asInt(dictionary.get("First"), -1);
+        checkHeader(dictionary, count, first);
+        byte[] header;
+        try (InputStream in = stream.openStream()) {
+            header = in.readNBytes(first);
+        }
+        return readHeader(ByteBuffer.wrap(header), count, first);
+    }
+
+    private static void checkHeader(Map<String, Object> dictionary, int count, int first) throws ParseException {
+        if (count < 0 || first < 0) {
+            throw new ParseException("Object stream without valid /N and /First: " + dictionary);
+        }
+    }
+
+    private static ObjectStreamLayout readHeader(ByteBuffer data, int count, int first) throws ParseException {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(data, 0);
+        int[] objectNumbers = new int[count];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            objectNumbers[i] = readInt(tokenizer.nextToken());
+            offsets[i] = first + readInt(tokenizer.nextToken());
+        }
+        return new ObjectStreamLayout(objectNumbers, offsets);
+    }
+
+    // Uses a header that was read before, e.g. from an index cache, and only decodes the data.
+    static ObjectStream parse(PDFStream stream, ObjectStreamLayout layout, BufferPool pool)
+            throws IOException, ParseException {
+        checkType(stream);
+        return new ObjectStream(decode(stream, pool), layout.objectNumbers(), layout.offsets());
+    }
+
+    private static PooledBuffer decode(PDFStream stream, BufferPool pool) throws IOException {
+        return pool == null ? new PooledBuffer(null, ByteBuffer.wrap(stream.decode())) : stream.decode(pool);
+    }
+
+    private static Map<String, Object> checkType(PDFStream stream) throws ParseException {
+        Map<String, Object> dictionary = stream.dictionary();
+        if (!"ObjStm".equals(PDFValues.asName(dictionary.get("Type")))) {
+            throw new ParseException("Expected object stream but got: " + dictionary);
+        }
+        return dictionary;
+    }
+
+    private static int readInt(Token token) throws ParseException {
+        if (token == null || !PDFValues.isNumber(token.value())) {
+            throw new ParseException("Expected number in object stream header but got: " + token);
+        }
+        return PDFValues.asInt(token.value(), -1);
+    }
+
+    ObjectStreamLayout layout() {
+        return new ObjectStreamLayout(objectNumbers, offsets);
+    }
+
+    int size() {
+        return objectNumbers.length;
+    }
+
+    int objectNumber(int index) {
+        return objectNumbers[index];
+    }
+
+    int offset(int index) {
+        return offsets[index];
+    }
+
+    ByteBuffer data() {
+        return data.duplicate();
+    }
+
+    // Size of the inflated data, for caches that bound how much of it they keep.
+    int weight() {
+        return data.remaining();
+    }
+
+    // Adds a reference for a reader; false once the data has gone back to the pool.
+    boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            decoded.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    // The xref entry records the index, but fall back to a lookup when it does not match.
+    int indexOf(int objectNumber, int hint) {
+        if (hint >= 0 && hint < objectNumbers.length && objectNumbers[hint] == objectNumber) {
+            return hint;
+        }
+        for (int i = 0; i < objectNumbers.length; i++) {
+            if (objectNumbers[i] == objectNumber) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    Object parseObject(int index, ObjectResolver resolver) throws IOException, ParseException {
+        return parseObject(index, resolver, ParseListener.NONE);
+    }
+
+    Object parseObject(int index, ObjectResolver resolver, ParseListener listener) throws IOException, ParseException {
+        return parseObject(index, resolver, listener, Projection.ALL);
+    }
+
+    Object parseObject(int index, ObjectResolver resolver, ParseListener listener, Projection projection)
+            throws IOException, ParseException {
+        return parseObject(index, resolver, listener, projection, new NameTable());
+    }
+
+    // The name table must belong to the calling thread.
+    Object parseObject(int index, ObjectResolver resolver, ParseListener listener, Projection projection,
+                       NameTable names) throws IOException, ParseException {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(data, offsets[index], names);
+        PDFParser parser = new PDFParser(tokenizer, resolver, listener);
+        if (listener == ParseListener.NONE) {
+            return parser.parseObject(projection);
+        }
+        long allocated = ThreadAllocation.currentThread();
+        long start = System.nanoTime();
+        Object value = parser.parseObject(projection);
+        listener.objectParsed(objectNumbers[index], parser.tokenCount(), parser.tokenizeNanos(),
+                System.nanoTime() - start, ThreadAllocation.since(allocated));
+        return value;
+    }
+}
@@ -0,0 +1,64 @@
+package de.antl.parser.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Inflated object streams of one document, least recently used first and bounded by their inflated size.
+// The cache holds one reference to each stream and readers retain their own, so a stream that is evicted
+// or dropped by close() goes back to the pool only when the last reader is done with it.
+final class ObjectStreamCache {
+    static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, ObjectStream> streams = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private boolean closed;
+
+    ObjectStreamCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // A retained stream, or null; the caller releases it.
+    synchronized ObjectStream acquire(int streamNumber) {
+        ObjectStream stream = streams.get(streamNumber);
+        return stream != null && stream.retain() ? stream : null;
+    }
+
+    // Takes over the reference the new stream starts with. A stream that is already cached wins and the
+    // new one is released; after close() nothing is cached any more.
+    synchronized void put(int streamNumber, ObjectStream stream) {
+        if (closed) {
+            stream.release();
+            throw new IllegalStateException("Document is closed");
+        }
+        ObjectStream existing = streams.putIfAbsent(streamNumber, stream);
+        if (existing != null) {
+            stream.release();
+            return;
+        }
+        bytes += stream.weight();
+        // The newest stream stays, even when it is larger than the bound on its own.
+        Iterator<Map.Entry<Integer, ObjectStream>> eldest = streams.entrySet().iterator();
+        while (bytes > maxBytes && streams.size() > 1) {
+            ObjectStream evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= evicted.weight();
+            evicted.release();
+        }
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    // Drops the cache's references; streams that readers still hold are released by the last of them.
+    synchronized void close() {
+        closed = true;
+        for (ObjectStream stream : streams.values()) {
+            stream.release();
+        }
+        streams.clear();
+        bytes = 0;
+    }
+}
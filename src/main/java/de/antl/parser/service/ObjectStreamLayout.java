@@ -0,0 +1,5 @@
+package de.antl.parser.service;
+
+// Object numbers and data offsets of an object stream, i.e. its parsed header.
+record ObjectStreamLayout(int[] objectNumbers, int[] offsets) {
+}
@@ -0,0 +1,400 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.model.Token;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PDFBufferTokenizer implements TokenSource {
+    private static final Token DICT_START = new Token(TokenType.DICT_START, "<<");
+    private static final Token DICT_END = new Token(TokenType.DICT_END, ">>");
+    private static final Token ARRAY_START = new Token(TokenType.ARRAY_START, "[");
+    private static final Token ARRAY_END = new Token(TokenType.ARRAY_END, "]");
+    private static final Token TRUE = new Token(TokenType.BOOLEAN, "true");
+    private static final Token FALSE = new Token(TokenType.BOOLEAN, "false");
+
+    private static final byte[] END_STREAM = "endstream".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final NameTable names;
+    private int position;
+    private Token peekedToken;
+    private int peekedPosition;
+    private long streamLength = -1;
+
+    // State of the most recently scanned token, read through the cursor accessors.
+    private TokenType type;
+    private int valueStart;
+    private int valueEnd;
+    private final NumberScanner number = new NumberScanner();
+    private Token shared;
+
+    public PDFBufferTokenizer(ByteBuffer buffer) {
+        this(buffer, buffer.position());
+    }
+
+    public PDFBufferTokenizer(ByteBuffer buffer, int position) {
+        this(buffer, position, new NameTable());
+    }
+
+    public PDFBufferTokenizer(ByteBuffer buffer, int position, NameTable names) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.position = position;
+        this.names = names;
+        this.peekedToken = null;
+    }
+
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A single ByteBuffer is int-indexed, and every offset in the parser is an int, so files are
+            // limited to 2 GB; reconstruction scans the same mapping.
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Files larger than 2 GB are not supported: " + path + " has " + size + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int position() {
+        return peekedToken == null ? position : peekedPosition;
+    }
+
+    public void seek(int position) {
+        this.position = position;
+        this.peekedToken = null;
+    }
+
+    @Override
+    public void streamLengthHint(long length) {
+        this.streamLength = length;
+    }
+
+    public Token peekToken() {
+        if (peekedToken == null) {
+            int start = position;
+            peekedToken = readToken();
+            peekedPosition = start;
+        }
+        return peekedToken;
+    }
+
+    public Token nextToken() {
+        if (peekedToken != null) {
+            Token token = peekedToken;
+            peekedToken = null;
+            return token;
+        }
+        return readToken();
+    }
+
+    // Cursor API for hot loops: advances without creating a Token and returns null at the end of input.
+    // The accessors below describe the current token until the next call.
+    public TokenType next() {
+        if (peekedToken != null) {
+            position = peekedPosition;
+            peekedToken = null;
+        }
+        return scan();
+    }
+
+    public TokenType tokenType() {
+        return type;
+    }
+
+    public boolean isInteger() {
+        return number.isInteger();
+    }
+
+    public int intValue() {
+        return number.intValue();
+    }
+
+    public long longValue() {
+        return number.longValue();
+    }
+
+    public double doubleValue() {
+        return number.doubleValue();
+    }
+
+    // Value of names, operators and booleans; safe to keep. Only the common names are shared between all
+    // tokenizers; the others are interned in the tokenizer's NameTable, so compare with equals().
+    public String nameValue() {
+        return shared == null ? null : shared.getStringValue();
+    }
+
+    // Buffer range of the token content: names without the slash, strings without delimiters, stream data.
+    public int valueStart() {
+        return valueStart;
+    }
+
+    public int valueEnd() {
+        return valueEnd;
+    }
+
+    public String stringValue() {
+        return string(valueStart, valueEnd);
+    }
+
+    public ByteBuffer streamData() {
+        return buffer.slice(valueStart, valueEnd - valueStart).asReadOnlyBuffer();
+    }
+
+    private int byteAt(int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    static boolean isRegular(int c) {
+        return PDFSyntax.isRegular(c);
+    }
+
+    static boolean isWhitespace(int c) {
+        return PDFSyntax.isWhitespace(c);
+    }
+
+    private Token readToken() {
+        TokenType scanned = scan();
+        if (scanned == null) {
+            return null;
+        }
+        return switch (scanned) {
+            case NUMBER -> new Token(TokenType.NUMBER, number.value());
+            case STRING, HEX_STRING, VERSION -> new Token(scanned, stringValue());
+            case STREAM_DATA -> new Token(TokenType.STREAM_DATA, streamData());
+            default -> shared;
+        };
+    }
+
+    private TokenType scan() {
+        int pos = position;
+        int end = limit;
+        shared = null;
+
+        // Skip whitespace and comments, but report "%PDF-x.y" headers as version tokens.
+        while (pos < end) {
+            int c = byteAt(pos);
+            if (isWhitespace(c)) {
+                pos++;
+            } else if (c == '%') {
+                int commentStart = pos + 1;
+                while (pos < end && byteAt(pos) != '\n' && byteAt(pos) != '\r') {
+                    pos++;
+                }
+                if (pos - commentStart > 4 && byteAt(commentStart) == 'P' && byteAt(commentStart + 1) == 'D'
+                        && byteAt(commentStart + 2) == 'F' && byteAt(commentStart + 3) == '-') {
+                    int versionEnd = commentStart;
+                    while (versionEnd < pos && !isWhitespace(byteAt(versionEnd))) {
+                        versionEnd++;
+                    }
+                    position = pos;
+                    return range(TokenType.VERSION, commentStart, versionEnd);
+                }
+            } else {
+                break;
+            }
+        }
+
+        if (pos >= end) {
+            position = pos;
+            type = null;
+            return null;
+        }
+
+        int c = byteAt(pos);
+        switch (c) {
+            case '<':
+                if (pos + 1 < end && byteAt(pos + 1) == '<') {
+                    position = pos + 2;
+                    return shared(DICT_START);
+                }
+                return scanHexString(pos);
+            case '>':
+                if (pos + 1 < end && byteAt(pos + 1) == '>') {
+                    position = pos + 2;
+                    return shared(DICT_END);
+                }
+                return scanDelimiter(pos);
+            case '[':
+                position = pos + 1;
+                return shared(ARRAY_START);
+            case ']':
+                position = pos + 1;
+                return shared(ARRAY_END);
+            case '(':
+                return scanLiteralString(pos);
+            case '/':
+                return scanName(pos);
+            case ')':
+            case '{':
+            case '}':
+                return scanDelimiter(pos);
+            default:
+                break;
+        }
+
+        if (PDFSyntax.isNumberStart(c)) {
+            position = number.scan(buffer, pos, limit);
+            return range(TokenType.NUMBER, pos, position);
+        }
+
+        return scanKeyword(pos);
+    }
+
+    private TokenType shared(Token token) {
+        shared = token;
+        type = token.type();
+        return type;
+    }
+
+    private TokenType range(TokenType tokenType, int start, int end) {
+        type = tokenType;
+        valueStart = start;
+        valueEnd = end;
+        return type;
+    }
+
+    private TokenType scanDelimiter(int start) {
+        position = start + 1;
+        range(TokenType.OPERATOR, start, start + 1);
+        return shared(names.intern(TokenType.OPERATOR, buffer, start, start + 1, byteAt(start)));
+    }
+
+    // Unterminated strings run to the end of the input.
+    private TokenType scanHexString(int start) {
+        int end = PDFSyntax.hexStringEnd(buffer, start, limit);
+        int contentEnd = end < 0 ? limit : end;
+        position = Math.min(contentEnd + 1, limit);
+        return range(TokenType.HEX_STRING, start + 1, contentEnd);
+    }
+
+    private TokenType scanLiteralString(int start) {
+        int end = PDFSyntax.literalStringEnd(buffer, start, limit);
+        int contentEnd = end < 0 ? limit : end;
+        position = Math.min(contentEnd + 1, limit);
+        return range(TokenType.STRING, start + 1, contentEnd);
+    }
+
+    private TokenType scanName(int start) {
+        int pos = start + 1;
+        int hash = 0;
+        boolean escaped = false;
+        while (pos < limit) {
+            int c = byteAt(pos);
+            if (!isRegular(c)) {
+                break;
+            }
+            escaped |= c == '#';
+            hash = hash * 31 + c;
+            pos++;
+        }
+        position = pos;
+        range(TokenType.NAME, start + 1, pos);
+        if (escaped) {
+            // Names with #xx escapes are rare, so they are decoded but not interned.
+            return shared(new Token(TokenType.NAME, PDFSyntax.decodeName(buffer, start + 1, pos)));
+        }
+        return shared(names.intern(TokenType.NAME, buffer, start + 1, pos, hash));
+    }
+
+    private TokenType scanKeyword(int start) {
+        int pos = start;
+        int hash = 0;
+        while (pos < limit) {
+            int c = byteAt(pos);
+            if (!isRegular(c)) {
+                break;
+            }
+            hash = hash * 31 + c;
+            pos++;
+        }
+        position = pos;
+        int length = pos - start;
+        if (length == 6 && matches(start, "stream")) {
+            return scanStreamData(pos);
+        }
+        if (length == 4 && matches(start, "true")) {
+            return shared(TRUE);
+        }
+        if (length == 5 && matches(start, "false")) {
+            return shared(FALSE);
+        }
+        range(TokenType.OPERATOR, start, pos);
+        return shared(names.intern(TokenType.OPERATOR, buffer, start, pos, hash));
+    }
+
+    private TokenType scanStreamData(int afterKeyword) {
+        // The "stream" keyword is followed by CRLF or LF (a lone CR is tolerated).
+        int dataStart = afterKeyword;
+        if (dataStart < limit && byteAt(dataStart) == '\r') {
+            dataStart++;
+        }
+        if (dataStart < limit && byteAt(dataStart) == '\n') {
+            dataStart++;
+        }
+
+        long length = streamLength;
+        streamLength = -1;
+
+        int dataEnd = -1;
+        if (length >= 0 && dataStart + length <= limit) {
+            int candidate = (int) (dataStart + length);
+            int keyword = candidate;
+            while (keyword < limit && isWhitespace(byteAt(keyword))) {
+                keyword++;
+            }
+            if (ByteSearch.matchesAt(buffer, END_STREAM, keyword)) {
+                dataEnd = candidate;
+                position = keyword + END_STREAM.length;
+            }
+        }
+
+        if (dataEnd < 0) {
+            // /Length is missing or wrong: search for the keyword and drop the end-of-line marker before it.
+            int keyword = ByteSearch.indexOf(buffer, END_STREAM, dataStart, limit);
+            if (keyword < 0) {
+                dataEnd = limit;
+                position = limit;
+            } else {
+                dataEnd = keyword;
+                position = keyword + END_STREAM.length;
+                if (dataEnd > dataStart && byteAt(dataEnd - 1) == '\n') {
+                    dataEnd--;
+                }
+                if (dataEnd > dataStart && byteAt(dataEnd - 1) == '\r') {
+                    dataEnd--;
+                }
+            }
+        }
+
+        // The payload is exposed as a read-only view of the underlying buffer, not a copy.
+        return range(TokenType.STREAM_DATA, dataStart, dataEnd);
+    }
+
+    private boolean matches(int start, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (byteAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
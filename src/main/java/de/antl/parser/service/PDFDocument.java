@@ -0,0 +1,536 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFPage;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// A document handle that any number of threads can read at once. The buffer, index and trailer never
+// change after opening; every lookup parses with its own tokenizer and parser, and concurrent misses on
+// the same object or object stream are parsed by one thread while the others wait for its result.
+// The one exception are linearized files opened from their first page section: the index of those grows
+// by the sections of other pages as they are read, and is then replaced by an extended copy.
+public class PDFDocument implements ObjectResolver, Closeable {
+    private static final byte[] START_XREF = "startxref".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int START_XREF_SEARCH_WINDOW = 1024;
+
+    private final ByteBuffer buffer;
+    private volatile XRefIndex xRefIndex;
+    private final Map<String, Object> trailer;
+    private final ObjectCache objects;
+    private final ParseListener listener;
+    private final int trailerOffset;
+    private final ObjectStreamCache objectStreams = new ObjectStreamCache(ObjectStreamCache.DEFAULT_MAX_BYTES);
+    private final PendingLoads<PDFIndirectObject> objectLoads = new PendingLoads<>();
+    private final PendingLoads<ObjectStream> objectStreamLoads = new PendingLoads<>();
+    // Name tables are not thread-safe, so each reading thread interns into its own, which then serves
+    // every object that thread parses from this document.
+    private final ThreadLocal<NameTable> names = ThreadLocal.withInitial(NameTable::new);
+    // Object stream headers and page leaves known in advance, e.g. from an IndexCache sidecar.
+    private final Map<Integer, ObjectStreamLayout> objectStreamLayouts;
+    private final PageTree pageTree;
+    private final BufferPool buffers;
+    private final Linearization linearization;
+    // Set when only the first page cross-reference section was read.
+    private final LinearizedPages linearizedPages;
+    // The file the buffer maps, when the document was opened from a path.
+    private Path source;
+
+    // The linearization is the one already read when opening, or null; see currentLinearization().
+    PDFDocument(ByteBuffer buffer, XRefIndex xRefIndex, Map<String, Object> trailer, int trailerOffset,
+                ObjectCache objects, ParseListener listener, Map<Integer, ObjectStreamLayout> objectStreamLayouts,
+                int[] pageObjects, BufferPool buffers, Linearization linearization) {
+        this(buffer, xRefIndex, trailer, trailerOffset, objects, listener, objectStreamLayouts, pageObjects,
+                buffers, linearization, false);
+    }
+
+    private PDFDocument(ByteBuffer buffer, XRefIndex xRefIndex, Map<String, Object> trailer, int trailerOffset,
+                        ObjectCache objects, ParseListener listener,
+                        Map<Integer, ObjectStreamLayout> objectStreamLayouts, int[] pageObjects, BufferPool buffers,
+                        Linearization linearization, boolean firstPageSection) {
+        this.buffer = buffer;
+        this.xRefIndex = xRefIndex;
+        this.trailer = trailer;
+        this.trailerOffset = trailerOffset;
+        this.objects = objects;
+        this.listener = listener;
+        this.objectStreamLayouts = objectStreamLayouts;
+        this.pageTree = new PageTree(this, pageObjects);
+        this.buffers = buffers;
+        this.linearization = linearization;
+        this.linearizedPages = firstPageSection ? new LinearizedPages(this, linearization) : null;
+    }
+
+    public static PDFDocument open(Path path) throws IOException, ParseException {
+        return open(path, ObjectCache.concurrent(ObjectCache.DEFAULT_MAX_ENTRIES));
+    }
+
+    public static PDFDocument open(Path path, ObjectCache cache) throws IOException, ParseException {
+        return open(path, cache, ParseListener.NONE);
+    }
+
+    public static PDFDocument open(ByteBuffer buffer) throws IOException, ParseException {
+        return open(buffer, ObjectCache.concurrent(ObjectCache.DEFAULT_MAX_ENTRIES));
+    }
+
+    public static PDFDocument open(Path path, ObjectCache cache, ParseListener listener) throws IOException, ParseException {
+        return open(PDFBufferTokenizer.map(path), cache, listener).withSource(path);
+    }
+
+    public static PDFDocument open(ByteBuffer buffer, ObjectCache cache) throws IOException, ParseException {
+        return open(buffer, cache, ParseListener.NONE);
+    }
+
+    public static PDFDocument open(ByteBuffer buffer, ObjectCache cache, ParseListener listener)
+            throws IOException, ParseException {
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        BufferPool buffers = BufferPool.shared();
+        Linearization linearization = Linearization.read(buffer);
+        if (linearization != null && linearization.fileLength() > buffer.limit()) {
+            // Only the leading bytes of a linearized file are at hand.
+            return openFirstPageSection(buffer, cache, listener, linearization, buffers, start);
+        }
+        return openWhole(buffer, cache, listener, linearization, buffers, start);
+    }
+
+    // The hint tables are only read for first page mode; a whole file does not need them.
+    private static PDFDocument openWhole(ByteBuffer buffer, ObjectCache cache, ParseListener listener,
+                                         Linearization linearization, BufferPool buffers, long start)
+            throws IOException, ParseException {
+        XRefReader reader = new XRefReader(buffer, buffers);
+        reader.read(findStartXRef(buffer));
+        if (listener != ParseListener.NONE) {
+            listener.xrefRead(reader.sections(), reader.index().size(), System.nanoTime() - start);
+        }
+        return new PDFDocument(buffer, reader.index(), reader.trailer(), reader.trailerOffset(), cache, listener,
+                Map.of(), null, buffers, current(linearization, buffer), false);
+    }
+
+    public static PDFDocument openLinearized(ByteBuffer buffer) throws IOException, ParseException {
+        return openLinearized(buffer, ObjectCache.concurrent(ObjectCache.DEFAULT_MAX_ENTRIES), ParseListener.NONE);
+    }
+
+    // Reads a linearized file through its first page cross-reference section only, so that no bytes after
+    // the first page section are touched until another page is asked for; the buffer may have gaps where
+    // the data has not arrived yet. getLinearization().pageRanges(i) tells which ranges page i needs.
+    // Files that are not linearized, or were updated after linearizing, are opened as a whole.
+    public static PDFDocument openLinearized(ByteBuffer buffer, ObjectCache cache, ParseListener listener)
+            throws IOException, ParseException {
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        BufferPool buffers = BufferPool.shared();
+        Linearization linearization = Linearization.read(buffer);
+        if (linearization == null || linearization.fileLength() < buffer.limit()) {
+            return openWhole(buffer, cache, listener, linearization, buffers, start);
+        }
+        return openFirstPageSection(buffer, cache, listener, linearization, buffers, start);
+    }
+
+    private static PDFDocument openFirstPageSection(ByteBuffer buffer, ObjectCache cache, ParseListener listener,
+                                                    Linearization linearization, BufferPool buffers, long start)
+            throws IOException, ParseException {
+        linearization = linearization.withHints(buffer, buffers);
+        XRefReader reader = new XRefReader(buffer, buffers);
+        reader.readSection(linearization.firstPageXRefOffset());
+        if (listener != ParseListener.NONE) {
+            listener.xrefRead(reader.sections(), reader.index().size(), System.nanoTime() - start);
+        }
+        return new PDFDocument(buffer, reader.index(), reader.trailer(), reader.trailerOffset(), cache, listener,
+                Map.of(), null, buffers, linearization, true);
+    }
+
+    // The linearization dictionary of a whole file, unless an incremental update has made it stale; the
+    // hint tables are not read.
+    static Linearization currentLinearization(ByteBuffer buffer) {
+        return current(Linearization.read(buffer), buffer);
+    }
+
+    private static Linearization current(Linearization linearization, ByteBuffer buffer) {
+        return linearization != null && linearization.fileLength() == buffer.limit() ? linearization : null;
+    }
+
+    public static PDFDocument recover(Path path) throws IOException, ParseException {
+        return recover(PDFBufferTokenizer.map(path), ObjectCache.concurrent(ObjectCache.DEFAULT_MAX_ENTRIES),
+                ParseListener.NONE).withSource(path);
+    }
+
+    // For files whose cross-reference data is missing or damaged: rebuilds the index from the objects themselves.
+    public static PDFDocument recover(ByteBuffer buffer, ObjectCache cache, ParseListener listener)
+            throws IOException, ParseException {
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        BufferPool buffers = BufferPool.shared();
+        XRefReconstructor reconstructor = new XRefReconstructor(buffer, buffers);
+        reconstructor.reconstruct(ForkJoinPool.commonPool());
+        if (listener != ParseListener.NONE) {
+            listener.xrefRead(0, reconstructor.index().size(), System.nanoTime() - start);
+        }
+        return new PDFDocument(buffer, reconstructor.index(), reconstructor.trailer(), -1, cache, listener,
+                Map.of(), null, buffers, null);
+    }
+
+    static int findStartXRef(ByteBuffer buffer) throws ParseException {
+        int limit = buffer.limit();
+        int from = Math.max(0, limit - START_XREF_SEARCH_WINDOW);
+        // Search backwards so that the last "startxref" of incrementally updated files wins.
+        int i = ByteSearch.lastIndexOf(buffer, START_XREF, from, limit);
+        if (i >= 0) {
+            Token offset = new PDFBufferTokenizer(buffer, i + START_XREF.length).nextToken();
+            if (offset == null || offset.type() != TokenType.NUMBER) {
+                throw new ParseException("Expected byte offset after startxref but got: " + offset);
+            }
+            int startXRef = offset.intValue();
+            if (startXRef < 0 || startXRef >= limit) {
+                throw new ParseException("startxref offset out of range: " + startXRef);
+            }
+            return startXRef;
+        }
+        throw new ParseException("No startxref found in the last " + START_XREF_SEARCH_WINDOW + " bytes");
+    }
+
+    // Where the newest cross-reference section starts, as an incremental update names it in /Prev; -1 for
+    // documents rebuilt from their objects.
+    public int getStartXRef() throws ParseException {
+        return trailerOffset < 0 ? -1 : findStartXRef(buffer);
+    }
+
+    // Set before the document is handed out, so readers never see it change.
+    PDFDocument withSource(Path path) {
+        this.source = path;
+        return this;
+    }
+
+    // The file the document was read from; null when it was opened from a buffer.
+    public Path getSource() {
+        return source;
+    }
+
+    // Length in bytes of what the document was read from.
+    public int getLength() {
+        return buffer.limit();
+    }
+
+    public Map<String, Object> getTrailer() {
+        return trailer;
+    }
+
+    public XRefIndex getXRefIndex() {
+        return xRefIndex;
+    }
+
+    // Null unless the file is linearized and has not been updated since.
+    public Linearization getLinearization() {
+        return linearization;
+    }
+
+    public ObjectCache getObjectCache() {
+        return objects;
+    }
+
+    public ParseListener getListener() {
+        return listener;
+    }
+
+    // Decoding buffers and Inflaters used for everything read from this document; by default the shared pool.
+    public BufferPool getBufferPool() {
+        return buffers;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    // The name table of the calling thread, for tokenizers over this document's data.
+    NameTable names() {
+        return names.get();
+    }
+
+    int trailerOffset() {
+        return trailerOffset;
+    }
+
+    public int getPageCount() throws IOException, ParseException {
+        return linearizedPages != null ? linearizedPages.count() : pageTree.count();
+    }
+
+    // Reads only the page tree nodes on the way to the page, not the whole tree. Linearized files opened
+    // from their first page section go to the page object through the hint tables instead.
+    public PDFPage getPage(int index) throws IOException, ParseException {
+        if (linearizedPages != null) {
+            return pageTree.pageAt(index, linearizedPages.pageObject(index));
+        }
+        return pageTree.page(index);
+    }
+
+    // Publishes entries found after opening; entries that are already present are kept.
+    synchronized void extendIndex(XRefIndex additions) {
+        XRefIndex extended = xRefIndex.copy();
+        for (int objectNumber = 0; objectNumber < additions.size(); objectNumber++) {
+            if (additions.contains(objectNumber)) {
+                extended.putIfAbsent(objectNumber, additions.type(objectNumber), additions.offset(objectNumber),
+                        additions.generation(objectNumber));
+            }
+        }
+        xRefIndex = extended;
+    }
+
+    int[] pageObjectNumbers() throws IOException, ParseException {
+        return pageTree.pageObjectNumbers();
+    }
+
+    public Object getRoot() throws IOException, ParseException {
+        return resolve(trailer.get("Root"));
+    }
+
+    public Object getInfo() throws IOException, ParseException {
+        return resolve(trailer.get("Info"));
+    }
+
+    @Override
+    public Object resolve(Object value) throws IOException, ParseException {
+        if (value instanceof PDFIndirectReference reference) {
+            PDFIndirectObject object = getObject(reference);
+            return object == null ? null : object.value();
+        }
+        return value;
+    }
+
+    public Object resolve(Object value, Projection projection) throws IOException, ParseException {
+        if (value instanceof PDFIndirectReference reference) {
+            PDFIndirectObject object = getObject(reference.objectNumber(), projection);
+            return object == null || object.genNumber() != reference.genNumber() ? null : object.value();
+        }
+        return value;
+    }
+
+    public PDFIndirectObject getObject(PDFIndirectReference reference) throws IOException, ParseException {
+        PDFIndirectObject object = getObject(reference.objectNumber());
+        if (object == null || object.genNumber() != reference.genNumber()) {
+            // References to free or outdated objects resolve to the null object.
+            return null;
+        }
+        return object;
+    }
+
+    public PDFIndirectObject getObject(int objectNumber) throws IOException, ParseException {
+        XRefIndex xRefIndex = this.xRefIndex;
+        int type = xRefIndex.type(objectNumber);
+        if (type == XRefIndex.TYPE_FREE) {
+            return null;
+        }
+        // Objects in object streams always have generation 0; the xref field holds their index instead.
+        int generation = type == XRefIndex.TYPE_COMPRESSED ? 0 : xRefIndex.generation(objectNumber);
+        PDFIndirectObject object = objects.get(objectNumber, generation);
+        if (listener != ParseListener.NONE) {
+            listener.cacheLookup(objectNumber, object != null);
+        }
+        if (object != null) {
+            return object;
+        }
+
+        if (type == XRefIndex.TYPE_IN_USE) {
+            return objectLoads.load(objectNumber, () -> {
+                PDFIndirectObject loaded = objects.peek(objectNumber, generation);
+                if (loaded == null) {
+                    loaded = checkObjectNumber(parseObjectAt((int) xRefIndex.offset(objectNumber)), objectNumber);
+                    objects.put(loaded);
+                }
+                return loaded;
+            });
+        }
+        if (type == XRefIndex.TYPE_COMPRESSED) {
+            // The container is fetched before claiming the object, so this thread may still wait for another
+            // thread that is inflating the same object stream.
+            ObjectStream objectStream = acquireObjectStream((int) xRefIndex.offset(objectNumber));
+            try {
+                return objectLoads.load(objectNumber, () -> {
+                    PDFIndirectObject loaded = objects.peek(objectNumber, 0);
+                    if (loaded == null) {
+                        loaded = parseCompressedObject(objectNumber, objectStream);
+                        objects.put(loaded);
+                    }
+                    return loaded;
+                });
+            } finally {
+                objectStream.release();
+            }
+        }
+        return null;
+    }
+
+    // Parses only what the projection selects, for jobs that read a few entries of many objects. A cached
+    // object is returned whole; projected ones are not cached, as the next caller may want other entries.
+    public PDFIndirectObject getObject(int objectNumber, Projection projection) throws IOException, ParseException {
+        if (projection.isAll()) {
+            return getObject(objectNumber);
+        }
+        XRefIndex xRefIndex = this.xRefIndex;
+        int type = xRefIndex.type(objectNumber);
+        if (type == XRefIndex.TYPE_FREE) {
+            return null;
+        }
+        int generation = type == XRefIndex.TYPE_COMPRESSED ? 0 : xRefIndex.generation(objectNumber);
+        PDFIndirectObject object = objects.peek(objectNumber, generation);
+        if (object != null) {
+            return object;
+        }
+        if (type == XRefIndex.TYPE_IN_USE) {
+            return checkObjectNumber(parseObjectAt((int) xRefIndex.offset(objectNumber), projection), objectNumber);
+        }
+        if (type == XRefIndex.TYPE_COMPRESSED) {
+            ObjectStream objectStream = acquireObjectStream((int) xRefIndex.offset(objectNumber));
+            try {
+                return parseCompressedObject(objectNumber, objectStream, projection);
+            } finally {
+                objectStream.release();
+            }
+        }
+        return null;
+    }
+
+    private PDFIndirectObject parseCompressedObject(int objectNumber, ObjectStream objectStream)
+            throws IOException, ParseException {
+        return parseCompressedObject(objectNumber, objectStream, Projection.ALL);
+    }
+
+    private PDFIndirectObject parseCompressedObject(int objectNumber, ObjectStream objectStream, Projection projection)
+            throws IOException, ParseException {
+        int streamNumber = (int) xRefIndex.offset(objectNumber);
+        int index = objectStream.indexOf(objectNumber, xRefIndex.generation(objectNumber));
+        if (index < 0) {
+            throw new ParseException("Object " + objectNumber + " not found in object stream " + streamNumber);
+        }
+        return new PDFIndirectObject(objectNumber, 0, objectStream.parseObject(index, this, listener, projection, names()));
+    }
+
+    // Inflated object streams are cached with their offset tables, so later lookups skip decompression.
+    // The stream comes retained: release it when done, as the cache may evict it in the meantime.
+    private ObjectStream acquireObjectStream(int streamNumber) throws IOException, ParseException {
+        while (true) {
+            ObjectStream objectStream = objectStreams.acquire(streamNumber);
+            if (objectStream != null) {
+                return objectStream;
+            }
+            if (objectStreams.isClosed()) {
+                throw new IllegalStateException("Document is closed");
+            }
+            ObjectStream loaded = objectStreamLoads.load(streamNumber, () -> {
+                ObjectStream cached = objectStreams.acquire(streamNumber);
+                if (cached != null) {
+                    cached.release();
+                    return cached;
+                }
+                ObjectStream inflated = loadObjectStream(streamNumber);
+                objectStreams.put(streamNumber, inflated);
+                return inflated;
+            });
+            // A stream that was evicted before this thread got to it is looked up again.
+            if (loaded.retain()) {
+                return loaded;
+            }
+        }
+    }
+
+    // The header of an object stream, without inflating more of it than the header or caching it.
+    ObjectStreamLayout getObjectStreamLayout(int streamNumber) throws IOException, ParseException {
+        ObjectStreamLayout layout = objectStreamLayouts.get(streamNumber);
+        if (layout != null) {
+            return layout;
+        }
+        ObjectStream loaded = objectStreams.acquire(streamNumber);
+        if (loaded != null) {
+            try {
+                return loaded.layout();
+            } finally {
+                loaded.release();
+            }
+        }
+        return ObjectStream.readLayout(objectStreamContainer(streamNumber, Projection.of("Type", "N", "First")));
+    }
+
+    private ObjectStream loadObjectStream(int streamNumber) throws IOException, ParseException {
+        PDFStream stream = objectStreamContainer(streamNumber, Projection.ALL);
+        long start = listener != ParseListener.NONE ? System.nanoTime() : 0;
+        ObjectStreamLayout layout = objectStreamLayouts.get(streamNumber);
+        ObjectStream objectStream = layout != null
+                ? ObjectStream.parse(stream, layout, buffers) : ObjectStream.parse(stream, buffers);
+        if (listener != ParseListener.NONE) {
+            listener.objectStreamLoaded(streamNumber, objectStream.size(), System.nanoTime() - start);
+        }
+        return objectStream;
+    }
+
+    private PDFStream objectStreamContainer(int streamNumber, Projection projection)
+            throws IOException, ParseException {
+        if (xRefIndex.type(streamNumber) != XRefIndex.TYPE_IN_USE) {
+            throw new ParseException("Object stream " + streamNumber + " is not an in-use object");
+        }
+        PDFIndirectObject container = checkObjectNumber(
+                parseObjectAt((int) xRefIndex.offset(streamNumber), projection), streamNumber);
+        if (!(container.value() instanceof PDFStream stream)) {
+            throw new ParseException("Object stream " + streamNumber + " is not a stream: " + container);
+        }
+        return stream;
+    }
+
+    PDFIndirectObject checkObjectNumber(PDFIndirectObject object, int objectNumber) throws ParseException {
+        if (object.objectNumber() != objectNumber) {
+            throw new ParseException("Expected object " + objectNumber + " at offset "
+                    + xRefIndex.offset(objectNumber) + " but found " + object.objectNumber());
+        }
+        return object;
+    }
+
+    public List<PDFIndirectObject> loadAllObjects(int parallelism) throws IOException, ParseException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return loadAllObjects(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Parses every in-use object on the given pool and merges the results into one object table.
+    public List<PDFIndirectObject> loadAllObjects(ForkJoinPool pool) throws IOException, ParseException {
+        PDFIndirectObject[] loaded = new ParallelObjectLoader(this, buffer, xRefIndex).load(pool);
+        List<PDFIndirectObject> result = new ArrayList<>();
+        for (PDFIndirectObject object : loaded) {
+            if (object != null) {
+                objects.put(object);
+                result.add(object);
+            }
+        }
+        return result;
+    }
+
+    // Hands the buffers of the inflated object streams back to the pool, each once the readers still in it are
+    // done. Objects already handed out stay usable; objects in object streams can no longer be read.
+    @Override
+    public void close() {
+        objectStreams.close();
+    }
+
+    private PDFIndirectObject parseObjectAt(int offset) throws IOException, ParseException {
+        return parseObjectAt(offset, Projection.ALL);
+    }
+
+    private PDFIndirectObject parseObjectAt(int offset, Projection projection) throws IOException, ParseException {
+        // Every lookup gets its own cursor over the shared buffer, so resolution can nest.
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, offset, names());
+        return new PDFParser(tokenizer, this, listener).parseIndirectObject(projection);
+    }
+}
@@ -2,48 +2,142 @@ package de.antl.parser.service;
 
 import de.antl.parser.enums.TokenType;
 import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.metrics.ThreadAllocation;
 import de.antl.parser.model.*;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.zip.InflaterInputStream;
 
 public class PDFParser {
-    private final PDFTokenizer tokenizer;
+    // Entries a stream dictionary needs to find and decode its data; projections keep them on streams.
+    private static final Set<String> STREAM_KEYS = Set.of("Length", "Filter", "DecodeParms", "DL");
 
-    public PDFParser(PDFTokenizer tokenizer) {
+    private final TokenSource tokenizer;
+    private final ObjectResolver resolver;
+    private final ParseListener listener;
+
+    private final Deque<Token> pushedBack = new ArrayDeque<>();
+    private int tokenCount;
+    // Time spent in the tokenizer, only measured when a listener is set.
+    private long tokenizeNanos;
+    private int objectNumber = -1;
+
+    public PDFParser(TokenSource tokenizer) {
+        this(tokenizer, ObjectResolver.NONE);
+    }
+
+    public PDFParser(TokenSource tokenizer, ObjectResolver resolver) {
+        this(tokenizer, resolver, ParseListener.NONE);
+    }
+
+    public PDFParser(TokenSource tokenizer, ObjectResolver resolver, ParseListener listener) {
         this.tokenizer = tokenizer;
+        this.resolver = resolver;
+        this.listener = listener;
+    }
+
+    // Tokens taken from the tokenizer since this parser was created.
+    public int tokenCount() {
+        return tokenCount;
+    }
+
+    // Part of the parse time that went into tokenizing; 0 without a listener.
+    public long tokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    // Drops pushed-back tokens, for callers that reposition the tokenizer between objects.
+    public void reset() {
+        pushedBack.clear();
+    }
+
+    private Token nextToken() throws IOException {
+        Token token = pushedBack.pollFirst();
+        if (token != null) {
+            return token;
+        }
+        tokenCount++;
+        if (listener == ParseListener.NONE) {
+            return tokenizer.nextToken();
+        }
+        long start = System.nanoTime();
+        token = tokenizer.nextToken();
+        tokenizeNanos += System.nanoTime() - start;
+        return token;
+    }
+
+    private Token peekToken() throws IOException {
+        Token token = pushedBack.peekFirst();
+        if (token != null) {
+            return token;
+        }
+        if (listener == ParseListener.NONE) {
+            return tokenizer.peekToken();
+        }
+        long start = System.nanoTime();
+        token = tokenizer.peekToken();
+        tokenizeNanos += System.nanoTime() - start;
+        return token;
+    }
+
+    private TokenType next(PDFBufferTokenizer cursor) {
+        if (listener == ParseListener.NONE) {
+            return cursor.next();
+        }
+        long start = System.nanoTime();
+        TokenType type = cursor.next();
+        tokenizeNanos += System.nanoTime() - start;
+        return type;
     }
 
     public PDFIndirectObject parseIndirectObject() throws IOException, ParseException {
+        return parseIndirectObject(Projection.ALL);
+    }
+
+    // Builds only the entries the projection selects; the others are skipped over.
+    public PDFIndirectObject parseIndirectObject(Projection projection) throws IOException, ParseException {
+        if (listener == ParseListener.NONE) {
+            return readIndirectObject(projection);
+        }
+        int tokens = tokenCount;
+        long tokenizeStart = tokenizeNanos;
+        long allocated = ThreadAllocation.currentThread();
+        long start = System.nanoTime();
+        PDFIndirectObject object = readIndirectObject(projection);
+        listener.objectParsed(object.objectNumber(), tokenCount - tokens, tokenizeNanos - tokenizeStart,
+                System.nanoTime() - start, ThreadAllocation.since(allocated));
+        return object;
+    }
+
+    private PDFIndirectObject readIndirectObject(Projection projection) throws IOException, ParseException {
         // Read the object number
-        Token numberToken = tokenizer.nextToken();
+        Token numberToken = nextToken();
         if (numberToken == null || numberToken.type() != TokenType.NUMBER) {
             throw new ParseException("Expected object number but got: " + numberToken);
         }
-        int objectNumber = Integer.parseInt(numberToken.getStringValue());
+        int objectNumber = numberToken.intValue();
 
         // Read the generation number
-        Token genToken = tokenizer.nextToken();
+        Token genToken = nextToken();
         if (genToken == null || genToken.type() != TokenType.NUMBER) {
             throw new ParseException("Expected generation number but got: " + genToken);
         }
-        int generationNumber = Integer.parseInt(genToken.getStringValue());
+        int generationNumber = genToken.intValue();
+        this.objectNumber = objectNumber;
 
         // Expect the "obj" keyword
-        Token objToken = tokenizer.nextToken();
+        Token objToken = nextToken();
         if (objToken == null || !"obj".equals(objToken.value())) {
             throw new ParseException("Expected 'obj' keyword but got: " + objToken);
         }
 
         // Parse the actual object data
-        Object parsedObject = parseObject();
+        Object parsedObject = parseObject(projection);
 
         // Expect the "endobj" keyword
-        Token endObjToken = tokenizer.nextToken();
+        Token endObjToken = nextToken();
         if (endObjToken == null || !"endobj".equals(endObjToken.value())) {
             throw new ParseException("Expected 'endobj' keyword but got: " + endObjToken);
         }
@@ -51,29 +145,33 @@ public class PDFParser {
         return new PDFIndirectObject(objectNumber, generationNumber, parsedObject);
     }
 
-    private Object parseObject() throws IOException, ParseException {
-        Token token = tokenizer.peekToken();
+    public Object parseObject() throws IOException, ParseException {
+        return parseObject(Projection.ALL);
+    }
+
+    public Object parseObject(Projection projection) throws IOException, ParseException {
+        Token token = peekToken();
         if (token == null) {
             return null;
         }
 
         if (token.type() == TokenType.NUMBER) {
             // Look ahead without consuming the first number.
-            Token firstNumber = tokenizer.nextToken(); // Consume first number
-            Token secondToken = tokenizer.peekToken();
+            Token firstNumber = nextToken(); // Consume first number
+            Token secondToken = peekToken();
 
             if (secondToken != null && secondToken.type() == TokenType.NUMBER) {
                 // Consume second number token
-                Token secondNumber = tokenizer.nextToken();
-                Token rToken = tokenizer.peekToken();
+                Token secondNumber = nextToken();
+                Token rToken = peekToken();
                 if (rToken != null && "R".equals(rToken.value())) {
-                    tokenizer.nextToken(); // Consume the "R" token
-                    int objNum = Integer.parseInt(firstNumber.getStringValue());
-                    int genNum = Integer.parseInt(secondNumber.getStringValue());
+                    nextToken(); // Consume the "R" token
+                    int objNum = firstNumber.intValue();
+                    int genNum = secondNumber.intValue();
                     return new PDFIndirectReference(objNum, genNum);
                 } else {
-                    // Not an indirect reference, so we treat the first token as a literal number.
-                    // (In a more advanced design, you'd support lookahead with pushback.)
+                    // Not an indirect reference: return the first number and push the second one back.
+                    pushedBack.addFirst(secondNumber);
                     return firstNumber.value();
                 }
             } else {
@@ -83,168 +181,296 @@ public class PDFParser {
         }
 
         return switch (token.type()) {
-            case STRING, HEX_STRING, NAME, BOOLEAN, VERSION -> tokenizer.nextToken(); // consume token
-            case ARRAY_START -> parseArray();
-            case DICT_START -> parseDictionary();
+            case STRING, HEX_STRING, NAME, BOOLEAN, VERSION -> nextToken(); // consume token
+            case ARRAY_START -> parseArray(projection);
+            case DICT_START -> parseDictionaryOrStream(projection);
+            case OPERATOR -> {
+                if (!"null".equals(token.value())) {
+                    throw new ParseException("Unexpected token: " + token);
+                }
+                nextToken(); // consume "null"
+                yield null;
+            }
             default -> throw new ParseException("Unexpected token: " + token);
         };
     }
 
-    private List<Object> parseArray() throws IOException, ParseException {
-        Token token = tokenizer.nextToken();
-        if (token.type() != TokenType.ARRAY_START) {
+    private List<Object> parseArray(Projection projection) throws IOException, ParseException {
+        Token token = nextToken();
+        if (token == null || token.type() != TokenType.ARRAY_START) {
             throw new ParseException("Expected array start token, found: " + token);
         }
 
-        List<Object> array = new ArrayList<>();
+        Object[] elements = new Object[8];
+        int size = 0;
+        boolean integers = true;
+        boolean numbers = true;
 
-        token = tokenizer.peekToken();
+        token = peekToken();
         while (token != null && token.type() != TokenType.ARRAY_END) {
-            Object obj = parseObject();
-            array.add(obj);
-            token = tokenizer.peekToken();
+            Object obj = parseObject(projection);
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = obj;
+            integers &= obj instanceof Integer;
+            numbers &= obj instanceof Integer || obj instanceof Double;
+            token = peekToken();
         }
 
-        token = tokenizer.nextToken();
-        if (token.type() != TokenType.ARRAY_END) {
+        token = nextToken();
+        if (token == null || token.type() != TokenType.ARRAY_END) {
             throw new ParseException("Expected array end token, found: " + token);
         }
 
-        return array;
+        return toArray(elements, size, integers, numbers);
+    }
+
+    // Numeric arrays keep primitive values; everything else becomes an exactly sized list.
+    private static List<Object> toArray(Object[] elements, int size, boolean integers, boolean numbers) {
+        if (size > 0 && integers) {
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = (Integer) elements[i];
+            }
+            return new PDFIntArray(values);
+        }
+        if (size > 0 && numbers) {
+            double[] values = new double[size];
+            long[] integerMask = new long[(size + 63) >>> 6];
+            for (int i = 0; i < size; i++) {
+                values[i] = ((Number) elements[i]).doubleValue();
+                if (elements[i] instanceof Integer) {
+                    integerMask[i >>> 6] |= 1L << i;
+                }
+            }
+            return new PDFRealArray(values, integerMask);
+        }
+        return new ArrayList<>(Arrays.asList(elements).subList(0, size));
     }
 
     private Map<String, Object> parseDictionary() throws IOException, ParseException {
-        Token token = tokenizer.nextToken(); // consume DICT_START
-        if (token.type() != TokenType.DICT_START) {
+        return parseDictionary(Projection.ALL);
+    }
+
+    private Map<String, Object> parseDictionary(Projection projection) throws IOException, ParseException {
+        Token token = nextToken(); // consume DICT_START
+        if (token == null || token.type() != TokenType.DICT_START) {
             throw new ParseException("Expected dictionary start token, found: " + token);
         }
 
-        Map<String, Object> dict = new HashMap<>();
+        PDFDictionary dict = new PDFDictionary();
 
         // Continue reading key-value pairs until we hit DICT_END
-        token = tokenizer.peekToken();
+        token = peekToken();
         while (token != null && token.type() != TokenType.DICT_END) {
             // Dictionary keys should always be names.
-            Token keyToken = tokenizer.nextToken();
+            Token keyToken = nextToken();
             if (keyToken.type() != TokenType.NAME) {
                 throw new ParseException("Dictionary key must be a NAME token, found: " + keyToken);
             }
             String key = keyToken.getStringValue();
 
             // Parse the value associated with this key
-            Object value = parseObject();
-            dict.put(key, value);
+            Projection selected = projection.child(key);
+            if (selected == null && STREAM_KEYS.contains(key)) {
+                // Not known to be a stream dictionary yet; dropped again if it is not one.
+                selected = Projection.ALL;
+            }
+            if (selected == null) {
+                skipValue();
+            } else {
+                dict.put(key, parseObject(selected));
+            }
 
-            token = tokenizer.peekToken();
+            token = peekToken();
         }
         // Consume the DICT_END token
-        token = tokenizer.nextToken();
-        if (token.type() != TokenType.DICT_END) {
+        token = nextToken();
+        if (token == null || token.type() != TokenType.DICT_END) {
             throw new ParseException("Expected dictionary end token, found: " + token);
         }
 
+        return dict.trim();
+    }
+
+    private Object parseDictionaryOrStream(Projection projection) throws IOException, ParseException {
+        Map<String, Object> dict = parseDictionary(projection);
+
+        tokenizer.streamLengthHint(streamLength(dict));
         if (isStreamStart()) {
             return parseStream(dict);
         }
 
+        if (!projection.isAll()) {
+            for (String key : STREAM_KEYS) {
+                if (projection.child(key) == null) {
+                    dict.remove(key);
+                }
+            }
+        }
         return dict;
     }
 
-    private boolean isStreamStart() throws IOException {
-        Token token = tokenizer.peekToken();
-        return token.type() == TokenType.STREAM_DATA;
+    // Moves past one value without building it. Over a buffer the tokenizer's cursor is used, which
+    // balances the brackets here, scans strings as a whole and jumps over stream data without allocating.
+    private void skipValue() throws IOException, ParseException {
+        if (!pushedBack.isEmpty() || !(tokenizer instanceof PDFBufferTokenizer cursor)) {
+            skipTokens();
+            return;
+        }
+        int depth = 0;
+        do {
+            TokenType type = next(cursor);
+            tokenCount++;
+            if (type == null) {
+                throw new ParseException("Unexpected end of input in a skipped value");
+            }
+            if (type == TokenType.DICT_START || type == TokenType.ARRAY_START) {
+                depth++;
+            } else if (type == TokenType.DICT_END || type == TokenType.ARRAY_END) {
+                depth--;
+            } else if (depth == 0 && type == TokenType.NUMBER) {
+                // A number on its own, or the start of an indirect reference.
+                int mark = cursor.position();
+                if (next(cursor) == TokenType.NUMBER && next(cursor) == TokenType.OPERATOR
+                        && "R".equals(cursor.nameValue())) {
+                    tokenCount += 2;
+                    return;
+                }
+                cursor.seek(mark);
+            }
+        } while (depth > 0);
+    }
+
+    private void skipTokens() throws IOException, ParseException {
+        int depth = 0;
+        do {
+            Token token = nextToken();
+            if (token == null) {
+                throw new ParseException("Unexpected end of input in a skipped value");
+            }
+            TokenType type = token.type();
+            if (type == TokenType.DICT_START || type == TokenType.ARRAY_START) {
+                depth++;
+            } else if (type == TokenType.DICT_END || type == TokenType.ARRAY_END) {
+                depth--;
+            } else if (depth == 0 && type == TokenType.NUMBER) {
+                Token second = peekToken();
+                if (second != null && second.type() == TokenType.NUMBER) {
+                    nextToken();
+                    Token r = peekToken();
+                    if (r != null && "R".equals(r.value())) {
+                        nextToken();
+                    } else {
+                        pushedBack.addFirst(second);
+                    }
+                }
+            }
+        } while (depth > 0);
     }
 
-    private Map<String, Object> parseStream(Map<String, Object> dict) throws IOException, ParseException {
-        Token token = tokenizer.nextToken();
+    private boolean isStreamStart() throws IOException {
+        Token token = peekToken();
+        return token != null && token.type() == TokenType.STREAM_DATA;
+    }
 
-        if (token.type() != TokenType.STREAM_DATA) {
-            throw new ParseException("Expected stream data token, found: " + token);
+    private long streamLength(Map<String, Object> dict) throws IOException, ParseException {
+        Object length = dict.get("Length");
+        if (length instanceof PDFIndirectReference) {
+            // Indirect lengths are looked up through the cross-reference table.
+            length = resolver.resolve(length);
         }
-        System.out.println(dict);
+        return PDFValues.isNumber(length) ? PDFValues.asLong(length, -1) : -1;
+    }
 
-        if (dict.containsKey("Filter")) {
-            Token filter = (Token) dict.get("Filter");
-            if (filter.value().equals("FlateDecode")) {
-                byte[] value = (byte[]) token.value();
-                byte[] compressedData = Arrays.copyOf(value, value.length - 1);
-                System.out.println(compressedData.length);
+    private PDFStream parseStream(Map<String, Object> dict) throws IOException, ParseException {
+        Token token = nextToken();
 
-                try {
-                    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(compressedData);
-                    InflaterInputStream inflaterInputStream = new InflaterInputStream(byteArrayInputStream);
-                    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (token == null || token.type() != TokenType.STREAM_DATA) {
+            throw new ParseException("Expected stream data token, found: " + token);
+        }
 
-                    byte[] buffer = new byte[1024];
-                    int bytesRead;
-                    while ((bytesRead = inflaterInputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
-                    }
-                    inflaterInputStream.close();
-                    dict.put("streamData", outputStream.toString());
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            } else {
-                dict.put("streamData", token.value());
+        // Filters are only applied when the stream is read, but their parameters must be direct objects by then.
+        for (String key : new String[]{"Filter", "DecodeParms"}) {
+            Object value = dict.get(key);
+            if (value instanceof PDFIndirectReference) {
+                dict.put(key, resolver.resolve(value));
             }
         }
+        ByteBuffer data = streamData(token);
+        if (listener != ParseListener.NONE) {
+            listener.streamParsed(objectNumber, data.remaining());
+        }
+        return new PDFStream(dict, data, listener);
+    }
 
-        return dict;
+    private ByteBuffer streamData(Token token) {
+        if (token.value() instanceof ByteBuffer buffer) {
+            return buffer.duplicate();
+        }
+        // The Reader based tokenizer copies everything up to "endstream", including the end-of-line marker.
+        byte[] bytes = token.getByteArrayValue();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\n') {
+            length--;
+        }
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return ByteBuffer.wrap(bytes, 0, length);
     }
 
-    public XRefTable parseXRefTable() throws IOException, ParseException {
-        Token token = tokenizer.nextToken();
+    public List<XRefTable> parseXRefTable() throws IOException, ParseException {
+        Token token = nextToken();
 
-        if (token.type() != TokenType.OPERATOR) {
+        if (token == null || !"xref".equals(token.value())) {
             throw new ParseException("Expected xref token, found: " + token);
         }
 
-        token = tokenizer.peekToken();
-
-        if (token.type() == TokenType.NUMBER) {
-            Token startIndex = tokenizer.nextToken();
-            Token totalObjects = tokenizer.peekToken();
-            if (totalObjects != null && totalObjects.type() == TokenType.NUMBER) {
-                totalObjects = tokenizer.nextToken();
-            }
-            token = tokenizer.peekToken();
-            List<XRefSubsection> subsections = new ArrayList<>();
-            while (!token.value().equals("trailer")) {
-                if (token.type() == TokenType.NUMBER) {
-                    Token firstNumber = tokenizer.nextToken();
-                    Token secondToken = tokenizer.peekToken();
-                    if (secondToken != null && secondToken.type() == TokenType.NUMBER) {
-                        Token secondNumber = tokenizer.nextToken();
-                        Token literal = tokenizer.peekToken();
-                        if (literal != null && ("f".equals(literal.value()) || "n".equals(literal.value()))) {
-                            literal = tokenizer.nextToken();
-                            subsections.add(new XRefSubsection(
-                                    Integer.parseInt(firstNumber.getStringValue()),
-                                    Integer.parseInt(secondNumber.getStringValue()),
-                                    !literal.value().equals("f"))
-                            );
-                            token = tokenizer.peekToken();
-                        }
-                    }
+        // A cross-reference section consists of one or more subsections, each introduced by "start count".
+        List<XRefTable> tables = new ArrayList<>();
+        token = peekToken();
+        while (token != null && token.type() == TokenType.NUMBER) {
+            int startIndex = parseInt(nextToken(), "subsection start");
+            int totalObjects = parseInt(nextToken(), "subsection count");
+
+            List<XRefSubsection> subsections = new ArrayList<>(totalObjects);
+            for (int i = 0; i < totalObjects; i++) {
+                int byteOffset = parseInt(nextToken(), "xref entry offset");
+                int genNumber = parseInt(nextToken(), "xref entry generation");
+                Token literal = nextToken();
+                if (literal == null || !("f".equals(literal.value()) || "n".equals(literal.value()))) {
+                    throw new ParseException("Expected xref entry type 'f' or 'n', found: " + literal);
                 }
+                subsections.add(new XRefSubsection(byteOffset, genNumber, "n".equals(literal.value())));
             }
-            if (token.type() != TokenType.OPERATOR) {
-                throw new ParseException("Expected trailer token, found: " + token);
-            }
-            assert totalObjects != null;
-            return new XRefTable(Integer.parseInt(totalObjects.getStringValue()), Integer.parseInt(startIndex.getStringValue()), subsections);
+            tables.add(new XRefTable(totalObjects, startIndex, subsections));
+            token = peekToken();
         }
-        return null;
+
+        if (token == null || !"trailer".equals(token.value())) {
+            throw new ParseException("Expected trailer token, found: " + token);
+        }
+        return tables;
+    }
+
+    private int parseInt(Token token, String what) throws ParseException {
+        if (token == null || token.type() != TokenType.NUMBER) {
+            throw new ParseException("Expected " + what + " but got: " + token);
+        }
+        return token.intValue();
     }
 
     public Map<String, Object> parseTrailer() throws IOException, ParseException {
-        tokenizer.nextToken();
+        nextToken();
         Map<String, Object> trailerDict = parseDictionary();
-        Token token = tokenizer.nextToken();
-        if (token.value().equals("startxref")) {
-            token = tokenizer.nextToken();
-            trailerDict.put("startxref", token.value());
+        Token token = nextToken();
+        if (token != null && "startxref".equals(token.value())) {
+            token = nextToken();
+            if (token != null) {
+                trailerDict.put("startxref", token.value());
+            }
         }
         return trailerDict;
     }
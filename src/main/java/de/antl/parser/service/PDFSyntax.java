@@ -0,0 +1,84 @@
+package de.antl.parser.service;
+
+import java.nio.ByteBuffer;
+
+// Lexical rules shared by the object tokenizer and the content stream parser: character classes, where
+// strings end and how escaped names decode. Both lexers scan with these, so they cannot drift apart.
+public final class PDFSyntax {
+    private static final byte REGULAR = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte DELIMITER = 2;
+    private static final byte[] CHAR_CLASS = new byte[256];
+
+    static {
+        for (int c : new int[]{0, '\t', '\n', '\f', '\r', ' '}) {
+            CHAR_CLASS[c] = WHITESPACE;
+        }
+        for (int c : new int[]{'(', ')', '<', '>', '[', ']', '{', '}', '/', '%'}) {
+            CHAR_CLASS[c] = DELIMITER;
+        }
+    }
+
+    private PDFSyntax() {
+    }
+
+    public static boolean isRegular(int c) {
+        return CHAR_CLASS[c] == REGULAR;
+    }
+
+    public static boolean isWhitespace(int c) {
+        return CHAR_CLASS[c] == WHITESPACE;
+    }
+
+    // Whether c may start a number; the rest of it is read by a NumberScanner.
+    public static boolean isNumberStart(int c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    // Index of the parenthesis that closes the literal string opened at start, or -1 when it is not closed
+    // before limit. Nested parentheses must balance; escaped ones do not count.
+    public static int literalStringEnd(ByteBuffer buffer, int start, int limit) {
+        int depth = 1;
+        for (int pos = start + 1; pos < limit; pos++) {
+            int c = buffer.get(pos) & 0xFF;
+            if (c == '\\') {
+                pos++;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    // Index of the '>' that closes the hex string opened at start, or -1 when it is not closed before limit.
+    public static int hexStringEnd(ByteBuffer buffer, int start, int limit) {
+        for (int pos = start + 1; pos < limit; pos++) {
+            if (buffer.get(pos) == '>') {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    // Decodes the #xx escapes of a name between start and end, without the slash. A '#' that is not followed
+    // by two hex digits is kept as it is.
+    public static String decodeName(ByteBuffer buffer, int start, int end) {
+        StringBuilder name = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            int c = buffer.get(i) & 0xFF;
+            if (c == '#' && i + 2 < end) {
+                int high = Character.digit(buffer.get(i + 1) & 0xFF, 16);
+                int low = Character.digit(buffer.get(i + 2) & 0xFF, 16);
+                if (high >= 0 && low >= 0) {
+                    name.append((char) (high << 4 | low));
+                    i += 2;
+                    continue;
+                }
+            }
+            name.append((char) c);
+        }
+        return name.toString();
+    }
+}
@@ -9,7 +9,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Stack;
 
-public class PDFTokenizer {
+public class PDFTokenizer implements TokenSource {
     private final BufferedReader reader;
     private int currentChar;
     private Token peekedToken;
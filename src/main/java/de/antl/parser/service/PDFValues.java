@@ -0,0 +1,208 @@
+package de.antl.parser.service;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import de.antl.parser.model.Token;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public final class PDFValues {
+    private PDFValues() {
+    }
+
+    public static boolean isNumber(Object value) {
+        if (value instanceof Number) {
+            return true;
+        }
+        if (value instanceof Token token) {
+            return token.type() == TokenType.NUMBER;
+        }
+        if (value instanceof String string && !string.isEmpty()) {
+            char first = string.charAt(0);
+            return (first >= '0' && first <= '9') || first == '-' || first == '+' || first == '.';
+        }
+        return false;
+    }
+
+    public static long asLong(Object value, long defaultValue) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof Token token && token.type() == TokenType.NUMBER) {
+            value = token.value();
+        }
+        if (value instanceof String string) {
+            try {
+                return Long.parseLong(string);
+            } catch (NumberFormatException e) {
+                try {
+                    return (long) Double.parseDouble(string);
+                } catch (NumberFormatException ignored) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    public static int asInt(Object value, int defaultValue) {
+        return (int) asLong(value, defaultValue);
+    }
+
+    public static double asDouble(Object value, double defaultValue) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof Token token && token.type() == TokenType.NUMBER) {
+            value = token.value();
+        }
+        if (value instanceof String string) {
+            try {
+                return Double.parseDouble(string);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    // Names are kept as NAME tokens by the parser; numbers are Number values, or strings from the reader tokenizer.
+    public static String asName(Object value) {
+        if (value instanceof Token token && token.type() == TokenType.NAME) {
+            return token.getStringValue();
+        }
+        return null;
+    }
+
+    // Tokenizers keep strings as their raw text; this resolves the escapes of literal strings and the
+    // digits of hex strings into the bytes they stand for.
+    public static byte[] asBytes(Object value) {
+        if (!(value instanceof Token token)) {
+            return null;
+        }
+        if (token.type() == TokenType.HEX_STRING) {
+            return decodeHex(token.getStringValue());
+        }
+        if (token.type() == TokenType.STRING) {
+            return unescape(token.getStringValue());
+        }
+        return null;
+    }
+
+    private static byte[] decodeHex(String text) {
+        byte[] bytes = new byte[(text.length() + 1) / 2];
+        int length = 0;
+        int high = -1;
+        for (int i = 0; i < text.length(); i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                continue;
+            }
+            if (high < 0) {
+                high = digit;
+            } else {
+                bytes[length++] = (byte) (high << 4 | digit);
+                high = -1;
+            }
+        }
+        // An odd final digit is completed with a 0.
+        if (high >= 0) {
+            bytes[length++] = (byte) (high << 4);
+        }
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    private static byte[] unescape(String text) {
+        byte[] bytes = new byte[text.length()];
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\r') {
+                // End-of-line markers inside a string all read as a single line feed.
+                if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                bytes[length++] = '\n';
+                continue;
+            }
+            if (c != '\\' || i + 1 == text.length()) {
+                bytes[length++] = (byte) c;
+                continue;
+            }
+            c = text.charAt(++i);
+            switch (c) {
+                case 'n' -> bytes[length++] = '\n';
+                case 'r' -> bytes[length++] = '\r';
+                case 't' -> bytes[length++] = '\t';
+                case 'b' -> bytes[length++] = '\b';
+                case 'f' -> bytes[length++] = '\f';
+                case '\r' -> {
+                    // A backslash before a line break continues the string on the next line.
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                        i++;
+                    }
+                }
+                case '\n' -> {
+                }
+                default -> {
+                    if (c >= '0' && c <= '7') {
+                        int octal = c - '0';
+                        for (int k = 0; k < 2 && i + 1 < text.length() && text.charAt(i + 1) >= '0'
+                                && text.charAt(i + 1) <= '7'; k++) {
+                            octal = octal * 8 + text.charAt(++i) - '0';
+                        }
+                        bytes[length++] = (byte) octal;
+                    } else {
+                        // Unknown escapes, and \( \) \\, stand for the character itself.
+                        bytes[length++] = (byte) c;
+                    }
+                }
+            }
+        }
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> asDictionary(Object value) {
+        return value instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Object> asArray(Object value) {
+        return value instanceof List<?> list ? (List<Object>) list : null;
+    }
+
+    // Numeric arrays as primitives; typed arrays from the parser are copied without unboxing.
+    public static int[] asIntArray(Object value) {
+        if (value instanceof PDFIntArray array) {
+            return array.toIntArray();
+        }
+        List<Object> list = asArray(value);
+        if (list == null) {
+            return null;
+        }
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = asInt(list.get(i), 0);
+        }
+        return values;
+    }
+
+    public static double[] asDoubleArray(Object value) {
+        if (value instanceof PDFRealArray array) {
+            return array.toDoubleArray();
+        }
+        List<Object> list = asArray(value);
+        if (list == null) {
+            return null;
+        }
+        double[] values = new double[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = list instanceof PDFIntArray array ? array.getInt(i) : asDouble(list.get(i), 0);
+        }
+        return values;
+    }
+}
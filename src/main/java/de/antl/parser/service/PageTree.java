@@ -0,0 +1,200 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFPage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Random access to the pages of a document. Single lookups descend from the root and skip whole
+// subtrees by their /Count; the flat list of all page leaves is only built when it is asked for or
+// when the counts turn out to be inconsistent.
+final class PageTree {
+    private final PDFDocument document;
+    private volatile int[] pageObjects;
+    // Pages found by single lookups, 0 where not known yet; object 0 is never a page.
+    private volatile int[] foundPages;
+
+    PageTree(PDFDocument document, int[] pageObjects) {
+        this.document = document;
+        this.pageObjects = pageObjects;
+    }
+
+    int count() throws IOException, ParseException {
+        int[] pages = pageObjects;
+        if (pages != null) {
+            return pages.length;
+        }
+        Map<String, Object> root = PDFValues.asDictionary(document.resolve(rootReference()));
+        int count = root == null ? -1 : PDFValues.asInt(document.resolve(root.get("Count")), -1);
+        // Every page is an object of its own, so a larger /Count cannot be right.
+        return count >= 0 ? Math.min(count, document.getXRefIndex().size()) : pageObjectNumbers().length;
+    }
+
+    PDFPage page(int index) throws IOException, ParseException {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Page " + index);
+        }
+        int[] pages = pageObjects;
+        if (pages == null) {
+            int count = count();
+            if (index >= count) {
+                throw new IndexOutOfBoundsException("Page " + index + " of " + count);
+            }
+            int[] found = foundPages;
+            if (found != null && index < found.length && found[index] != 0) {
+                return pageAt(index, found[index]);
+            }
+            PDFPage page = descend(index);
+            if (page != null) {
+                remember(index, page.objectNumber());
+                return page;
+            }
+            pages = pageObjectNumbers();
+        }
+        if (index >= pages.length) {
+            throw new IndexOutOfBoundsException("Page " + index + " of " + pages.length);
+        }
+        return pageAt(index, pages[index]);
+    }
+
+    // Object numbers of all page leaves in document order, collected once by walking /Kids.
+    int[] pageObjectNumbers() throws IOException, ParseException {
+        int[] pages = pageObjects;
+        if (pages == null) {
+            pages = collect();
+            pageObjects = pages;
+        }
+        return pages;
+    }
+
+    private PDFIndirectReference rootReference() throws IOException, ParseException {
+        Map<String, Object> catalog = PDFValues.asDictionary(document.getRoot());
+        return catalog != null && catalog.get("Pages") instanceof PDFIndirectReference reference ? reference : null;
+    }
+
+    // Returns null when the tree does not match its counts, so that the caller can fall back to a full walk.
+    private PDFPage descend(int index) throws IOException, ParseException {
+        PDFIndirectReference reference = rootReference();
+        Map<String, Object> node = reference == null ? null : PDFValues.asDictionary(document.resolve(reference));
+        List<Map<String, Object>> ancestors = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        int remaining = index;
+        while (node != null && reference != null && visited.add(reference.objectNumber())) {
+            List<Object> kids = PDFValues.asArray(document.resolve(node.get("Kids")));
+            if (kids == null) {
+                return null;
+            }
+            ancestors.add(0, node);
+            Map<String, Object> next = null;
+            PDFIndirectReference nextReference = null;
+            for (Object kid : kids) {
+                if (!(kid instanceof PDFIndirectReference kidReference)) {
+                    return null;
+                }
+                Map<String, Object> child = PDFValues.asDictionary(document.resolve(kidReference));
+                if (child == null) {
+                    return null;
+                }
+                if (isLeaf(child)) {
+                    if (remaining == 0) {
+                        return new PDFPage(index, kidReference.objectNumber(), child, List.copyOf(ancestors));
+                    }
+                    remaining--;
+                    continue;
+                }
+                int count = PDFValues.asInt(document.resolve(child.get("Count")), -1);
+                if (count < 0) {
+                    return null;
+                }
+                if (remaining < count) {
+                    next = child;
+                    nextReference = kidReference;
+                    break;
+                }
+                remaining -= count;
+            }
+            node = next;
+            reference = nextReference;
+        }
+        return null;
+    }
+
+    private void remember(int index, int objectNumber) throws IOException, ParseException {
+        // Threads racing here may each install a table; entries lost that way are only descended to again.
+        int[] found = foundPages;
+        if (found == null) {
+            found = new int[count()];
+            foundPages = found;
+        }
+        if (index < found.length) {
+            found[index] = objectNumber;
+        }
+    }
+
+    // A page looked up by object number; its ancestors come from the /Parent chain.
+    PDFPage pageAt(int index, int objectNumber) throws IOException, ParseException {
+        PDFIndirectObject object = document.getObject(objectNumber);
+        Map<String, Object> dictionary = object == null ? null : PDFValues.asDictionary(object.value());
+        if (dictionary == null) {
+            throw new ParseException("Page " + index + " is not a dictionary: " + object);
+        }
+        List<Map<String, Object>> ancestors = new ArrayList<>();
+        Set<Object> visited = new HashSet<>();
+        Object parent = dictionary.get("Parent");
+        while (parent instanceof PDFIndirectReference && visited.add(parent)) {
+            Map<String, Object> ancestor = PDFValues.asDictionary(document.resolve(parent));
+            if (ancestor == null) {
+                break;
+            }
+            ancestors.add(ancestor);
+            parent = ancestor.get("Parent");
+        }
+        return new PDFPage(index, objectNumber, dictionary, ancestors);
+    }
+
+    private int[] collect() throws IOException, ParseException {
+        List<Integer> pages = new ArrayList<>();
+        Set<Integer> visited = new HashSet<>();
+        Deque<Object> pending = new ArrayDeque<>();
+        PDFIndirectReference root = rootReference();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            Object node = pending.pop();
+            if (!(node instanceof PDFIndirectReference reference) || !visited.add(reference.objectNumber())) {
+                // Page tree nodes are always indirect; anything else, including cycles, is skipped.
+                continue;
+            }
+            Map<String, Object> dictionary = PDFValues.asDictionary(document.resolve(reference));
+            if (dictionary == null) {
+                continue;
+            }
+            if (isLeaf(dictionary)) {
+                pages.add(reference.objectNumber());
+                continue;
+            }
+            List<Object> kids = PDFValues.asArray(document.resolve(dictionary.get("Kids")));
+            for (int i = kids.size() - 1; i >= 0; i--) {
+                if (kids.get(i) != null) {
+                    pending.push(kids.get(i));
+                }
+            }
+        }
+        return pages.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private boolean isLeaf(Map<String, Object> node) throws IOException, ParseException {
+        return "Page".equals(PDFValues.asName(node.get("Type")))
+                || PDFValues.asArray(document.resolve(node.get("Kids"))) == null;
+    }
+}
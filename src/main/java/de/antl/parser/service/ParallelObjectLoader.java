@@ -0,0 +1,111 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.XRefIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+final class ParallelObjectLoader {
+    private static final int LEAF_SIZE = 256;
+
+    private final PDFDocument document;
+    private final ByteBuffer buffer;
+    private final XRefIndex xRefIndex;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ParallelObjectLoader(PDFDocument document, ByteBuffer buffer, XRefIndex xRefIndex) {
+        this.document = document;
+        this.buffer = buffer;
+        this.xRefIndex = xRefIndex;
+    }
+
+    // Returns the parsed objects indexed by object number; free entries stay null.
+    PDFIndirectObject[] load(ForkJoinPool pool) throws IOException, ParseException {
+        int[] objectNumbers = inUseObjectsByOffset();
+        PDFIndirectObject[] objects = new PDFIndirectObject[xRefIndex.size()];
+        pool.invoke(new LoadRange(objectNumbers, 0, objectNumbers.length, objects));
+
+        Throwable error = failure.get();
+        if (error instanceof IOException e) {
+            throw e;
+        }
+        if (error instanceof ParseException e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        return objects;
+    }
+
+    private int[] inUseObjectsByOffset() {
+        long[] keys = new long[xRefIndex.size()];
+        int count = 0;
+        for (int objectNumber = 0; objectNumber < xRefIndex.size(); objectNumber++) {
+            int type = xRefIndex.type(objectNumber);
+            if (type == XRefIndex.TYPE_IN_USE) {
+                // Sorting by offset lets every worker walk its part of the file front to back.
+                keys[count++] = xRefIndex.offset(objectNumber) << 32 | objectNumber;
+            } else if (type == XRefIndex.TYPE_COMPRESSED) {
+                // Compressed objects are grouped with the object stream that contains them.
+                keys[count++] = xRefIndex.offset((int) xRefIndex.offset(objectNumber)) << 32 | objectNumber;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        int[] objectNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            objectNumbers[i] = (int) keys[i];
+        }
+        return objectNumbers;
+    }
+
+    // Never serialized; fork/join tasks are only Serializable by inheritance.
+    @SuppressWarnings("serial")
+    private final class LoadRange extends RecursiveAction {
+        private final int[] objectNumbers;
+        private final int from;
+        private final int to;
+        private final PDFIndirectObject[] objects;
+
+        LoadRange(int[] objectNumbers, int from, int to, PDFIndirectObject[] objects) {
+            this.objectNumbers = objectNumbers;
+            this.from = from;
+            this.to = to;
+            this.objects = objects;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LoadRange(objectNumbers, from, middle, objects),
+                        new LoadRange(objectNumbers, middle, to, objects));
+                return;
+            }
+
+            // One cursor per leaf over the shared read-only buffer.
+            PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, 0, document.names());
+            PDFParser parser = new PDFParser(tokenizer, document, document.getListener());
+            for (int i = from; i < to && failure.get() == null; i++) {
+                int objectNumber = objectNumbers[i];
+                try {
+                    if (xRefIndex.type(objectNumber) == XRefIndex.TYPE_COMPRESSED) {
+                        objects[objectNumber] = document.getObject(objectNumber);
+                        continue;
+                    }
+                    tokenizer.seek((int) xRefIndex.offset(objectNumber));
+                    parser.reset();
+                    objects[objectNumber] = document.checkObjectNumber(parser.parseIndirectObject(), objectNumber);
+                } catch (IOException | ParseException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+}
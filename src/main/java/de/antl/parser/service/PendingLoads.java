@@ -0,0 +1,73 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Loads that are running right now, keyed by object number. When several threads miss the same key
+// at once, the first one loads it and the others wait for its result instead of parsing it again.
+// A thread that is itself in the middle of a load never waits for another one and loads on its own,
+// so no two loads can wait for each other, e.g. through an indirect /Length.
+final class PendingLoads<V> {
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ConcurrentHashMap<Integer, CompletableFuture<V>> pending = new ConcurrentHashMap<>();
+
+    interface Loader<V> {
+        V load() throws IOException, ParseException;
+    }
+
+    // The loader should publish its result, e.g. to a cache, before returning, so that threads that
+    // arrive after the load has finished find it there.
+    V load(int key, Loader<V> loader) throws IOException, ParseException {
+        int[] depth = DEPTH.get();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = pending.putIfAbsent(key, future);
+        if (running != null) {
+            return depth[0] > 0 ? run(loader, depth) : await(running);
+        }
+        try {
+            V value = run(loader, depth);
+            future.complete(value);
+            return value;
+        } catch (IOException | ParseException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            pending.remove(key, future);
+        }
+    }
+
+    private static <V> V run(Loader<V> loader, int[] depth) throws IOException, ParseException {
+        depth[0]++;
+        try {
+            return loader.load();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws IOException, ParseException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof ParseException parse) {
+                throw parse;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
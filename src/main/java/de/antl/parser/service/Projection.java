@@ -0,0 +1,63 @@
+package de.antl.parser.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The entries of an object a caller wants, as key paths such as "Type" or "Resources/Font". The parser
+// builds only those and skips everything else without building it. A path applies to a dictionary and
+// to every dictionary in an array; a key without a longer path is kept with its whole value.
+public final class Projection {
+    // Everything: the parser builds the whole value, as without a projection.
+    public static final Projection ALL = new Projection(null);
+
+    private final Map<String, Projection> keys;
+
+    private Projection(Map<String, Projection> keys) {
+        this.keys = keys;
+    }
+
+    // Paths use "/" between keys; a leading "/", as in "/Type", is allowed.
+    public static Projection of(String... paths) {
+        Projection root = new Projection(new HashMap<>());
+        for (String path : paths) {
+            List<String> parts = new ArrayList<>();
+            for (String part : path.split("/")) {
+                if (!part.isEmpty()) {
+                    parts.add(part);
+                }
+            }
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("Empty projection path: '" + path + "'");
+            }
+            Projection node = root;
+            for (int i = 0; i < parts.size() && node != ALL; i++) {
+                String key = parts.get(i);
+                Projection child = node.keys.get(key);
+                if (i == parts.size() - 1) {
+                    node.keys.put(key, ALL);
+                } else if (child == null) {
+                    child = new Projection(new HashMap<>());
+                    node.keys.put(key, child);
+                }
+                node = child;
+            }
+        }
+        return root;
+    }
+
+    public boolean isAll() {
+        return keys == null;
+    }
+
+    // What to build of the value under a key, or null when it is skipped.
+    public Projection child(String key) {
+        return keys == null ? this : keys.get(key);
+    }
+
+    @Override
+    public String toString() {
+        return keys == null ? "*" : keys.toString();
+    }
+}
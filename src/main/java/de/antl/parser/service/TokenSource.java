@@ -0,0 +1,15 @@
+package de.antl.parser.service;
+
+import de.antl.parser.model.Token;
+
+import java.io.IOException;
+
+public interface TokenSource {
+    Token peekToken() throws IOException;
+
+    Token nextToken() throws IOException;
+
+    // Tells the tokenizer how many bytes the next stream body has, taken from the dictionary's /Length.
+    default void streamLengthHint(long length) {
+    }
+}
@@ -0,0 +1,213 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.model.XRefTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class XRefReader {
+    // The implementation limit of ISO 32000 for indirect objects. The index is an array over object numbers,
+    // so a subsection claiming numbers beyond it would only make it allocate gigabytes.
+    static final int MAX_OBJECTS = 8_388_607;
+
+    private final ByteBuffer buffer;
+    private final PDFBufferTokenizer tokenizer;
+    private final PDFParser parser;
+    private final XRefIndex index = new XRefIndex();
+    private final BufferPool pool;
+    private Map<String, Object> trailer;
+    private int sections;
+    private int trailerOffset = -1;
+    private int sectionTrailerOffset;
+
+    public XRefReader(ByteBuffer buffer) {
+        this(buffer, BufferPool.shared());
+    }
+
+    // Cross-reference streams are inflated into buffers from the pool, which the caller keeps owning.
+    public XRefReader(ByteBuffer buffer, BufferPool pool) {
+        this.buffer = buffer;
+        this.pool = pool;
+        this.tokenizer = new PDFBufferTokenizer(buffer, 0);
+        this.parser = new PDFParser(tokenizer);
+    }
+
+    public XRefIndex index() {
+        return index;
+    }
+
+    public Map<String, Object> trailer() {
+        return trailer;
+    }
+
+    public int sections() {
+        return sections;
+    }
+
+    // Where the newest trailer starts: a "trailer" keyword or a cross-reference stream object.
+    public int trailerOffset() {
+        return trailerOffset;
+    }
+
+    // Reads only the trailer at an offset recorded by trailerOffset(), without the table in front of it.
+    public static Map<String, Object> readTrailerAt(ByteBuffer buffer, int offset) throws IOException, ParseException {
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, offset);
+        PDFParser parser = new PDFParser(tokenizer);
+        Token token = tokenizer.peekToken();
+        if (token != null && "trailer".equals(token.value())) {
+            return parser.parseTrailer();
+        }
+        PDFIndirectObject object = parser.parseIndirectObject();
+        if (!(object.value() instanceof PDFStream stream)) {
+            throw new ParseException("Expected trailer at offset " + offset + " but got: " + object);
+        }
+        return stream.dictionary();
+    }
+
+    // Reads the section at startxref and every older section reachable through /Prev.
+    public void read(int startXRef) throws IOException, ParseException {
+        Set<Integer> visited = new HashSet<>();
+        int offset = startXRef;
+        while (offset >= 0 && visited.add(offset)) {
+            Map<String, Object> sectionTrailer = readSection(offset);
+            Object prev = sectionTrailer.get("Prev");
+            offset = PDFValues.isNumber(prev) ? PDFValues.asInt(prev, -1) : -1;
+        }
+    }
+
+    // Reads one section without following /Prev, e.g. the first page section of a linearized file.
+    public Map<String, Object> readSection(int offset) throws IOException, ParseException {
+        Map<String, Object> sectionTrailer = readSectionAt(offset);
+        sections++;
+        if (trailer == null) {
+            trailer = sectionTrailer;
+            trailerOffset = sectionTrailerOffset;
+        }
+        return sectionTrailer;
+    }
+
+    private Map<String, Object> readSectionAt(int offset) throws IOException, ParseException {
+        if (offset >= buffer.limit()) {
+            throw new ParseException("Cross-reference offset out of range: " + offset);
+        }
+        tokenizer.seek(offset);
+        parser.reset();
+        Token token = tokenizer.peekToken();
+        if (token != null && "xref".equals(token.value())) {
+            List<XRefTable> tables = parser.parseXRefTable();
+            sectionTrailerOffset = tokenizer.position();
+            Map<String, Object> sectionTrailer = parser.parseTrailer();
+            for (XRefTable table : tables) {
+                // Tables list every entry, so only the limit applies; writers often get /Size wrong.
+                checkRange(table.startIndex(), table.subsections().size(), -1);
+            }
+
+            // Hybrid files list compressed objects in an extra stream; those entries take precedence.
+            Object xRefStm = sectionTrailer.get("XRefStm");
+            if (PDFValues.isNumber(xRefStm)) {
+                readXRefStream(PDFValues.asInt(xRefStm, -1));
+            }
+            index.addTables(tables);
+            return sectionTrailer;
+        }
+        sectionTrailerOffset = offset;
+        return readXRefStream(offset);
+    }
+
+    private Map<String, Object> readXRefStream(int offset) throws IOException, ParseException {
+        tokenizer.seek(offset);
+        parser.reset();
+        PDFIndirectObject object = parser.parseIndirectObject();
+        if (!(object.value() instanceof PDFStream stream)
+                || !"XRef".equals(PDFValues.asName(stream.dictionary().get("Type")))) {
+            throw new ParseException("Expected cross-reference stream at offset " + offset + " but got: " + object);
+        }
+        addXRefStreamEntries(stream, index, pool);
+        return stream.dictionary();
+    }
+
+    static void addXRefStreamEntries(PDFStream stream, XRefIndex index, BufferPool pool)
+            throws IOException, ParseException {
+        Map<String, Object> dictionary = stream.dictionary();
+        int[] widths = PDFValues.asIntArray(dictionary.get("W"));
+        if (widths == null || widths.length < 3) {
+            throw new ParseException("Cross-reference stream without valid /W: " + dictionary);
+        }
+        int typeWidth = widths[0];
+        int offsetWidth = widths[1];
+        int generationWidth = widths[2];
+        int entryWidth = typeWidth + offsetWidth + generationWidth;
+        if (entryWidth <= 0) {
+            throw new ParseException("Cross-reference stream with empty entries: " + dictionary);
+        }
+
+        // /Index lists "first count" pairs and defaults to [0 Size]; no entry may reach /Size.
+        long size = PDFValues.asLong(dictionary.get("Size"), -1);
+        if (size > MAX_OBJECTS) {
+            throw new ParseException("Cross-reference stream with /Size " + size + " above the limit of "
+                    + MAX_OBJECTS + " objects");
+        }
+        int[] ranges = PDFValues.asIntArray(dictionary.get("Index"));
+        if (ranges == null) {
+            if (size < 0) {
+                throw new ParseException("Cross-reference stream without /Size or /Index: " + dictionary);
+            }
+            ranges = new int[]{0, (int) size};
+        }
+        for (int r = 0; r + 1 < ranges.length; r += 2) {
+            checkRange(ranges[r], ranges[r + 1], size);
+        }
+
+        try (PooledBuffer decoded = stream.decode(pool)) {
+            addEntries(decoded.buffer(), ranges, typeWidth, offsetWidth, generationWidth, index);
+        }
+    }
+
+    private static void addEntries(ByteBuffer data, int[] ranges, int typeWidth, int offsetWidth, int generationWidth,
+                                   XRefIndex index) {
+        int entryWidth = typeWidth + offsetWidth + generationWidth;
+        int position = 0;
+        for (int r = 0; r + 1 < ranges.length; r += 2) {
+            int first = ranges[r];
+            int count = ranges[r + 1];
+            for (int i = 0; i < count && position + entryWidth <= data.limit(); i++) {
+                // A zero-width type field means every entry is a regular in-use object.
+                int type = typeWidth == 0 ? XRefIndex.TYPE_IN_USE : (int) readField(data, position, typeWidth);
+                long field2 = readField(data, position + typeWidth, offsetWidth);
+                int field3 = (int) readField(data, position + typeWidth + offsetWidth, generationWidth);
+                position += entryWidth;
+                if (type == XRefIndex.TYPE_FREE || type == XRefIndex.TYPE_IN_USE || type == XRefIndex.TYPE_COMPRESSED) {
+                    index.putIfAbsent(first + i, type, field2, field3);
+                }
+            }
+        }
+    }
+
+    // Checks a subsection against /Size, or against the limit where there is none.
+    private static void checkRange(long first, long count, long size) throws ParseException {
+        long bound = size >= 0 ? size : MAX_OBJECTS;
+        if (first < 0 || count < 0 || first + count > bound) {
+            throw new ParseException("Cross-reference subsection " + first + " " + count + " beyond "
+                    + (size >= 0 ? "/Size " + size : "the limit of " + MAX_OBJECTS + " objects"));
+        }
+    }
+
+    private static long readField(ByteBuffer data, int position, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = value << 8 | (data.get(position + i) & 0xFF);
+        }
+        return value;
+    }
+}
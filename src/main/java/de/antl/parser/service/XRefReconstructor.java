@@ -0,0 +1,423 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.XRefIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Rebuilds the cross-reference index of a file whose xref is missing or damaged by scanning the
+// whole buffer for "N G obj" and "trailer" markers, in parallel chunks and a word at a time.
+final class XRefReconstructor {
+    private static final byte[] OBJ = "obj".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] TRAILER = "trailer".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] OBJ_STM = "/ObjStm".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] XREF = "/XRef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] CATALOG = "/Catalog".getBytes(StandardCharsets.ISO_8859_1);
+    private static final long O = ByteSearch.broadcast((byte) 'o');
+    private static final long T = ByteSearch.broadcast((byte) 't');
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    // How far past "obj" a /Type marker is looked for before an object is parsed to check it.
+    private static final int HEADER_WINDOW = 512;
+    // Entries of cross-reference stream dictionaries that belong to the trailer.
+    private static final List<String> TRAILER_KEYS = List.of("Root", "Info", "ID", "Encrypt");
+    // All a stream dictionary needs for finding the end of its data.
+    private static final Projection LENGTH = Projection.of("Length");
+
+    private final ByteBuffer buffer;
+    private final BufferPool buffers;
+    private final XRefIndex index = new XRefIndex();
+    private final Map<String, Object> trailer = new HashMap<>();
+    private PDFDocument document;
+
+    XRefReconstructor(ByteBuffer buffer, BufferPool buffers) {
+        this.buffer = buffer;
+        this.buffers = buffers;
+    }
+
+    XRefIndex index() {
+        return index;
+    }
+
+    Map<String, Object> trailer() {
+        return trailer;
+    }
+
+    void reconstruct(ForkJoinPool pool) throws IOException, ParseException {
+        Markers markers = pool.invoke(new ScanRange(0, buffer.limit()));
+        dropMarkersInStreams(markers);
+        if (markers.objectCount == 0) {
+            throw new ParseException("No objects found while reconstructing the cross-reference table");
+        }
+        // Later definitions belong to later incremental updates, so walk backwards and keep the first one seen.
+        for (int i = markers.objectCount - 1; i >= 0; i--) {
+            index.putIfAbsent(markers.numbers[i], XRefIndex.TYPE_IN_USE, markers.offsets[i], markers.generations[i]);
+        }
+        index.putIfAbsent(0, XRefIndex.TYPE_FREE, 0, 65535);
+
+        // Resolves stream lengths and object streams against the index rebuilt so far.
+        document = new PDFDocument(buffer, index, Map.of(), -1, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES),
+                ParseListener.NONE, Map.of(), null, buffers, null);
+        try {
+            addCompressedObjects();
+            rebuildTrailer(markers);
+        } finally {
+            // Stream lengths resolved on the way may have inflated object streams.
+            document.close();
+        }
+    }
+
+    // Stream data can hold anything, an embedded PDF included. As the newest definition wins, a marker
+    // inside a stream body would shadow the real object, so markers inside bodies are dropped. Bodies end
+    // where /Length says if "endstream" follows there, and at the next "endstream" otherwise.
+    private void dropMarkersInStreams(Markers markers) {
+        Map<Integer, Integer> newest = new HashMap<>();
+        for (int i = 0; i < markers.objectCount; i++) {
+            newest.put(markers.numbers[i], markers.offsets[i]);
+        }
+        NameTable names = new NameTable();
+        ObjectResolver lengths = value -> value instanceof PDFIndirectReference reference
+                ? directValue(newest.get(reference.objectNumber()), names) : value;
+        int[] bodies = new int[16];
+        int bodyCount = 0;
+        int kept = 0;
+        int bodyEnd = 0;
+        for (int i = 0; i < markers.objectCount; i++) {
+            int offset = markers.offsets[i];
+            if (offset < bodyEnd) {
+                continue;
+            }
+            markers.moveObject(i, kept++);
+            int end = streamEnd(offset, names, lengths);
+            if (end > offset) {
+                if (bodyCount == bodies.length) {
+                    bodies = Arrays.copyOf(bodies, bodyCount * 2);
+                }
+                bodies[bodyCount++] = offset;
+                bodies[bodyCount++] = end;
+                bodyEnd = end;
+            }
+        }
+        markers.objectCount = kept;
+
+        // Trailers of embedded files go the same way; both lists are in file order.
+        kept = 0;
+        int body = 0;
+        for (int i = 0; i < markers.trailerCount; i++) {
+            int offset = markers.trailers[i];
+            while (body < bodyCount && bodies[body + 1] <= offset) {
+                body += 2;
+            }
+            if (body == bodyCount || offset < bodies[body]) {
+                markers.trailers[kept++] = offset;
+            }
+        }
+        markers.trailerCount = kept;
+    }
+
+    // Where the stream of the object at offset ends, past "endstream", or -1 for objects that are not streams.
+    private int streamEnd(int offset, NameTable names, ObjectResolver lengths) {
+        try {
+            PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(buffer, offset, names);
+            // "<number> <generation> obj" was checked by the scan.
+            for (int i = 0; i < 3; i++) {
+                tokenizer.next();
+            }
+            Object value = new PDFParser(tokenizer, lengths).parseObject(LENGTH);
+            return value instanceof PDFStream ? tokenizer.position() : -1;
+        } catch (IOException | ParseException | RuntimeException e) {
+            // A damaged object hides nothing.
+            return -1;
+        }
+    }
+
+    private Object directValue(Integer offset, NameTable names) {
+        if (offset == null) {
+            return null;
+        }
+        try {
+            return new PDFParser(new PDFBufferTokenizer(buffer, offset, names)).parseIndirectObject().value();
+        } catch (IOException | ParseException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void addCompressedObjects() {
+        int size = index.size();
+        for (int streamNumber = 0; streamNumber < size; streamNumber++) {
+            if (index.type(streamNumber) != XRefIndex.TYPE_IN_USE || !headerContains(streamNumber, OBJ_STM)) {
+                continue;
+            }
+            int[] objectNumbers;
+            try {
+                objectNumbers = document.getObjectStreamLayout(streamNumber).objectNumbers();
+            } catch (IOException | ParseException | RuntimeException e) {
+                // A damaged object stream only loses its own objects.
+                continue;
+            }
+            for (int i = 0; i < objectNumbers.length; i++) {
+                index.putIfAbsent(objectNumbers[i], XRefIndex.TYPE_COMPRESSED, streamNumber, i);
+            }
+        }
+    }
+
+    private void rebuildTrailer(Markers markers) {
+        // Newer trailers win; older ones fill in entries that were not repeated.
+        for (int i = markers.trailerCount - 1; i >= 0; i--) {
+            try {
+                PDFParser parser = new PDFParser(new PDFBufferTokenizer(buffer, markers.trailers[i], document.names()), document);
+                parser.parseTrailer().forEach(trailer::putIfAbsent);
+            } catch (IOException | ParseException | RuntimeException e) {
+                // Skip damaged trailers.
+            }
+        }
+        if (!trailer.containsKey("Root")) {
+            // Files with cross-reference streams have no trailer keyword; the newest stream dictionary has the entries.
+            Map<String, Object> dictionary = newestDictionary(XREF, "XRef");
+            if (dictionary != null) {
+                for (String key : TRAILER_KEYS) {
+                    if (dictionary.containsKey(key)) {
+                        trailer.putIfAbsent(key, dictionary.get(key));
+                    }
+                }
+            }
+        }
+        if (!trailer.containsKey("Root")) {
+            int catalog = newestObject(CATALOG, "Catalog");
+            if (catalog >= 0) {
+                trailer.put("Root", new PDFIndirectReference(catalog, index.generation(catalog)));
+            }
+        }
+        // The old sections are what was damaged, so nothing may point back at them.
+        trailer.remove("Prev");
+        trailer.remove("XRefStm");
+        trailer.remove("startxref");
+        trailer.put("Size", index.size());
+    }
+
+    private Map<String, Object> newestDictionary(byte[] marker, String type) {
+        int objectNumber = newestObject(marker, type);
+        if (objectNumber < 0) {
+            return null;
+        }
+        try {
+            return dictionaryOf(document.getObject(objectNumber));
+        } catch (IOException | ParseException e) {
+            return null;
+        }
+    }
+
+    // The in-use object with the highest offset whose /Type is the given name.
+    private int newestObject(byte[] marker, String type) {
+        int newest = -1;
+        for (int objectNumber = 0; objectNumber < index.size(); objectNumber++) {
+            if (index.type(objectNumber) != XRefIndex.TYPE_IN_USE || !headerContains(objectNumber, marker)
+                    || newest >= 0 && index.offset(objectNumber) < index.offset(newest)) {
+                continue;
+            }
+            try {
+                Map<String, Object> dictionary = dictionaryOf(document.getObject(objectNumber));
+                if (dictionary != null && type.equals(PDFValues.asName(dictionary.get("Type")))) {
+                    newest = objectNumber;
+                }
+            } catch (IOException | ParseException | RuntimeException e) {
+                // Not a usable candidate.
+            }
+        }
+        return newest;
+    }
+
+    private static Map<String, Object> dictionaryOf(PDFIndirectObject object) {
+        if (object == null) {
+            return null;
+        }
+        if (object.value() instanceof PDFStream stream) {
+            return stream.dictionary();
+        }
+        return PDFValues.asDictionary(object.value());
+    }
+
+    private boolean headerContains(int objectNumber, byte[] marker) {
+        int offset = (int) index.offset(objectNumber);
+        return ByteSearch.indexOf(buffer, marker, offset, Math.min(buffer.limit(), offset + HEADER_WINDOW)) >= 0;
+    }
+
+    private Markers scan(int from, int to) {
+        Markers markers = new Markers();
+        int i = from;
+        // Word-at-a-time: only bytes that are an 'o' or a 't' can start one of the markers.
+        while (i + Long.BYTES <= to) {
+            long word = buffer.getLong(i);
+            long candidates = ByteSearch.matches(word, O) | ByteSearch.matches(word, T);
+            while (candidates != 0) {
+                int bit = Long.numberOfLeadingZeros(candidates);
+                check(i + (bit >>> 3), markers);
+                candidates &= ~(Long.MIN_VALUE >>> bit);
+            }
+            i += Long.BYTES;
+        }
+        for (; i < to; i++) {
+            check(i, markers);
+        }
+        return markers;
+    }
+
+    private void check(int position, Markers markers) {
+        byte b = buffer.get(position);
+        if (b == 'o') {
+            checkObject(position, markers);
+        } else if (b == 't' && isKeyword(position, TRAILER)) {
+            markers.addTrailer(position);
+        }
+    }
+
+    // Reads "<number> <generation> " backwards from the "obj" keyword; markers may start before the chunk.
+    private void checkObject(int position, Markers markers) {
+        if (!isKeyword(position, OBJ)) {
+            return;
+        }
+        int start = skipWhitespace(position);
+        if (start == position) {
+            return;
+        }
+        int generationEnd = start;
+        start = skipDigits(start);
+        int generationStart = start;
+        if (generationStart == generationEnd || generationEnd - generationStart > 5) {
+            return;
+        }
+        start = skipWhitespace(start);
+        int numberEnd = start;
+        if (numberEnd == generationStart) {
+            return;
+        }
+        start = skipDigits(start);
+        if (start == numberEnd || numberEnd - start > 10 || start > 0 && PDFBufferTokenizer.isRegular(byteAt(start - 1))) {
+            return;
+        }
+        long number = digits(start, numberEnd);
+        long generation = digits(generationStart, generationEnd);
+        if (number > Integer.MAX_VALUE || generation > 65535) {
+            return;
+        }
+        markers.addObject(start, (int) number, (int) generation);
+    }
+
+    private boolean isKeyword(int position, byte[] keyword) {
+        int end = position + keyword.length;
+        return ByteSearch.matchesAt(buffer, keyword, position)
+                && (position == 0 || !PDFBufferTokenizer.isRegular(byteAt(position - 1)))
+                && (end >= buffer.limit() || !PDFBufferTokenizer.isRegular(byteAt(end)));
+    }
+
+    private int skipWhitespace(int end) {
+        while (end > 0 && PDFBufferTokenizer.isWhitespace(byteAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private int skipDigits(int end) {
+        while (end > 0 && isDigit(byteAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private long digits(int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + byteAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int byteAt(int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    // Never serialized; fork/join tasks are only Serializable by inheritance.
+    @SuppressWarnings("serial")
+    private final class ScanRange extends RecursiveTask<Markers> {
+        private final int from;
+        private final int to;
+
+        ScanRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Markers compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                ScanRange right = new ScanRange(middle, to);
+                right.fork();
+                Markers markers = new ScanRange(from, middle).compute();
+                markers.append(right.join());
+                return markers;
+            }
+            return scan(from, to);
+        }
+    }
+
+    // Marker positions in file order.
+    private static final class Markers {
+        private int[] offsets = new int[64];
+        private int[] numbers = new int[64];
+        private int[] generations = new int[64];
+        private int objectCount;
+        private int[] trailers = new int[4];
+        private int trailerCount;
+
+        void addObject(int offset, int number, int generation) {
+            if (objectCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, objectCount * 2);
+                numbers = Arrays.copyOf(numbers, objectCount * 2);
+                generations = Arrays.copyOf(generations, objectCount * 2);
+            }
+            offsets[objectCount] = offset;
+            numbers[objectCount] = number;
+            generations[objectCount] = generation;
+            objectCount++;
+        }
+
+        void moveObject(int from, int to) {
+            offsets[to] = offsets[from];
+            numbers[to] = numbers[from];
+            generations[to] = generations[from];
+        }
+
+        void addTrailer(int offset) {
+            if (trailerCount == trailers.length) {
+                trailers = Arrays.copyOf(trailers, trailerCount * 2);
+            }
+            trailers[trailerCount++] = offset;
+        }
+
+        void append(Markers other) {
+            for (int i = 0; i < other.objectCount; i++) {
+                addObject(other.offsets[i], other.numbers[i], other.generations[i]);
+            }
+            for (int i = 0; i < other.trailerCount; i++) {
+                addTrailer(other.trailers[i]);
+            }
+        }
+    }
+}
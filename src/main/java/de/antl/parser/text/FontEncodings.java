@@ -0,0 +1,174 @@
+package de.antl.parser.text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The predefined encodings of simple fonts as tables from code to Unicode (0 = not mapped), and the
+// glyph names that /Differences arrays use, mapped to Unicode.
+final class FontEncodings {
+    private static final String[] ASCII_NAMES = {
+            "space", "exclam", "quotedbl", "numbersign", "dollar", "percent", "ampersand", "quotesingle",
+            "parenleft", "parenright", "asterisk", "plus", "comma", "hyphen", "period", "slash",
+            "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine",
+            "colon", "semicolon", "less", "equal", "greater", "question", "at",
+            "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
+            "U", "V", "W", "X", "Y", "Z", "bracketleft", "backslash", "bracketright", "asciicircum", "underscore",
+            "grave", "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r", "s",
+            "t", "u", "v", "w", "x", "y", "z", "braceleft", "bar", "braceright", "asciitilde"
+    };
+
+    // Names of U+00A0 to U+00FF.
+    private static final String[] LATIN_NAMES = {
+            "nbspace", "exclamdown", "cent", "sterling", "currency", "yen", "brokenbar", "section",
+            "dieresis", "copyright", "ordfeminine", "guillemotleft", "logicalnot", "sfthyphen", "registered", "macron",
+            "degree", "plusminus", "twosuperior", "threesuperior", "acute", "mu", "paragraph", "periodcentered",
+            "cedilla", "onesuperior", "ordmasculine", "guillemotright", "onequarter", "onehalf", "threequarters",
+            "questiondown", "Agrave", "Aacute", "Acircumflex", "Atilde", "Adieresis", "Aring", "AE", "Ccedilla",
+            "Egrave", "Eacute", "Ecircumflex", "Edieresis", "Igrave", "Iacute", "Icircumflex", "Idieresis",
+            "Eth", "Ntilde", "Ograve", "Oacute", "Ocircumflex", "Otilde", "Odieresis", "multiply",
+            "Oslash", "Ugrave", "Uacute", "Ucircumflex", "Udieresis", "Yacute", "Thorn", "germandbls",
+            "agrave", "aacute", "acircumflex", "atilde", "adieresis", "aring", "ae", "ccedilla",
+            "egrave", "eacute", "ecircumflex", "edieresis", "igrave", "iacute", "icircumflex", "idieresis",
+            "eth", "ntilde", "ograve", "oacute", "ocircumflex", "otilde", "odieresis", "divide",
+            "oslash", "ugrave", "uacute", "ucircumflex", "udieresis", "yacute", "thorn", "ydieresis"
+    };
+
+    // Further names used by the predefined encodings and common fonts, as name/code point pairs.
+    private static final String OTHER_NAMES = "Euro 20AC quotesinglbase 201A florin 0192 quotedblbase 201E "
+            + "ellipsis 2026 dagger 2020 daggerdbl 2021 circumflex 02C6 perthousand 2030 Scaron 0160 "
+            + "guilsinglleft 2039 OE 0152 Zcaron 017D quoteleft 2018 quoteright 2019 quotedblleft 201C "
+            + "quotedblright 201D bullet 2022 endash 2013 emdash 2014 tilde 02DC trademark 2122 scaron 0161 "
+            + "guilsinglright 203A oe 0153 zcaron 017E Ydieresis 0178 fi FB01 fl FB02 ff FB00 ffi FB03 ffl FB04 "
+            + "dotlessi 0131 Lslash 0141 lslash 0142 fraction 2044 minus 2212 breve 02D8 dotaccent 02D9 "
+            + "ring 02DA hungarumlaut 02DD ogonek 02DB caron 02C7 notequal 2260 infinity 221E lessequal 2264 "
+            + "greaterequal 2265 partialdiff 2202 summation 2211 product 220F pi 03C0 integral 222B Omega 03A9 "
+            + "radical 221A approxequal 2248 Delta 2206 lozenge 25CA apple F8FF";
+
+    // StandardEncoding above 0x7F, as code/name pairs.
+    private static final String STANDARD_HIGH = "A1 exclamdown A2 cent A3 sterling A4 fraction A5 yen A6 florin "
+            + "A7 section A8 currency A9 quotesingle AA quotedblleft AB guillemotleft AC guilsinglleft "
+            + "AD guilsinglright AE fi AF fl B1 endash B2 dagger B3 daggerdbl B4 periodcentered B6 paragraph "
+            + "B7 bullet B8 quotesinglbase B9 quotedblbase BA quotedblright BB guillemotright BC ellipsis "
+            + "BD perthousand BF questiondown C1 grave C2 acute C3 circumflex C4 tilde C5 macron C6 breve "
+            + "C7 dotaccent C8 dieresis CA ring CB cedilla CD hungarumlaut CE ogonek CF caron D0 emdash "
+            + "E1 AE E3 ordfeminine E8 Lslash E9 Oslash EA OE EB ordmasculine F1 ae F5 dotlessi F8 lslash "
+            + "F9 oslash FA oe FB germandbls";
+
+    // MacRomanEncoding from 0x80 to 0xFF.
+    private static final String MAC_ROMAN_HIGH = ""
+            + "\u00C4\u00C5\u00C7\u00C9\u00D1\u00D6\u00DC\u00E1\u00E0\u00E2\u00E4\u00E3\u00E5\u00E7\u00E9\u00E8"
+            + "\u00EA\u00EB\u00ED\u00EC\u00EE\u00EF\u00F1\u00F3\u00F2\u00F4\u00F6\u00F5\u00FA\u00F9\u00FB\u00FC"
+            + "\u2020\u00B0\u00A2\u00A3\u00A7\u2022\u00B6\u00DF\u00AE\u00A9\u2122\u00B4\u00A8\u2260\u00C6\u00D8"
+            + "\u221E\u00B1\u2264\u2265\u00A5\u00B5\u2202\u2211\u220F\u03C0\u222B\u00AA\u00BA\u03A9\u00E6\u00F8"
+            + "\u00BF\u00A1\u00AC\u221A\u0192\u2248\u2206\u00AB\u00BB\u2026\u00A0\u00C0\u00C3\u00D5\u0152\u0153"
+            + "\u2013\u2014\u201C\u201D\u2018\u2019\u00F7\u25CA\u00FF\u0178\u2044\u20AC\u2039\u203A\uFB01\uFB02"
+            + "\u2021\u00B7\u201A\u201E\u2030\u00C2\u00CA\u00C1\u00CB\u00C8\u00CD\u00CE\u00CF\u00CC\u00D3\u00D4"
+            + "\uF8FF\u00D2\u00DA\u00DB\u00D9\u0131\u02C6\u02DC\u00AF\u02D8\u02D9\u02DA\u00B8\u02DD\u02DB\u02C7";
+
+    // WinAnsiEncoding from 0x80 to 0x9F; the rest is ISO Latin-1.
+    private static final String WIN_ANSI_CONTROL = ""
+            + "\u20AC\u0000\u201A\u0192\u201E\u2026\u2020\u2021\u02C6\u2030\u0160\u2039\u0152\u0000\u017D\u0000"
+            + "\u0000\u2018\u2019\u201C\u201D\u2022\u2013\u2014\u02DC\u2122\u0161\u203A\u0153\u0000\u017E\u0178";
+
+    private static final Map<String, String> GLYPHS = new HashMap<>(512);
+
+    static final char[] STANDARD = new char[256];
+    static final char[] WIN_ANSI = new char[256];
+    static final char[] MAC_ROMAN = new char[256];
+
+    static {
+        for (int i = 0; i < LATIN_NAMES.length; i++) {
+            GLYPHS.put(LATIN_NAMES[i], String.valueOf((char) (0xA0 + i)));
+        }
+        for (int i = 0; i < ASCII_NAMES.length; i++) {
+            GLYPHS.put(ASCII_NAMES[i], String.valueOf((char) (0x20 + i)));
+        }
+        String[] other = OTHER_NAMES.split(" ");
+        for (int i = 0; i < other.length; i += 2) {
+            GLYPHS.put(other[i], String.valueOf((char) Integer.parseInt(other[i + 1], 16)));
+        }
+
+        for (int c = 0x20; c < 0x7F; c++) {
+            STANDARD[c] = (char) c;
+            WIN_ANSI[c] = (char) c;
+            MAC_ROMAN[c] = (char) c;
+        }
+        STANDARD['\''] = '\u2019';
+        STANDARD['`'] = '\u2018';
+        String[] standard = STANDARD_HIGH.split(" ");
+        for (int i = 0; i < standard.length; i += 2) {
+            STANDARD[Integer.parseInt(standard[i], 16)] = GLYPHS.get(standard[i + 1]).charAt(0);
+        }
+        for (int c = 0x80; c < 0x100; c++) {
+            WIN_ANSI[c] = c < 0xA0 ? WIN_ANSI_CONTROL.charAt(c - 0x80) : (char) c;
+            MAC_ROMAN[c] = MAC_ROMAN_HIGH.charAt(c - 0x80);
+        }
+    }
+
+    private FontEncodings() {
+    }
+
+    static char[] byName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "StandardEncoding" -> STANDARD;
+            case "WinAnsiEncoding" -> WIN_ANSI;
+            case "MacRomanEncoding" -> MAC_ROMAN;
+            default -> null;
+        };
+    }
+
+    // Known names, "uniXXXX" and "uXXXX[XX]" forms, ligatures joined by '_' and names with a ".suffix".
+    static String glyphToUnicode(String name) {
+        String text = GLYPHS.get(name);
+        if (text != null) {
+            return text;
+        }
+        int dot = name.indexOf('.');
+        if (dot > 0) {
+            return glyphToUnicode(name.substring(0, dot));
+        }
+        if (name.indexOf('_') > 0) {
+            StringBuilder ligature = new StringBuilder();
+            for (String part : name.split("_")) {
+                String component = glyphToUnicode(part);
+                if (component == null) {
+                    return null;
+                }
+                ligature.append(component);
+            }
+            return ligature.toString();
+        }
+        if (name.startsWith("uni") && name.length() >= 7 && (name.length() - 3) % 4 == 0) {
+            StringBuilder units = new StringBuilder();
+            for (int i = 3; i < name.length(); i += 4) {
+                int unit = parseHex(name, i, i + 4);
+                if (unit < 0) {
+                    return null;
+                }
+                units.append((char) unit);
+            }
+            return units.toString();
+        }
+        if (name.startsWith("u") && name.length() >= 5 && name.length() <= 7) {
+            int codePoint = parseHex(name, 1, name.length());
+            return codePoint >= 0 && Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : null;
+        }
+        return null;
+    }
+
+    private static int parseHex(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 16);
+            // Glyph names use upper-case hex digits only.
+            if (digit < 0 || Character.isLowerCase(text.charAt(i))) {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+}
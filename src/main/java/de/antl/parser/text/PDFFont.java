@@ -0,0 +1,204 @@
+package de.antl.parser.text;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.service.ObjectResolver;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// What text extraction needs from a font: how a string splits into character codes, the Unicode text
+// of each code and its advance width. Built once per font object and then only read, so it is shared
+// by all pages and threads.
+final class PDFFont {
+    // Used when a font has no widths, e.g. one of the standard 14 fonts; only spacing decisions depend on it.
+    private static final double DEFAULT_WIDTH = 500;
+    private static final int MAX_CID_WIDTHS = 0x10000;
+
+    private final boolean composite;
+    private final boolean twoByteCodes;
+    private final ToUnicodeCMap toUnicode;
+    // Simple fonts: text per code from the encoding and its /Differences.
+    private final String[] codeText;
+    // Widths in glyph space by code, or by CID for composite fonts; NaN where the default applies.
+    private final double[] widths;
+    private final int firstCode;
+    private final double defaultWidth;
+    // Glyph space to text space: 1/1000, or the /FontMatrix of a Type 3 font.
+    private final double scale;
+
+    private PDFFont(boolean composite, boolean twoByteCodes, ToUnicodeCMap toUnicode, String[] codeText,
+                    double[] widths, int firstCode, double defaultWidth, double scale) {
+        this.composite = composite;
+        this.twoByteCodes = twoByteCodes;
+        this.toUnicode = toUnicode;
+        this.codeText = codeText;
+        this.widths = widths;
+        this.firstCode = firstCode;
+        this.defaultWidth = defaultWidth;
+        this.scale = scale;
+    }
+
+    static PDFFont load(Map<String, Object> font, ObjectResolver resolver, BufferPool pool)
+            throws IOException, ParseException {
+        String subtype = PDFValues.asName(resolver.resolve(font.get("Subtype")));
+        ToUnicodeCMap toUnicode = null;
+        if (resolver.resolve(font.get("ToUnicode")) instanceof PDFStream stream) {
+            try (PooledBuffer data = stream.decode(pool)) {
+                toUnicode = ToUnicodeCMap.parse(data.buffer());
+            }
+        }
+        if ("Type0".equals(subtype)) {
+            return loadComposite(font, resolver, toUnicode);
+        }
+
+        String[] codeText = codeText(font, subtype, resolver);
+        int firstCode = PDFValues.asInt(resolver.resolve(font.get("FirstChar")), 0);
+        double[] widths = PDFValues.asDoubleArray(resolver.resolve(font.get("Widths")));
+        Map<String, Object> descriptor = PDFValues.asDictionary(resolver.resolve(font.get("FontDescriptor")));
+        double missingWidth = descriptor == null ? 0
+                : PDFValues.asDouble(resolver.resolve(descriptor.get("MissingWidth")), 0);
+        double scale = 0.001;
+        if ("Type3".equals(subtype)) {
+            double[] matrix = PDFValues.asDoubleArray(resolver.resolve(font.get("FontMatrix")));
+            scale = matrix != null && matrix.length == 6 ? matrix[0] : scale;
+        }
+        return new PDFFont(false, false, toUnicode, codeText, widths, firstCode,
+                widths == null ? DEFAULT_WIDTH : missingWidth, scale);
+    }
+
+    // Type 0 fonts with Identity-H/V encodings use two-byte codes that are CIDs; for other CMaps the code
+    // space comes from /ToUnicode when it has one, as the predefined CJK CMaps are not bundled.
+    private static PDFFont loadComposite(Map<String, Object> font, ObjectResolver resolver, ToUnicodeCMap toUnicode)
+            throws IOException, ParseException {
+        String encoding = PDFValues.asName(resolver.resolve(font.get("Encoding")));
+        boolean identity = "Identity-H".equals(encoding) || "Identity-V".equals(encoding);
+        boolean twoByteCodes = identity || toUnicode == null || !toUnicode.hasCodeSpace();
+
+        List<Object> descendants = PDFValues.asArray(resolver.resolve(font.get("DescendantFonts")));
+        Map<String, Object> descendant = descendants == null || descendants.isEmpty() ? null
+                : PDFValues.asDictionary(resolver.resolve(descendants.get(0)));
+        double defaultWidth = 1000;
+        double[] widths = null;
+        if (descendant != null) {
+            defaultWidth = PDFValues.asDouble(resolver.resolve(descendant.get("DW")), 1000);
+            widths = cidWidths(PDFValues.asArray(resolver.resolve(descendant.get("W"))), resolver);
+        }
+        return new PDFFont(true, twoByteCodes, toUnicode, null, widths, 0, defaultWidth, 0.001);
+    }
+
+    // /W holds "c [w1 w2 ...]" runs and "cFirst cLast w" ranges.
+    private static double[] cidWidths(List<Object> w, ObjectResolver resolver) throws IOException, ParseException {
+        if (w == null) {
+            return null;
+        }
+        double[] widths = new double[0];
+        for (int i = 0; i + 1 < w.size(); ) {
+            int first = PDFValues.asInt(resolver.resolve(w.get(i)), -1);
+            Object next = resolver.resolve(w.get(i + 1));
+            double[] run = next instanceof List<?> ? PDFValues.asDoubleArray(next) : null;
+            if (run != null) {
+                widths = setWidths(widths, first, first + run.length - 1, run, 0);
+                i += 2;
+            } else if (i + 2 < w.size()) {
+                int last = PDFValues.asInt(next, -1);
+                double width = PDFValues.asDouble(resolver.resolve(w.get(i + 2)), Double.NaN);
+                widths = setWidths(widths, first, last, null, width);
+                i += 3;
+            } else {
+                break;
+            }
+        }
+        return widths;
+    }
+
+    private static double[] setWidths(double[] widths, int first, int last, double[] run, double width) {
+        last = Math.min(last, MAX_CID_WIDTHS - 1);
+        if (first < 0 || last < first) {
+            return widths;
+        }
+        if (last >= widths.length) {
+            int length = widths.length;
+            widths = Arrays.copyOf(widths, last + 1);
+            Arrays.fill(widths, length, widths.length, Double.NaN);
+        }
+        for (int cid = first; cid <= last; cid++) {
+            widths[cid] = run != null ? run[cid - first] : width;
+        }
+        return widths;
+    }
+
+    private static String[] codeText(Map<String, Object> font, String subtype, ObjectResolver resolver)
+            throws IOException, ParseException {
+        Object encoding = resolver.resolve(font.get("Encoding"));
+        Map<String, Object> encodingDictionary = PDFValues.asDictionary(encoding);
+        String baseName = encodingDictionary != null
+                ? PDFValues.asName(resolver.resolve(encodingDictionary.get("BaseEncoding")))
+                : PDFValues.asName(encoding);
+        char[] base = FontEncodings.byName(baseName);
+        if (base == null) {
+            // Without an encoding, TrueType fonts in the wild are mostly WinAnsi and Type 1 fonts Standard.
+            base = "TrueType".equals(subtype) ? FontEncodings.WIN_ANSI : FontEncodings.STANDARD;
+        }
+        String[] codeText = new String[256];
+        for (int code = 0; code < 256; code++) {
+            if (base[code] != 0) {
+                codeText[code] = String.valueOf(base[code]);
+            }
+        }
+        List<Object> differences = encodingDictionary == null ? null
+                : PDFValues.asArray(resolver.resolve(encodingDictionary.get("Differences")));
+        if (differences != null) {
+            int code = 0;
+            for (Object entry : differences) {
+                if (entry instanceof Number number) {
+                    code = number.intValue();
+                    continue;
+                }
+                String name = PDFValues.asName(entry);
+                if (name != null && code >= 0 && code < 256) {
+                    codeText[code] = FontEncodings.glyphToUnicode(name);
+                }
+                code++;
+            }
+        }
+        return codeText;
+    }
+
+    // Length in bytes of the code starting at offset.
+    int codeLength(byte[] bytes, int offset) {
+        if (!composite) {
+            return 1;
+        }
+        if (twoByteCodes) {
+            return Math.min(2, bytes.length - offset);
+        }
+        int length = toUnicode.codeLength(bytes, offset);
+        return length > 0 ? length : 1;
+    }
+
+    // The Unicode text of a code, or null when the font gives no way to tell.
+    String toUnicode(int code) {
+        if (toUnicode != null) {
+            String text = toUnicode.toUnicode(code);
+            if (text != null) {
+                return text;
+            }
+        }
+        return codeText != null && code >= 0 && code < codeText.length ? codeText[code] : null;
+    }
+
+    // Advance width of a code in text space units per unit of font size.
+    double width(int code) {
+        int index = code - firstCode;
+        if (widths != null && index >= 0 && index < widths.length && !Double.isNaN(widths[index])) {
+            return widths[index] * scale;
+        }
+        return defaultWidth * scale;
+    }
+}
@@ -0,0 +1,11 @@
+package de.antl.parser.text;
+
+import de.antl.parser.model.PageText;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface PageTextConsumer {
+    // Called on the thread that runs the extraction, once per page and in page order.
+    void accept(PageText page) throws IOException;
+}
@@ -0,0 +1,300 @@
+package de.antl.parser.text;
+
+import de.antl.parser.content.ContentStreamVisitor;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+// Follows the text and graphics state of one page and appends the text it shows. Spaces and line breaks
+// are not in the content but are inferred: each string is compared with where the previous one ended,
+// using the glyph widths of the font, and a gap along the baseline becomes a space, a jump across it a
+// line break. Form XObjects are followed with their own resources.
+final class TextCollector implements ContentStreamVisitor {
+    static final int MAX_FORM_DEPTH = 8;
+    // Gaps as fractions of the font size: wider than a tight kerning pair means a space, half a line a break.
+    private static final double SPACE_GAP = 0.15;
+    private static final double LINE_GAP = 0.5;
+
+    private final TextExtractor extractor;
+    private final StringBuilder text = new StringBuilder();
+    private final Deque<State> saved = new ArrayDeque<>();
+    private Map<String, Object> resources;
+    private State state = new State();
+    private final double[] textMatrix = new double[6];
+    private final double[] lineMatrix = new double[6];
+    private int formDepth;
+    // Q does not pop states saved outside the form being drawn.
+    private int savedFloor;
+
+    // Where the last string ended in user space, and its font size there; NaN before the first string.
+    private double lastX = Double.NaN;
+    private double lastY;
+    private double lastSize;
+
+    TextCollector(TextExtractor extractor, Map<String, Object> resources) {
+        this.extractor = extractor;
+        this.resources = resources;
+        identity(textMatrix);
+        identity(lineMatrix);
+    }
+
+    String text() {
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    @Override
+    public void operator(String operator, List<Object> operands) throws IOException, ParseException {
+        switch (operator) {
+            case "BT" -> {
+                identity(textMatrix);
+                identity(lineMatrix);
+            }
+            case "Tf" -> {
+                if (operands.size() >= 2) {
+                    state.font = extractor.font(resources, PDFValues.asName(operands.get(0)));
+                    state.fontSize = number(operands, 1);
+                }
+            }
+            case "Tc" -> state.charSpacing = number(operands, 0);
+            case "Tw" -> state.wordSpacing = number(operands, 0);
+            case "Tz" -> state.horizontalScaling = number(operands, 0) / 100;
+            case "TL" -> state.leading = number(operands, 0);
+            case "Td" -> moveLine(number(operands, 0), number(operands, 1));
+            case "TD" -> {
+                state.leading = -number(operands, 1);
+                moveLine(number(operands, 0), number(operands, 1));
+            }
+            case "Tm" -> {
+                if (operands.size() >= 6) {
+                    for (int i = 0; i < 6; i++) {
+                        lineMatrix[i] = number(operands, i);
+                    }
+                    System.arraycopy(lineMatrix, 0, textMatrix, 0, 6);
+                }
+            }
+            case "T*" -> moveLine(0, -state.leading);
+            case "Tj" -> {
+                if (!operands.isEmpty()) {
+                    show(operands.get(0));
+                }
+            }
+            case "'" -> {
+                moveLine(0, -state.leading);
+                if (!operands.isEmpty()) {
+                    show(operands.get(0));
+                }
+            }
+            case "\"" -> {
+                if (operands.size() >= 3) {
+                    state.wordSpacing = number(operands, 0);
+                    state.charSpacing = number(operands, 1);
+                    moveLine(0, -state.leading);
+                    show(operands.get(2));
+                }
+            }
+            case "TJ" -> {
+                List<Object> elements = operands.isEmpty() ? null : PDFValues.asArray(operands.get(0));
+                if (elements != null) {
+                    for (Object element : elements) {
+                        if (element instanceof Number adjustment) {
+                            advance(-adjustment.doubleValue() / 1000 * state.fontSize * state.horizontalScaling);
+                        } else {
+                            show(element);
+                        }
+                    }
+                }
+            }
+            case "q" -> saved.push(state.copy());
+            case "Q" -> {
+                if (saved.size() > savedFloor) {
+                    state = saved.pop();
+                }
+            }
+            case "cm" -> {
+                if (operands.size() >= 6) {
+                    double[] matrix = new double[6];
+                    for (int i = 0; i < 6; i++) {
+                        matrix[i] = number(operands, i);
+                    }
+                    state.ctm = multiply(matrix, state.ctm);
+                }
+            }
+            case "Do" -> {
+                if (!operands.isEmpty()) {
+                    drawForm(PDFValues.asName(operands.get(0)));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void show(Object string) {
+        byte[] bytes = PDFValues.asBytes(string);
+        PDFFont font = state.font;
+        if (bytes == null || font == null) {
+            return;
+        }
+        separate();
+        double advance = 0;
+        for (int i = 0; i < bytes.length; ) {
+            int length = font.codeLength(bytes, i);
+            int code = 0;
+            for (int k = 0; k < length; k++) {
+                code = code << 8 | bytes[i + k] & 0xFF;
+            }
+            String unicode = font.toUnicode(code);
+            if (unicode != null) {
+                text.append(unicode);
+            }
+            double width = font.width(code) * state.fontSize + state.charSpacing;
+            if (code == 32 && length == 1) {
+                // Word spacing applies to the single-byte code 32 only.
+                width += state.wordSpacing;
+            }
+            advance += width * state.horizontalScaling;
+            i += length;
+        }
+        advance(advance);
+        double[] m = multiply(textMatrix, state.ctm);
+        lastX = m[4];
+        lastY = m[5];
+        lastSize = state.fontSize * Math.hypot(m[2], m[3]);
+    }
+
+    // Adds a space or a line break when the string about to be shown does not continue the previous one.
+    private void separate() {
+        if (Double.isNaN(lastX) || text.isEmpty()) {
+            return;
+        }
+        double[] m = multiply(textMatrix, state.ctm);
+        double dx = m[4] - lastX;
+        double dy = m[5] - lastY;
+        // Measure the gap along the baseline and across it, so that rotated text works the same way.
+        double baseline = Math.hypot(m[0], m[1]);
+        double along = baseline == 0 ? dx : (dx * m[0] + dy * m[1]) / baseline;
+        double across = baseline == 0 ? dy : (dy * m[0] - dx * m[1]) / baseline;
+        double size = Math.max(lastSize, 1e-6);
+        char last = text.charAt(text.length() - 1);
+        if (Math.abs(across) > LINE_GAP * size) {
+            if (last != '\n') {
+                text.append('\n');
+            }
+        } else if ((along > SPACE_GAP * size || along < -LINE_GAP * size) && !Character.isWhitespace(last)) {
+            text.append(' ');
+        }
+    }
+
+    private void drawForm(String name) throws IOException, ParseException {
+        Map<String, Object> xObjects = name == null ? null
+                : PDFValues.asDictionary(extractor.resolve(resources == null ? null : resources.get("XObject")));
+        Object reference = xObjects == null ? null : xObjects.get(name);
+        if (formDepth >= MAX_FORM_DEPTH || !(extractor.resolve(reference) instanceof PDFStream form)
+                || !"Form".equals(PDFValues.asName(form.dictionary().get("Subtype")))) {
+            return;
+        }
+        Map<String, Object> formResources =
+                PDFValues.asDictionary(extractor.resolve(form.dictionary().get("Resources")));
+        Map<String, Object> outerResources = resources;
+        double[] outerText = textMatrix.clone();
+        double[] outerLine = lineMatrix.clone();
+        State outerState = state.copy();
+        int outerFloor = savedFloor;
+        savedFloor = saved.size();
+        double[] matrix = PDFValues.asDoubleArray(extractor.resolve(form.dictionary().get("Matrix")));
+        if (matrix != null && matrix.length == 6) {
+            state.ctm = multiply(matrix, state.ctm);
+        }
+        resources = formResources != null ? formResources : outerResources;
+        formDepth++;
+        try {
+            // The outer parser is in the middle of its stream, so the form gets the one for its depth.
+            extractor.parser(formDepth).parse(form, this);
+        } finally {
+            formDepth--;
+            resources = outerResources;
+            // The form may leave states saved by an unbalanced q; they end with it.
+            while (saved.size() > savedFloor) {
+                saved.pop();
+            }
+            savedFloor = outerFloor;
+            state = outerState;
+            System.arraycopy(outerText, 0, textMatrix, 0, 6);
+            System.arraycopy(outerLine, 0, lineMatrix, 0, 6);
+        }
+    }
+
+    private void moveLine(double tx, double ty) {
+        lineMatrix[4] += tx * lineMatrix[0] + ty * lineMatrix[2];
+        lineMatrix[5] += tx * lineMatrix[1] + ty * lineMatrix[3];
+        System.arraycopy(lineMatrix, 0, textMatrix, 0, 6);
+    }
+
+    private void advance(double tx) {
+        textMatrix[4] += tx * textMatrix[0];
+        textMatrix[5] += tx * textMatrix[1];
+    }
+
+    private static double number(List<Object> operands, int index) {
+        if (index >= operands.size()) {
+            return 0;
+        }
+        Object operand = operands.get(index);
+        return operand instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    private static void identity(double[] matrix) {
+        matrix[0] = 1;
+        matrix[1] = 0;
+        matrix[2] = 0;
+        matrix[3] = 1;
+        matrix[4] = 0;
+        matrix[5] = 0;
+    }
+
+    // The product a * b of PDF matrices [a b c d e f].
+    private static double[] multiply(double[] a, double[] b) {
+        return new double[]{
+                a[0] * b[0] + a[1] * b[2],
+                a[0] * b[1] + a[1] * b[3],
+                a[2] * b[0] + a[3] * b[2],
+                a[2] * b[1] + a[3] * b[3],
+                a[4] * b[0] + a[5] * b[2] + b[4],
+                a[4] * b[1] + a[5] * b[3] + b[5]
+        };
+    }
+
+    // The parts of the graphics state that text extraction needs, saved and restored by q and Q.
+    private static final class State {
+        private double[] ctm = {1, 0, 0, 1, 0, 0};
+        private PDFFont font;
+        private double fontSize;
+        private double charSpacing;
+        private double wordSpacing;
+        private double horizontalScaling = 1;
+        private double leading;
+
+        State copy() {
+            State copy = new State();
+            // The CTM is replaced, never changed in place, so it can be shared.
+            copy.ctm = ctm;
+            copy.font = font;
+            copy.fontSize = fontSize;
+            copy.charSpacing = charSpacing;
+            copy.wordSpacing = wordSpacing;
+            copy.horizontalScaling = horizontalScaling;
+            copy.leading = leading;
+            return copy;
+        }
+    }
+}
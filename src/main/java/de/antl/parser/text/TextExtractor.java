@@ -0,0 +1,135 @@
+package de.antl.parser.text;
+
+import de.antl.parser.content.ContentStreamParser;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFPage;
+import de.antl.parser.model.PageText;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Extracts the text of a document page by page. Pages are interpreted in parallel on a pool while the
+// calling thread hands finished pages to the consumer in page order; only a bounded window of pages is
+// in flight, so memory does not grow with the document. Fonts, with their parsed ToUnicode CMaps, are
+// built once per font object and shared by all pages.
+public final class TextExtractor {
+    private static final int PAGES_IN_FLIGHT_PER_THREAD = 4;
+
+    private final PDFDocument document;
+    private final Map<Integer, PDFFont> fonts = new ConcurrentHashMap<>();
+    // Content stream parsers keep an 8 KB window and a name table, so each thread reuses its own: one for
+    // the page and one per level of nested form XObjects, as a parser cannot take a new stream mid-stream.
+    private final ThreadLocal<ContentStreamParser[]> parsers =
+            ThreadLocal.withInitial(() -> new ContentStreamParser[TextCollector.MAX_FORM_DEPTH + 1]);
+
+    public TextExtractor(PDFDocument document) {
+        this.document = document;
+    }
+
+    public String extractPage(int index) throws IOException, ParseException {
+        PDFPage page = document.getPage(index);
+        TextCollector collector = new TextCollector(this, PDFValues.asDictionary(resolve(page.resources())));
+        Object contents = page.contents();
+        if (contents != null) {
+            parser(0).parseContents(contents, document, collector);
+        }
+        return collector.text();
+    }
+
+    // The parser for content at the given form nesting depth, 0 being the page itself.
+    ContentStreamParser parser(int depth) {
+        ContentStreamParser[] byDepth = parsers.get();
+        if (byDepth[depth] == null) {
+            byDepth[depth] = new ContentStreamParser();
+        }
+        return byDepth[depth];
+    }
+
+    public void extract(int parallelism, PageTextConsumer consumer) throws IOException, ParseException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            extract(pool, consumer);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // A page that fails is reported with its failure and does not stop the others.
+    public void extract(ForkJoinPool pool, PageTextConsumer consumer) throws IOException, ParseException {
+        int pageCount = document.getPageCount();
+        int window = Math.max(1, pool.getParallelism() * PAGES_IN_FLIGHT_PER_THREAD);
+        Deque<CompletableFuture<PageText>> pending = new ArrayDeque<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        int next = 0;
+        try {
+            for (int delivered = 0; delivered < pageCount; delivered++) {
+                while (next < pageCount && pending.size() < window) {
+                    int index = next++;
+                    pending.add(CompletableFuture.supplyAsync(() -> stopped.get() ? null : extract(index), pool));
+                }
+                consumer.accept(pending.poll().join());
+            }
+        } finally {
+            // Pages still queued when the consumer fails are skipped.
+            stopped.set(true);
+        }
+    }
+
+    // Writes the text of every page, followed by a form feed as page separator; failed pages stay empty.
+    public void write(Writer writer, ForkJoinPool pool) throws IOException, ParseException {
+        extract(pool, page -> {
+            if (page.succeeded()) {
+                writer.write(page.text());
+            }
+            writer.write('\f');
+        });
+        writer.flush();
+    }
+
+    private PageText extract(int index) {
+        long start = System.nanoTime();
+        try {
+            return new PageText(index, extractPage(index), null, System.nanoTime() - start);
+        } catch (Throwable e) {
+            return new PageText(index, null, e, System.nanoTime() - start);
+        }
+    }
+
+    Object resolve(Object value) throws IOException, ParseException {
+        return document.resolve(value);
+    }
+
+    // Looks the font up in the resources; fonts that are indirect objects are loaded once per document.
+    PDFFont font(Map<String, Object> resources, String name) throws IOException, ParseException {
+        Map<String, Object> fontResources = resources == null ? null
+                : PDFValues.asDictionary(resolve(resources.get("Font")));
+        Object value = fontResources == null || name == null ? null : fontResources.get(name);
+        if (value instanceof PDFIndirectReference reference) {
+            PDFFont font = fonts.get(reference.objectNumber());
+            if (font == null) {
+                font = loadFont(resolve(reference));
+                if (font != null) {
+                    PDFFont existing = fonts.putIfAbsent(reference.objectNumber(), font);
+                    font = existing != null ? existing : font;
+                }
+            }
+            return font;
+        }
+        return loadFont(resolve(value));
+    }
+
+    private PDFFont loadFont(Object value) throws IOException, ParseException {
+        Map<String, Object> font = PDFValues.asDictionary(value);
+        return font == null ? null : PDFFont.load(font, document, document.getBufferPool());
+    }
+}
@@ -0,0 +1,213 @@
+package de.antl.parser.text;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.model.Token;
+import de.antl.parser.service.PDFBufferTokenizer;
+import de.antl.parser.service.PDFValues;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A parsed /ToUnicode CMap: the code space ranges, which tell how many bytes make up the next character
+// code of a string, and the mapping from codes to Unicode text. Codes below 0x10000 from bfchar entries
+// and short bfranges are kept in a table indexed by code; long bfranges stay ranges.
+final class ToUnicodeCMap {
+    private static final int MAX_TABLE_CODE = 0xFFFF;
+    private static final int MAX_EXPANDED_RANGE = 256;
+
+    // Code space ranges as low/high pairs per code length in bytes, index 1 to 4.
+    private final int[][] codeSpace = new int[5][];
+    private String[] table = new String[256];
+    private final List<int[]> ranges = new ArrayList<>();
+    private final List<String> rangeStarts = new ArrayList<>();
+
+    static ToUnicodeCMap parse(ByteBuffer data) {
+        ToUnicodeCMap cMap = new ToUnicodeCMap();
+        PDFBufferTokenizer tokenizer = new PDFBufferTokenizer(data, data.position());
+        Token token;
+        while ((token = tokenizer.nextToken()) != null) {
+            if (token.type() != TokenType.OPERATOR) {
+                continue;
+            }
+            switch (token.getStringValue()) {
+                case "begincodespacerange" -> cMap.readCodeSpace(tokenizer);
+                case "beginbfchar" -> cMap.readChars(tokenizer);
+                case "beginbfrange" -> cMap.readRanges(tokenizer);
+                default -> {
+                }
+            }
+        }
+        return cMap;
+    }
+
+    boolean hasCodeSpace() {
+        for (int[] bounds : codeSpace) {
+            if (bounds != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Length in bytes of the code starting at offset, or 0 when no code space range matches.
+    int codeLength(byte[] bytes, int offset) {
+        int code = 0;
+        for (int length = 1; length <= 4 && offset + length <= bytes.length; length++) {
+            code = code << 8 | bytes[offset + length - 1] & 0xFF;
+            int[] bounds = codeSpace[length];
+            if (bounds == null) {
+                continue;
+            }
+            for (int i = 0; i < bounds.length; i += 2) {
+                if (inRange(code, bounds[i], bounds[i + 1], length)) {
+                    return length;
+                }
+            }
+        }
+        return 0;
+    }
+
+    String toUnicode(int code) {
+        if (code >= 0 && code < table.length && table[code] != null) {
+            return table[code];
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            int[] range = ranges.get(i);
+            if (code >= range[0] && code <= range[1]) {
+                return offset(rangeStarts.get(i), code - range[0]);
+            }
+        }
+        return null;
+    }
+
+    // Code space bounds apply per byte: <8140> <9FFC> admits 81 40 but not 81 FD.
+    private static boolean inRange(int code, int low, int high, int length) {
+        for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+            int b = code >>> shift & 0xFF;
+            if (b < (low >>> shift & 0xFF) || b > (high >>> shift & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readCodeSpace(PDFBufferTokenizer tokenizer) {
+        Token token;
+        while ((token = tokenizer.nextToken()) != null && !isOperator(token, "endcodespacerange")) {
+            byte[] low = PDFValues.asBytes(token);
+            byte[] high = PDFValues.asBytes(tokenizer.nextToken());
+            if (low == null || high == null || low.length == 0 || low.length > 4 || low.length != high.length) {
+                continue;
+            }
+            int[] bounds = codeSpace[low.length];
+            bounds = bounds == null ? new int[2] : Arrays.copyOf(bounds, bounds.length + 2);
+            bounds[bounds.length - 2] = toCode(low);
+            bounds[bounds.length - 1] = toCode(high);
+            codeSpace[low.length] = bounds;
+        }
+    }
+
+    private void readChars(PDFBufferTokenizer tokenizer) {
+        Token token;
+        while ((token = tokenizer.nextToken()) != null && !isOperator(token, "endbfchar")) {
+            byte[] source = PDFValues.asBytes(token);
+            String target = toText(tokenizer.nextToken());
+            if (source != null && source.length <= 4 && target != null) {
+                put(toCode(source), target);
+            }
+        }
+    }
+
+    private void readRanges(PDFBufferTokenizer tokenizer) {
+        Token token;
+        while ((token = tokenizer.nextToken()) != null && !isOperator(token, "endbfrange")) {
+            byte[] low = PDFValues.asBytes(token);
+            byte[] high = PDFValues.asBytes(tokenizer.nextToken());
+            Token target = tokenizer.nextToken();
+            if (target == null) {
+                return;
+            }
+            List<String> targets = null;
+            if (target.type() == TokenType.ARRAY_START) {
+                targets = new ArrayList<>();
+                while ((target = tokenizer.nextToken()) != null && target.type() != TokenType.ARRAY_END) {
+                    targets.add(toText(target));
+                }
+            }
+            if (low == null || high == null || low.length > 4 || high.length > 4) {
+                continue;
+            }
+            int first = toCode(low);
+            int last = toCode(high);
+            if (last < first) {
+                continue;
+            }
+            if (targets != null) {
+                for (int i = 0; i < targets.size() && first + i <= last; i++) {
+                    if (targets.get(i) != null) {
+                        put(first + i, targets.get(i));
+                    }
+                }
+                continue;
+            }
+            String start = toText(target);
+            if (start == null || start.isEmpty()) {
+                continue;
+            }
+            if (last - first < MAX_EXPANDED_RANGE && last <= MAX_TABLE_CODE) {
+                for (int code = first; code <= last; code++) {
+                    put(code, offset(start, code - first));
+                }
+            } else {
+                ranges.add(new int[]{first, last});
+                rangeStarts.add(start);
+            }
+        }
+    }
+
+    private void put(int code, String text) {
+        if (code < 0 || code > MAX_TABLE_CODE) {
+            ranges.add(new int[]{code, code});
+            rangeStarts.add(text);
+            return;
+        }
+        if (code >= table.length) {
+            table = Arrays.copyOf(table, Math.min(MAX_TABLE_CODE + 1, Integer.highestOneBit(code) << 1));
+        }
+        table[code] = text;
+    }
+
+    // Consecutive codes of a bfrange map to the start text with its last character incremented.
+    private static String offset(String start, int delta) {
+        if (delta == 0) {
+            return start;
+        }
+        char[] chars = start.toCharArray();
+        chars[chars.length - 1] += (char) delta;
+        return new String(chars);
+    }
+
+    // Targets are UTF-16BE strings, or rarely glyph names.
+    private static String toText(Token token) {
+        if (token != null && token.type() == TokenType.NAME) {
+            return FontEncodings.glyphToUnicode(token.getStringValue());
+        }
+        byte[] bytes = PDFValues.asBytes(token);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_16BE);
+    }
+
+    private static int toCode(byte[] bytes) {
+        int code = 0;
+        for (byte b : bytes) {
+            code = code << 8 | b & 0xFF;
+        }
+        return code;
+    }
+
+    private static boolean isOperator(Token token, String operator) {
+        return token.type() == TokenType.OPERATOR && operator.equals(token.getStringValue());
+    }
+}
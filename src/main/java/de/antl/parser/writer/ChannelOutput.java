@@ -0,0 +1,76 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Collects the pieces of the output, object headers, stream data views and so on, and hands them to the
+// channel in gathering writes, so stream data goes from the source buffer to the file without being
+// copied into one contiguous output first. Buffers are read when written, so they must not change until
+// the next flush.
+final class ChannelOutput {
+    private static final int MAX_GATHER = 256;
+    private static final long MAX_PENDING_BYTES = 8 * 1024 * 1024;
+    private static final byte[] END_STREAM = "\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final ByteBuffer[] pending = new ByteBuffer[MAX_GATHER];
+    private int count;
+    private long pendingBytes;
+    private long position;
+
+    // Writes start at the given file position.
+    ChannelOutput(FileChannel channel, long position) throws IOException {
+        this.channel = channel;
+        this.position = position;
+        channel.position(position);
+    }
+
+    // The file offset the next piece will be written at.
+    long position() {
+        return position;
+    }
+
+    void write(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        pending[count++] = buffer;
+        pendingBytes += buffer.remaining();
+        position += buffer.remaining();
+        if (count == MAX_GATHER || pendingBytes >= MAX_PENDING_BYTES) {
+            flush();
+        }
+    }
+
+    // An indirect object. Stream data is written from its own buffer, with /Length set to match it.
+    void writeObject(PDFSerializer serializer, int objectNumber, int generation, Object value) throws IOException {
+        serializer.reset().objectHeader(objectNumber, generation);
+        if (value instanceof PDFStream stream) {
+            PDFDictionary dictionary = new PDFDictionary(stream.dictionary().size() + 1);
+            dictionary.putAll(stream.dictionary());
+            dictionary.put("Length", stream.rawLength());
+            write(serializer.value(dictionary).ascii("\nstream\n").toBuffer());
+            write(stream.rawData());
+            write(ByteBuffer.wrap(END_STREAM));
+        } else {
+            write(serializer.value(value).ascii("\nendobj\n").toBuffer());
+        }
+    }
+
+    void flush() throws IOException {
+        int first = 0;
+        while (first < count) {
+            channel.write(pending, first, count - first);
+            while (first < count && !pending[first].hasRemaining()) {
+                pending[first++] = null;
+            }
+        }
+        count = 0;
+        pendingBytes = 0;
+    }
+}
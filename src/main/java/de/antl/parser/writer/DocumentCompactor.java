@@ -0,0 +1,437 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.FlateFilter;
+import de.antl.parser.filter.PooledBuffer;
+import de.antl.parser.model.CompactionResult;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+// Rewrites a document in full, as small as this library can make it:
+// - only objects reachable from /Root and /Info are kept;
+// - objects with identical content are merged, streams included, until no more merge;
+// - objects are renumbered densely in reading order and every object that is not a stream is packed into
+//   object streams;
+// - unfiltered and plain Flate streams are recompressed, on the pool, and kept only where they shrink;
+// - a cross-reference stream indexes the result.
+// Streams with other filters are copied unchanged, straight from the source buffer.
+public final class DocumentCompactor {
+    private static final int OBJECTS_PER_STREAM = 100;
+    private static final int UNITS_IN_FLIGHT_PER_THREAD = 4;
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
+    private static final int MAX_MERGE_ROUNDS = 16;
+    private static final byte[] HEADER = "%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final Token OBJECT_STREAM = new Token(TokenType.NAME, "ObjStm");
+    // Objects with a place in a tree are never merged, even when their content is the same.
+    private static final Set<String> UNIQUE_TYPES = Set.of("Catalog", "Pages", "Page", "Annot");
+
+    private final PDFDocument document;
+    private final ForkJoinPool pool;
+
+    public DocumentCompactor(PDFDocument document, ForkJoinPool pool) {
+        this.document = document;
+        this.pool = pool;
+    }
+
+    public CompactionResult write(Path target) throws IOException, ParseException {
+        Path source = document.getSource();
+        if (source != null && Files.exists(target) && Files.isSameFile(target, source)) {
+            // Stream data is copied lazily from the mapped source, which truncating would pull away.
+            throw new IOException("Cannot compact " + source + " onto itself");
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return write(channel);
+        }
+    }
+
+    // Writes the document from the channel's start and cuts off anything after it.
+    public CompactionResult write(FileChannel channel) throws IOException, ParseException {
+        Map<String, Object> trailer = document.getTrailer();
+        if (trailer.get("Encrypt") != null) {
+            // Strings and streams would have to be decrypted to be moved into object streams.
+            throw new ParseException("Encrypted documents cannot be compacted");
+        }
+        if (!(trailer.get("Root") instanceof PDFIndirectReference)) {
+            throw new ParseException("Trailer has no /Root reference: " + trailer);
+        }
+
+        List<PDFIndirectObject> loaded = document.loadAllObjects(pool);
+        Object[] values = new Object[document.getXRefIndex().size()];
+        for (PDFIndirectObject object : loaded) {
+            values[object.objectNumber()] = object.value();
+        }
+        int[] order = reachableObjects(values, trailer);
+        int[] canonical = mergeDuplicates(values, order);
+
+        // New numbers in reading order; merged objects take the number of the one they were merged into.
+        int[] numbers = new int[values.length];
+        int objectCount = 0;
+        for (int objectNumber : order) {
+            if (canonical[objectNumber] == objectNumber) {
+                numbers[objectNumber] = ++objectCount;
+            }
+        }
+        for (int objectNumber : order) {
+            numbers[objectNumber] = numbers[canonical[objectNumber]];
+        }
+
+        Writer writer = new Writer(channel, values, numbers, objectCount);
+        try {
+            for (int objectNumber : order) {
+                if (canonical[objectNumber] == objectNumber) {
+                    writer.add(objectNumber);
+                }
+            }
+            writer.finish(trailer);
+        } catch (IOException | ParseException | RuntimeException e) {
+            // Units still queued on the caller's pool would only encode into a file that is given up.
+            writer.cancel();
+            throw e;
+        }
+        return new CompactionResult(loaded.size(), objectCount, order.length - objectCount, writer.objectStreams,
+                writer.recompressed, document.getLength(), writer.out.position());
+    }
+
+    // Object numbers reachable from /Root and /Info, breadth first, so that related objects end up close.
+    private static int[] reachableObjects(Object[] values, Map<String, Object> trailer) {
+        boolean[] seen = new boolean[values.length];
+        int[] queue = new int[values.length];
+        int[] tail = {0};
+        for (String key : List.of("Root", "Info")) {
+            collect(trailer.get(key), values, seen, queue, tail);
+        }
+        for (int head = 0; head < tail[0]; head++) {
+            Object value = values[queue[head]];
+            if (value instanceof PDFStream stream) {
+                for (Map.Entry<String, Object> entry : stream.dictionary().entrySet()) {
+                    // The length is written directly, so an indirect /Length object is not needed anymore.
+                    if (!"Length".equals(entry.getKey())) {
+                        collect(entry.getValue(), values, seen, queue, tail);
+                    }
+                }
+            } else {
+                collect(value, values, seen, queue, tail);
+            }
+        }
+        return Arrays.copyOf(queue, tail[0]);
+    }
+
+    private static void collect(Object value, Object[] values, boolean[] seen, int[] queue, int[] tail) {
+        if (value instanceof PDFIndirectReference) {
+            enqueue(value, values, seen, queue, tail);
+        } else if (value instanceof Map<?, ?> map) {
+            for (Object element : map.values()) {
+                collect(element, values, seen, queue, tail);
+            }
+        } else if (value instanceof List<?> list && !(list instanceof PDFIntArray) && !(list instanceof PDFRealArray)) {
+            for (Object element : list) {
+                collect(element, values, seen, queue, tail);
+            }
+        }
+    }
+
+    private static void enqueue(Object value, Object[] values, boolean[] seen, int[] queue, int[] tail) {
+        if (value instanceof PDFIndirectReference reference) {
+            int objectNumber = reference.objectNumber();
+            // References to missing objects are written as null.
+            if (objectNumber > 0 && objectNumber < values.length && values[objectNumber] != null
+                    && !seen[objectNumber]) {
+                seen[objectNumber] = true;
+                queue[tail[0]++] = objectNumber;
+            }
+        }
+    }
+
+    // Maps every object to the first one with the same content. Merging can make the objects that refer
+    // to merged ones equal in turn, so the comparison repeats, with references mapped, until nothing changes.
+    private static int[] mergeDuplicates(Object[] values, int[] order) {
+        int[] canonical = new int[values.length];
+        for (int i = 0; i < canonical.length; i++) {
+            canonical[i] = i;
+        }
+        int[] dataHashes = new int[values.length];
+        for (int objectNumber : order) {
+            if (values[objectNumber] instanceof PDFStream stream) {
+                dataHashes[objectNumber] = stream.data().hashCode();
+            }
+        }
+        PDFSerializer serializer = new PDFSerializer();
+        serializer.renumber(canonical);
+        boolean merged = true;
+        for (int round = 0; merged && round < MAX_MERGE_ROUNDS; round++) {
+            merged = false;
+            Map<ContentKey, Integer> first = new HashMap<>();
+            for (int objectNumber : order) {
+                Object value = values[objectNumber];
+                if (canonical[objectNumber] != objectNumber || !isMergeable(value)) {
+                    continue;
+                }
+                ContentKey key;
+                if (value instanceof PDFStream stream) {
+                    serializer.reset().value(withoutLength(stream.dictionary()));
+                    key = new ContentKey(serializer.toByteArray(), stream.data(), dataHashes[objectNumber]);
+                } else {
+                    serializer.reset().value(value);
+                    key = new ContentKey(serializer.toByteArray(), null, 0);
+                }
+                Integer existing = first.putIfAbsent(key, objectNumber);
+                if (existing != null) {
+                    canonical[objectNumber] = existing;
+                    merged = true;
+                }
+            }
+            // An object kept in one round may be merged in a later one; point everything at the final one.
+            for (int objectNumber : order) {
+                int target = canonical[objectNumber];
+                while (canonical[target] != target) {
+                    target = canonical[target];
+                }
+                canonical[objectNumber] = target;
+            }
+        }
+        return canonical;
+    }
+
+    private static boolean isMergeable(Object value) {
+        Map<String, Object> dictionary = value instanceof PDFStream stream ? stream.dictionary()
+                : PDFValues.asDictionary(value);
+        if (dictionary == null) {
+            return true;
+        }
+        String type = PDFValues.asName(dictionary.get("Type"));
+        return !dictionary.containsKey("Parent") && (type == null || !UNIQUE_TYPES.contains(type));
+    }
+
+    private static PDFDictionary withoutLength(Map<String, Object> dictionary) {
+        PDFDictionary copy = new PDFDictionary(dictionary.size());
+        for (Map.Entry<String, Object> entry : dictionary.entrySet()) {
+            if (!"Length".equals(entry.getKey())) {
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return copy;
+    }
+
+    // Serialized syntax plus, for streams, the raw data, which is compared in place.
+    private record ContentKey(byte[] syntax, ByteBuffer data, int dataHash) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentKey other && Arrays.equals(syntax, other.syntax)
+                    && (data == null ? other.data == null : data.equals(other.data));
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(syntax) * 31 + dataHash;
+        }
+    }
+
+    // Encodes units, a stream or an object stream each, on the pool and writes them in order as they finish.
+    // Only a bounded window of units is in flight, so encoded data does not pile up.
+    private final class Writer {
+        private final Object[] values;
+        private final int[] numbers;
+        private final FileChannel channel;
+        private final ChannelOutput out;
+        private final XRefSection section = new XRefSection();
+        private final Deque<CompletableFuture<Unit>> pending = new ArrayDeque<>();
+        private final int window = Math.max(1, pool.getParallelism() * UNITS_IN_FLIGHT_PER_THREAD);
+        private final List<Integer> group = new ArrayList<>();
+        private int nextObjectNumber;
+        private int objectStreams;
+        private int recompressed;
+
+        Writer(FileChannel channel, Object[] values, int[] numbers, int objectCount) throws IOException {
+            this.values = values;
+            this.numbers = numbers;
+            this.nextObjectNumber = objectCount + 1;
+            this.channel = channel;
+            this.out = new ChannelOutput(channel, 0);
+            out.write(ByteBuffer.wrap(HEADER));
+        }
+
+        void add(int objectNumber) throws IOException, ParseException {
+            if (values[objectNumber] instanceof PDFStream stream) {
+                int newNumber = numbers[objectNumber];
+                submit(() -> encodeStream(newNumber, stream));
+                return;
+            }
+            group.add(objectNumber);
+            if (group.size() == OBJECTS_PER_STREAM) {
+                submitGroup();
+            }
+        }
+
+        void finish(Map<String, Object> trailer) throws IOException, ParseException {
+            if (!group.isEmpty()) {
+                submitGroup();
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll().join());
+            }
+            section.add(0, XRefIndex.TYPE_FREE, 0, 65535);
+            PDFDictionary xrefTrailer = new PDFDictionary(4);
+            xrefTrailer.put("Size", nextObjectNumber + 1);
+            for (String key : List.of("Root", "Info", "ID")) {
+                if (trailer.get(key) != null) {
+                    xrefTrailer.put(key, trailer.get(key));
+                }
+            }
+            PDFSerializer serializer = new PDFSerializer();
+            serializer.renumber(numbers);
+            out.write(section.stream(nextObjectNumber, xrefTrailer, out.position(), serializer));
+            out.flush();
+            channel.truncate(out.position());
+        }
+
+        void cancel() {
+            for (CompletableFuture<Unit> unit : pending) {
+                unit.cancel(false);
+            }
+            pending.clear();
+        }
+
+        private void submitGroup() throws IOException, ParseException {
+            int streamNumber = nextObjectNumber++;
+            int[] members = group.stream().mapToInt(Integer::intValue).toArray();
+            group.clear();
+            objectStreams++;
+            for (int i = 0; i < members.length; i++) {
+                section.add(numbers[members[i]], XRefIndex.TYPE_COMPRESSED, streamNumber, i);
+            }
+            submit(() -> encodeObjectStream(streamNumber, members));
+        }
+
+        private void submit(UnitEncoder encoder) throws IOException, ParseException {
+            if (pending.size() == window) {
+                write(pending.poll().join());
+            }
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return encoder.encode();
+                } catch (Throwable e) {
+                    return new Unit(0, null, false, e);
+                }
+            }, pool));
+        }
+
+        private void write(Unit unit) throws IOException, ParseException {
+            if (unit.failure() instanceof IOException e) {
+                throw e;
+            }
+            if (unit.failure() instanceof ParseException e) {
+                throw e;
+            }
+            if (unit.failure() != null) {
+                throw new IllegalStateException(unit.failure());
+            }
+            section.add(unit.objectNumber(), XRefIndex.TYPE_IN_USE, out.position(), 0);
+            for (ByteBuffer piece : unit.pieces()) {
+                out.write(piece);
+            }
+            if (unit.recompressed()) {
+                recompressed++;
+            }
+        }
+
+        private Unit encodeStream(int objectNumber, PDFStream stream) throws IOException {
+            PDFDictionary dictionary = withoutLength(stream.dictionary());
+            ByteBuffer data = stream.rawData();
+            ByteBuffer deflated = recompress(stream);
+            boolean recompressed = deflated != null && deflated.remaining() < data.remaining();
+            if (recompressed) {
+                data = deflated;
+                dictionary.put("Filter", XRefSection.FLATE_DECODE);
+            }
+            dictionary.put("Length", data.remaining());
+            PDFSerializer serializer = new PDFSerializer();
+            serializer.renumber(numbers);
+            ByteBuffer header = serializer.objectHeader(objectNumber, 0).value(dictionary).ascii("\nstream\n")
+                    .toBuffer();
+            ByteBuffer footer = ByteBuffer.wrap("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+            return new Unit(objectNumber, new ByteBuffer[]{header, data, footer}, recompressed, null);
+        }
+
+        // Unfiltered data and plain Flate data are deflated again; anything else is left alone.
+        private ByteBuffer recompress(PDFStream stream) throws IOException {
+            List<String> filters = stream.filters();
+            if (filters.isEmpty()) {
+                return FlateFilter.deflate(stream.rawData(), COMPRESSION_LEVEL);
+            }
+            if (!filters.equals(List.of("FlateDecode")) || stream.dictionary().get("DecodeParms") != null) {
+                return null;
+            }
+            try (PooledBuffer decoded = stream.decode(document.getBufferPool())) {
+                return FlateFilter.deflate(decoded.buffer(), COMPRESSION_LEVEL);
+            } catch (IOException e) {
+                // Damaged data is copied as it is.
+                return null;
+            }
+        }
+
+        private Unit encodeObjectStream(int streamNumber, int[] members) {
+            PDFSerializer serializer = new PDFSerializer();
+            serializer.renumber(numbers);
+            int[] offsets = new int[members.length];
+            for (int i = 0; i < members.length; i++) {
+                offsets[i] = serializer.length();
+                serializer.value(values[members[i]]).put('\n');
+            }
+            byte[] objects = serializer.toByteArray();
+            serializer.reset();
+            for (int i = 0; i < members.length; i++) {
+                serializer.decimal(numbers[members[i]]).put(' ').decimal(offsets[i]).put(' ');
+            }
+            int first = serializer.length();
+            ByteBuffer data = FlateFilter.deflate(serializer.put(objects).toBuffer(), COMPRESSION_LEVEL);
+
+            PDFDictionary dictionary = new PDFDictionary(5);
+            dictionary.put("Type", OBJECT_STREAM);
+            dictionary.put("N", members.length);
+            dictionary.put("First", first);
+            dictionary.put("Filter", XRefSection.FLATE_DECODE);
+            dictionary.put("Length", data.remaining());
+            ByteBuffer header = serializer.reset().objectHeader(streamNumber, 0).value(dictionary)
+                    .ascii("\nstream\n").toBuffer();
+            ByteBuffer footer = ByteBuffer.wrap("\nendstream\nendobj\n".getBytes(StandardCharsets.US_ASCII));
+            return new Unit(streamNumber, new ByteBuffer[]{header, data, footer}, false, null);
+        }
+    }
+
+    private interface UnitEncoder {
+        Unit encode() throws IOException, ParseException;
+    }
+
+    // One top-level object, ready to be written, or why it could not be encoded.
+    private record Unit(int objectNumber, ByteBuffer[] pieces, boolean recompressed, Throwable failure) {
+    }
+}
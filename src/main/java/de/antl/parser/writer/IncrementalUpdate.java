@@ -0,0 +1,135 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFValues;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Changes to a document that are saved by appending them to the file: the new and changed objects, then
+// one cross-reference section for them whose /Prev points at the existing one. Nothing already in the
+// file is rewritten. The section is a table or a stream, matching the newest section of the file.
+public final class IncrementalUpdate {
+    // Trailer entries that describe the previous section rather than the document; the parser records the
+    // startxref offset after a trailer as an entry as well.
+    private static final Set<String> SECTION_KEYS = Set.of("Prev", "XRefStm", "Size", "Type", "W", "Index", "Filter",
+            "DecodeParms", "Length", "DL", "startxref");
+    private static final Object DELETED = new Object();
+
+    private final PDFDocument document;
+    private final Map<Integer, Object> changes = new TreeMap<>();
+    private final Map<String, Object> trailerChanges = new LinkedHashMap<>();
+    private int nextObjectNumber;
+
+    public IncrementalUpdate(PDFDocument document) {
+        this.document = document;
+        this.nextObjectNumber = Math.max(document.getXRefIndex().size(),
+                PDFValues.asInt(document.getTrailer().get("Size"), 0));
+    }
+
+    public PDFIndirectReference add(Object value) {
+        int objectNumber = nextObjectNumber++;
+        changes.put(objectNumber, value);
+        return new PDFIndirectReference(objectNumber, 0);
+    }
+
+    // Replaces an object; it keeps its object and generation number.
+    public void update(int objectNumber, Object value) {
+        checkObjectNumber(objectNumber);
+        changes.put(objectNumber, value);
+    }
+
+    public void delete(int objectNumber) {
+        checkObjectNumber(objectNumber);
+        changes.put(objectNumber, DELETED);
+    }
+
+    // E.g. a new /Info; the other trailer entries are carried over.
+    public void setTrailerEntry(String key, Object value) {
+        if (SECTION_KEYS.contains(key)) {
+            throw new IllegalArgumentException("/" + key + " is written by the update itself");
+        }
+        trailerChanges.put(key, value);
+    }
+
+    public int changeCount() {
+        return changes.size();
+    }
+
+    // Appends to the file the document was read from, or to a copy of it; returns the new file length.
+    public long appendTo(Path path) throws IOException, ParseException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            return appendTo(channel);
+        }
+    }
+
+    public long appendTo(FileChannel channel) throws IOException, ParseException {
+        if (document.getTrailer().get("Encrypt") != null) {
+            // /Encrypt would be carried over, and readers would decrypt the plaintext objects written here.
+            throw new ParseException("Encrypted documents cannot be updated");
+        }
+        long start = channel.size();
+        if (start != document.getLength()) {
+            throw new IOException("File has " + start + " bytes but the document was read from "
+                    + document.getLength());
+        }
+        int previous = document.getStartXRef();
+        if (previous < 0) {
+            throw new ParseException("Document has no cross-reference section to append to; save it in full");
+        }
+
+        XRefIndex index = document.getXRefIndex();
+        XRefSection section = new XRefSection();
+        PDFSerializer serializer = new PDFSerializer();
+        ChannelOutput out = new ChannelOutput(channel, start);
+        // The file may not end with a line break, and the first object has to start a line.
+        out.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        for (Map.Entry<Integer, Object> change : changes.entrySet()) {
+            int objectNumber = change.getKey();
+            int generation = objectNumber < index.size() && index.type(objectNumber) == XRefIndex.TYPE_IN_USE
+                    ? index.generation(objectNumber) : 0;
+            if (change.getValue() == DELETED) {
+                section.add(objectNumber, XRefIndex.TYPE_FREE, 0, Math.min(generation + 1, 65535));
+            } else {
+                section.add(objectNumber, XRefIndex.TYPE_IN_USE, out.position(), generation);
+                out.writeObject(serializer, objectNumber, generation, change.getValue());
+            }
+        }
+
+        PDFDictionary trailer = new PDFDictionary(document.getTrailer().size() + 2);
+        for (Map.Entry<String, Object> entry : document.getTrailer().entrySet()) {
+            if (!SECTION_KEYS.contains(entry.getKey())) {
+                trailer.put(entry.getKey(), entry.getValue());
+            }
+        }
+        trailer.putAll(trailerChanges);
+        trailer.put("Prev", previous);
+        if ("XRef".equals(PDFValues.asName(document.getTrailer().get("Type")))) {
+            // The stream takes the next free object number itself.
+            trailer.put("Size", nextObjectNumber + 1);
+            out.write(section.stream(nextObjectNumber, trailer, out.position(), serializer));
+        } else {
+            trailer.put("Size", nextObjectNumber);
+            out.write(section.table(trailer, out.position()));
+        }
+        out.flush();
+        return out.position();
+    }
+
+    private void checkObjectNumber(int objectNumber) {
+        if (objectNumber <= 0 || objectNumber >= nextObjectNumber) {
+            throw new IllegalArgumentException("No object " + objectNumber + " in the document");
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Writes values back as PDF syntax into a growable array that is reused from object to object. Strings
+// keep the raw text the tokenizer saw, escapes included, so they come out exactly as they were read.
+// References can be renumbered on the way; references to objects that are not written become null.
+final class PDFSerializer {
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private byte[] bytes = new byte[1024];
+    private int length;
+    // New object number by old one, or null to keep the numbers; 0 means the object is not written.
+    private int[] numbers;
+
+    void renumber(int[] numbers) {
+        this.numbers = numbers;
+    }
+
+    PDFSerializer reset() {
+        length = 0;
+        return this;
+    }
+
+    int length() {
+        return length;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    ByteBuffer toBuffer() {
+        return ByteBuffer.wrap(toByteArray());
+    }
+
+    PDFSerializer put(int b) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[length++] = (byte) b;
+        return this;
+    }
+
+    PDFSerializer put(byte[] source) {
+        if (bytes.length - length < source.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + source.length));
+        }
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+        return this;
+    }
+
+    // The remaining bytes of the source; its position is left unchanged.
+    PDFSerializer put(ByteBuffer source) {
+        int n = source.remaining();
+        if (bytes.length - length < n) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + n));
+        }
+        source.get(source.position(), bytes, length, n);
+        length += n;
+        return this;
+    }
+
+    // Keywords and other text known to be ASCII; raw token text holds one byte per char as well.
+    PDFSerializer ascii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+        return this;
+    }
+
+    PDFSerializer decimal(long value) {
+        return ascii(Long.toString(value));
+    }
+
+    // Fixed-width decimal, as in the entries of a cross-reference table.
+    PDFSerializer padded(long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            put('0');
+        }
+        return ascii(digits);
+    }
+
+    PDFSerializer objectHeader(int objectNumber, int generation) {
+        return decimal(objectNumber).put(' ').decimal(generation).ascii(" obj\n");
+    }
+
+    PDFSerializer value(Object value) {
+        if (value == null) {
+            ascii("null");
+        } else if (value instanceof Token token) {
+            token(token);
+        } else if (value instanceof Integer || value instanceof Long) {
+            decimal(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            real(number.doubleValue());
+        } else if (value instanceof PDFIndirectReference reference) {
+            reference(reference);
+        } else if (value instanceof PDFStream) {
+            throw new IllegalArgumentException("Streams can only be written as indirect objects");
+        } else if (value instanceof Map<?, ?> map) {
+            dictionary(map);
+        } else if (value instanceof List<?> list) {
+            array(list);
+        } else if (value instanceof Boolean bool) {
+            ascii(bool ? "true" : "false");
+        } else if (value instanceof String text) {
+            // The reader tokenizer keeps numbers as their text.
+            ascii(text);
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName());
+        }
+        return this;
+    }
+
+    private void token(Token token) {
+        switch (token.type()) {
+            case NAME -> name(token.getStringValue());
+            case STRING -> put('(').ascii(token.getStringValue()).put(')');
+            case HEX_STRING -> put('<').ascii(token.getStringValue()).put('>');
+            case BOOLEAN, NUMBER -> ascii(String.valueOf(token.value()));
+            default -> throw new IllegalArgumentException("Cannot write token " + token);
+        }
+    }
+
+    private void reference(PDFIndirectReference reference) {
+        int objectNumber = reference.objectNumber();
+        if (numbers == null) {
+            decimal(objectNumber).put(' ').decimal(reference.genNumber()).ascii(" R");
+        } else if (objectNumber >= 0 && objectNumber < numbers.length && numbers[objectNumber] != 0) {
+            // Renumbered objects are all written with generation 0.
+            decimal(numbers[objectNumber]).ascii(" 0 R");
+        } else {
+            ascii("null");
+        }
+    }
+
+    // PDF has no exponent notation.
+    private void real(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            put('0');
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            decimal((long) value);
+        } else {
+            ascii(BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+        }
+    }
+
+    PDFSerializer name(String name) {
+        put('/');
+        for (int i = 0; i < name.length(); i++) {
+            int c = name.charAt(i) & 0xFF;
+            if (c > 0x20 && c < 0x7F && c != '#' && "()<>[]{}/%".indexOf(c) < 0) {
+                put(c);
+            } else {
+                put('#').put(HEX[c >>> 4]).put(HEX[c & 0xF]);
+            }
+        }
+        return this;
+    }
+
+    private void dictionary(Map<?, ?> map) {
+        ascii("<<");
+        if (map instanceof PDFDictionary dictionary) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                name(dictionary.keyAt(i)).put(' ').value(dictionary.valueAt(i));
+            }
+        } else {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                name(String.valueOf(entry.getKey())).put(' ').value(entry.getValue());
+            }
+        }
+        ascii(">>");
+    }
+
+    private void array(List<?> list) {
+        put('[');
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                put(' ');
+            }
+            if (list instanceof PDFIntArray ints) {
+                decimal(ints.getInt(i));
+            } else if (list instanceof PDFRealArray reals) {
+                real(reals.getDouble(i));
+            } else {
+                value(list.get(i));
+            }
+        }
+        put(']');
+    }
+}
@@ -0,0 +1,147 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.filter.FlateFilter;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// The cross-reference entries of one section, in XRefIndex terms: type, then the offset or the containing
+// object stream, then the generation or the index in that stream. Written either as a classic table with
+// its trailer or as a cross-reference stream, each followed by startxref.
+final class XRefSection {
+    static final Token FLATE_DECODE = new Token(TokenType.NAME, "FlateDecode");
+    private static final Token XREF = new Token(TokenType.NAME, "XRef");
+
+    private int[] objectNumbers = new int[64];
+    private byte[] types = new byte[64];
+    private long[] fields = new long[64];
+    private int[] generations = new int[64];
+    private int size;
+
+    void add(int objectNumber, int type, long field, int generation) {
+        if (size == objectNumbers.length) {
+            objectNumbers = Arrays.copyOf(objectNumbers, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            fields = Arrays.copyOf(fields, size * 2);
+            generations = Arrays.copyOf(generations, size * 2);
+        }
+        objectNumbers[size] = objectNumber;
+        types[size] = (byte) type;
+        fields[size] = field;
+        generations[size] = generation;
+        size++;
+    }
+
+    // The table starting at offset, with its trailer. Tables cannot hold compressed entries.
+    ByteBuffer table(Map<String, Object> trailer, long offset) {
+        int[] order = sortedEntries();
+        PDFSerializer out = new PDFSerializer().ascii("xref\n");
+        for (int start = 0; start < order.length; ) {
+            int end = subsectionEnd(order, start);
+            out.decimal(objectNumbers[order[start]]).put(' ').decimal(end - start).put('\n');
+            for (int k = start; k < end; k++) {
+                int i = order[k];
+                if (types[i] == XRefIndex.TYPE_COMPRESSED) {
+                    throw new IllegalStateException("Compressed object " + objectNumbers[i] + " in a table");
+                }
+                out.padded(fields[i], 10).put(' ').padded(generations[i], 5)
+                        .ascii(types[i] == XRefIndex.TYPE_FREE ? " f\r\n" : " n\r\n");
+            }
+            start = end;
+        }
+        out.ascii("trailer\n").value(trailer).put('\n');
+        return startXRef(out, offset).toBuffer();
+    }
+
+    // The stream as object objectNumber at offset, which also gets an entry of its own. The trailer entries
+    // go into its dictionary, written with the serializer's numbering.
+    ByteBuffer stream(int objectNumber, Map<String, Object> trailer, long offset, PDFSerializer serializer) {
+        add(objectNumber, XRefIndex.TYPE_IN_USE, offset, 0);
+        int[] order = sortedEntries();
+        long maxField = 0;
+        int maxGeneration = 0;
+        for (int i = 0; i < size; i++) {
+            maxField = Math.max(maxField, fields[i]);
+            maxGeneration = Math.max(maxGeneration, generations[i]);
+        }
+        int fieldWidth = byteWidth(maxField);
+        int generationWidth = byteWidth(maxGeneration);
+        int rowLength = 1 + fieldWidth + generationWidth;
+
+        ByteBuffer rows = ByteBuffer.allocate(size * rowLength);
+        int[] index = new int[0];
+        for (int start = 0; start < order.length; ) {
+            int end = subsectionEnd(order, start);
+            index = Arrays.copyOf(index, index.length + 2);
+            index[index.length - 2] = objectNumbers[order[start]];
+            index[index.length - 1] = end - start;
+            for (int k = start; k < end; k++) {
+                int i = order[k];
+                rows.put(types[i]);
+                putBigEndian(rows, fields[i], fieldWidth);
+                putBigEndian(rows, generations[i], generationWidth);
+            }
+            start = end;
+        }
+        ByteBuffer data = FlateFilter.deflate(rows.flip(), Deflater.DEFAULT_COMPRESSION);
+
+        PDFDictionary dictionary = new PDFDictionary(trailer.size() + 6);
+        dictionary.put("Type", XREF);
+        dictionary.putAll(trailer);
+        dictionary.put("W", new PDFIntArray(new int[]{1, fieldWidth, generationWidth}));
+        dictionary.put("Index", new PDFIntArray(index));
+        dictionary.put("Filter", FLATE_DECODE);
+        dictionary.put("Length", data.remaining());
+
+        PDFSerializer out = serializer.reset().objectHeader(objectNumber, 0).value(dictionary)
+                .ascii("\nstream\n").put(data).ascii("\nendstream\nendobj\n");
+        return startXRef(out, offset).toBuffer();
+    }
+
+    private static PDFSerializer startXRef(PDFSerializer out, long offset) {
+        return out.ascii("startxref\n").decimal(offset).ascii("\n%%EOF\n");
+    }
+
+    private int[] sortedEntries() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) objectNumbers[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    // End of the run of consecutive object numbers that starts at start.
+    private int subsectionEnd(int[] order, int start) {
+        int end = start + 1;
+        while (end < order.length && objectNumbers[order[end]] == objectNumbers[order[end - 1]] + 1) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int byteWidth(long value) {
+        int width = 1;
+        while (width < 8 && value >>> 8 * width != 0) {
+            width++;
+        }
+        return width;
+    }
+
+    private static void putBigEndian(ByteBuffer rows, long value, int width) {
+        for (int shift = 8 * (width - 1); shift >= 0; shift -= 8) {
+            rows.put((byte) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.antl.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+// Small PDFs written byte by byte, so tests know every offset and object number.
+public final class TestDocuments {
+    private TestDocuments() {
+    }
+
+    // One page per text, each showing its text in Helvetica: 1 is the catalog, 2 the page tree, 3 the font,
+    // 4 the info dictionary, then a page and its content stream for every text. With an xref stream every
+    // object but the content streams goes into one object stream.
+    public static byte[] pages(boolean xrefStream, String... texts) {
+        Builder builder = new Builder();
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < texts.length; i++) {
+            kids.append(pageNumber(i)).append(" 0 R ");
+        }
+        builder.object(1, "<< /Type /Catalog /Pages 2 0 R >>", xrefStream);
+        builder.object(2, "<< /Type /Pages /Kids [" + kids + "] /Count " + texts.length + " >>", xrefStream);
+        builder.object(3, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>",
+                xrefStream);
+        builder.object(4, "<< /Title (Test document) /Producer (tests) >>", xrefStream);
+        for (int i = 0; i < texts.length; i++) {
+            builder.object(pageNumber(i), "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792]"
+                    + " /Resources << /Font << /F1 3 0 R >> >> /Contents " + (pageNumber(i) + 1) + " 0 R >>",
+                    xrefStream);
+            byte[] content = ("BT /F1 12 Tf 72 720 Td (" + texts[i] + ") Tj ET")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            builder.stream(pageNumber(i) + 1, "", content, i % 2 == 0);
+        }
+        String trailer = "/Root 1 0 R /Info 4 0 R";
+        return xrefStream ? builder.buildWithXRefStream(trailer) : builder.build(trailer);
+    }
+
+    public static int pageNumber(int index) {
+        return 5 + 2 * index;
+    }
+
+    public static final class Builder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Object number to its cross-reference entry: type, offset or object stream, generation or index.
+        private final TreeMap<Integer, long[]> entries = new TreeMap<>();
+        private final List<Integer> compressed = new ArrayList<>();
+        private final List<String> compressedBodies = new ArrayList<>();
+
+        public Builder() {
+            write("%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n");
+        }
+
+        public Builder object(int number, String body, boolean compress) {
+            if (compress) {
+                compressed.add(number);
+                compressedBodies.add(body);
+                return this;
+            }
+            entries.put(number, new long[]{1, out.size(), 0});
+            write(number + " 0 obj\n" + body + "\nendobj\n");
+            return this;
+        }
+
+        public Builder stream(int number, String dictionary, byte[] data, boolean flate) {
+            byte[] payload = flate ? deflate(data) : data;
+            entries.put(number, new long[]{1, out.size(), 0});
+            write(number + " 0 obj\n<< " + dictionary + (flate ? " /Filter /FlateDecode" : "")
+                    + " /Length " + payload.length + " >>\nstream\n");
+            out.writeBytes(payload);
+            write("\nendstream\nendobj\n");
+            return this;
+        }
+
+        // A classic table; objects cannot be compressed without an xref stream.
+        public byte[] build(String trailer) {
+            if (!compressed.isEmpty()) {
+                throw new IllegalStateException("Object streams need a cross-reference stream");
+            }
+            int size = size();
+            int xref = out.size();
+            write("xref\n0 " + size + "\n");
+            for (int number = 0; number < size; number++) {
+                long[] entry = entries.get(number);
+                write(entry == null ? "0000000000 65535 f \n" : String.format("%010d 00000 n \n", entry[1]));
+            }
+            write("trailer\n<< /Size " + size + " " + trailer + " >>\nstartxref\n" + xref + "\n%%EOF\n");
+            return out.toByteArray();
+        }
+
+        // Compressed objects go into one object stream, and an xref stream with /W [1 4 2] indexes everything.
+        public byte[] buildWithXRefStream(String trailer) {
+            if (!compressed.isEmpty()) {
+                int objectStream = size();
+                StringBuilder header = new StringBuilder();
+                StringBuilder bodies = new StringBuilder();
+                for (int i = 0; i < compressed.size(); i++) {
+                    header.append(compressed.get(i)).append(' ').append(bodies.length()).append(' ');
+                    bodies.append(compressedBodies.get(i)).append('\n');
+                    entries.put(compressed.get(i), new long[]{2, objectStream, i});
+                }
+                header.append('\n');
+                stream(objectStream, "/Type /ObjStm /N " + compressed.size() + " /First " + header.length(),
+                        (header.toString() + bodies).getBytes(StandardCharsets.ISO_8859_1), true);
+                compressed.clear();
+            }
+
+            int xrefNumber = size();
+            int xref = out.size();
+            entries.put(xrefNumber, new long[]{1, xref, 0});
+            int size = size();
+            byte[] data = new byte[size * 7];
+            for (int number = 0; number < size; number++) {
+                long[] entry = entries.getOrDefault(number, new long[]{0, 0, number == 0 ? 65535 : 0});
+                data[number * 7] = (byte) entry[0];
+                for (int k = 0; k < 4; k++) {
+                    data[number * 7 + 1 + k] = (byte) (entry[1] >>> (24 - 8 * k));
+                }
+                data[number * 7 + 5] = (byte) (entry[2] >>> 8);
+                data[number * 7 + 6] = (byte) entry[2];
+            }
+            stream(xrefNumber, "/Type /XRef /Size " + size + " /W [1 4 2] " + trailer, data, true);
+            write("startxref\n" + xref + "\n%%EOF\n");
+            return out.toByteArray();
+        }
+
+        private int size() {
+            int max = entries.isEmpty() ? 0 : entries.lastKey();
+            for (int number : compressed) {
+                max = Math.max(max, number);
+            }
+            return max + 1;
+        }
+
+        private void write(String text) {
+            out.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    public static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 16);
+        byte[] buffer = new byte[65536];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            compressed.write(buffer, 0, count);
+        }
+        deflater.end();
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package de.antl.parser.batch;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.model.DocumentResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchPipelineTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyDocumentIsReportedOnce() throws IOException, InterruptedException {
+        for (int i = 1; i <= 6; i++) {
+            String[] texts = new String[i];
+            for (int page = 0; page < i; page++) {
+                texts[page] = "Page " + page;
+            }
+            Files.write(directory.resolve(i + ".pdf"), TestDocuments.pages(i % 2 == 0, texts));
+        }
+        Files.writeString(directory.resolve("broken.pdf"), "%PDF-1.7\nnot a document\n", StandardCharsets.ISO_8859_1);
+        Files.writeString(directory.resolve("notes.txt"), "skipped", StandardCharsets.ISO_8859_1);
+
+        Map<Path, DocumentResult<Integer>> results = new ConcurrentHashMap<>();
+        // Queues of one keep every stage blocking on the next.
+        try (BatchPipeline<Integer> pipeline = new BatchPipeline<>(new BatchOptions(2, 2, 1, true),
+                (document, objects) -> document.getPageCount(),
+                result -> assertNull(results.put(result.path(), result)))) {
+            pipeline.submitDirectory(directory);
+            pipeline.finish();
+            assertThrows(IllegalStateException.class, () -> pipeline.submit(directory.resolve("1.pdf")));
+        }
+
+        assertEquals(7, results.size());
+        for (int i = 1; i <= 6; i++) {
+            DocumentResult<Integer> result = results.get(directory.resolve(i + ".pdf"));
+            assertTrue(result.succeeded(), String.valueOf(result.failure()));
+            assertEquals(i, (int) result.value());
+            assertTrue(result.objectCount() > 0);
+        }
+        DocumentResult<Integer> broken = results.get(directory.resolve("broken.pdf"));
+        assertFalse(broken.succeeded());
+        assertNull(broken.value());
+    }
+
+    @Test
+    void invalidOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchOptions(0, 1, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> new BatchOptions(1, 1, 0, false));
+    }
+}
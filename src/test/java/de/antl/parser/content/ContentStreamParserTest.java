@@ -0,0 +1,128 @@
+package de.antl.parser.content;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContentStreamParserTest {
+
+    @Test
+    void operandsUseTheSameLexingAsTheObjectTokenizer() throws IOException, ParseException {
+        List<Operation> operations = parse("""
+                0 -17 +7 1.5 -.25 4. 3.14e2 --5 op
+                /A#20B /Lime#20Green /bad#zz /Plain Tf
+                (a (nested) string) (esc\\) \\() <48 65> Tj
+                % a comment 1 2 3
+                [1 (x) /N [2]] <</K /V /D [3]>> true false null BDC
+                """);
+
+        assertEquals(List.of("op", "Tf", "Tj", "BDC"), operations.stream().map(Operation::operator).toList());
+        assertEquals(List.of(0, -17, 7, 1.5, -0.25, 4.0, 314.0, 0.0), operations.get(0).operands());
+        assertEquals(List.of("A B", "Lime Green", "bad#zz", "Plain"), text(operations.get(1).operands()));
+        assertEquals(List.of("a (nested) string", "esc\\) \\(", "48 65"), text(operations.get(2).operands()));
+        assertEquals(TokenType.HEX_STRING, ((Token) operations.get(2).operands().get(2)).type());
+
+        List<Object> marked = operations.get(3).operands();
+        assertEquals(5, marked.size());
+        assertEquals(List.of(1, "x", "N", List.of(2)), text((List<?>) marked.get(0)));
+        Map<?, ?> properties = (Map<?, ?>) marked.get(1);
+        assertEquals("V", ((Token) properties.get("K")).getStringValue());
+        assertEquals(List.of(3), properties.get("D"));
+        assertEquals(List.of("true", "false"), text(marked.subList(2, 4)));
+        assertNull(marked.get(4));
+    }
+
+    @Test
+    void stringsAndNamesAcrossReadBoundaries() throws IOException, ParseException {
+        String longText = "x(y)".repeat(5_000);
+        String content = "/" + "N".repeat(100) + " (" + longText + ") Tj 12.5 0 Td";
+        // Reading one byte at a time splits every token across refills of the parser's window.
+        List<Operation> operations = parse(new OneByteInputStream(content.getBytes(StandardCharsets.ISO_8859_1)));
+
+        assertEquals(List.of("Tj", "Td"), operations.stream().map(Operation::operator).toList());
+        assertEquals(List.of("N".repeat(100), longText), text(operations.get(0).operands()));
+        assertEquals(List.of(12.5, 0), operations.get(1).operands());
+    }
+
+    @Test
+    void inlineImageDataIsPassedToTheVisitor() throws IOException, ParseException {
+        List<String> seen = new ArrayList<>();
+        new ContentStreamParser().parse(new ByteArrayInputStream(
+                "q BI /W 2 /H 1 /BPC 8 /CS /G ID \u0000EI\u00ff EI Q".getBytes(StandardCharsets.ISO_8859_1)),
+                new ContentStreamVisitor() {
+                    @Override
+                    public void operator(String operator, List<Object> operands) {
+                        seen.add(operator);
+                    }
+
+                    @Override
+                    public void inlineImage(Map<String, Object> parameters, ByteBuffer data) {
+                        seen.add("image " + parameters.get("W") + " " + data.remaining());
+                    }
+                });
+        // The "EI" inside the data is not preceded by whitespace, so it does not end the image.
+        assertEquals(List.of("q", "image 2 4", "Q"), seen);
+    }
+
+    private record Operation(String operator, List<Object> operands) {
+    }
+
+    private static List<Operation> parse(String content) throws IOException, ParseException {
+        return parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static List<Operation> parse(InputStream input) throws IOException, ParseException {
+        List<Operation> operations = new ArrayList<>();
+        new ContentStreamParser().parse(input,
+                (operator, operands) -> operations.add(new Operation(operator, new ArrayList<>(operands))));
+        return operations;
+    }
+
+    // Strings and names by their text, numbers and nested values as they are.
+    private static List<Object> text(List<?> values) {
+        List<Object> text = new ArrayList<>();
+        for (Object value : values) {
+            text.add(value instanceof Token token ? token.getStringValue() : value);
+        }
+        return text;
+    }
+
+    private static final class OneByteInputStream extends InputStream {
+        private final byte[] data;
+        private int position;
+
+        OneByteInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (position >= data.length) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            bytes[offset] = data[position++];
+            return 1;
+        }
+    }
+}
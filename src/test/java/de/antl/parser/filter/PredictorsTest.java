@@ -0,0 +1,138 @@
+package de.antl.parser.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static de.antl.parser.filter.StreamFiltersTest.bytes;
+import static de.antl.parser.filter.StreamFiltersTest.name;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PredictorsTest {
+    private static final int COLUMNS = 37;
+
+    @Test
+    void pngPredictorsRoundTripThroughBothDecodePaths() throws IOException {
+        for (int colors : new int[]{1, 3, 4}) {
+            byte[] image = image(COLUMNS * colors, 50);
+            // Cycles through None, Sub, Up, Average and Paeth so that every row type follows every other.
+            byte[] predicted = pngEncode(image, COLUMNS * colors, colors, row -> row % 5);
+            Map<String, Object> parms = Map.of("Predictor", 15, "Colors", colors, "Columns", COLUMNS);
+
+            assertArrayEquals(image, decodeFlate(predicted, parms, -1), "colors " + colors);
+            assertArrayEquals(image, decodeFlate(predicted, parms, image.length), "colors " + colors + " with /DL");
+            assertArrayEquals(image, readFlate(predicted, parms), "colors " + colors + " as stream");
+        }
+    }
+
+    @Test
+    void pngPredictorWithATruncatedLastRow() throws IOException {
+        byte[] image = image(COLUMNS, 10);
+        byte[] predicted = pngEncode(image, COLUMNS, 1, row -> 4);
+        byte[] truncated = Arrays.copyOf(predicted, predicted.length - 5);
+        byte[] expected = Arrays.copyOf(image, image.length - 5);
+        Map<String, Object> parms = Map.of("Predictor", 12, "Columns", COLUMNS);
+
+        assertArrayEquals(expected, decodeFlate(truncated, parms, -1));
+        assertArrayEquals(expected, readFlate(truncated, parms));
+    }
+
+    @Test
+    void tiffPredictorRoundTrip() throws IOException {
+        int colors = 3;
+        int rowLength = COLUMNS * colors;
+        byte[] image = image(rowLength, 20);
+        byte[] predicted = image.clone();
+        for (int row = 0; row < image.length; row += rowLength) {
+            for (int i = row + rowLength - 1; i >= row + colors; i--) {
+                predicted[i] -= predicted[i - colors];
+            }
+        }
+        Map<String, Object> parms = Map.of("Predictor", 2, "Colors", colors, "Columns", COLUMNS);
+
+        assertArrayEquals(image, decodeFlate(predicted, parms, -1));
+        assertArrayEquals(image, readFlate(predicted, parms));
+    }
+
+    @Test
+    void tiffPredictorWithSixteenBitComponents() {
+        Predictors predictors = Predictors.of(Map.of("Predictor", 2, "BitsPerComponent", 16, "Columns", 3));
+        // 0x00FF, +0x0001, +0x0100: the carry from the low byte must reach the high byte.
+        ByteBuffer data = ByteBuffer.wrap(new byte[]{0x00, (byte) 0xFF, 0x00, 0x01, 0x01, 0x00});
+        predictors.decode(data);
+        assertArrayEquals(new byte[]{0x00, (byte) 0xFF, 0x01, 0x00, 0x02, 0x00}, bytes(data));
+    }
+
+    @Test
+    void paethPicksTheClosestNeighbour() {
+        assertEquals(10, Predictors.paeth(10, 20, 20));
+        assertEquals(20, Predictors.paeth(10, 20, 10));
+        assertEquals(15, Predictors.paeth(10, 20, 15));
+        // Ties go to a.
+        assertEquals(7, Predictors.paeth(7, 7, 7));
+    }
+
+    private interface RowFilter {
+        int filterType(int row);
+    }
+
+    private static byte[] image(int rowLength, int rows) {
+        byte[] image = new byte[rowLength * rows];
+        Random random = new Random(rowLength);
+        for (int i = 0; i < image.length; i++) {
+            // A gradient with noise, so the predictors have something to do.
+            image[i] = (byte) (i % rowLength * 3 + i / rowLength * 5 + random.nextInt(4));
+        }
+        return image;
+    }
+
+    private static byte[] pngEncode(byte[] image, int rowLength, int bpp, RowFilter filter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] up = new byte[rowLength];
+        for (int start = 0; start < image.length; start += rowLength) {
+            int type = filter.filterType(start / rowLength);
+            out.write(type);
+            for (int i = 0; i < rowLength; i++) {
+                int x = image[start + i] & 0xFF;
+                int a = i >= bpp ? image[start + i - bpp] & 0xFF : 0;
+                int b = up[i] & 0xFF;
+                int c = i >= bpp ? up[i - bpp] & 0xFF : 0;
+                int predicted = switch (type) {
+                    case 1 -> a;
+                    case 2 -> b;
+                    case 3 -> (a + b) >>> 1;
+                    case 4 -> Predictors.paeth(a, b, c);
+                    default -> 0;
+                };
+                out.write(x - predicted);
+            }
+            System.arraycopy(image, start, up, 0, rowLength);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decodeFlate(byte[] predicted, Map<String, Object> parms, long decodedLength)
+            throws IOException {
+        ByteBuffer encoded = FlateFilter.deflate(ByteBuffer.wrap(predicted), Deflater.DEFAULT_COMPRESSION);
+        try (BufferPool pool = new BufferPool();
+             PooledBuffer decoded = StreamFilters.decode(encoded, name("FlateDecode"), parms, decodedLength, pool)) {
+            return bytes(decoded.buffer());
+        }
+    }
+
+    private static byte[] readFlate(byte[] predicted, Map<String, Object> parms) throws IOException {
+        byte[] encoded = bytes(FlateFilter.deflate(ByteBuffer.wrap(predicted), Deflater.DEFAULT_COMPRESSION));
+        try (InputStream input = StreamFilters.decode(new ByteArrayInputStream(encoded), name("FlateDecode"), parms)) {
+            return input.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package de.antl.parser.filter;
+
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.model.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamFiltersTest {
+    private static final Token FLATE = name("FlateDecode");
+    private static final Token ASCII_HEX = name("ASCIIHexDecode");
+    private static final Token ASCII_85 = name("ASCII85Decode");
+    private static final Token RUN_LENGTH = name("RunLengthDecode");
+    private static final Token LZW = name("LZWDecode");
+
+    @Test
+    void flateRoundTripThroughTheStreamAndThePool() throws IOException {
+        byte[] data = sample(100_000);
+        byte[] encoded = bytes(FlateFilter.deflate(ByteBuffer.wrap(data), Deflater.BEST_COMPRESSION));
+
+        assertArrayEquals(data, decode(encoded, FLATE));
+        try (BufferPool pool = new BufferPool()) {
+            // A size hint far below the real size makes the output buffer grow several times.
+            try (PooledBuffer decoded = StreamFilters.decode(ByteBuffer.wrap(encoded), FLATE, null, 10, pool)) {
+                assertArrayEquals(data, bytes(decoded.buffer()));
+            }
+        }
+    }
+
+    @Test
+    void asciiHexIgnoresWhitespaceAndPadsAnOddDigit() throws IOException {
+        assertArrayEquals(new byte[]{(byte) 0xAB, 0x12, 0x30},
+                decode("ab 1\n2 3>".getBytes(StandardCharsets.ISO_8859_1), ASCII_HEX));
+
+        byte[] data = sample(5_000);
+        assertArrayEquals(data, decode(asciiHex(data), ASCII_HEX));
+    }
+
+    @Test
+    void ascii85DecodesGroupsZerosAndAPartialFinalGroup() throws IOException {
+        assertArrayEquals("Man ".getBytes(StandardCharsets.ISO_8859_1),
+                decode("9jqo^~>".getBytes(StandardCharsets.ISO_8859_1), ASCII_85));
+        assertArrayEquals(new byte[8], decode("zz~>".getBytes(StandardCharsets.ISO_8859_1), ASCII_85));
+
+        // More than one fill of the decoder's window, and a length that leaves a partial group.
+        byte[] data = sample(10_003);
+        assertArrayEquals(data, decode(ascii85(data), ASCII_85));
+    }
+
+    @Test
+    void runLengthRoundTrip() throws IOException {
+        byte[] data = new byte[3_000];
+        Random random = new Random(7);
+        for (int i = 0; i < data.length; i++) {
+            // Runs of repeated bytes between stretches of noise, so both kinds of block are used.
+            data[i] = (byte) (i / 200 % 2 == 0 ? i / 200 : random.nextInt(256));
+        }
+        assertArrayEquals(data, decode(runLength(data), RUN_LENGTH));
+    }
+
+    @Test
+    void lzwDecodesTheSpecificationExample() throws IOException {
+        byte[] encoded = {(byte) 0x80, 0x0B, 0x60, 0x50, 0x22, 0x0C, 0x0C, (byte) 0x85, 0x01};
+        assertArrayEquals("-----A---B".getBytes(StandardCharsets.ISO_8859_1), decode(encoded, LZW));
+    }
+
+    @Test
+    void filterChainsAreAppliedInOrder() throws IOException {
+        byte[] data = sample(20_000);
+        byte[] encoded = asciiHex(bytes(FlateFilter.deflate(ByteBuffer.wrap(data), Deflater.DEFAULT_COMPRESSION)));
+        List<Object> filters = List.of(ASCII_HEX, FLATE);
+
+        assertArrayEquals(data, decode(encoded, filters));
+        try (BufferPool pool = new BufferPool();
+             PooledBuffer decoded = StreamFilters.decode(ByteBuffer.wrap(encoded), filters, null, -1, pool)) {
+            assertArrayEquals(data, bytes(decoded.buffer()));
+        }
+    }
+
+    @Test
+    void unknownFiltersPassTheDataThrough() throws IOException {
+        byte[] data = sample(100);
+        assertArrayEquals(data, decode(data, name("DCTDecode")));
+        try (PooledBuffer decoded = StreamFilters.decode(ByteBuffer.wrap(data), name("DCTDecode"), null, -1,
+                new BufferPool())) {
+            assertEquals(data.length, decoded.size());
+        }
+    }
+
+    static Token name(String name) {
+        return new Token(TokenType.NAME, name);
+    }
+
+    // Text-like data that compresses, with some noise so that it is not trivial.
+    static byte[] sample(int length) {
+        byte[] data = new byte[length];
+        Random random = new Random(length);
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (random.nextInt(8) == 0 ? random.nextInt(256) : 'a' + i % 26);
+        }
+        return data;
+    }
+
+    static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] decode(byte[] encoded, Object filter) throws IOException {
+        try (InputStream input = StreamFilters.decode(new ByteArrayInputStream(encoded), filter, null)) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static byte[] asciiHex(byte[] data) {
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < data.length; i++) {
+            hex.append(String.format("%02X", data[i] & 0xFF));
+            if (i % 32 == 31) {
+                hex.append('\n');
+            }
+        }
+        return hex.append('>').toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] ascii85(byte[] data) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < data.length; i += 4) {
+            int length = Math.min(4, data.length - i);
+            long value = 0;
+            for (int k = 0; k < 4; k++) {
+                value = value << 8 | (k < length ? data[i + k] & 0xFF : 0);
+            }
+            if (value == 0 && length == 4) {
+                text.append('z');
+                continue;
+            }
+            char[] group = new char[5];
+            for (int k = 4; k >= 0; k--) {
+                group[k] = (char) ('!' + value % 85);
+                value /= 85;
+            }
+            text.append(group, 0, length + 1);
+        }
+        return text.append("~>").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] runLength(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < data.length) {
+            int run = 1;
+            while (i + run < data.length && run < 128 && data[i + run] == data[i]) {
+                run++;
+            }
+            if (run > 1) {
+                out.write(257 - run);
+                out.write(data[i]);
+                i += run;
+                continue;
+            }
+            int literal = 1;
+            while (i + literal < data.length && literal < 128
+                    && (i + literal + 1 >= data.length || data[i + literal] != data[i + literal + 1])) {
+                literal++;
+            }
+            out.write(literal - 1);
+            out.write(data, i, literal);
+            i += literal;
+        }
+        out.write(128);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.text.TextExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void warmOpenMatchesColdOpenWithObjectStreams() throws IOException, ParseException {
+        roundTrip(TestDocuments.pages(true, "A", "B", "C"));
+    }
+
+    @Test
+    void warmOpenMatchesColdOpenWithATable() throws IOException, ParseException {
+        roundTrip(TestDocuments.pages(false, "A", "B", "C"));
+    }
+
+    @Test
+    void objectStreamsAreNotInflatedForTheSidecar() throws IOException, ParseException {
+        // The page tree is outside the object stream, so nothing but the headers has to be read.
+        TestDocuments.Builder builder = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [3 0 R] /Count 1 >>", false)
+                .object(3, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R"
+                        + " /Resources << /Font << /F1 5 0 R >> >> >>", false)
+                .stream(4, "", "BT /F1 12 Tf 72 720 Td (C) Tj ET".getBytes(StandardCharsets.ISO_8859_1), true)
+                .object(5, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>", true)
+                .object(6, "<< /Title (Compressed) >>", true);
+        Path file = Files.write(directory.resolve("document.pdf"), builder.buildWithXRefStream("/Root 1 0 R"));
+        IndexCache cache = new IndexCache(directory.resolve("cache"));
+
+        Recorder cold = new Recorder();
+        cache.open(file, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), cold).close();
+        assertEquals(0, cold.objectStreamsLoaded);
+
+        Recorder warm = new Recorder();
+        try (PDFDocument document = cache.open(file, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), warm)) {
+            assertEquals(0, warm.sections);
+            assertTrue(new TextExtractor(document).extractPage(0).contains("C"));
+            assertEquals(1, warm.objectStreamsLoaded);
+        }
+    }
+
+    private void roundTrip(byte[] data) throws IOException, ParseException {
+        Path file = Files.write(directory.resolve("document.pdf"), data);
+        IndexCache cache = new IndexCache(directory.resolve("cache"));
+
+        Recorder cold = new Recorder();
+        XRefIndex coldIndex;
+        try (PDFDocument document = cache.open(file, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), cold)) {
+            coldIndex = document.getXRefIndex();
+        }
+        assertTrue(cold.sections > 0);
+        assertEquals(1, sidecars().size());
+
+        Recorder warm = new Recorder();
+        try (PDFDocument document = cache.open(file, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), warm)) {
+            assertEquals(0, warm.sections);
+            XRefIndex warmIndex = document.getXRefIndex();
+            assertEquals(coldIndex.size(), warmIndex.size());
+            for (int number = 0; number < coldIndex.size(); number++) {
+                assertEquals(coldIndex.contains(number), warmIndex.contains(number));
+                assertEquals(coldIndex.type(number), warmIndex.type(number));
+                assertEquals(coldIndex.offset(number), warmIndex.offset(number));
+                assertEquals(coldIndex.generation(number), warmIndex.generation(number));
+            }
+            assertEquals(3, document.getPageCount());
+            assertTrue(new TextExtractor(document).extractPage(2).contains("C"));
+            assertEquals("Catalog", PDFValues.asName(PDFValues.asDictionary(document.getRoot()).get("Type")));
+        }
+    }
+
+    @Test
+    void aChangedFileIsIndexedAgain() throws IOException, ParseException {
+        Path file = Files.write(directory.resolve("document.pdf"), TestDocuments.pages(true, "Old"));
+        IndexCache cache = new IndexCache(directory.resolve("cache"));
+        try (PDFDocument document = cache.open(file)) {
+            assertEquals(1, document.getPageCount());
+        }
+
+        Files.write(file, TestDocuments.pages(true, "New", "Pages"));
+        Recorder recorder = new Recorder();
+        try (PDFDocument document = cache.open(file, new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), recorder)) {
+            assertTrue(recorder.sections > 0);
+            assertEquals(2, document.getPageCount());
+            assertTrue(new TextExtractor(document).extractPage(1).contains("Pages"));
+        }
+        assertEquals(1, sidecars().size());
+    }
+
+    @Test
+    void aDamagedSidecarIsRebuilt() throws IOException, ParseException {
+        Path file = Files.write(directory.resolve("document.pdf"), TestDocuments.pages(false, "Text"));
+        IndexCache cache = new IndexCache(directory.resolve("cache"));
+        cache.open(file).close();
+        Path sidecar = sidecars().get(0);
+        byte[] data = Files.readAllBytes(sidecar);
+        Files.write(sidecar, Arrays.copyOf(data, data.length / 2));
+
+        try (PDFDocument document = cache.open(file)) {
+            assertEquals(1, document.getPageCount());
+        }
+        assertEquals(data.length, Files.size(sidecar));
+    }
+
+    private List<Path> sidecars() throws IOException {
+        try (Stream<Path> files = Files.list(directory.resolve("cache"))) {
+            return files.filter(path -> path.toString().endsWith(".pdfidx")).toList();
+        }
+    }
+
+    private static final class Recorder implements ParseListener {
+        private int sections;
+        private int objectStreamsLoaded;
+
+        @Override
+        public void xrefRead(int sections, int entries, long nanos) {
+            this.sections += sections;
+        }
+
+        @Override
+        public void objectStreamLoaded(int streamNumber, int objects, long nanos) {
+            objectStreamsLoaded++;
+        }
+    }
+}
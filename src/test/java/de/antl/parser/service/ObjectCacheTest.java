@@ -0,0 +1,156 @@
+package de.antl.parser.service;
+
+import de.antl.parser.model.CacheStatistics;
+import de.antl.parser.model.PDFIndirectObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectCacheTest {
+
+    @Test
+    void leastRecentlyUsedObjectsAreEvictedByCount() {
+        ObjectCache cache = new ObjectCache(2);
+        PDFIndirectObject first = object(1, 0, 10);
+        cache.put(first);
+        cache.put(object(2, 0, 20));
+        assertSame(first, cache.get(1, 0));
+
+        cache.put(object(3, 0, 30));
+        assertEquals(2, cache.size());
+        assertNull(cache.get(2, 0));
+        assertSame(first, cache.get(1, 0));
+        assertNotNull(cache.get(3, 0));
+
+        CacheStatistics statistics = cache.statistics();
+        assertEquals(3, statistics.hits());
+        assertEquals(1, statistics.misses());
+        assertEquals(1, statistics.evictions());
+        assertEquals(2, statistics.size());
+    }
+
+    @Test
+    void generationsAreSeparateEntries() {
+        ObjectCache cache = new ObjectCache(4);
+        cache.put(object(5, 0, 1));
+        cache.put(object(5, 1, 2));
+        assertEquals(1, cache.get(5, 0).value());
+        assertEquals(2, cache.get(5, 1).value());
+        assertNull(cache.get(5, 2));
+    }
+
+    @Test
+    void replacingAnEntryDoesNotGrowTheCache() {
+        ObjectCache cache = new ObjectCache(2);
+        cache.put(object(1, 0, 10));
+        cache.put(object(2, 0, 20));
+        cache.put(object(1, 0, 11));
+        assertEquals(2, cache.size());
+        assertEquals(11, cache.get(1, 0).value());
+        assertEquals(0, cache.statistics().evictions());
+    }
+
+    @Test
+    void peekLeavesTheOrderAndStatisticsAlone() {
+        ObjectCache cache = new ObjectCache(2);
+        cache.put(object(1, 0, 10));
+        cache.put(object(2, 0, 20));
+        assertNotNull(cache.peek(1, 0));
+
+        // Object 1 is still the oldest entry, so it goes first.
+        cache.put(object(3, 0, 30));
+        assertNull(cache.peek(1, 0));
+        assertNotNull(cache.peek(2, 0));
+        assertEquals(0, cache.statistics().hits());
+        assertEquals(0, cache.statistics().misses());
+    }
+
+    @Test
+    void onlyTheNewestObjectsSurviveManyEvictions() {
+        // Enough churn to grow the table and reuse freed slots many times over.
+        ObjectCache cache = new ObjectCache(100);
+        for (int number = 0; number < 5000; number++) {
+            cache.put(object(number, 0, number));
+        }
+        assertEquals(100, cache.size());
+        for (int number = 0; number < 5000; number++) {
+            PDFIndirectObject object = cache.peek(number, 0);
+            if (number < 4900) {
+                assertNull(object, "object " + number);
+            } else {
+                assertEquals(number, object.value());
+            }
+        }
+        assertEquals(4900, cache.statistics().evictions());
+    }
+
+    @Test
+    void weightedCachesEvictByWeightButKeepTheNewestObject() {
+        ObjectCache cache = new ObjectCache(100, 10, object -> (Integer) object.value(), false);
+        cache.put(object(1, 0, 4));
+        cache.put(object(2, 0, 4));
+        cache.put(object(3, 0, 4));
+        assertNull(cache.peek(1, 0));
+        assertEquals(8, cache.statistics().weight());
+
+        cache.put(object(4, 0, 50));
+        assertEquals(1, cache.size());
+        assertEquals(50, cache.statistics().weight());
+        assertNotNull(cache.peek(4, 0));
+    }
+
+    @Test
+    void theSoftTierServesEvictedObjects() {
+        ObjectCache cache = new ObjectCache(1, Long.MAX_VALUE, object -> 1, true);
+        PDFIndirectObject first = object(1, 0, 10);
+        cache.put(first);
+        cache.put(object(2, 0, 20));
+        assertEquals(1, cache.size());
+
+        // The test holds a strong reference, so the collector cannot have cleared the soft one.
+        assertSame(first, cache.get(1, 0));
+        CacheStatistics statistics = cache.statistics();
+        assertEquals(1, statistics.softHits());
+        assertEquals(0, statistics.misses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void stripedCachesKeepEveryStripeWithinItsShare() {
+        ObjectCache cache = new ObjectCache(64, Long.MAX_VALUE, object -> 1, false, 8);
+        assertEquals(8, cache.stripes());
+        for (int number = 0; number < 1000; number++) {
+            cache.put(object(number, 0, number));
+        }
+        assertTrue(cache.size() <= 64, String.valueOf(cache.size()));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get(999, 0));
+    }
+
+    @Test
+    void stripesNeverOutnumberEntries() {
+        assertEquals(2, new ObjectCache(3, Long.MAX_VALUE, object -> 1, false, 16).stripes());
+        assertThrows(IllegalArgumentException.class, () -> new ObjectCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ObjectCache(1, 1, object -> 1, false, 0));
+    }
+
+    @Test
+    void estimatedWeightGrowsWithTheValue() {
+        long small = ObjectCache.estimateWeight(object(1, 0, 1));
+        long large = ObjectCache.estimateWeight(new PDFIndirectObject(1, 0, List.of(1, 2, 3, 4, 5, 6, 7, 8)));
+        assertTrue(small > 0);
+        assertTrue(large > small);
+    }
+
+    private static PDFIndirectObject object(int objectNumber, int genNumber, int value) {
+        return new PDFIndirectObject(objectNumber, genNumber, value);
+    }
+}
@@ -0,0 +1,131 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectStreamCacheTest {
+
+    @Test
+    void leastRecentlyUsedStreamsAreEvictedBySize() {
+        ObjectStreamCache cache = new ObjectStreamCache(100);
+        ObjectStream first = stream(40);
+        ObjectStream second = stream(40);
+        cache.put(1, first);
+        cache.put(2, second);
+        cache.acquire(1).release();
+
+        ObjectStream third = stream(40);
+        cache.put(3, third);
+        assertNull(cache.acquire(2));
+        assertFalse(second.retain());
+        ObjectStream cached = cache.acquire(1);
+        assertSame(first, cached);
+        cached.release();
+    }
+
+    @Test
+    void theNewestStreamStaysEvenWhenItIsTooLarge() {
+        ObjectStreamCache cache = new ObjectStreamCache(100);
+        cache.put(1, stream(10));
+        ObjectStream large = stream(500);
+        cache.put(2, large);
+        assertNull(cache.acquire(1));
+        ObjectStream cached = cache.acquire(2);
+        assertSame(large, cached);
+        cached.release();
+    }
+
+    @Test
+    void evictedStreamsStayReadableUntilTheLastReaderReleasesThem() throws IOException, ParseException {
+        try (BufferPool pool = new BufferPool()) {
+            ObjectStreamCache cache = new ObjectStreamCache(1);
+            ObjectStream pooled = ObjectStream.parse(objectStream(), pool);
+            cache.put(1, pooled);
+            ObjectStream reader = cache.acquire(1);
+
+            cache.put(2, stream(10));
+            assertNull(cache.acquire(1));
+            // The buffer is still on loan while the reader parses from it.
+            assertEquals(0, pool.pooledBytes());
+            assertEquals(42, reader.parseObject(reader.indexOf(7, 0), ObjectResolver.NONE));
+            reader.release();
+            assertTrue(pool.pooledBytes() > 0);
+            assertFalse(pooled.retain());
+        }
+    }
+
+    @Test
+    void closeWaitsForReadersAndRefusesNewStreams() {
+        ObjectStreamCache cache = new ObjectStreamCache(100);
+        ObjectStream stream = stream(10);
+        cache.put(1, stream);
+        ObjectStream reader = cache.acquire(1);
+        cache.close();
+
+        assertTrue(cache.isClosed());
+        assertNull(cache.acquire(1));
+        assertTrue(stream.retain());
+        stream.release();
+        reader.release();
+        assertFalse(stream.retain());
+
+        ObjectStream late = stream(10);
+        assertThrows(IllegalStateException.class, () -> cache.put(2, late));
+        assertFalse(late.retain());
+    }
+
+    @Test
+    void aDuplicateStreamIsReleasedInFavourOfTheCachedOne() {
+        ObjectStreamCache cache = new ObjectStreamCache(100);
+        ObjectStream first = stream(10);
+        ObjectStream duplicate = stream(10);
+        cache.put(1, first);
+        cache.put(1, duplicate);
+        assertFalse(duplicate.retain());
+        ObjectStream cached = cache.acquire(1);
+        assertSame(first, cached);
+        cached.release();
+    }
+
+    @Test
+    void compressedObjectsCannotBeReadAfterClose() throws IOException, ParseException {
+        PDFDocument document = PDFDocument.open(ByteBuffer.wrap(TestDocuments.pages(true, "Text")));
+        Object catalog = document.getObject(1).value();
+        document.close();
+        // Objects parsed before stay usable and cached; the others would need the released data.
+        assertSame(catalog, document.getObject(1).value());
+        assertThrows(IllegalStateException.class, () -> document.getObject(2));
+    }
+
+    private static ObjectStream stream(int size) {
+        return new ObjectStream(ByteBuffer.allocate(size), new int[0], new int[0]);
+    }
+
+    // Object 7 is the number 42, inflated from a Flate stream.
+    private static PDFStream objectStream() {
+        byte[] data = "7 0 42".getBytes(StandardCharsets.ISO_8859_1);
+        PDFDictionary dictionary = new PDFDictionary();
+        dictionary.put("Type", new Token(TokenType.NAME, "ObjStm"));
+        dictionary.put("N", 1);
+        dictionary.put("First", 4);
+        dictionary.put("Filter", new Token(TokenType.NAME, "FlateDecode"));
+        return new PDFStream(dictionary, ByteBuffer.wrap(TestDocuments.deflate(data)));
+    }
+}
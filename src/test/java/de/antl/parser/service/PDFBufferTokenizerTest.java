@@ -0,0 +1,181 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PDFBufferTokenizerTest {
+
+    @Test
+    void integersAndReals() {
+        List<Token> tokens = tokens("0 -17 +7 1.5 -.25 4. 0.000001 123456789012 -3000000000 3.14e2");
+        assertEquals(List.<Number>of(0, -17, 7, 1.5, -0.25, 4.0, 0.000001, 123456789012L, -3000000000L, 314.0),
+                tokens.stream().map(token -> (Number) token.value()).toList());
+        assertTrue(tokens.stream().allMatch(token -> token.type() == TokenType.NUMBER));
+    }
+
+    @Test
+    void realsWithManyDigitsAreRoundedCorrectly() {
+        assertEquals(0.30000000000000004, tokens("0.30000000000000004").get(0).value());
+        assertEquals(1234567.8901234567, tokens("1234567.8901234567").get(0).value());
+        assertEquals(123456789012345678L, tokens("123456789012345678").get(0).value());
+    }
+
+    @Test
+    void cursorReportsNumbersWithoutTokens() {
+        PDFBufferTokenizer tokenizer = tokenizer("42 -2.5 /Name");
+        assertEquals(TokenType.NUMBER, tokenizer.next());
+        assertTrue(tokenizer.isInteger());
+        assertEquals(42, tokenizer.intValue());
+        assertEquals(TokenType.NUMBER, tokenizer.next());
+        assertFalse(tokenizer.isInteger());
+        assertEquals(-2.5, tokenizer.doubleValue());
+        assertEquals(TokenType.NAME, tokenizer.next());
+        assertEquals("Name", tokenizer.nameValue());
+        assertNull(tokenizer.next());
+    }
+
+    @Test
+    void malformedNumbersReadAsZero() {
+        assertEquals(0.0, tokens("--5").get(0).value());
+        assertEquals(0.0, tokens("1.2.3").get(0).value());
+    }
+
+    @Test
+    void namesWithHexEscapes() {
+        List<Token> tokens = tokens("/A#20B /#2Fslash /Lime#20Green /paired#28#29 /bad#zz /trailing# /Plain");
+        assertEquals(List.of("A B", "/slash", "Lime Green", "paired()", "bad#zz", "trailing#", "Plain"),
+                tokens.stream().map(Token::getStringValue).toList());
+        assertTrue(tokens.stream().allMatch(token -> token.type() == TokenType.NAME));
+    }
+
+    @Test
+    void namesEndAtDelimiters() {
+        List<Token> tokens = tokens("/Type/Page/Kids[/A]<</B/C>>");
+        assertEquals(List.of("Type", "Page", "Kids", "[", "A", "]", "<<", "B", "C", ">>"),
+                tokens.stream().map(PDFBufferTokenizerTest::text).toList());
+    }
+
+    @Test
+    void nestedAndEscapedLiteralStrings() {
+        List<Token> tokens = tokens("(a (nested (deeper)) string) (esc\\) \\( \\\\) (x\\101\\n\\\r\ny) ()");
+        assertEquals(TokenType.STRING, tokens.get(0).type());
+        assertEquals("a (nested (deeper)) string", tokens.get(0).getStringValue());
+        assertEquals("esc\\) \\( \\\\", tokens.get(1).getStringValue());
+        assertArrayEquals("esc) ( \\".getBytes(StandardCharsets.ISO_8859_1), PDFValues.asBytes(tokens.get(1)));
+        assertArrayEquals("xA\ny".getBytes(StandardCharsets.ISO_8859_1), PDFValues.asBytes(tokens.get(2)));
+        assertEquals("", tokens.get(3).getStringValue());
+        assertEquals(4, tokens.size());
+    }
+
+    @Test
+    void unterminatedStringRunsToTheEnd() {
+        List<Token> tokens = tokens("(open (and never closed");
+        assertEquals(1, tokens.size());
+        assertEquals("open (and never closed", tokens.get(0).getStringValue());
+    }
+
+    @Test
+    void hexStrings() {
+        List<Token> tokens = tokens("<48 65 6C6c 6F> <7> <>");
+        assertEquals(TokenType.HEX_STRING, tokens.get(0).type());
+        assertArrayEquals("Hello".getBytes(StandardCharsets.ISO_8859_1), PDFValues.asBytes(tokens.get(0)));
+        assertArrayEquals(new byte[]{0x70}, PDFValues.asBytes(tokens.get(1)));
+        assertArrayEquals(new byte[0], PDFValues.asBytes(tokens.get(2)));
+    }
+
+    @Test
+    void commentsAreSkippedButTheHeaderIsAVersion() {
+        List<Token> tokens = tokens("%PDF-1.7\n%\u00e2\u00e3\u00cf\u00d3\n1 % comment\n0 obj true false null endobj");
+        assertEquals(TokenType.VERSION, tokens.get(0).type());
+        assertEquals("PDF-1.7", tokens.get(0).getStringValue());
+        assertEquals(List.of("1", "0", "obj", "true", "false", "null", "endobj"),
+                tokens.subList(1, tokens.size()).stream().map(PDFBufferTokenizerTest::text).toList());
+        assertEquals(TokenType.BOOLEAN, tokens.get(4).type());
+    }
+
+    @Test
+    void streamDataUsesTheLengthHintAndFallsBackToTheKeyword() {
+        PDFBufferTokenizer tokenizer = tokenizer("stream\r\nab endstream");
+        tokenizer.streamLengthHint(3);
+        assertEquals("ab ", text(tokenizer.nextToken()));
+        assertNull(tokenizer.nextToken());
+
+        // A wrong length: the data runs to the next endstream, without the end-of-line marker before it.
+        PDFBufferTokenizer fallback = tokenizer("stream\ncd\r\nendstream x");
+        fallback.streamLengthHint(1);
+        assertEquals("cd", text(fallback.nextToken()));
+        assertEquals("x", text(fallback.nextToken()));
+    }
+
+    @Test
+    void peekDoesNotConsume() {
+        PDFBufferTokenizer tokenizer = tokenizer("1 2");
+        assertEquals(1, tokenizer.peekToken().value());
+        assertEquals(1, tokenizer.peekToken().value());
+        assertEquals(1, tokenizer.nextToken().value());
+        assertEquals(TokenType.NUMBER, tokenizer.next());
+        assertEquals(2, tokenizer.intValue());
+        assertNull(tokenizer.nextToken());
+    }
+
+    @Test
+    void namesAreInternedOncePerDocumentAndThread() throws IOException, ParseException, InterruptedException {
+        byte[] data = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [] /Count 0 >>", false)
+                .object(3, "<< /Custom /Unusual >>", false)
+                .object(4, "<< /Other /Unusual >>", false)
+                .build("/Root 1 0 R");
+        try (PDFDocument document = PDFDocument.open(ByteBuffer.wrap(data))) {
+            Object first = PDFValues.asDictionary(document.getObject(3).value()).get("Custom");
+            Object second = PDFValues.asDictionary(document.getObject(4).value()).get("Other");
+            assertSame(first, second);
+
+            NameTable[] other = new NameTable[1];
+            Thread thread = new Thread(() -> other[0] = document.names());
+            thread.start();
+            thread.join();
+            assertSame(document.names(), document.names());
+            assertNotSame(document.names(), other[0]);
+        }
+    }
+
+    static PDFBufferTokenizer tokenizer(String text) {
+        return new PDFBufferTokenizer(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static List<Token> tokens(String text) {
+        PDFBufferTokenizer tokenizer = tokenizer(text);
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = tokenizer.nextToken(); token != null; token = tokenizer.nextToken()) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static String text(Token token) {
+        if (token.value() instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        return String.valueOf(token.value());
+    }
+}
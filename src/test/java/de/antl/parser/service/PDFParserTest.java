@@ -0,0 +1,67 @@
+package de.antl.parser.service;
+
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFIntArray;
+import de.antl.parser.model.PDFRealArray;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PDFParserTest {
+
+    @Test
+    void dictionariesAndNumericArraysAreCompact() throws IOException, ParseException {
+        PDFDictionary dictionary = assertInstanceOf(PDFDictionary.class, parse("7 0 obj << /W [1 2 1]"
+                + " /MediaBox [0 0 612.5 792] /Kids [1 0 R] /Empty [] /Nested << /Mixed [1 (a) /N] >> >> endobj"));
+
+        PDFIntArray widths = assertInstanceOf(PDFIntArray.class, dictionary.get("W"));
+        assertArrayEquals(new int[]{1, 2, 1}, widths.toIntArray());
+        assertEquals(List.of(1, 2, 1), widths);
+        assertEquals(2, widths.getInt(1));
+
+        PDFRealArray mediaBox = assertInstanceOf(PDFRealArray.class, dictionary.get("MediaBox"));
+        assertArrayEquals(new double[]{0, 0, 612.5, 792}, mediaBox.toDoubleArray());
+        // Integers keep their type next to reals.
+        assertEquals(List.of(0, 0, 612.5, 792), mediaBox);
+
+        assertEquals(List.of(new PDFIndirectReference(1, 0)), dictionary.get("Kids"));
+        assertEquals(List.of(), dictionary.get("Empty"));
+        Map<String, Object> nested = PDFValues.asDictionary(dictionary.get("Nested"));
+        assertEquals(3, PDFValues.asArray(nested.get("Mixed")).size());
+        assertEquals(5, dictionary.size());
+    }
+
+    @Test
+    void dictionaryLookupsAndUpdates() throws IOException, ParseException {
+        PDFDictionary dictionary = (PDFDictionary) parse("1 0 obj << /A 1 /B 2 /C 3 /A 4 >> endobj");
+        // A repeated key keeps the last value, as in a map.
+        assertEquals(3, dictionary.size());
+        assertEquals(4, dictionary.get("A"));
+        // Keys that were not interned by the tokenizer are found by equality.
+        assertEquals(2, dictionary.get(new String("B")));
+
+        dictionary.put("D", 5);
+        assertEquals(3, dictionary.remove("C"));
+        assertNull(dictionary.get("C"));
+        assertEquals(Map.of("A", 4, "B", 2, "D", 5), dictionary);
+        assertEquals("A", dictionary.keyAt(0));
+    }
+
+    private static Object parse(String text) throws IOException, ParseException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+        PDFIndirectObject object = new PDFParser(new PDFBufferTokenizer(buffer)).parseIndirectObject();
+        return object.value();
+    }
+}
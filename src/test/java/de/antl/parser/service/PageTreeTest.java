@@ -0,0 +1,93 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.PDFPage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageTreeTest {
+
+    @Test
+    void lookupsSkipSubtreesByTheirCount() throws IOException, ParseException {
+        Set<Integer> parsed = ConcurrentHashMap.newKeySet();
+        try (PDFDocument document = open(twoSubtrees(6), parsed)) {
+            PDFPage page = document.getPage(4);
+            assertEquals(14, page.objectNumber());
+            assertEquals(4, page.index());
+            // Node 3 holds pages 0 to 2 and is passed by its /Count without reading them.
+            assertFalse(parsed.contains(10) || parsed.contains(11) || parsed.contains(12), parsed.toString());
+            assertEquals(10, document.getPage(0).objectNumber());
+            assertEquals(15, document.getPage(5).objectNumber());
+        }
+    }
+
+    @Test
+    void indexesBeyondTheCountFailWithoutAWalk() throws IOException, ParseException {
+        Set<Integer> parsed = ConcurrentHashMap.newKeySet();
+        try (PDFDocument document = open(twoSubtrees(6), parsed)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> document.getPage(6));
+            assertThrows(IndexOutOfBoundsException.class, () -> document.getPage(-1));
+            for (int number = 10; number <= 15; number++) {
+                assertFalse(parsed.contains(number), parsed.toString());
+            }
+        }
+    }
+
+    @Test
+    void anImpossibleCountIsClampedToTheObjects() throws IOException, ParseException {
+        try (PDFDocument document = open(twoSubtrees(2000000000), ConcurrentHashMap.newKeySet())) {
+            assertTrue(document.getPageCount() <= document.getXRefIndex().size());
+            assertEquals(13, document.getPage(3).objectNumber());
+        }
+    }
+
+    @Test
+    void countsThatDoNotMatchFallBackToTheLeaves() throws IOException, ParseException {
+        // The intermediate node claims one page but has three.
+        byte[] data = builder(6, 1).build("/Root 1 0 R");
+        try (PDFDocument document = open(data, ConcurrentHashMap.newKeySet())) {
+            assertEquals(6, document.getPageCount());
+            assertEquals(15, document.getPage(5).objectNumber());
+        }
+    }
+
+    // Root 2 has the intermediate nodes 3 and 4 with pages 10 to 12 and 13 to 15.
+    private static byte[] twoSubtrees(int rootCount) {
+        return builder(rootCount, 3).build("/Root 1 0 R");
+    }
+
+    private static TestDocuments.Builder builder(int rootCount, int firstCount) {
+        TestDocuments.Builder builder = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [3 0 R 4 0 R] /Count " + rootCount + " >>", false)
+                .object(3, "<< /Type /Pages /Parent 2 0 R /Kids [10 0 R 11 0 R 12 0 R] /Count " + firstCount + " >>",
+                        false)
+                .object(4, "<< /Type /Pages /Parent 2 0 R /Kids [13 0 R 14 0 R 15 0 R] /Count 3 >>", false);
+        for (int number = 10; number <= 15; number++) {
+            builder.object(number, "<< /Type /Page /Parent " + (number < 13 ? 3 : 4) + " 0 R >>", false);
+        }
+        return builder;
+    }
+
+    private static PDFDocument open(byte[] data, Set<Integer> parsed) throws IOException, ParseException {
+        ParseListener listener = new ParseListener() {
+            @Override
+            public void objectParsed(int objectNumber, int tokens, long tokenizeNanos, long nanos,
+                                     long allocatedBytes) {
+                parsed.add(objectNumber);
+            }
+        };
+        return PDFDocument.open(ByteBuffer.wrap(data), new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES), listener);
+    }
+}
@@ -0,0 +1,134 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectionTest {
+    // Every kind of value a skip has to pass: nested containers, references, and strings holding brackets.
+    private static final String PAGE = "3 0 obj << /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792]"
+            + " /Resources << /Font << /F1 5 0 R /F2 6 0 R >> /XObject << /Im1 7 0 R >> >>"
+            + " /Annots [<< /Subtype /Link /Rect [1 2 3 4] >> << /Subtype /Text /Contents (a >> ] \\) [ b) >>]"
+            + " /Extra [[1 2] << /A <3E3E> >> (<<) 8 0 R] /Rotate 90 >> endobj";
+
+    @Test
+    void pathsNestAndAWholeKeyCoversItsPaths() {
+        Projection projection = Projection.of("/Type", "Resources/Font", "Resources/Font/F1", "Info", "Info/Title");
+        assertFalse(projection.isAll());
+        assertTrue(projection.child("Type").isAll());
+        assertNull(projection.child("Kids"));
+
+        Projection resources = projection.child("Resources");
+        assertFalse(resources.isAll());
+        assertTrue(resources.child("Font").isAll());
+        assertNull(resources.child("XObject"));
+        // The shorter path was given first and already selects all of /Info.
+        assertTrue(projection.child("Info").isAll());
+
+        assertSame(Projection.ALL, Projection.ALL.child("Anything"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of("Type", "/"));
+    }
+
+    @Test
+    void onlyTheSelectedEntriesAreBuilt() throws IOException, ParseException {
+        Map<String, Object> page = PDFValues.asDictionary(parse(PAGE, Projection.of("Type", "Resources/Font")));
+        assertEquals(Set.of("Type", "Resources"), page.keySet());
+        assertEquals("Page", PDFValues.asName(page.get("Type")));
+
+        Map<String, Object> resources = PDFValues.asDictionary(page.get("Resources"));
+        assertEquals(Set.of("Font"), resources.keySet());
+        Map<String, Object> fonts = PDFValues.asDictionary(resources.get("Font"));
+        assertEquals(new PDFIndirectReference(6, 0), fonts.get("F2"));
+    }
+
+    @Test
+    void pathsApplyToEveryDictionaryInAnArray() throws IOException, ParseException {
+        Map<String, Object> page = PDFValues.asDictionary(parse(PAGE, Projection.of("Annots/Subtype", "Rotate")));
+        assertEquals(Set.of("Annots", "Rotate"), page.keySet());
+        assertEquals(90, page.get("Rotate"));
+        List<Object> annotations = PDFValues.asArray(page.get("Annots"));
+        assertEquals(2, annotations.size());
+        for (Object annotation : annotations) {
+            assertEquals(Set.of("Subtype"), PDFValues.asDictionary(annotation).keySet());
+        }
+    }
+
+    @Test
+    void skippedValuesEndWhereAFullParseEnds() throws IOException, ParseException {
+        // Selecting only the last key makes the skip cross every other value; /Rotate must still be 90.
+        Map<String, Object> full = PDFValues.asDictionary(parse(PAGE, Projection.ALL));
+        assertEquals(7, full.size());
+        Map<String, Object> rotate = PDFValues.asDictionary(parse(PAGE, Projection.of("Rotate")));
+        assertEquals(Map.of("Rotate", 90), rotate);
+
+        // Without a buffer the skip falls back to whole tokens.
+        String text = "3 0 obj << /Parent 2 0 R /Kids [<< /A [1 2] >> 4 0 R (x)] /Count 5 0 R /Rotate 90 >> endobj";
+        Map<String, Object> fromReader = PDFValues.asDictionary(new PDFParser(new PDFTokenizer(new StringReader(text)))
+                .parseIndirectObject(Projection.of("Rotate")).value());
+        assertEquals(Set.of("Rotate"), fromReader.keySet());
+        assertEquals("90", String.valueOf(fromReader.get("Rotate")));
+    }
+
+    @Test
+    void streamsKeepTheirLengthButSkipOtherEntries() throws IOException, ParseException {
+        String text = "4 0 obj << /Type /XObject /Subtype /Image /Length 11 /Width 2 >>\nstream\n>> ] endobj"
+                + "\nendstream\nendobj";
+        PDFStream stream = assertInstanceOf(PDFStream.class, parse(text, Projection.of("Subtype")));
+        assertEquals(Set.of("Subtype", "Length"), stream.dictionary().keySet());
+        assertEquals(11, stream.rawLength());
+
+        // Stream keys are kept only while the dictionary may still turn out to be a stream.
+        Map<String, Object> plain = PDFValues.asDictionary(parse("5 0 obj << /Length 3 /Type /Plain >> endobj",
+                Projection.of("Type")));
+        assertEquals(Set.of("Type"), plain.keySet());
+    }
+
+    @Test
+    void documentsParseProjectedObjectsWithoutCachingThem() throws IOException, ParseException {
+        for (boolean xrefStream : new boolean[]{false, true}) {
+            ObjectCache cache = new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES);
+            byte[] data = TestDocuments.pages(xrefStream, "Text");
+            try (PDFDocument document = PDFDocument.open(ByteBuffer.wrap(data), cache, ParseListener.NONE)) {
+                int number = TestDocuments.pageNumber(0);
+                PDFIndirectObject projected = document.getObject(number, Projection.of("Type"));
+                assertEquals(number, projected.objectNumber());
+                assertEquals(Set.of("Type"), PDFValues.asDictionary(projected.value()).keySet());
+                assertNull(cache.peek(number, 0));
+
+                PDFIndirectObject full = document.getObject(number);
+                assertTrue(PDFValues.asDictionary(full.value()).containsKey("MediaBox"));
+                // Once the whole object is cached it is returned as it is.
+                assertSame(full, document.getObject(number, Projection.of("Type")));
+
+                Map<String, Object> info = PDFValues.asDictionary(
+                        document.resolve(document.getTrailer().get("Info"), Projection.of("Producer")));
+                assertEquals(Set.of("Producer"), info.keySet());
+            }
+        }
+    }
+
+    private static Object parse(String text, Projection projection) throws IOException, ParseException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+        return new PDFParser(new PDFBufferTokenizer(buffer)).parseIndirectObject(projection).value();
+    }
+}
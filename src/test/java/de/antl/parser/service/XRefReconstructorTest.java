@@ -0,0 +1,113 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.metrics.ParseListener;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.text.TextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XRefReconstructorTest {
+    // A whole file as an embedded file's data: its objects must not replace those of the outer file.
+    private static final String EMBEDDED = "%PDF-1.7\n1 0 obj\n<< /Type /Catalog /Pages 30 0 R >>\nendobj\n"
+            + "30 0 obj\n<< /Type /Pages /Kids [] /Count 0 >>\nendobj\n"
+            + "trailer\n<< /Size 31 /Root 30 0 R >>\n%%EOF\n";
+
+    @Test
+    void tableDocumentWithoutItsXRef() throws IOException, ParseException {
+        byte[] data = TestDocuments.pages(false, "First", "Second");
+        try (PDFDocument document = recover(truncate(data, "xref\n"))) {
+            assertEquals(2, document.getPageCount());
+            assertTrue(new TextExtractor(document).extractPage(1).contains("Second"));
+            // The trailer was cut off with the table, so the root is the newest catalog.
+            assertEquals("Catalog", PDFValues.asName(PDFValues.asDictionary(document.getRoot()).get("Type")));
+        }
+    }
+
+    @Test
+    void compressedObjectsAreFoundInObjectStreams() throws IOException, ParseException {
+        byte[] data = TestDocuments.pages(true, "One", "Two", "Three");
+        try (PDFDocument document = recover(truncate(data, "startxref"))) {
+            XRefIndex index = document.getXRefIndex();
+            assertEquals(XRefIndex.TYPE_COMPRESSED, index.type(1));
+            assertEquals(XRefIndex.TYPE_COMPRESSED, index.type(TestDocuments.pageNumber(2)));
+            assertEquals(3, document.getPageCount());
+            assertTrue(new TextExtractor(document).extractPage(2).contains("Three"));
+        }
+    }
+
+    @Test
+    void markersInsideStreamDataAreIgnored() throws IOException, ParseException {
+        byte[] data = withEmbeddedFile(new TestDocuments.Builder())
+                .stream(9, "/Type /EmbeddedFile", ascii(EMBEDDED), false)
+                .build("/Root 1 0 R");
+        try (PDFDocument document = recover(data)) {
+            assertEquals(1, document.getPageCount());
+            XRefIndex index = document.getXRefIndex();
+            assertTrue(index.offset(1) < index.offset(9));
+            assertFalse(index.contains(30));
+        }
+    }
+
+    @Test
+    void embeddedTrailersAreIgnored() throws IOException, ParseException {
+        byte[] data = withEmbeddedFile(new TestDocuments.Builder())
+                .stream(9, "/Type /EmbeddedFile", ascii(EMBEDDED), false)
+                .build("/Root 1 0 R");
+        // Without the outer trailer the embedded one would be the only trailer left.
+        try (PDFDocument document = recover(truncate(data, "xref\n"))) {
+            assertEquals(1, document.getPageCount());
+        }
+    }
+
+    @Test
+    void indirectLengthsCoverDataWithEndstreamInside() throws IOException, ParseException {
+        // The first "endstream" is part of the data, so only /Length finds where the data really ends.
+        byte[] embedded = ascii("stream\nendstream\n" + EMBEDDED);
+        byte[] data = withEmbeddedFile(new TestDocuments.Builder())
+                .object(9, "<< /Type /EmbeddedFile /Length 10 0 R >>\nstream\n"
+                        + new String(embedded, StandardCharsets.ISO_8859_1) + "\nendstream", false)
+                .object(10, String.valueOf(embedded.length), false)
+                .build("/Root 1 0 R");
+        try (PDFDocument document = recover(data)) {
+            assertEquals(1, document.getPageCount());
+        }
+    }
+
+    @Test
+    void noObjectsAtAll() {
+        assertThrows(ParseException.class, () -> recover(ascii("%PDF-1.7\nnothing here\n%%EOF\n")));
+    }
+
+    private static TestDocuments.Builder withEmbeddedFile(TestDocuments.Builder builder) {
+        return builder
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [3 0 R] /Count 1 >>", false)
+                .object(3, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R >>", false)
+                .stream(4, "", ascii("BT ET"), false);
+    }
+
+    private static PDFDocument recover(byte[] data) throws IOException, ParseException {
+        return PDFDocument.recover(ByteBuffer.wrap(data), new ObjectCache(ObjectCache.DEFAULT_MAX_ENTRIES),
+                ParseListener.NONE);
+    }
+
+    // The file up to the last occurrence of the keyword.
+    private static byte[] truncate(byte[] data, String keyword) {
+        String text = new String(data, StandardCharsets.ISO_8859_1);
+        return ascii(text.substring(0, text.lastIndexOf(keyword)));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
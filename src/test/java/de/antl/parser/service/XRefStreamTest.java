@@ -0,0 +1,169 @@
+package de.antl.parser.service;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.filter.BufferPool;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.text.TextExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XRefStreamTest {
+
+    @Test
+    void documentIndexedByAnXRefStream() throws IOException, ParseException {
+        byte[] data = TestDocuments.pages(true, "Hello", "World", "Again");
+        try (PDFDocument document = PDFDocument.open(ByteBuffer.wrap(data))) {
+            XRefIndex index = document.getXRefIndex();
+            // 1-4 and the three pages are compressed into object stream 11; 12 is the xref stream itself.
+            assertEquals(13, index.size());
+            assertEquals(XRefIndex.TYPE_FREE, index.type(0));
+            int[] compressed = {1, 2, 3, 4, 5, 7, 9};
+            for (int i = 0; i < compressed.length; i++) {
+                assertEquals(XRefIndex.TYPE_COMPRESSED, index.type(compressed[i]), "object " + compressed[i]);
+                assertEquals(11, index.offset(compressed[i]));
+                assertEquals(i, index.generation(compressed[i]));
+            }
+            for (int number : new int[]{6, 8, 10, 11, 12}) {
+                assertEquals(XRefIndex.TYPE_IN_USE, index.type(number), "object " + number);
+                assertTrue(startsWith(data, (int) index.offset(number), number + " 0 obj"), "offset of " + number);
+            }
+
+            assertEquals("XRef", PDFValues.asName(document.getTrailer().get("Type")));
+            assertEquals("Catalog", PDFValues.asName(PDFValues.asDictionary(document.getObject(1).value()).get("Type")));
+            assertEquals(3, document.getPageCount());
+            assertEquals(13 - 1, document.loadAllObjects(2).size());
+            assertTrue(new TextExtractor(document).extractPage(1).contains("World"));
+        }
+    }
+
+    @Test
+    void entriesWithIndexSubsections() throws IOException, ParseException {
+        // /W [1 2 1]: object 0 free, 1 at offset 0x0102, then 10 compressed as index 3 of object stream 5.
+        byte[] entries = {0, 0, 0, (byte) 0xFF, 1, 0x01, 0x02, 0, 2, 0x00, 0x05, 3};
+        XRefIndex index = read("/W [1 2 1] /Index [0 2 10 1] /Size 11", entries);
+
+        assertEquals(11, index.size());
+        assertEquals(XRefIndex.TYPE_FREE, index.type(0));
+        assertEquals(255, index.generation(0));
+        assertEquals(XRefIndex.TYPE_IN_USE, index.type(1));
+        assertEquals(0x0102, index.offset(1));
+        assertEquals(XRefIndex.TYPE_COMPRESSED, index.type(10));
+        assertEquals(5, index.offset(10));
+        assertEquals(3, index.generation(10));
+        assertFalse(index.contains(5));
+    }
+
+    @Test
+    void zeroWidthTypeMeansInUse() throws IOException, ParseException {
+        XRefIndex index = read("/W [0 3 0] /Size 2", new byte[]{0, 0, 0x10, 0x01, 0x00, 0x00});
+        assertEquals(XRefIndex.TYPE_IN_USE, index.type(0));
+        assertEquals(0x10, index.offset(0));
+        assertEquals(XRefIndex.TYPE_IN_USE, index.type(1));
+        assertEquals(0x010000, index.offset(1));
+    }
+
+    @Test
+    void predictedXRefStream() throws IOException, ParseException {
+        // Most writers deflate xref streams with the PNG Up predictor, one row per entry.
+        byte[][] rows = {{1, 0, 0x10, 0}, {1, 0, 0x20, 0}, {2, 0, 0x07, 1}};
+        ByteArrayOutputStream predicted = new ByteArrayOutputStream();
+        byte[] up = new byte[4];
+        for (byte[] row : rows) {
+            predicted.write(2);
+            for (int i = 0; i < row.length; i++) {
+                predicted.write(row[i] - up[i]);
+            }
+            up = row;
+        }
+        byte[] encoded = TestDocuments.deflate(predicted.toByteArray());
+        XRefIndex index = read("/W [1 2 1] /Index [3 3] /Size 6 /Filter /FlateDecode"
+                + " /DecodeParms << /Predictor 12 /Columns 4 >>", encoded);
+
+        assertEquals(0x10, index.offset(3));
+        assertEquals(0x20, index.offset(4));
+        assertEquals(XRefIndex.TYPE_COMPRESSED, index.type(5));
+        assertEquals(7, index.offset(5));
+        assertEquals(1, index.generation(5));
+    }
+
+    @Test
+    void entriesBeyondTheDataAreIgnored() throws IOException, ParseException {
+        // /Size promises five entries, but the data holds one and a half.
+        XRefIndex index = read("/W [1 2 1] /Size 5", new byte[]{1, 0, 9, 0, 1, 0});
+        assertEquals(1, index.size());
+        assertEquals(9, index.offset(0));
+        assertFalse(index.contains(1));
+    }
+
+    @Test
+    void invalidWidthsAreRejected() {
+        assertThrows(ParseException.class, () -> read("/W [1 2] /Size 1", new byte[3]));
+        assertThrows(ParseException.class, () -> read("/W [0 0 0] /Size 1", new byte[0]));
+    }
+
+    @Test
+    void subsectionsBeyondSizeAreRejected() {
+        byte[] entry = {1, 0, 9, 0};
+        // Without the checks the index would grow to two billion entries for one object.
+        assertThrows(ParseException.class, () -> read("/W [1 2 1] /Index [2000000000 1] /Size 3", entry));
+        assertThrows(ParseException.class, () -> read("/W [1 2 1] /Index [2000000000 1]", entry));
+        assertThrows(ParseException.class, () -> read("/W [1 2 1] /Index [2 2] /Size 3", entry));
+        assertThrows(ParseException.class, () -> read("/W [1 2 1] /Index [-1 1] /Size 3", entry));
+        assertThrows(ParseException.class, () -> read("/W [1 2 1] /Size 2000000000", entry));
+        assertThrows(ParseException.class, () -> read("/W [1 2 1]", entry));
+    }
+
+    @Test
+    void subsectionsWithinTheLimitNeedNoSize() throws IOException, ParseException {
+        XRefIndex index = read("/W [1 2 1] /Index [7 1]", new byte[]{1, 0, 9, 0});
+        assertEquals(9, index.offset(7));
+    }
+
+    @Test
+    void tablesBeyondTheLimitAreRejected() {
+        byte[] data = ascii("%PDF-1.7\n1 0 obj\n<< >>\nendobj\nxref\n2000000000 1\n0000000009 00000 n \n"
+                + "trailer\n<< /Size 2000000001 /Root 1 0 R >>\nstartxref\n30\n%%EOF\n");
+        assertThrows(ParseException.class, () -> new XRefReader(ByteBuffer.wrap(data)).read(30));
+    }
+
+    private static XRefIndex read(String entries, byte[] data) throws IOException, ParseException {
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        object.writeBytes(ascii("1 0 obj << /Type /XRef " + entries + " /Length " + data.length + " >>\nstream\n"));
+        object.writeBytes(data);
+        object.writeBytes(ascii("\nendstream\nendobj\n"));
+        PDFStream stream = (PDFStream) parse(object.toByteArray()).value();
+
+        XRefIndex index = new XRefIndex();
+        try (BufferPool pool = new BufferPool()) {
+            XRefReader.addXRefStreamEntries(stream, index, pool);
+        }
+        return index;
+    }
+
+    private static PDFIndirectObject parse(byte[] data) throws IOException, ParseException {
+        return new PDFParser(new PDFBufferTokenizer(ByteBuffer.wrap(data))).parseIndirectObject();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        byte[] expected = ascii(prefix);
+        return offset >= 0 && offset + expected.length <= data.length
+                && Arrays.equals(data, offset, offset + expected.length, expected, 0, expected.length);
+    }
+}
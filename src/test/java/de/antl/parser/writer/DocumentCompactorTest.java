@@ -0,0 +1,150 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.CompactionResult;
+import de.antl.parser.model.PDFIndirectObject;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFValues;
+import de.antl.parser.text.TextExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentCompactorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void compactingATablePreservesObjectsAndText() throws IOException, ParseException {
+        roundTrip(false);
+    }
+
+    @Test
+    void compactingAnXRefStreamPreservesObjectsAndText() throws IOException, ParseException {
+        roundTrip(true);
+    }
+
+    private void roundTrip(boolean xrefStream) throws IOException, ParseException {
+        String[] texts = {"Alpha", "Beta", "Gamma", "Delta"};
+        Path source = Files.write(directory.resolve("source.pdf"), TestDocuments.pages(xrefStream, texts));
+        Path target = directory.resolve("compacted.pdf");
+
+        int objects;
+        CompactionResult result;
+        try (PDFDocument document = PDFDocument.open(source)) {
+            objects = documentObjects(document);
+            result = new DocumentCompactor(document, ForkJoinPool.commonPool()).write(target);
+        }
+        assertEquals(objects, result.objectsWritten());
+        assertEquals(0, result.duplicatesRemoved());
+        assertEquals(Files.size(target), result.outputLength());
+
+        try (PDFDocument document = PDFDocument.open(target)) {
+            assertEquals("XRef", PDFValues.asName(document.getTrailer().get("Type")));
+            assertEquals(objects, documentObjects(document));
+            assertEquals(texts.length, document.getPageCount());
+            assertEquals(List.of(texts), pageTexts(document));
+            assertEquals("Catalog", PDFValues.asName(PDFValues.asDictionary(document.getRoot()).get("Type")));
+            Object resources = document.resolve(document.getPage(0).resources());
+            Object fonts = document.resolve(PDFValues.asDictionary(resources).get("Font"));
+            Object font = document.resolve(PDFValues.asDictionary(fonts).get("F1"));
+            assertEquals("Helvetica", PDFValues.asName(PDFValues.asDictionary(font).get("BaseFont")));
+        }
+    }
+
+    @Test
+    void identicalContentIsMergedButPagesAreKept() throws IOException, ParseException {
+        // Pages 0 and 2 get the same Flate content stream; the pages themselves stay apart.
+        String[] texts = {"Same", "Other", "Same"};
+        Path source = Files.write(directory.resolve("source.pdf"), TestDocuments.pages(false, texts));
+        Path target = directory.resolve("compacted.pdf");
+
+        CompactionResult result;
+        try (PDFDocument document = PDFDocument.open(source)) {
+            result = new DocumentCompactor(document, ForkJoinPool.commonPool()).write(target);
+        }
+        assertEquals(1, result.duplicatesRemoved());
+        try (PDFDocument document = PDFDocument.open(target)) {
+            assertEquals(3, document.getPageCount());
+            assertEquals(List.of(texts), pageTexts(document));
+            assertEquals(result.objectsWritten(), documentObjects(document));
+        }
+    }
+
+    @Test
+    void unreachableObjectsAreDropped() throws IOException, ParseException {
+        byte[] data = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [] /Count 0 >>", false)
+                .object(3, "<< /Orphan true >>", false)
+                .build("/Root 1 0 R");
+        Path source = Files.write(directory.resolve("source.pdf"), data);
+        try (PDFDocument document = PDFDocument.open(source)) {
+            CompactionResult result = new DocumentCompactor(document, ForkJoinPool.commonPool())
+                    .write(directory.resolve("compacted.pdf"));
+            assertEquals(3, result.objectsRead());
+            assertEquals(2, result.objectsWritten());
+        }
+    }
+
+    @Test
+    void compactingOntoTheSourceIsRefused() throws IOException, ParseException {
+        byte[] data = TestDocuments.pages(false, "Keep");
+        Path source = Files.write(directory.resolve("source.pdf"), data);
+        try (PDFDocument document = PDFDocument.open(source)) {
+            DocumentCompactor compactor = new DocumentCompactor(document, ForkJoinPool.commonPool());
+            assertThrows(IOException.class, () -> compactor.write(source));
+            assertThrows(IOException.class, () -> compactor.write(directory.resolve(".").resolve("source.pdf")));
+        }
+        assertArrayEquals(data, Files.readAllBytes(source));
+    }
+
+    @Test
+    void encryptedDocumentsAreRejected() throws IOException, ParseException {
+        byte[] data = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [] /Count 0 >>", false)
+                .object(3, "<< /Filter /Standard /V 2 /R 3 >>", false)
+                .build("/Root 1 0 R /Encrypt 3 0 R");
+        Path source = Files.write(directory.resolve("source.pdf"), data);
+        try (PDFDocument document = PDFDocument.open(source)) {
+            DocumentCompactor compactor = new DocumentCompactor(document, ForkJoinPool.commonPool());
+            assertThrows(ParseException.class, () -> compactor.write(directory.resolve("compacted.pdf")));
+        }
+    }
+
+    // Objects of the document itself, leaving out object streams and xref streams, which only hold or
+    // index the others.
+    private static int documentObjects(PDFDocument document) throws IOException, ParseException {
+        int count = 0;
+        for (PDFIndirectObject object : document.loadAllObjects(1)) {
+            String type = object.value() instanceof PDFStream stream
+                    ? PDFValues.asName(stream.dictionary().get("Type")) : null;
+            if (!"ObjStm".equals(type) && !"XRef".equals(type)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> pageTexts(PDFDocument document) throws IOException, ParseException {
+        TextExtractor extractor = new TextExtractor(document);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < document.getPageCount(); i++) {
+            texts.add(extractor.extractPage(i).strip());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,169 @@
+package de.antl.parser.writer;
+
+import de.antl.parser.TestDocuments;
+import de.antl.parser.enums.TokenType;
+import de.antl.parser.exceptions.ParseException;
+import de.antl.parser.model.PDFDictionary;
+import de.antl.parser.model.PDFIndirectReference;
+import de.antl.parser.model.PDFStream;
+import de.antl.parser.model.Token;
+import de.antl.parser.model.XRefIndex;
+import de.antl.parser.service.PDFDocument;
+import de.antl.parser.service.PDFValues;
+import de.antl.parser.text.TextExtractor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalUpdateTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void stampAndDeleteAPageAfterATable() throws IOException, ParseException {
+        roundTrip(false);
+    }
+
+    @Test
+    void stampAndDeleteAPageAfterAnXRefStream() throws IOException, ParseException {
+        roundTrip(true);
+    }
+
+    private void roundTrip(boolean xrefStream) throws IOException, ParseException {
+        byte[] original = TestDocuments.pages(xrefStream, "One", "Two", "Three");
+        Path file = write(original);
+        int objectsBefore;
+        try (PDFDocument document = PDFDocument.open(file)) {
+            objectsBefore = document.loadAllObjects(1).size();
+            IncrementalUpdate update = new IncrementalUpdate(document);
+
+            // Stamp the first page with a second content stream.
+            PDFIndirectReference stamp = update.add(new PDFStream(new PDFDictionary(),
+                    ByteBuffer.wrap(ascii("BT /F1 9 Tf 72 40 Td (Stamped) Tj ET"))));
+            PDFDictionary page = copy(document.getObject(TestDocuments.pageNumber(0)).value());
+            page.put("Contents", List.of(page.get("Contents"), stamp));
+            update.update(TestDocuments.pageNumber(0), page);
+
+            // Drop the second page from the tree and free it.
+            PDFDictionary pages = copy(document.getObject(2).value());
+            pages.put("Kids", List.of(new PDFIndirectReference(TestDocuments.pageNumber(0), 0),
+                    new PDFIndirectReference(TestDocuments.pageNumber(2), 0)));
+            pages.put("Count", 2);
+            update.update(2, pages);
+            update.delete(TestDocuments.pageNumber(1));
+
+            PDFDictionary info = new PDFDictionary();
+            info.put("Title", new Token(TokenType.STRING, "Updated"));
+            update.setTrailerEntry("Info", update.add(info));
+            assertEquals(5, update.changeCount());
+
+            long length = update.appendTo(file);
+            assertEquals(Files.size(file), length);
+        }
+
+        byte[] updated = Files.readAllBytes(file);
+        // Nothing that was there is rewritten.
+        assertArrayEquals(original, Arrays.copyOf(updated, original.length));
+
+        try (PDFDocument document = PDFDocument.open(file)) {
+            assertEquals(2, document.getPageCount());
+            TextExtractor extractor = new TextExtractor(document);
+            String first = extractor.extractPage(0);
+            assertTrue(first.contains("One") && first.contains("Stamped"), first);
+            assertTrue(extractor.extractPage(1).contains("Three"));
+
+            XRefIndex index = document.getXRefIndex();
+            assertEquals(XRefIndex.TYPE_FREE, index.type(TestDocuments.pageNumber(1)));
+            assertEquals(1, index.generation(TestDocuments.pageNumber(1)));
+            assertNull(document.getObject(TestDocuments.pageNumber(1)));
+            assertEquals("Updated", new String(PDFValues.asBytes(
+                    PDFValues.asDictionary(document.getInfo()).get("Title")), StandardCharsets.ISO_8859_1));
+            // One page freed, a stamp and an info dictionary added; an xref stream adds itself as well.
+            assertEquals(objectsBefore + 1 + (xrefStream ? 1 : 0), document.loadAllObjects(1).size());
+        }
+    }
+
+    @Test
+    void updatesCanBeStacked() throws IOException, ParseException {
+        Path file = write(TestDocuments.pages(false, "Base"));
+        for (String title : new String[]{"First", "Second"}) {
+            try (PDFDocument document = PDFDocument.open(file)) {
+                IncrementalUpdate update = new IncrementalUpdate(document);
+                PDFDictionary info = copy(document.getObject(4).value());
+                info.put("Title", new Token(TokenType.STRING, title));
+                update.update(4, info);
+                update.appendTo(file);
+            }
+        }
+        try (PDFDocument document = PDFDocument.open(file)) {
+            Object title = PDFValues.asDictionary(document.getInfo()).get("Title");
+            assertEquals("Second", new String(PDFValues.asBytes(title), StandardCharsets.ISO_8859_1));
+            assertTrue(new TextExtractor(document).extractPage(0).contains("Base"));
+        }
+    }
+
+    @Test
+    void encryptedDocumentsAreRejected() throws IOException, ParseException {
+        byte[] data = new TestDocuments.Builder()
+                .object(1, "<< /Type /Catalog /Pages 2 0 R >>", false)
+                .object(2, "<< /Type /Pages /Kids [] /Count 0 >>", false)
+                .object(3, "<< /Filter /Standard /V 2 /R 3 >>", false)
+                .build("/Root 1 0 R /Encrypt 3 0 R");
+        Path file = write(data);
+        try (PDFDocument document = PDFDocument.open(file)) {
+            IncrementalUpdate update = new IncrementalUpdate(document);
+            update.add(new PDFDictionary());
+            assertThrows(ParseException.class, () -> update.appendTo(file));
+        }
+        assertArrayEquals(data, Files.readAllBytes(file));
+    }
+
+    @Test
+    void aFileThatChangedSinceReadingIsRejected() throws IOException, ParseException {
+        Path file = write(TestDocuments.pages(false, "Page"));
+        try (PDFDocument document = PDFDocument.open(file)) {
+            Files.write(file, new byte[]{'\n'}, StandardOpenOption.APPEND);
+            IncrementalUpdate update = new IncrementalUpdate(document);
+            update.add(new PDFDictionary());
+            assertThrows(IOException.class, () -> update.appendTo(file));
+        }
+    }
+
+    @Test
+    void sectionEntriesAndUnknownObjectsAreRejected() throws IOException, ParseException {
+        try (PDFDocument document = PDFDocument.open(ByteBuffer.wrap(TestDocuments.pages(false, "Page")))) {
+            IncrementalUpdate update = new IncrementalUpdate(document);
+            assertThrows(IllegalArgumentException.class, () -> update.setTrailerEntry("Prev", 0));
+            assertThrows(IllegalArgumentException.class, () -> update.update(0, null));
+            assertThrows(IllegalArgumentException.class, () -> update.delete(100));
+        }
+    }
+
+    private Path write(byte[] data) throws IOException {
+        return Files.write(directory.resolve("document.pdf"), data);
+    }
+
+    private static PDFDictionary copy(Object dictionary) {
+        PDFDictionary copy = new PDFDictionary();
+        copy.putAll(PDFValues.asDictionary(dictionary));
+        return copy;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}